@@ -0,0 +1,108 @@
+package com.netflix.discovery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.MyDataCenterInstanceConfig;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Client side registry maintenance: applying a delta to the local registry copy (which reshuffles the changed
+ * applications, and rebuilds the lists of their VIPs only), and shuffling the full registry alone.
+ *
+ * <p>
+ * The client neither registers nor fetches the registry, its local copy is populated by applying a delta
+ * that adds all instances. The benchmarked delta modifies {@code deltaSize} instances, so applying it
+ * repeatedly keeps the registry unchanged. Instances are assigned to applications in turn, so each of them
+ * is in a different application, up to the application count. The cost of {@code updateDelta} grows with
+ * {@code deltaSize}, and only slightly with {@code instanceCount}, as the unchanged applications are still
+ * copied into the new registry snapshot by reference.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientRegistryBenchmark {
+
+    @Param({"1000", "20000", "200000"})
+    public int instanceCount;
+
+    @Param({"10", "100", "1000"})
+    public int deltaSize;
+
+    private DiscoveryClient client;
+    private Applications delta;
+    private Applications applications;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigurationManager.getConfigInstance().setProperty("eureka.registration.enabled", "false");
+        ConfigurationManager.getConfigInstance().setProperty("eureka.shouldFetchRegistry", "false");
+
+        ApplicationInfoManager applicationInfoManager =
+                new ApplicationInfoManager(new MyDataCenterInstanceConfig(), InstanceInfoGenerator.takeOne());
+        client = new DiscoveryClient(applicationInfoManager, new DefaultEurekaClientConfig());
+
+        InstanceInfoGenerator generator = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 100))
+                .withMetaData(true).build();
+        List<InstanceInfo> instances = generator.toInstanceList();
+        client.updateDelta(toDelta(instances, ActionType.ADDED));
+        delta = toDelta(instances.subList(0, Math.min(deltaSize, instances.size())), ActionType.MODIFIED);
+
+        applications = generator.toApplications();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Benchmark
+    public Applications updateDelta() {
+        client.updateDelta(delta);
+        return client.getApplications();
+    }
+
+    @Benchmark
+    public Applications shuffleInstances() {
+        applications.shuffleInstances(true);
+        return applications;
+    }
+
+    private static Applications toDelta(List<InstanceInfo> instances, ActionType actionType) {
+        Applications delta = new Applications();
+        for (InstanceInfo instance : instances) {
+            instance.setActionType(actionType);
+            Application app = delta.getRegisteredApplications(instance.getAppName());
+            if (app == null) {
+                app = new Application(instance.getAppName());
+                delta.addApplication(app);
+            }
+            app.addInstance(instance);
+        }
+        delta.setVersion(1L);
+        return delta;
+    }
+}
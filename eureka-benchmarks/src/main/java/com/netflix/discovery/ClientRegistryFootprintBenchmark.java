@@ -0,0 +1,75 @@
+package com.netflix.discovery;
+
+import java.lang.management.ManagementFactory;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+
+/**
+ * Heap footprint of the registry held by a client: the registry entries as decoded from a JSON full registry
+ * payload, and compacted by {@link InstanceInfo#compact()}, as the clients with compacted instances enabled hold them.
+ *
+ * <p>
+ * The retained heap is not a JMH metric, so this is a plain program, run with "gradle footprint", or with the
+ * instance counts to measure, for example: gradle footprint -PfootprintArgs="1000 50000". The footprint is the
+ * growth of the used heap after a full GC, with the decoded registry reachable. The payload is decoded once
+ * before measuring, so the strings shared through the string cache are not counted, as in a long running client.
+ * </p>
+ */
+public class ClientRegistryFootprintBenchmark {
+
+    private static final int[] DEFAULT_INSTANCE_COUNTS = {1000, 20000, 50000};
+
+    public static void main(String[] args) throws Exception {
+        int[] instanceCounts = DEFAULT_INSTANCE_COUNTS;
+        if (args.length > 0) {
+            instanceCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                instanceCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        CodecWrapper codec = CodecWrappers.getCodec(CodecWrappers.JacksonJson.class);
+        for (int instanceCount : instanceCounts) {
+            String payload = codec.encode(InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 100))
+                    .withMetaData(true).build().toApplications());
+            codec.decode(payload, Applications.class);
+
+            long decodedBytes = retainedBytes(codec, payload, false);
+            long compactedBytes = retainedBytes(codec, payload, true);
+            System.out.printf("%d instances: %d bytes per instance as decoded, %d bytes per instance compacted (%.1f%%)%n",
+                    instanceCount, decodedBytes / instanceCount, compactedBytes / instanceCount,
+                    100.0 * compactedBytes / decodedBytes);
+        }
+    }
+
+    private static long retainedBytes(CodecWrapper codec, String payload, boolean compact) throws Exception {
+        long before = usedHeap();
+        Applications applications = codec.decode(payload, Applications.class);
+        if (compact) {
+            for (Application application : applications.getRegisteredApplications()) {
+                for (InstanceInfo instance : application.getInstancesAsIsFromEureka()) {
+                    instance.compact();
+                }
+            }
+        }
+        long after = usedHeap();
+        // Keeps the registry reachable until the heap is measured
+        if (applications.getRegisteredApplications().isEmpty()) {
+            throw new IllegalStateException("Empty registry decoded");
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,61 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of a full registry with each of the codecs in {@link CodecWrappers}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"JacksonJson", "JacksonJsonMini", "LegacyJacksonJson", "XStreamJson",
+            "JacksonXml", "JacksonXmlMini", "XStreamXml"})
+    public String codecName;
+
+    @Param({"1000", "20000", "200000"})
+    public int instanceCount;
+
+    private CodecWrapper codec;
+    private Applications applications;
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        codec = CodecWrappers.getCodec(codecName);
+        applications = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 100))
+                .withMetaData(true).build().toApplications();
+        encoded = codec.encode(applications);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return codec.encode(applications);
+    }
+
+    @Benchmark
+    public Applications decode() throws Exception {
+        return codec.decode(encoded, Applications.class);
+    }
+}
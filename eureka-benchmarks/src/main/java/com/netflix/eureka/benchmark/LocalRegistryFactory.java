@@ -0,0 +1,68 @@
+package com.netflix.eureka.benchmark;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.cluster.PeerEurekaNodes;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Creates standalone registries (no peers, no remote regions) for benchmarks. Registry operations
+ * are invoked as replications, so nothing is replicated further.
+ */
+public final class LocalRegistryFactory {
+
+    private LocalRegistryFactory() {
+    }
+
+    /**
+     * Sets an experimental server property. It must be set before the registry is created.
+     */
+    public static void setExperimental(String name, Object value) {
+        setProperty("experimental." + name, value);
+    }
+
+    /**
+     * Sets a server property. It must be set before the registry is created.
+     */
+    public static void setProperty(String name, Object value) {
+        ConfigurationManager.getConfigInstance().setProperty("eureka." + name, value);
+    }
+
+    public static PeerAwareInstanceRegistryImpl create() throws Exception {
+        // Unless a benchmark needs a stable delta, keep the change log short, so long benchmark runs
+        // do not accumulate changes
+        setPropertyIfAbsent("retentionTimeInMSInDeltaQueue", 1000);
+        setPropertyIfAbsent("deltaRetentionTimerIntervalInMs", 1000);
+
+        EurekaServerConfig serverConfig = new DefaultEurekaServerConfig();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                mock(EurekaClient.class)
+        );
+        registry.init(mock(PeerEurekaNodes.class));
+        return registry;
+    }
+
+    private static void setPropertyIfAbsent(String name, Object value) {
+        if (!ConfigurationManager.getConfigInstance().containsKey("eureka." + name)) {
+            setProperty(name, value);
+        }
+    }
+
+    public static PeerAwareInstanceRegistryImpl create(Iterable<InstanceInfo> instances) throws Exception {
+        PeerAwareInstanceRegistryImpl registry = create();
+        for (InstanceInfo instance : instances) {
+            registry.register(instance, true);
+        }
+        return registry;
+    }
+}
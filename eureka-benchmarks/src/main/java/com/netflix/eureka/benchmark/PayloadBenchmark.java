@@ -0,0 +1,104 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.Version;
+import com.netflix.eureka.registry.Key;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl;
+import com.netflix.eureka.registry.ResponseCache;
+import com.netflix.eureka.registry.ResponseCacheImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full and delta registry payload generation by the response cache.
+ *
+ * <p>
+ * Each invocation invalidates the payload (as a registry change does) and reads it back, so the payload is
+ * generated from the registry every time. The read only cache is disabled, so the read goes straight to the
+ * generated payload. The delta consists of {@code deltaSize} re-registered instances, kept for the whole run.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadBenchmark {
+
+    @Param({"1000", "20000", "200000"})
+    public int instanceCount;
+
+    @Param({"100"})
+    public int deltaSize;
+
+    @Param({"JSON", "XML"})
+    public Key.KeyType keyType;
+
+    @Param({"full", "compact"})
+    public EurekaAccept eurekaAccept;
+
+    private PeerAwareInstanceRegistryImpl registry;
+    private ResponseCache responseCache;
+    private String invalidatedAppName;
+    private Key fullKey;
+    private Key deltaKey;
+    private long deltaVersion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        LocalRegistryFactory.setProperty("shouldUseReadOnlyResponseCache", false);
+        LocalRegistryFactory.setProperty("retentionTimeInMSInDeltaQueue", TimeUnit.HOURS.toMillis(1));
+        LocalRegistryFactory.setProperty("deltaRetentionTimerIntervalInMs", TimeUnit.HOURS.toMillis(1));
+
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 100))
+                .withMetaData(true).build().toInstanceList();
+        registry = LocalRegistryFactory.create(instances);
+        deltaVersion = registry.getRegistryVersion();
+        for (int i = 0; i < deltaSize; i++) {
+            registry.register(instances.get(i), true);
+        }
+        responseCache = registry.getResponseCache();
+        invalidatedAppName = instances.get(0).getAppName();
+        fullKey = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS, keyType, Version.V2, eurekaAccept);
+        deltaKey = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA, keyType, Version.V2, eurekaAccept);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    public String fullPayload() {
+        responseCache.invalidate(invalidatedAppName, null, null);
+        return responseCache.get(fullKey);
+    }
+
+    @Benchmark
+    public String deltaPayload() {
+        responseCache.invalidate(invalidatedAppName, null, null);
+        return responseCache.get(deltaKey);
+    }
+
+    @Benchmark
+    public String deltaSinceVersionPayload() {
+        return responseCache.getDeltaSince(deltaKey, deltaVersion);
+    }
+}
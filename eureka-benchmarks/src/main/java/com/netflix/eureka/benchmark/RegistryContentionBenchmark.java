@@ -0,0 +1,139 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of concurrent registry mutations, each thread mutating instances of its own application,
+ * alone, with a concurrent delta reader, and next to threads renewing leases.
+ *
+ * <p>
+ * The {@code lockStripes} parameter sets the number of registry lock stripes. With a single stripe all
+ * mutations share one lock, as they did before the registry lock was striped by application.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryContentionBenchmark {
+
+    @Param({"1", "64"})
+    public int lockStripes;
+
+    @Param({"10000"})
+    public int instanceCount;
+
+    @Param({"100"})
+    public int applicationCount;
+
+    private PeerAwareInstanceRegistryImpl registry;
+    private List<List<InstanceInfo>> instancesByApp;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        LocalRegistryFactory.setExperimental("registry.lockStripes", lockStripes);
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(instanceCount, applicationCount).build().toInstanceList();
+        registry = LocalRegistryFactory.create(instances);
+        Map<String, List<InstanceInfo>> byApp = new HashMap<>();
+        for (InstanceInfo instance : instances) {
+            List<InstanceInfo> appInstances = byApp.get(instance.getAppName());
+            if (appInstances == null) {
+                appInstances = new ArrayList<>();
+                byApp.put(instance.getAppName(), appInstances);
+            }
+            appInstances.add(instance);
+        }
+        instancesByApp = new ArrayList<>(byApp.values());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class MutatorState {
+        private List<InstanceInfo> instances;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(RegistryContentionBenchmark benchmark) {
+            int threadIdx = benchmark.threadCounter.getAndIncrement();
+            instances = benchmark.instancesByApp.get(threadIdx % benchmark.instancesByApp.size());
+        }
+
+        InstanceInfo nextInstance() {
+            next = (next + 1) % instances.size();
+            return instances.get(next);
+        }
+    }
+
+    @Benchmark
+    @Group("mutations")
+    @GroupThreads(4)
+    public void mutationsOnly(MutatorState state) {
+        mutate(state);
+    }
+
+    @Benchmark
+    @Group("mutationsWithDeltaReader")
+    @GroupThreads(3)
+    public void mutationsWithReader(MutatorState state) {
+        mutate(state);
+    }
+
+    @Benchmark
+    @Group("mutationsWithDeltaReader")
+    @GroupThreads(1)
+    public Applications deltaReader() {
+        return registry.getApplicationDeltasSince(Math.max(0, registry.getRegistryVersion() - 100));
+    }
+
+    @Benchmark
+    @Group("mutationsWithRenewals")
+    @GroupThreads(1)
+    public void mutationsWithRenewer(MutatorState state) {
+        mutate(state);
+    }
+
+    @Benchmark
+    @Group("mutationsWithRenewals")
+    @GroupThreads(3)
+    public boolean renewer(MutatorState state) {
+        InstanceInfo instance = state.nextInstance();
+        return registry.renew(instance.getAppName(), instance.getId(), true);
+    }
+
+    private void mutate(MutatorState state) {
+        // A re-registration replaces the lease, and goes through the same locking and change log as other mutations
+        registry.register(state.nextInstance(), true);
+    }
+}
@@ -0,0 +1,78 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of lease renewals, as received from clients and from peers. Run with the GC profiler
+ * ({@code -prof gc}) to see the allocation rate per renewal.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RenewBenchmark {
+
+    @Param({"10000"})
+    public int instanceCount;
+
+    @Param({"100"})
+    public int applicationCount;
+
+    private PeerAwareInstanceRegistryImpl registry;
+    private List<InstanceInfo> instances;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        instances = InstanceInfoGenerator.newBuilder(instanceCount, applicationCount).build().toInstanceList();
+        registry = LocalRegistryFactory.create(instances);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class RenewerState {
+        private int next;
+
+        InstanceInfo nextInstance(List<InstanceInfo> instances) {
+            next = (next + 1) % instances.size();
+            return instances.get(next);
+        }
+    }
+
+    @Benchmark
+    public boolean clientRenew(RenewerState state) {
+        InstanceInfo instance = state.nextInstance(instances);
+        return registry.renew(instance.getAppName(), instance.getId(), false);
+    }
+
+    @Benchmark
+    public boolean replicatedRenew(RenewerState state) {
+        InstanceInfo instance = state.nextInstance(instances);
+        return registry.renew(instance.getAppName(), instance.getId(), true);
+    }
+}
@@ -0,0 +1,141 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.eureka.util.batcher.TaskDispatcher;
+import com.netflix.eureka.util.batcher.TaskDispatchers;
+import com.netflix.eureka.util.batcher.TaskProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and throughput of the batching task dispatchers, with a processor that completes immediately, so only
+ * the dispatching overhead is measured. The batching delay is 0, so no time is spent waiting for a batch to fill.
+ *
+ * <ul>
+ *     <li>{@code latency} submits a single task, and waits until it is processed</li>
+ *     <li>{@code throughput} submits {@code burstSize} tasks with {@code distinctIds} different ids, and waits
+ *     until all tasks left after de-duplication are processed</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskDispatcherBenchmark {
+
+    private static final long EXPIRY_TIME_MS = 60 * 1000;
+
+    @Param({"acceptor", "eventDriven"})
+    public String dispatcherType;
+
+    @Param({"1", "20"})
+    public int workerCount;
+
+    @Param({"10000"})
+    public int burstSize;
+
+    @Param({"1000"})
+    public int distinctIds;
+
+    private final CompletionCountingProcessor processor = new CompletionCountingProcessor();
+
+    private TaskDispatcher<Integer, Integer> dispatcher;
+
+    private int nextLatencyTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("eventDriven".equals(dispatcherType)) {
+            dispatcher = TaskDispatchers.createEventDrivenBatchingTaskDispatcher(
+                    "benchmark", 10000, 250, workerCount, 0, 1000, 100, processor);
+        } else {
+            dispatcher = TaskDispatchers.createBatchingTaskDispatcher(
+                    "benchmark", 10000, 250, workerCount, 0, 1000, 100, processor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public void latency() throws InterruptedException {
+        // Ids are not reused, so the task is never merged with one from the previous invocation
+        int id = distinctIds + nextLatencyTaskId++;
+        dispatcher.process(id, id, System.currentTimeMillis() + EXPIRY_TIME_MS);
+        processor.awaitCompletions(1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void throughput() throws InterruptedException {
+        // Which copies are merged depends on timing, so the burst is followed by a marker task with each id,
+        // which is processed after the burst, and only the markers are awaited.
+        long expiryTime = System.currentTimeMillis() + EXPIRY_TIME_MS;
+        for (int i = 0; i < burstSize; i++) {
+            int id = i % distinctIds;
+            dispatcher.process(id, id, expiryTime);
+        }
+        for (int id = 0; id < distinctIds; id++) {
+            dispatcher.process(id, CompletionCountingProcessor.MARKER, expiryTime);
+        }
+        processor.awaitMarkers(distinctIds);
+    }
+
+    static class CompletionCountingProcessor implements TaskProcessor<Integer> {
+
+        static final Integer MARKER = -1;
+
+        private final Semaphore completions = new Semaphore(0);
+        private final Semaphore markers = new Semaphore(0);
+
+        @Override
+        public ProcessingResult process(Integer task) {
+            complete(task);
+            return ProcessingResult.Success;
+        }
+
+        @Override
+        public ProcessingResult process(List<Integer> tasks) {
+            for (Integer task : tasks) {
+                complete(task);
+            }
+            return ProcessingResult.Success;
+        }
+
+        private void complete(Integer task) {
+            if (MARKER.equals(task)) {
+                markers.release();
+            } else {
+                completions.release();
+            }
+        }
+
+        void awaitCompletions(int count) throws InterruptedException {
+            completions.acquire(count);
+        }
+
+        void awaitMarkers(int count) throws InterruptedException {
+            markers.acquire(count);
+            // Drop the completions of the burst tasks, which are not awaited
+            completions.drainPermits();
+        }
+    }
+}
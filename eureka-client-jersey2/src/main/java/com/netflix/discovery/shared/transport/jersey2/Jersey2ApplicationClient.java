@@ -32,6 +32,7 @@ import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.DiscoveryClient;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
@@ -187,6 +188,27 @@ public class Jersey2ApplicationClient implements EurekaHttpClient {
         return getApplicationsInternal("apps/delta");
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion) {
+        return getApplicationsInternal("apps/delta", "since", Long.toString(registryVersion));
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplications(InterestSet interestSet) {
+        return getApplicationsInternal("apps/", "interest", interestSet.toString());
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDelta(InterestSet interestSet) {
+        return getApplicationsInternal("apps/delta", "interest", interestSet.toString());
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion, InterestSet interestSet) {
+        return getApplicationsInternal("apps/delta",
+                "since", Long.toString(registryVersion), "interest", interestSet.toString());
+    }
+
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress) {
         return getApplicationsInternal("vips/" + vipAddress);
@@ -221,10 +243,17 @@ public class Jersey2ApplicationClient implements EurekaHttpClient {
         }
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath) {
+    /**
+     * @param queryParams query parameter name/value pairs
+     */
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String... queryParams) {
         Response response = null;
         try {
-            Builder requestBuilder = jerseyClient.target(serviceUrl).path(urlPath).request();
+            JerseyWebTarget webTarget = jerseyClient.target(serviceUrl).path(urlPath);
+            for (int i = 0; i < queryParams.length; i += 2) {
+                webTarget = webTarget.queryParam(queryParams[i], queryParams[i + 1]);
+            }
+            Builder requestBuilder = webTarget.request();
             addExtraHeaders(requestBuilder);
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get();
 
@@ -9,6 +9,7 @@ import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonJsonMini;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonXml;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonXmlMini;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.LegacyJacksonJson;
+import com.netflix.discovery.converters.wrappers.CodecWrappers.StreamingJson;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.XStreamJson;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.XStreamXml;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
@@ -26,6 +27,7 @@ public enum EurekaAccept {
     static {
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(LegacyJacksonJson.class), full);
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(JacksonJson.class), full);
+        decoderNameToAcceptMap.put(CodecWrappers.getCodecName(StreamingJson.class), full);
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(XStreamJson.class), full);
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(XStreamXml.class), full);
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(JacksonXml.class), full);
@@ -35,6 +35,7 @@ import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.discovery.converters.Auto;
 import com.netflix.discovery.converters.EurekaJacksonCodec.InstanceInfoSerializer;
 import com.netflix.discovery.provider.Serializer;
+import com.netflix.discovery.util.ImmutableArrayMap;
 import com.netflix.discovery.util.StringCache;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamOmitField;
@@ -164,7 +165,7 @@ public class InstanceInfo {
             @JsonProperty("actionType") ActionType actionType,
             @JsonProperty("asgName") String asgName) {
         this.instanceId = instanceId;
-        this.sid = sid;
+        this.sid = StringCache.intern(sid);
         this.appName = StringCache.intern(appName);
         this.appGroupName = StringCache.intern(appGroupName);
         this.ipAddr = ipAddr;
@@ -194,9 +195,9 @@ public class InstanceInfo {
         if (metadata == null) {
             this.metadata = Collections.emptyMap();
         } else if (metadata.size() == 1) {
-            this.metadata = removeMetadataMapLegacyValues(metadata);
+            this.metadata = internMetadata(removeMetadataMapLegacyValues(metadata));
         } else {
-            this.metadata = metadata;
+            this.metadata = internMetadata(metadata);
         }
 
         if (sid == null) {
@@ -204,6 +205,21 @@ public class InstanceInfo {
         }
     }
 
+    /**
+     * @return a map with the metadata keys and values shared through the {@link StringCache}, like the other
+     * decoders do
+     */
+    private static Map<String, String> internMetadata(Map<String, String> metadata) {
+        if (metadata.isEmpty()) {
+            return metadata;
+        }
+        Map<String, String> interned = new HashMap<String, String>(metadata.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            interned.put(StringCache.intern(entry.getKey()), StringCache.intern(entry.getValue()));
+        }
+        return interned;
+    }
+
     private Map<String, String> removeMetadataMapLegacyValues(Map<String, String> metadata) {
         if (InstanceInfoSerializer.METADATA_COMPATIBILITY_VALUE.equals(metadata.get(InstanceInfoSerializer.METADATA_COMPATIBILITY_KEY))) {
             // TODO this else if can be removed once the server no longer uses legacy json
@@ -373,7 +389,7 @@ public class InstanceInfo {
 
         public Builder setAppGroupName(String appGroupName) {
             if (appGroupName != null) {
-                result.appGroupName = appGroupName.toUpperCase(Locale.ROOT);
+                result.appGroupName = StringCache.intern(appGroupName.toUpperCase(Locale.ROOT));
             } else {
                 result.appGroupName = null;
             }
@@ -447,7 +463,7 @@ public class InstanceInfo {
          */
         @Deprecated
         public Builder setSID(String sid) {
-            result.sid = sid;
+            result.sid = StringCache.intern(sid);
             return this;
         }
 
@@ -1298,6 +1314,34 @@ public class InstanceInfo {
         setIsDirty();
     }
 
+    /**
+     * Shrinks the heap footprint of an instance received from the server, for the clients holding large
+     * registries. The metadata, and the {@link AmazonInfo} metadata, are moved into immutable array backed maps,
+     * and a data center info carrying only its name (exactly a {@link MyDataCenterInfo}, which the codecs decode
+     * the data centers other than Amazon into) is replaced by one shared by all the instances.
+     * <p>
+     * The metadata is read-only afterwards, so this is not meant for the instances updated in place, like the
+     * one registered by this client.
+     * </p>
+     */
+    public void compact() {
+        if (metadata != null) {
+            metadata = ImmutableArrayMap.copyOf(metadata);
+        }
+        DataCenterInfo currentDataCenterInfo = dataCenterInfo;
+        if (currentDataCenterInfo instanceof AmazonInfo) {
+            AmazonInfo amazonInfo = (AmazonInfo) currentDataCenterInfo;
+            if (amazonInfo.getMetadata() != null) {
+                amazonInfo.setMetadata(ImmutableArrayMap.copyOf(amazonInfo.getMetadata()));
+            }
+        } else if (currentDataCenterInfo != null && currentDataCenterInfo.getClass() == MyDataCenterInfo.class) {
+            MyDataCenterInfo shared = MyDataCenterInfo.sharedInstance(currentDataCenterInfo.getName());
+            if (shared != null) {
+                dataCenterInfo = shared;
+            }
+        }
+    }
+
     /**
      * Convert <code>VIPAddress</code> by substituting environment variables if
      * necessary.
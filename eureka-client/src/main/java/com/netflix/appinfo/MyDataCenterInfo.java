@@ -1,5 +1,8 @@
 package com.netflix.appinfo;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -8,6 +11,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 public class MyDataCenterInfo implements DataCenterInfo {
 
+    private static final Map<Name, MyDataCenterInfo> SHARED_INSTANCES = new EnumMap<Name, MyDataCenterInfo>(Name.class);
+
+    static {
+        for (Name name : Name.values()) {
+            SHARED_INSTANCES.put(name, new MyDataCenterInfo(name));
+        }
+    }
+
     private final Name name;
 
     @JsonCreator
@@ -19,4 +30,12 @@ public class MyDataCenterInfo implements DataCenterInfo {
     public Name getName() {
         return name;
     }
+
+    /**
+     * @return an instance shared by all the holders of a data center info with the given name, or null if the
+     * name is null
+     */
+    public static MyDataCenterInfo sharedInstance(Name name) {
+        return name == null ? null : SHARED_INSTANCES.get(name);
+    }
 }
@@ -23,11 +23,14 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -64,10 +67,15 @@ import com.netflix.appinfo.HealthCheckHandler;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.ActionType;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.netflix.discovery.converters.EurekaJacksonCodec;
+import com.netflix.discovery.converters.EurekaStreamingJsonCodec;
 import com.netflix.discovery.endpoint.DnsResolver;
 import com.netflix.discovery.endpoint.EndpointUtils;
+import com.netflix.discovery.selector.InstanceSelector;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.resolver.ClosableResolver;
 import com.netflix.discovery.shared.resolver.aws.ApplicationsResolver;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
@@ -127,8 +135,6 @@ public class DiscoveryClient implements EurekaClient {
     public static final int MAX_FOLLOWED_REDIRECTS = 10;
     public static final String HTTP_X_DISCOVERY_ALLOW_REDIRECT = "X-Discovery-AllowRedirect";
 
-    private static final String VALUE_DELIMITER = ",";
-    private static final String COMMA_STRING = VALUE_DELIMITER;
     private static final String DISCOVERY_APPID = "DISCOVERY";
     private static final String UNKNOWN = "UNKNOWN";
 
@@ -195,6 +201,8 @@ public class DiscoveryClient implements EurekaClient {
     private final EurekaTransport eurekaTransport;
     private final ApacheHttpClient4 discoveryApacheClient;
     private EurekaJerseyClient discoveryJerseyClient;
+    private final EurekaStreamingJsonCodec streamingJsonCodec = new EurekaStreamingJsonCodec(EurekaJacksonCodec.getInstance());
+    private final EurekaBinaryCodec binaryCodec = new EurekaBinaryCodec();
 
     private volatile HealthCheckHandler healthCheckHandler;
     private volatile Map<String, Applications> remoteRegionVsApps = new ConcurrentHashMap<String, Applications>();
@@ -463,6 +471,10 @@ public class DiscoveryClient implements EurekaClient {
             EurekaClientIdentity identity = new EurekaClientIdentity(ip);
             discoveryApacheClient.addFilter(new EurekaIdentityHeaderFilter(identity));
 
+            if (shouldUseBinaryCodec()) {
+                discoveryApacheClient.addFilter(new EurekaBinaryAcceptFilter());
+            }
+
             // add additional ClientFilters if specified
             if (args != null && args.additionalFilters != null) {
                 for (ClientFilter filter : args.additionalFilters) {
@@ -608,15 +620,7 @@ public class DiscoveryClient implements EurekaClient {
      */
     @Override
     public List<InstanceInfo> getInstancesById(String id) {
-        List<InstanceInfo> instancesList = new ArrayList<InstanceInfo>();
-        for (Application app : this.getApplications()
-                .getRegisteredApplications()) {
-            InstanceInfo instanceInfo = app.getByInstanceId(id);
-            if (instanceInfo != null) {
-                instancesList.add(instanceInfo);
-            }
-        }
-        return instancesList;
+        return this.getApplications().getInstancesById(id);
     }
 
     /**
@@ -720,48 +724,38 @@ public class DiscoveryClient implements EurekaClient {
     public List<InstanceInfo> getInstancesByVipAddressAndAppName(
             String vipAddress, String appName, boolean secure) {
 
-        List<InstanceInfo> result = new ArrayList<InstanceInfo>();
         if (vipAddress == null && appName == null) {
             throw new IllegalArgumentException(
                     "Supplied VIP Address and application name cannot both be null");
         } else if (vipAddress != null && appName == null) {
             return getInstancesByVipAddress(vipAddress, secure);
-        } else if (vipAddress == null && appName != null) {
-            Application application = getApplication(appName);
-            if (application != null) {
-                result = application.getInstances();
-            }
-            return result;
         }
 
-        String instanceVipAddress;
-        for (Application app : getApplications().getRegisteredApplications()) {
-            for (InstanceInfo instance : app.getInstances()) {
-                if (secure) {
-                    instanceVipAddress = instance.getSecureVipAddress();
-                } else {
-                    instanceVipAddress = instance.getVIPAddress();
-                }
-                if (instanceVipAddress == null) {
-                    continue;
-                }
-                String[] instanceVipAddresses = instanceVipAddress
-                        .split(COMMA_STRING);
-
-                // If the VIP Address is delimited by a comma, then consider to
-                // be a list of VIP Addresses.
-                // Try to match at least one in the list, if it matches then
-                // return the instance info for the same
-                for (String vipAddressFromList : instanceVipAddresses) {
-                    if (vipAddress.equalsIgnoreCase(vipAddressFromList.trim())
-                            && appName.equalsIgnoreCase(instance.getAppName())) {
-                        result.add(instance);
-                        break;
-                    }
-                }
-            }
+        Application application = getApplication(appName);
+        if (application == null) {
+            return new ArrayList<InstanceInfo>();
         }
-        return result;
+        if (vipAddress == null) {
+            return application.getInstances();
+        }
+        return application.getInstancesByVirtualHostName(vipAddress, secure);
+    }
+
+    @Override
+    public InstanceInfo selectInstance(String vipAddress, boolean secure, InstanceSelector selector,
+                                       @Nullable String key) {
+        if (vipAddress == null) {
+            throw new IllegalArgumentException(
+                    "Supplied VIP Address cannot be null");
+        }
+        Applications apps = this.localRegionApps.get();
+        List<InstanceInfo> instances = secure
+                ? apps.getInstancesBySecureVirtualHostName(vipAddress)
+                : apps.getInstancesByVirtualHostName(vipAddress);
+        if (instances.isEmpty()) {
+            return null;
+        }
+        return selector.select(instances, key);
     }
 
     /*
@@ -1027,7 +1021,9 @@ public class DiscoveryClient implements EurekaClient {
             } else {
                 getAndUpdateDelta(applications);
             }
-            applications.setAppsHashCode(applications.getReconcileHashCode());
+            // The registry update publishes new applications
+            Applications updatedApps = getApplications();
+            updatedApps.setAppsHashCode(updatedApps.getReconcileHashCode());
             logTotalInstances();
         } catch (Throwable e) {
             logger.error(PREFIX + appPathIdentifier + " - was unable to refresh its cache! status = " + e.getMessage(), e);
@@ -1108,10 +1104,10 @@ public class DiscoveryClient implements EurekaClient {
         logger.info("Getting all instance registry info from the eureka server");
 
         Applications apps = null;
+        boolean isIndexed = false;
+        InterestSet interestSet = getRegistryInterestSet();
         if (shouldUseExperimentalTransportForQuery()) {
-            EurekaHttpResponse<Applications> httpResponse = clientConfig.getRegistryRefreshSingleVipAddress() == null
-                    ? eurekaTransport.queryClient.getApplications()
-                    : eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress());
+            EurekaHttpResponse<Applications> httpResponse = getFullRegistry(interestSet);
             if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
                 apps = httpResponse.getEntity();
             }
@@ -1120,7 +1116,12 @@ public class DiscoveryClient implements EurekaClient {
             ClientResponse response = makeRemoteCall(Action.Refresh);
             try {
                 if (response.getStatus() == Status.OK.getStatusCode()) {
-                    apps = response.getEntity(Applications.class);
+                    if (shouldDecodeIntoIndexedRegistry(response)) {
+                        apps = decodeIntoIndexedRegistry(response, interestSet);
+                        isIndexed = true;
+                    } else {
+                        apps = response.getEntity(Applications.class);
+                    }
                 }
                 logger.info("The response status is {}", response.getStatus());
             } finally {
@@ -1128,10 +1129,18 @@ public class DiscoveryClient implements EurekaClient {
             }
         }
 
+        if (apps != null && interestSet != null && !isIndexed) {
+            // A server that does not support interest sets returns the whole registry
+            apps = interestSet.filter(apps);
+        }
+        if (apps != null && shouldCompactInstances()) {
+            compactInstances(apps);
+        }
+
         if (apps == null) {
             logger.error("The application is null for some reason. Not storing this information");
         } else if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
-            localRegionApps.set(this.filterAndShuffle(apps));
+            localRegionApps.set(isIndexed ? apps : this.filterAndShuffle(apps));
             logger.debug("Got full registry with apps hashcode {}", apps.getAppsHashCode());
         } else {
             logger.warn("Not updating applications as another thread is updating it already");
@@ -1155,8 +1164,25 @@ public class DiscoveryClient implements EurekaClient {
         long currentUpdateGeneration = fetchRegistryGeneration.get();
 
         Applications delta = null;
+        InterestSet interestSet = getRegistryInterestSet();
         if (shouldUseExperimentalTransportForQuery()) {
-            EurekaHttpResponse<Applications> httpResponse = eurekaTransport.queryClient.getDelta();
+            EurekaHttpResponse<Applications> httpResponse = null;
+            if (shouldFetchDeltaSinceVersion()) {
+                httpResponse = interestSet == null
+                        ? eurekaTransport.queryClient.getDeltaSince(applications.getVersion())
+                        : eurekaTransport.queryClient.getDeltaSince(applications.getVersion(), interestSet);
+                if (httpResponse.getStatusCode() != Status.OK.getStatusCode()) {
+                    // The server does not serve the changes since this version, the regular delta may still apply
+                    logger.debug("Delta since version {} not served ({}), fetching the regular delta",
+                            applications.getVersion(), httpResponse.getStatusCode());
+                    httpResponse = null;
+                }
+            }
+            if (httpResponse == null) {
+                httpResponse = interestSet == null
+                        ? eurekaTransport.queryClient.getDelta()
+                        : eurekaTransport.queryClient.getDelta(interestSet);
+            }
             if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
                 delta = httpResponse.getEntity();
             }
@@ -1171,6 +1197,13 @@ public class DiscoveryClient implements EurekaClient {
             }
         }
 
+        if (delta != null && interestSet != null) {
+            delta = interestSet.filter(delta);
+        }
+        if (delta != null && shouldCompactInstances()) {
+            compactInstances(delta);
+        }
+
         if (delta == null) {
             logger.warn("The server does not allow the delta revision to be applied because it is not safe. "
                     + "Hence got the full registry.");
@@ -1181,7 +1214,7 @@ public class DiscoveryClient implements EurekaClient {
             if (fetchRegistryUpdateLock.tryLock()) {
                 try {
                     updateDelta(delta);
-                    reconcileHashCode = getReconcileHashCode(applications);
+                    reconcileHashCode = getReconcileHashCode(getApplications());
                 } finally {
                     fetchRegistryUpdateLock.unlock();
                 }
@@ -1239,10 +1272,9 @@ public class DiscoveryClient implements EurekaClient {
         long currentUpdateGeneration = fetchRegistryGeneration.get();
 
         Applications serverApps = null;
+        InterestSet interestSet = getRegistryInterestSet();
         if (shouldUseExperimentalTransportForQuery()) {
-            EurekaHttpResponse<Applications> httpResponse = clientConfig.getRegistryRefreshSingleVipAddress() == null
-                    ? eurekaTransport.queryClient.getApplications()
-                    : eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress());
+            EurekaHttpResponse<Applications> httpResponse = getFullRegistry(interestSet);
             serverApps = httpResponse.getEntity();
         } else {
             ClientResponse response = makeRemoteCall(Action.Refresh);
@@ -1257,6 +1289,12 @@ public class DiscoveryClient implements EurekaClient {
             logger.warn("Cannot fetch full registry from the server; reconciliation failure");
             return;
         }
+        if (interestSet != null) {
+            serverApps = interestSet.filter(serverApps);
+        }
+        if (shouldCompactInstances()) {
+            compactInstances(serverApps);
+        }
 
         try {
             Map<String, List<String>> reconcileDiffMap = getApplications().getReconcileMapDiff(serverApps);
@@ -1290,58 +1328,52 @@ public class DiscoveryClient implements EurekaClient {
      * Updates the delta information fetches from the eureka server into the
      * local cache.
      *
+     * <p>
+     * The cached {@link Applications} are not modified. The applications changed by the delta are copied, and
+     * new {@link Applications} sharing all other applications with the current ones are indexed, and then
+     * published by a reference swap, so readers never observe a partially applied delta.
+     * </p>
+     *
      * @param delta
      *            the delta information received from eureka server in the last
      *            poll cycle.
      */
-    private void updateDelta(Applications delta) {
+    @VisibleForTesting
+    void updateDelta(Applications delta) {
+        Applications applications = getApplications();
+        Map<String, Applications> remoteApps = remoteRegionVsApps;
+
+        Map<String, Application> changedApps = new HashMap<String, Application>();
+        Map<String, Map<String, Application>> changedRemoteApps = new HashMap<String, Map<String, Application>>();
         int deltaCount = 0;
         for (Application app : delta.getRegisteredApplications()) {
             for (InstanceInfo instance : app.getInstances()) {
-                Applications applications = getApplications();
                 String instanceRegion = instanceRegionChecker.getInstanceRegion(instance);
-                if (!instanceRegionChecker.isLocalRegion(instanceRegion)) {
-                    Applications remoteApps = remoteRegionVsApps.get(instanceRegion);
-                    if (null == remoteApps) {
-                        remoteApps = new Applications();
-                        remoteRegionVsApps.put(instanceRegion, remoteApps);
+                Application existingApp;
+                if (instanceRegionChecker.isLocalRegion(instanceRegion)) {
+                    existingApp = getChangedApplication(changedApps, applications, instance.getAppName());
+                } else {
+                    Map<String, Application> changedRegionApps = changedRemoteApps.get(instanceRegion);
+                    if (changedRegionApps == null) {
+                        changedRegionApps = new HashMap<String, Application>();
+                        changedRemoteApps.put(instanceRegion, changedRegionApps);
                     }
-                    applications = remoteApps;
+                    existingApp = getChangedApplication(changedRegionApps, remoteApps.get(instanceRegion), instance.getAppName());
                 }
 
                 ++deltaCount;
                 if (ActionType.ADDED.equals(instance.getActionType())) {
-                    Application existingApp = applications
-                            .getRegisteredApplications(instance.getAppName());
-                    if (existingApp == null) {
-                        applications.addApplication(app);
-                    }
                     logger.debug("Added instance {} to the existing apps in region {}",
                             instance.getId(), instanceRegion);
-                    applications.getRegisteredApplications(
-                            instance.getAppName()).addInstance(instance);
+                    existingApp.addInstance(instance);
                 } else if (ActionType.MODIFIED.equals(instance.getActionType())) {
-                    Application existingApp = applications
-                            .getRegisteredApplications(instance.getAppName());
-                    if (existingApp == null) {
-                        applications.addApplication(app);
-                    }
                     logger.debug("Modified instance {} to the existing apps ",
                             instance.getId());
-
-                    applications.getRegisteredApplications(
-                            instance.getAppName()).addInstance(instance);
-
+                    existingApp.addInstance(instance);
                 } else if (ActionType.DELETED.equals(instance.getActionType())) {
-                    Application existingApp = applications
-                            .getRegisteredApplications(instance.getAppName());
-                    if (existingApp == null) {
-                        applications.addApplication(app);
-                    }
                     logger.debug("Deleted instance {} to the existing apps ",
                             instance.getId());
-                    applications.getRegisteredApplications(
-                            instance.getAppName()).removeInstance(instance);
+                    existingApp.removeInstance(instance);
                 }
             }
         }
@@ -1349,13 +1381,47 @@ public class DiscoveryClient implements EurekaClient {
                 "The total number of instances fetched by the delta processor : {}",
                 deltaCount);
 
-        getApplications().setVersion(delta.getVersion());
-        getApplications().shuffleInstances(clientConfig.shouldFilterOnlyUpInstances());
+        boolean filterUpInstances = clientConfig.shouldFilterOnlyUpInstances();
+        Map<String, Applications> updatedRemoteApps = new ConcurrentHashMap<String, Applications>();
+        Set<String> remoteRegions = new HashSet<String>(remoteApps.keySet());
+        remoteRegions.addAll(changedRemoteApps.keySet());
+        for (String region : remoteRegions) {
+            Applications regionApps = remoteApps.get(region);
+            Map<String, Application> changedRegionApps = changedRemoteApps.get(region);
+            updatedRemoteApps.put(region, updateApplications(
+                    regionApps == null ? new Applications() : regionApps,
+                    changedRegionApps == null ? Collections.<Application>emptyList() : changedRegionApps.values(),
+                    delta.getVersion(), filterUpInstances));
+        }
+        Applications updatedApps = updateApplications(applications, changedApps.values(), delta.getVersion(), filterUpInstances);
 
-        for (Applications applications : remoteRegionVsApps.values()) {
-            applications.setVersion(delta.getVersion());
-            applications.shuffleInstances(clientConfig.shouldFilterOnlyUpInstances());
+        remoteRegionVsApps = updatedRemoteApps;
+        localRegionApps.set(updatedApps);
+    }
+
+    /**
+     * @return a copy of the named application, taken on its first change from the current applications
+     */
+    private static Application getChangedApplication(Map<String, Application> changedApps,
+                                                     @Nullable Applications applications, String appName) {
+        String appKey = appName.toUpperCase(Locale.ROOT);
+        Application changedApp = changedApps.get(appKey);
+        if (changedApp == null) {
+            Application existingApp = applications == null ? null : applications.getRegisteredApplications(appName);
+            changedApp = existingApp == null
+                    ? new Application(appName)
+                    : new Application(existingApp.getName(), existingApp.getInstancesAsIsFromEureka());
+            changedApps.put(appKey, changedApp);
         }
+        return changedApp;
+    }
+
+    private static Applications updateApplications(Applications applications, Collection<Application> changedApps,
+                                                   Long version, boolean filterUpInstances) {
+        Applications updatedApps = applications.copyWith(changedApps);
+        updatedApps.setVersion(version);
+        updatedApps.shuffleInstances(filterUpInstances, changedApps);
+        return updatedApps;
     }
 
     /**
@@ -1500,6 +1566,7 @@ public class DiscoveryClient implements EurekaClient {
                 r.header(HTTP_X_DISCOVERY_ALLOW_REDIRECT, "true");
             }
             String remoteRegionsToFetchStr;
+            InterestSet interestSet;
             switch (action) {
                 case Renew:
                     tracer = RENEW_TIMER.start();
@@ -1517,8 +1584,11 @@ public class DiscoveryClient implements EurekaClient {
                     final String vipAddress = clientConfig.getRegistryRefreshSingleVipAddress();
                     urlPath = vipAddress == null ? "apps/" : "vips/" + vipAddress;
                     remoteRegionsToFetchStr = remoteRegionsToFetch.get();
+                    interestSet = getRegistryInterestSet();
                     if (!Strings.isNullOrEmpty(remoteRegionsToFetchStr)) {
                         urlPath += "?regions=" + remoteRegionsToFetchStr;
+                    } else if (interestSet != null) {
+                        urlPath += "?interest=" + URLEncoder.encode(interestSet.toString(), "UTF-8");
                     }
                     response = getUrl(serviceUrl + urlPath);
                     break;
@@ -1528,6 +1598,16 @@ public class DiscoveryClient implements EurekaClient {
                     remoteRegionsToFetchStr = remoteRegionsToFetch.get();
                     if (!Strings.isNullOrEmpty(remoteRegionsToFetchStr)) {
                         urlPath += "?regions=" + remoteRegionsToFetchStr;
+                    } else {
+                        String separator = "?";
+                        if (shouldFetchDeltaSinceVersion()) {
+                            urlPath += "?since=" + getApplications().getVersion();
+                            separator = "&";
+                        }
+                        interestSet = getRegistryInterestSet();
+                        if (interestSet != null) {
+                            urlPath += separator + "interest=" + URLEncoder.encode(interestSet.toString(), "UTF-8");
+                        }
                     }
                     response = getUrl(serviceUrl + urlPath);
                     break;
@@ -2005,10 +2085,109 @@ public class DiscoveryClient implements EurekaClient {
         return apps;
     }
 
+    /**
+     * If enabled, a full registry JSON or binary payload is decoded instance by instance straight into the shuffled
+     * and indexed applications list, instead of being decoded into a plain list first, and then filtered and
+     * shuffled into a copy. Not done if remote region registries are fetched, as these are split from the payload
+     * while shuffling.
+     */
+    private boolean shouldDecodeIntoIndexedRegistry(ClientResponse response) {
+        String enabled = clientConfig.getExperimental("registry.streamingDecode.enabled");
+        if (!"true".equalsIgnoreCase(enabled) || isFetchingRemoteRegionRegistries()) {
+            return false;
+        }
+        MediaType mediaType = response.getType();
+        return mediaType != null && (MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)
+                || MediaType.valueOf(EurekaBinaryCodec.MEDIA_TYPE).isCompatible(mediaType));
+    }
+
+    private Applications decodeIntoIndexedRegistry(ClientResponse response,
+                                                   @Nullable InterestSet interestSet) throws IOException {
+        // A server that does not support interest sets returns the whole registry
+        Applications.Builder builder = Applications.Builder.newBuilder()
+                .withFilterUpInstances(clientConfig.shouldFilterOnlyUpInstances())
+                .withInterestSet(interestSet);
+        InputStream entityStream = response.getEntityInputStream();
+        if (MediaType.APPLICATION_JSON_TYPE.isCompatible(response.getType())) {
+            streamingJsonCodec.readApplications(entityStream, builder);
+        } else {
+            binaryCodec.readApplications(entityStream, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * If enabled, the instances received from the server are held in a compact form, see
+     * {@link InstanceInfo#compact()}.
+     */
+    private boolean shouldCompactInstances() {
+        String enabled = clientConfig.getExperimental("registry.compactInstances.enabled");
+        return "true".equalsIgnoreCase(enabled);
+    }
+
+    private static void compactInstances(Applications applications) {
+        for (Application application : applications.getRegisteredApplications()) {
+            for (InstanceInfo instance : application.getInstancesAsIsFromEureka()) {
+                instance.compact();
+            }
+        }
+    }
+
     private boolean isFetchingRemoteRegionRegistries() {
         return null != remoteRegionsToFetch.get();
     }
 
+    /**
+     * If enabled, the client asks for the changes made after the registry version it holds, instead of all the
+     * changes retained by the server. Only the local region registry is versioned this way.
+     */
+    private boolean shouldFetchDeltaSinceVersion() {
+        String enabled = clientConfig.getExperimental("delta.sinceVersion.enabled");
+        return "true".equalsIgnoreCase(enabled) && !isFetchingRemoteRegionRegistries();
+    }
+
+    /**
+     * The interest set the client subscribes to, instead of the whole registry: only the local region instances of
+     * these applications and VIP addresses are fetched and held. Interest sets are not used if remote region
+     * registries are fetched, or a single VIP registry refresh is configured.
+     *
+     * @return the interest set, or null if the whole registry is fetched
+     */
+    @Nullable
+    private InterestSet getRegistryInterestSet() {
+        if (isFetchingRemoteRegionRegistries() || clientConfig.getRegistryRefreshSingleVipAddress() != null) {
+            return null;
+        }
+        String interest = clientConfig.getExperimental("registry.interest");
+        if (Strings.isNullOrEmpty(interest)) {
+            return null;
+        }
+        try {
+            InterestSet interestSet = InterestSet.parse(interest);
+            return interestSet.isEmpty() ? null : interestSet;
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid registry interest set {}; fetching the whole registry", interest, e);
+            return null;
+        }
+    }
+
+    private EurekaHttpResponse<Applications> getFullRegistry(@Nullable InterestSet interestSet) {
+        if (clientConfig.getRegistryRefreshSingleVipAddress() != null) {
+            return eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress());
+        }
+        return interestSet == null
+                ? eurekaTransport.queryClient.getApplications()
+                : eurekaTransport.queryClient.getApplications(interestSet);
+    }
+
+    /**
+     * If enabled, the client asks for compact binary registry payloads, and gets JSON from the servers not serving them.
+     */
+    private boolean shouldUseBinaryCodec() {
+        String enabled = clientConfig.getExperimental("codec.binary.enabled");
+        return "true".equalsIgnoreCase(enabled);
+    }
+
     private boolean shouldUseExperimentalTransportForQuery() {
         if (eurekaTransport.queryClient == null) {
             return false;
@@ -0,0 +1,42 @@
+package com.netflix.discovery;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * Opts a client into the compact binary registry payloads, by asking for them ahead of JSON in the GET requests
+ * accepting JSON. Servers not serving binary payloads, or with them disabled, keep replying with JSON.
+ */
+public class EurekaBinaryAcceptFilter extends ClientFilter {
+
+    @Override
+    public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+        if (HttpMethod.GET.equals(cr.getMethod())) {
+            List<Object> accepted = cr.getHeaders().get(HttpHeaders.ACCEPT);
+            if (accepted != null && acceptsJson(accepted)) {
+                List<Object> withBinary = new ArrayList<Object>(accepted.size() + 1);
+                withBinary.add(EurekaBinaryCodec.MEDIA_TYPE);
+                withBinary.addAll(accepted);
+                cr.getHeaders().put(HttpHeaders.ACCEPT, withBinary);
+            }
+        }
+        return getNext().handle(cr);
+    }
+
+    private static boolean acceptsJson(List<Object> accepted) {
+        for (Object mediaType : accepted) {
+            if (String.valueOf(mediaType).contains("json")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
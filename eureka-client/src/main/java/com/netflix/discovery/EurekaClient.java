@@ -8,6 +8,7 @@ import com.google.inject.ImplementedBy;
 import com.netflix.appinfo.HealthCheckCallback;
 import com.netflix.appinfo.HealthCheckHandler;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.selector.InstanceSelector;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.LookupService;
 
@@ -79,6 +80,27 @@ public interface EurekaClient extends LookupService {
      */
     public List<InstanceInfo> getInstancesByVipAddressAndAppName(String vipAddress, String appName, boolean secure);
 
+    /**
+     * Selects one of the instances matching the given VIP Address in the local region. Unlike
+     * {@link #getNextServerFromEureka(String, boolean)}, the selection strategy is given by the caller. By default
+     * it runs over {@link #getInstancesByVipAddress(String, boolean)}; {@link DiscoveryClient} runs it directly
+     * over the list held by the client VIP index, without copying it.
+     *
+     * @param vipAddress The VIP address to match the instances for.
+     * @param secure true if it is a secure vip address, false otherwise
+     * @param selector selection strategy, see {@link com.netflix.discovery.selector.InstanceSelectors}
+     * @param key request key, used by key aware selectors only
+     * @return - The selected {@link InstanceInfo}, or null if no instance matches the VIP address.
+     */
+    public default InstanceInfo selectInstance(String vipAddress, boolean secure, InstanceSelector selector,
+                                               @Nullable String key) {
+        List<InstanceInfo> instances = getInstancesByVipAddress(vipAddress, secure);
+        if (instances == null || instances.isEmpty()) {
+            return null;
+        }
+        return selector.select(instances, key);
+    }
+
     // ==========================
     // getters for local metadata
     // ==========================
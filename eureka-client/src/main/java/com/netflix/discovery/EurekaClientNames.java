@@ -39,6 +39,8 @@ public final class EurekaClientNames {
 
     public static final String METRIC_TRANSPORT_PREFIX = METRIC_PREFIX + "transport.";
 
+    public static final String METRIC_STRING_CACHE_PREFIX = METRIC_PREFIX + "stringCache.";
+
     private EurekaClientNames() {
     }
 }
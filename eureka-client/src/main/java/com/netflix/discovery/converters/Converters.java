@@ -32,6 +32,7 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.appinfo.InstanceInfo.PortType;
 import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.util.StringCache;
@@ -494,15 +495,7 @@ public final class Converters {
                             dataCenterName)) {
                         info = new AmazonInfo();
                     } else {
-                        final DataCenterInfo.Name name =
-                                DataCenterInfo.Name.valueOf(dataCenterName);
-                        info = new DataCenterInfo() {
-
-                            @Override
-                            public Name getName() {
-                                return name;
-                            }
-                        };
+                        info = MyDataCenterInfo.sharedInstance(DataCenterInfo.Name.valueOf(dataCenterName));
                     }
                 } else if (NODE_METADATA.equals(reader.getNodeName())) {
                     if (info.getName() == Name.Amazon) {
@@ -704,7 +697,7 @@ public final class Converters {
                 String value = reader.getValue();
                 reader.moveUp();
 
-                map.put(StringCache.intern(key), value);
+                map.put(StringCache.intern(key), StringCache.intern(value));
             }
             return map;
         }
@@ -0,0 +1,547 @@
+package com.netflix.discovery.converters;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.appinfo.InstanceInfo.PortType;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.StringCache;
+
+/**
+ * Compact binary encoding of {@link Applications}, {@link Application} and {@link InstanceInfo}, for the registry
+ * transfers between the servers and the clients that opt into it.
+ *
+ * <p>
+ * A payload is a header, a dictionary of all the distinct strings of the payload, and the encoded object. Strings
+ * are written once in the dictionary and referenced by their index from the object, so the values repeated across
+ * instances, like the application names, the zones, the AMI ids or the metadata keys, cost a few bytes each, and
+ * are decoded into a single string instance. Numbers are variable length encoded. Each instance record is length
+ * prefixed, so a decoder skips the trailing fields added by later versions of the format.
+ * </p>
+ */
+public class EurekaBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-eureka-binary";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte[] MAGIC = {'E', 'K', 'B'};
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_APPLICATIONS = 1;
+    private static final int TYPE_APPLICATION = 2;
+    private static final int TYPE_INSTANCE = 3;
+
+    private static final int FLAG_PORT_ENABLED = 1;
+    private static final int FLAG_SECURE_PORT_ENABLED = 1 << 1;
+    private static final int FLAG_COORDINATING_DISCOVERY_SERVER = 1 << 2;
+    private static final int FLAG_LEASE_INFO = 1 << 3;
+    private static final int FLAG_LAST_DIRTY_TIMESTAMP = 1 << 4;
+    private static final int FLAG_METADATA = 1 << 5;
+
+    private static final int INITIAL_DICTIONARY_CAPACITY = 1024;
+
+    public void writeTo(Object object, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder();
+        int type;
+        if (object instanceof Applications) {
+            type = TYPE_APPLICATIONS;
+            encoder.writeApplications((Applications) object);
+        } else if (object instanceof Application) {
+            type = TYPE_APPLICATION;
+            encoder.writeApplication((Application) object);
+        } else if (object instanceof InstanceInfo) {
+            type = TYPE_INSTANCE;
+            encoder.writeInstanceInfo((InstanceInfo) object);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + object.getClass().getName());
+        }
+
+        out.write(MAGIC);
+        out.write(FORMAT_VERSION);
+        out.write(type);
+        encoder.writeDictionary(out);
+        encoder.body.writeTo(out);
+        out.flush();
+    }
+
+    public byte[] writeToBytes(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(object, out);
+        return out.toByteArray();
+    }
+
+    public <T> T readValue(Class<T> type, InputStream in) throws IOException {
+        Decoder decoder = new Decoder(in);
+        int payloadType = decoder.readHeader();
+
+        Object result;
+        switch (payloadType) {
+            case TYPE_APPLICATIONS:
+                result = decoder.readApplications();
+                break;
+            case TYPE_APPLICATION:
+                result = decoder.readApplication();
+                break;
+            case TYPE_INSTANCE:
+                result = decoder.readInstanceInfo();
+                break;
+            default:
+                throw new IOException("Unsupported Eureka binary payload type " + payloadType);
+        }
+        if (!type.isInstance(result)) {
+            throw new IOException("Expected " + type.getName() + " payload, got " + result.getClass().getName());
+        }
+        return type.cast(result);
+    }
+
+    public <T> T readValue(Class<T> type, byte[] bytes) throws IOException {
+        return readValue(type, new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Decodes an {@link Applications} payload instance by instance into the given builder, without holding the
+     * decoded applications list aside.
+     */
+    public void readApplications(InputStream in, Applications.Builder builder) throws IOException {
+        Decoder decoder = new Decoder(in);
+        int payloadType = decoder.readHeader();
+        if (payloadType != TYPE_APPLICATIONS) {
+            throw new IOException("Expected " + Applications.class.getName() + " payload, got type " + payloadType);
+        }
+        decoder.readApplications(builder);
+    }
+
+    /**
+     * Single use encoder, collecting the dictionary while the object is written to the body.
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        private final List<String> entries = new ArrayList<String>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+
+        void writeApplications(Applications apps) {
+            Long version = apps.getVersion();
+            writeVarInt(body, version == null ? 0 : 1);
+            if (version != null) {
+                writeVarLong(body, version);
+            }
+            writeString(body, apps.getAppsHashCode());
+            List<Application> registered = apps.getRegisteredApplications();
+            writeVarInt(body, registered.size());
+            for (Application app : registered) {
+                writeApplication(app);
+            }
+        }
+
+        void writeApplication(Application app) {
+            writeString(body, app.getName());
+            List<InstanceInfo> instances = app.getInstances();
+            writeVarInt(body, instances.size());
+            for (InstanceInfo instanceInfo : instances) {
+                writeInstanceInfo(instanceInfo);
+            }
+        }
+
+        void writeInstanceInfo(InstanceInfo info) {
+            record.reset();
+            writeString(record, info.getInstanceId());
+            writeString(record, info.getHostName());
+            writeString(record, info.getAppName());
+            writeString(record, info.getIPAddr());
+            writeString(record, info.getSID());
+            writeString(record, info.getStatus() == null ? null : info.getStatus().name());
+            writeString(record, info.getOverriddenStatus() == null ? null : info.getOverriddenStatus().name());
+
+            LeaseInfo leaseInfo = info.getLeaseInfo();
+            Map<String, String> metadata = info.getMetadata();
+            int flags = 0;
+            flags |= info.isPortEnabled(PortType.UNSECURE) ? FLAG_PORT_ENABLED : 0;
+            flags |= info.isPortEnabled(PortType.SECURE) ? FLAG_SECURE_PORT_ENABLED : 0;
+            flags |= Boolean.TRUE.equals(info.isCoordinatingDiscoveryServer()) ? FLAG_COORDINATING_DISCOVERY_SERVER : 0;
+            flags |= leaseInfo != null ? FLAG_LEASE_INFO : 0;
+            flags |= info.getLastDirtyTimestamp() != null ? FLAG_LAST_DIRTY_TIMESTAMP : 0;
+            flags |= metadata != null ? FLAG_METADATA : 0;
+            writeVarInt(record, flags);
+            writeVarInt(record, info.getPort());
+            writeVarInt(record, info.getSecurePort());
+            writeVarInt(record, info.getCountryId());
+
+            DataCenterInfo dataCenterInfo = info.getDataCenterInfo();
+            writeString(record, dataCenterInfo == null ? null : dataCenterInfo.getName().name());
+            if (dataCenterInfo != null && dataCenterInfo.getName() == Name.Amazon) {
+                writeMap(record, ((AmazonInfo) dataCenterInfo).getMetadata());
+            }
+            if (leaseInfo != null) {
+                writeVarInt(record, leaseInfo.getRenewalIntervalInSecs());
+                writeVarInt(record, leaseInfo.getDurationInSecs());
+                writeVarLong(record, leaseInfo.getRegistrationTimestamp());
+                writeVarLong(record, leaseInfo.getRenewalTimestamp());
+                writeVarLong(record, leaseInfo.getEvictionTimestamp());
+                writeVarLong(record, leaseInfo.getServiceUpTimestamp());
+            }
+            if (metadata != null) {
+                writeMap(record, metadata);
+            }
+
+            writeString(record, info.getAppGroupName());
+            writeString(record, info.getHomePageUrl());
+            writeString(record, info.getStatusPageUrl());
+            writeString(record, info.getHealthCheckUrl());
+            writeString(record, info.getSecureHealthCheckUrl());
+            writeString(record, info.getVIPAddress());
+            writeString(record, info.getSecureVipAddress());
+            writeVarLong(record, info.getLastUpdatedTimestamp());
+            if (info.getLastDirtyTimestamp() != null) {
+                writeVarLong(record, info.getLastDirtyTimestamp());
+            }
+            writeString(record, info.getActionType() == null ? null : info.getActionType().name());
+            writeString(record, info.getASGName());
+
+            writeVarInt(body, record.size());
+            byte[] recordBytes = record.toByteArray();
+            body.write(recordBytes, 0, recordBytes.length);
+        }
+
+        void writeDictionary(OutputStream out) throws IOException {
+            ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream(entries.size() * 16 + 8);
+            writeVarInt(dictionaryBytes, entries.size());
+            for (String entry : entries) {
+                byte[] bytes = entry.getBytes(UTF_8);
+                writeVarInt(dictionaryBytes, bytes.length);
+                dictionaryBytes.write(bytes, 0, bytes.length);
+            }
+            dictionaryBytes.writeTo(out);
+        }
+
+        private void writeMap(ByteArrayOutputStream out, Map<String, String> map) {
+            writeVarInt(out, map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+
+        /**
+         * Strings are written as their dictionary index plus one, zero being the null string.
+         */
+        private void writeString(ByteArrayOutputStream out, String value) {
+            if (value == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            Integer idx = dictionary.get(value);
+            if (idx == null) {
+                idx = entries.size();
+                dictionary.put(value, idx);
+                entries.add(value);
+            }
+            writeVarInt(out, idx + 1);
+        }
+
+        private static void writeVarInt(ByteArrayOutputStream out, int value) {
+            writeVarLong(out, value);
+        }
+
+        /**
+         * Zig-zag encoded, so that the small negative values, like the unset timestamps, are short too.
+         */
+        private static void writeVarLong(ByteArrayOutputStream out, long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            out.write((int) zigZag);
+        }
+    }
+
+    private static final class Decoder {
+        private final InputStream in;
+        private String[] dictionary;
+        private long position;
+        private long limit = Long.MAX_VALUE;
+
+        Decoder(InputStream in) {
+            this.in = in instanceof ByteArrayInputStream || in instanceof BufferedInputStream
+                    ? in
+                    : new BufferedInputStream(in, 8192);
+        }
+
+        /**
+         * Each dictionary entry takes at least one byte, so a size above the remaining payload length is rejected
+         * up front when that length is known. Otherwise the dictionary grows with the entries actually read,
+         * so a corrupt size cannot allocate more than the payload does.
+         */
+        void readDictionary() throws IOException {
+            int size = readVarInt();
+            if (size < 0 || size > remaining()) {
+                throw new IOException("Invalid dictionary size " + size);
+            }
+            String[] entries = new String[Math.min(size, INITIAL_DICTIONARY_CAPACITY)];
+            byte[] buffer = new byte[64];
+            for (int i = 0; i < size; i++) {
+                if (i == entries.length) {
+                    entries = Arrays.copyOf(entries, (int) Math.min(size, 2L * entries.length));
+                }
+                int length = readVarInt();
+                if (length < 0 || length > remaining()) {
+                    throw new IOException("Invalid string length " + length);
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                readFully(buffer, length);
+                // Shared within the payload; the fields repeated across payloads are interned as they are set
+                entries[i] = new String(buffer, 0, length, UTF_8);
+            }
+            dictionary = entries;
+        }
+
+        /**
+         * @return the number of bytes left in the payload, or {@link Integer#MAX_VALUE} if it is not known
+         */
+        private int remaining() {
+            return in instanceof ByteArrayInputStream ? ((ByteArrayInputStream) in).available() : Integer.MAX_VALUE;
+        }
+
+        /**
+         * @return the payload type
+         */
+        int readHeader() throws IOException {
+            for (byte magicByte : MAGIC) {
+                if (readByte() != magicByte) {
+                    throw new IOException("Not a Eureka binary payload");
+                }
+            }
+            int formatVersion = readByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported Eureka binary format version " + formatVersion);
+            }
+            int payloadType = readByte();
+            readDictionary();
+            return payloadType;
+        }
+
+        void readApplications(Applications.Builder builder) throws IOException {
+            if (readVarInt() != 0) {
+                builder.setVersion(readVarLong());
+            }
+            builder.setAppsHashCode(readString());
+            int appCount = readVarInt();
+            for (int i = 0; i < appCount; i++) {
+                String name = readString();
+                builder.addApplication(name);
+                int instanceCount = readVarInt();
+                for (int j = 0; j < instanceCount; j++) {
+                    builder.addInstance(name, readInstanceInfo());
+                }
+            }
+        }
+
+        Applications readApplications() throws IOException {
+            Applications apps = new Applications();
+            if (readVarInt() != 0) {
+                apps.setVersion(readVarLong());
+            }
+            apps.setAppsHashCode(readString());
+            int appCount = readVarInt();
+            for (int i = 0; i < appCount; i++) {
+                apps.addApplication(readApplication());
+            }
+            return apps;
+        }
+
+        Application readApplication() throws IOException {
+            Application application = new Application(readString());
+            int instanceCount = readVarInt();
+            for (int i = 0; i < instanceCount; i++) {
+                application.addInstance(readInstanceInfo());
+            }
+            return application;
+        }
+
+        InstanceInfo readInstanceInfo() throws IOException {
+            int recordLength = readVarInt();
+            long recordEnd = position + recordLength;
+            long outerLimit = limit;
+            limit = recordEnd;
+
+            InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder();
+            builder.setInstanceId(readString());
+            builder.setHostName(readString());
+            String appName = readString();
+            if (appName != null) {
+                builder.setAppName(appName);
+            }
+            builder.setIPAddr(readString());
+            builder.setSID(readString());
+            String status = readString();
+            if (status != null) {
+                builder.setStatus(InstanceStatus.toEnum(status));
+            }
+            String overriddenStatus = readString();
+            if (overriddenStatus != null) {
+                builder.setOverriddenStatus(InstanceStatus.toEnum(overriddenStatus));
+            }
+
+            int flags = readVarInt();
+            builder.setPort(readVarInt());
+            builder.enablePort(PortType.UNSECURE, (flags & FLAG_PORT_ENABLED) != 0);
+            builder.setSecurePort(readVarInt());
+            builder.enablePort(PortType.SECURE, (flags & FLAG_SECURE_PORT_ENABLED) != 0);
+            builder.setCountryId(readVarInt());
+            builder.setIsCoordinatingDiscoveryServer((flags & FLAG_COORDINATING_DISCOVERY_SERVER) != 0);
+
+            String dataCenterName = readString();
+            if (dataCenterName != null) {
+                Name name = Name.valueOf(dataCenterName);
+                if (name == Name.Amazon) {
+                    AmazonInfo amazonInfo = new AmazonInfo();
+                    amazonInfo.setMetadata(readMap(new HashMap<String, String>()));
+                    builder.setDataCenterInfo(amazonInfo);
+                } else {
+                    builder.setDataCenterInfo(MyDataCenterInfo.sharedInstance(name));
+                }
+            }
+            if ((flags & FLAG_LEASE_INFO) != 0) {
+                builder.setLeaseInfo(LeaseInfo.Builder.newBuilder()
+                        .setRenewalIntervalInSecs(readVarInt())
+                        .setDurationInSecs(readVarInt())
+                        .setRegistrationTimestamp(readVarLong())
+                        .setRenewalTimestamp(readVarLong())
+                        .setEvictionTimestamp(readVarLong())
+                        .setServiceUpTimestamp(readVarLong())
+                        .build());
+            }
+            if ((flags & FLAG_METADATA) != 0) {
+                int size = readVarInt();
+                Map<String, String> metadata = size == 0
+                        ? Collections.<String, String>emptyMap()
+                        : readEntries(new ConcurrentHashMap<String, String>(), size);
+                builder.setMetadata(metadata);
+            }
+
+            builder.setAppGroupName(readString());
+            builder.setHomePageUrlForDeser(readString());
+            builder.setStatusPageUrlForDeser(readString());
+            String healthCheckUrl = readString();
+            String secureHealthCheckUrl = readString();
+            builder.setHealthCheckUrlsForDeser(healthCheckUrl, secureHealthCheckUrl);
+            builder.setVIPAddressDeser(readString());
+            builder.setSecureVIPAddressDeser(readString());
+            builder.setLastUpdatedTimestamp(readVarLong());
+            if ((flags & FLAG_LAST_DIRTY_TIMESTAMP) != 0) {
+                builder.setLastDirtyTimestamp(readVarLong());
+            }
+            String actionType = readString();
+            if (actionType != null) {
+                builder.setActionType(ActionType.valueOf(actionType));
+            }
+            builder.setASGName(readString());
+
+            // Skip the fields added by later versions of the format
+            limit = outerLimit;
+            skipTo(recordEnd);
+            return builder.build();
+        }
+
+        private Map<String, String> readMap(Map<String, String> map) throws IOException {
+            return readEntries(map, readVarInt());
+        }
+
+        private Map<String, String> readEntries(Map<String, String> map, int size) throws IOException {
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                String value = readString();
+                if (key != null && value != null) {
+                    map.put(StringCache.intern(key), StringCache.intern(value));
+                }
+            }
+            return map;
+        }
+
+        private String readString() throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref < 0 || ref > dictionary.length) {
+                throw new IOException("Invalid string reference " + ref);
+            }
+            return dictionary[ref - 1];
+        }
+
+        private int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IOException("Malformed variable length number");
+        }
+
+        private int readByte() throws IOException {
+            if (position >= limit) {
+                throw new IOException("Read past the end of the record");
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            position++;
+            return b;
+        }
+
+        private void readFully(byte[] buffer, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                int count = in.read(buffer, offset, length - offset);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                offset += count;
+            }
+            position += length;
+        }
+
+        private void skipTo(long target) throws IOException {
+            if (position > target) {
+                throw new IOException("Record overrun by " + (position - target) + " bytes");
+            }
+            while (position < target) {
+                readByte();
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import com.netflix.appinfo.InstanceInfo.ActionType;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.appinfo.InstanceInfo.PortType;
 import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
 import com.netflix.discovery.DiscoveryManager;
 import com.netflix.discovery.EurekaClientConfig;
 import com.netflix.discovery.shared.Application;
@@ -251,12 +252,7 @@ public class EurekaJacksonCodec {
             JsonNode node = jp.getCodec().readTree(jp);
             final Name name = Name.valueOf(node.get(ELEM_NAME).asText());
             if (name != Name.Amazon) {
-                return new DataCenterInfo() {
-                    @Override
-                    public Name getName() {
-                        return name;
-                    }
-                };
+                return MyDataCenterInfo.sharedInstance(name);
             }
 
             Map<String, String> metaData = new HashMap<String, String>();
@@ -0,0 +1,689 @@
+package com.netflix.discovery.converters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.appinfo.InstanceInfo.PortType;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.StringCache;
+
+import static com.netflix.discovery.converters.EurekaJacksonCodec.DATACENTER_METADATA;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_ACTIONTYPE;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_APP;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_APPGROUPNAME;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_ASGNAME;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_COUNTRY_ID;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_HEALTHCHECKURL;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_HOMEPAGEURL;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_HOST;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_INSTANCE;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_INSTANCE_ID;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_IP;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_ISCOORDINATINGDISCSOERVER;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_LASTDIRTYTS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_LASTUPDATEDTS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_NAME;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_OVERRIDDEN_STATUS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_PORT;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_SECHEALTHCHECKURL;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_SECURE_PORT;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_SECVIPADDRESS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_SID;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_STATUS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_STATUSPAGEURL;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.ELEM_VIPADDRESS;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.NODE_APP;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.NODE_DATACENTER;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.NODE_LEASE;
+import static com.netflix.discovery.converters.EurekaJacksonCodec.NODE_METADATA;
+
+/**
+ * JSON codec for {@link Applications}, {@link Application} and {@link InstanceInfo}, writing and reading the
+ * Eureka JSON format token by token, without bean introspection, reflection or an intermediate tree.
+ *
+ * <p>
+ * The encoded output is byte for byte the output of {@link EurekaJacksonCodec}, so this codec can replace it on
+ * one side of a connection only. The decoder accepts the same input as the {@link EurekaJacksonCodec} decoder,
+ * including single instances and applications not wrapped in arrays. Other types are delegated to
+ * {@link EurekaJacksonCodec}.
+ * </p>
+ */
+public class EurekaStreamingJsonCodec {
+
+    private static final String ROOT_APPLICATIONS = "applications";
+    private static final String ROOT_APPLICATION = "application";
+    private static final String ROOT_INSTANCE = "instance";
+
+    private static final String ELEM_PORT_VALUE = "$";
+    private static final String ELEM_PORT_ENABLED = "@enabled";
+    private static final String ELEM_CLASS = "@class";
+
+    private static final String ELEM_RENEW_INT = "renewalIntervalInSecs";
+    private static final String ELEM_DURATION = "durationInSecs";
+    private static final String ELEM_REG_TIMESTAMP = "registrationTimestamp";
+    private static final String ELEM_LAST_RENEW_TIMESTAMP = "lastRenewalTimestamp";
+    private static final String ELEM_EVICTION_TIMESTAMP = "evictionTimestamp";
+    private static final String ELEM_SERVICE_UP_TIMESTAMP = "serviceUpTimestamp";
+
+    private static final String AMAZON_DATACENTER_CLASS = "com.netflix.appinfo.AmazonInfo";
+    private static final String DEFAULT_DATACENTER_CLASS = "com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo";
+    private static final String EMPTY_METADATA_CLASS = "java.util.Collections$EmptyMap";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final EurekaJacksonCodec fallbackCodec;
+
+    private final String versionDeltaKey;
+    private final String appHashCodeKey;
+
+    public EurekaStreamingJsonCodec() {
+        this(new EurekaJacksonCodec());
+    }
+
+    public EurekaStreamingJsonCodec(EurekaJacksonCodec fallbackCodec) {
+        this.fallbackCodec = fallbackCodec;
+        this.versionDeltaKey = fallbackCodec.getVersionDeltaKey();
+        this.appHashCodeKey = fallbackCodec.getAppHashCodeKey();
+    }
+
+    public <T> void writeTo(T object, OutputStream entityStream) throws IOException {
+        if (!isSupported(object.getClass())) {
+            fallbackCodec.writeTo(object, entityStream);
+            return;
+        }
+        JsonGenerator jgen = jsonFactory.createGenerator(entityStream);
+        try {
+            writeRoot(object, jgen);
+        } finally {
+            jgen.close();
+        }
+    }
+
+    public <T> String writeToString(T object) {
+        if (!isSupported(object.getClass())) {
+            return fallbackCodec.writeToString(object);
+        }
+        StringWriter writer = new StringWriter(4096);
+        try {
+            JsonGenerator jgen = jsonFactory.createGenerator(writer);
+            try {
+                writeRoot(object, jgen);
+            } finally {
+                jgen.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot encode provided object", e);
+        }
+        return writer.toString();
+    }
+
+    public <T> T readValue(Class<T> type, InputStream entityStream) throws IOException {
+        if (!isSupported(type)) {
+            return fallbackCodec.readValue(type, entityStream);
+        }
+        JsonParser jp = jsonFactory.createParser(entityStream);
+        try {
+            return readRoot(type, jp);
+        } finally {
+            jp.close();
+        }
+    }
+
+    public <T> T readValue(Class<T> type, String text) throws IOException {
+        if (!isSupported(type)) {
+            return fallbackCodec.readValue(type, text);
+        }
+        JsonParser jp = jsonFactory.createParser(text);
+        try {
+            return readRoot(type, jp);
+        } finally {
+            jp.close();
+        }
+    }
+
+    /**
+     * Decodes an {@link Applications} payload instance by instance into the given builder, without holding the
+     * decoded applications list aside.
+     */
+    public void readApplications(InputStream entityStream, Applications.Builder builder) throws IOException {
+        JsonParser jp = jsonFactory.createParser(entityStream);
+        try {
+            expect(jp.nextToken(), JsonToken.START_OBJECT, jp);
+            expect(jp.nextToken(), JsonToken.FIELD_NAME, jp);
+            jp.nextToken();
+            readApplications(jp, builder);
+        } finally {
+            jp.close();
+        }
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == Applications.class || type == Application.class || type == InstanceInfo.class;
+    }
+
+    // ========================
+    // Encoding
+    // ========================
+
+    private void writeRoot(Object object, JsonGenerator jgen) throws IOException {
+        jgen.writeStartObject();
+        if (object instanceof Applications) {
+            jgen.writeFieldName(ROOT_APPLICATIONS);
+            writeApplications((Applications) object, jgen);
+        } else if (object instanceof Application) {
+            jgen.writeFieldName(ROOT_APPLICATION);
+            writeApplication((Application) object, jgen);
+        } else {
+            jgen.writeFieldName(ROOT_INSTANCE);
+            writeInstanceInfo((InstanceInfo) object, jgen);
+        }
+        jgen.writeEndObject();
+    }
+
+    private void writeApplications(Applications applications, JsonGenerator jgen) throws IOException {
+        jgen.writeStartObject();
+        jgen.writeStringField(versionDeltaKey, applications.getVersion().toString());
+        jgen.writeStringField(appHashCodeKey, applications.getAppsHashCode());
+        jgen.writeFieldName(NODE_APP);
+        jgen.writeStartArray();
+        for (Application application : applications.getRegisteredApplications()) {
+            writeApplication(application, jgen);
+        }
+        jgen.writeEndArray();
+        jgen.writeEndObject();
+    }
+
+    private void writeApplication(Application application, JsonGenerator jgen) throws IOException {
+        jgen.writeStartObject();
+        jgen.writeStringField(ELEM_NAME, application.getName());
+        jgen.writeFieldName(ELEM_INSTANCE);
+        jgen.writeStartArray();
+        for (InstanceInfo info : application.getInstances()) {
+            writeInstanceInfo(info, jgen);
+        }
+        jgen.writeEndArray();
+        jgen.writeEndObject();
+    }
+
+    /**
+     * Writes the fields in the order of {@link EurekaJacksonCodec.InstanceInfoSerializer}, with the
+     * {@code @Auto} fields in their declaration order.
+     */
+    private static void writeInstanceInfo(InstanceInfo info, JsonGenerator jgen) throws IOException {
+        jgen.writeStartObject();
+
+        if (info.getInstanceId() != null) {
+            jgen.writeStringField(ELEM_INSTANCE_ID, info.getInstanceId());
+        }
+        jgen.writeStringField(ELEM_HOST, info.getHostName());
+        jgen.writeStringField(ELEM_APP, info.getAppName());
+        jgen.writeStringField(ELEM_IP, info.getIPAddr());
+
+        if (!("unknown".equals(info.getSID()) || "na".equals(info.getSID()))) {
+            jgen.writeStringField(ELEM_SID, info.getSID());
+        }
+
+        jgen.writeStringField(ELEM_STATUS, info.getStatus().name());
+        jgen.writeStringField(ELEM_OVERRIDDEN_STATUS, info.getOverriddenStatus().name());
+
+        jgen.writeFieldName(ELEM_PORT);
+        jgen.writeStartObject();
+        jgen.writeNumberField(ELEM_PORT_VALUE, info.getPort());
+        jgen.writeStringField(ELEM_PORT_ENABLED, Boolean.toString(info.isPortEnabled(PortType.UNSECURE)));
+        jgen.writeEndObject();
+
+        jgen.writeFieldName(ELEM_SECURE_PORT);
+        jgen.writeStartObject();
+        jgen.writeNumberField(ELEM_PORT_VALUE, info.getSecurePort());
+        jgen.writeStringField(ELEM_PORT_ENABLED, Boolean.toString(info.isPortEnabled(PortType.SECURE)));
+        jgen.writeEndObject();
+
+        jgen.writeNumberField(ELEM_COUNTRY_ID, info.getCountryId());
+
+        DataCenterInfo dataCenterInfo = info.getDataCenterInfo();
+        if (dataCenterInfo != null) {
+            jgen.writeFieldName(NODE_DATACENTER);
+            jgen.writeStartObject();
+            boolean isAmazon = dataCenterInfo.getName() == Name.Amazon;
+            jgen.writeStringField(ELEM_CLASS, isAmazon ? AMAZON_DATACENTER_CLASS : DEFAULT_DATACENTER_CLASS);
+            jgen.writeStringField(ELEM_NAME, dataCenterInfo.getName().name());
+            if (isAmazon) {
+                jgen.writeFieldName(DATACENTER_METADATA);
+                writeStringMap(((AmazonInfo) dataCenterInfo).getMetadata(), jgen);
+            }
+            jgen.writeEndObject();
+        }
+
+        LeaseInfo leaseInfo = info.getLeaseInfo();
+        if (leaseInfo != null) {
+            jgen.writeFieldName(NODE_LEASE);
+            jgen.writeStartObject();
+            jgen.writeNumberField(ELEM_RENEW_INT, leaseInfo.getRenewalIntervalInSecs());
+            jgen.writeNumberField(ELEM_DURATION, leaseInfo.getDurationInSecs());
+            jgen.writeNumberField(ELEM_REG_TIMESTAMP, leaseInfo.getRegistrationTimestamp());
+            jgen.writeNumberField(ELEM_LAST_RENEW_TIMESTAMP, leaseInfo.getRenewalTimestamp());
+            jgen.writeNumberField(ELEM_EVICTION_TIMESTAMP, leaseInfo.getEvictionTimestamp());
+            jgen.writeNumberField(ELEM_SERVICE_UP_TIMESTAMP, leaseInfo.getServiceUpTimestamp());
+            jgen.writeEndObject();
+        }
+
+        Map<String, String> metadata = info.getMetadata();
+        if (metadata != null) {
+            jgen.writeFieldName(NODE_METADATA);
+            if (metadata.isEmpty()) {
+                // For backwards compatibility
+                jgen.writeStartObject();
+                jgen.writeStringField(ELEM_CLASS, EMPTY_METADATA_CLASS);
+                jgen.writeEndObject();
+            } else {
+                writeStringMap(metadata, jgen);
+            }
+        }
+
+        writeAutoField(ELEM_APPGROUPNAME, info.getAppGroupName(), jgen);
+        writeAutoField(ELEM_HOMEPAGEURL, info.getHomePageUrl(), jgen);
+        writeAutoField(ELEM_STATUSPAGEURL, info.getStatusPageUrl(), jgen);
+        writeAutoField(ELEM_HEALTHCHECKURL, info.getHealthCheckUrl(), jgen);
+        writeAutoField(ELEM_SECHEALTHCHECKURL, info.getSecureHealthCheckUrl(), jgen);
+        writeAutoField(ELEM_VIPADDRESS, info.getVIPAddress(), jgen);
+        writeAutoField(ELEM_SECVIPADDRESS, info.getSecureVipAddress(), jgen);
+        writeAutoField(ELEM_ISCOORDINATINGDISCSOERVER, info.isCoordinatingDiscoveryServer(), jgen);
+        writeAutoField(ELEM_LASTUPDATEDTS, info.getLastUpdatedTimestamp(), jgen);
+        writeAutoField(ELEM_LASTDIRTYTS, info.getLastDirtyTimestamp(), jgen);
+        writeAutoField(ELEM_ACTIONTYPE, info.getActionType(), jgen);
+        writeAutoField(ELEM_ASGNAME, info.getASGName(), jgen);
+
+        jgen.writeEndObject();
+    }
+
+    private static void writeAutoField(String name, Object value, JsonGenerator jgen) throws IOException {
+        if (value != null) {
+            jgen.writeStringField(name, String.valueOf(value));
+        }
+    }
+
+    private static void writeStringMap(Map<String, String> map, JsonGenerator jgen) throws IOException {
+        jgen.writeStartObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            jgen.writeStringField(entry.getKey(), entry.getValue());
+        }
+        jgen.writeEndObject();
+    }
+
+    // ========================
+    // Decoding
+    // ========================
+
+    private <T> T readRoot(Class<T> type, JsonParser jp) throws IOException {
+        expect(jp.nextToken(), JsonToken.START_OBJECT, jp);
+        expect(jp.nextToken(), JsonToken.FIELD_NAME, jp);
+        jp.nextToken();
+
+        Object result;
+        if (type == Applications.class) {
+            result = readApplications(jp);
+        } else if (type == Application.class) {
+            result = readApplication(jp);
+        } else {
+            result = readInstanceInfo(jp);
+        }
+        return type.cast(result);
+    }
+
+    private Applications readApplications(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        Applications apps = new Applications();
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (versionDeltaKey.equals(fieldName)) {
+                apps.setVersion(jp.getValueAsLong());
+            } else if (appHashCodeKey.equals(fieldName)) {
+                apps.setAppsHashCode(jp.getText());
+            } else if (NODE_APP.equals(fieldName)) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        apps.addApplication(readApplication(jp));
+                    }
+                } else {
+                    apps.addApplication(readApplication(jp));
+                }
+            } else {
+                jp.skipChildren();
+            }
+        }
+        return apps;
+    }
+
+    private void readApplications(JsonParser jp, Applications.Builder builder) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (versionDeltaKey.equals(fieldName)) {
+                builder.setVersion(jp.getValueAsLong());
+            } else if (appHashCodeKey.equals(fieldName)) {
+                builder.setAppsHashCode(jp.getText());
+            } else if (NODE_APP.equals(fieldName)) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        readApplication(jp, builder);
+                    }
+                } else {
+                    readApplication(jp, builder);
+                }
+            } else {
+                jp.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Instances are passed on as they are decoded, once the application name is known, which is the case
+     * unless the name follows them in the payload.
+     */
+    private static void readApplication(JsonParser jp, Applications.Builder builder) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        String name = null;
+        List<InstanceInfo> pendingInstances = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (ELEM_NAME.equals(fieldName)) {
+                name = jp.getText();
+                builder.addApplication(name);
+                if (pendingInstances != null) {
+                    for (InstanceInfo instanceInfo : pendingInstances) {
+                        builder.addInstance(name, instanceInfo);
+                    }
+                    pendingInstances = null;
+                }
+            } else if (ELEM_INSTANCE.equals(fieldName)) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        pendingInstances = addInstance(builder, name, readInstanceInfo(jp), pendingInstances);
+                    }
+                } else {
+                    pendingInstances = addInstance(builder, name, readInstanceInfo(jp), pendingInstances);
+                }
+            } else {
+                jp.skipChildren();
+            }
+        }
+        if (name == null) {
+            throw new JsonParseException("Application without a name", jp.getCurrentLocation());
+        }
+    }
+
+    /**
+     * @return the instances held until the application name is known
+     */
+    private static List<InstanceInfo> addInstance(Applications.Builder builder, String name, InstanceInfo instanceInfo,
+                                                  List<InstanceInfo> pendingInstances) {
+        if (name != null) {
+            builder.addInstance(name, instanceInfo);
+            return pendingInstances;
+        }
+        List<InstanceInfo> result = pendingInstances == null ? new ArrayList<InstanceInfo>() : pendingInstances;
+        result.add(instanceInfo);
+        return result;
+    }
+
+    private Application readApplication(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        String name = null;
+        List<InstanceInfo> instances = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (ELEM_NAME.equals(fieldName)) {
+                name = jp.getText();
+            } else if (ELEM_INSTANCE.equals(fieldName)) {
+                if (instances == null) {
+                    instances = new ArrayList<InstanceInfo>();
+                }
+                if (token == JsonToken.START_ARRAY) {
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        instances.add(readInstanceInfo(jp));
+                    }
+                } else {
+                    instances.add(readInstanceInfo(jp));
+                }
+            } else {
+                jp.skipChildren();
+            }
+        }
+        if (name == null) {
+            throw new JsonParseException("Application without a name", jp.getCurrentLocation());
+        }
+        Application application = new Application(name);
+        if (instances != null) {
+            for (InstanceInfo instanceInfo : instances) {
+                application.addInstance(instanceInfo);
+            }
+        }
+        return application;
+    }
+
+    private static InstanceInfo readInstanceInfo(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder();
+
+        /**
+         * These are set via single call to
+         * {@link com.netflix.appinfo.InstanceInfo.Builder#setHealthCheckUrlsForDeser(String, String)}.
+         */
+        String healthCheckUrl = null;
+        String healthCheckSecureUrl = null;
+
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (ELEM_HOST.equals(fieldName)) {
+                builder.setHostName(jp.getText());
+            } else if (ELEM_INSTANCE_ID.equals(fieldName)) {
+                builder.setInstanceId(jp.getText());
+            } else if (ELEM_APP.equals(fieldName)) {
+                builder.setAppName(jp.getText());
+            } else if (ELEM_IP.equals(fieldName)) {
+                builder.setIPAddr(jp.getText());
+            } else if (ELEM_SID.equals(fieldName)) {
+                builder.setSID(jp.getText());
+            } else if (ELEM_STATUS.equals(fieldName)) {
+                builder.setStatus(InstanceStatus.toEnum(jp.getText()));
+            } else if (ELEM_OVERRIDDEN_STATUS.equals(fieldName)) {
+                builder.setOverriddenStatus(InstanceStatus.toEnum(jp.getText()));
+            } else if (ELEM_PORT.equals(fieldName)) {
+                readPort(jp, builder, PortType.UNSECURE);
+            } else if (ELEM_SECURE_PORT.equals(fieldName)) {
+                readPort(jp, builder, PortType.SECURE);
+            } else if (ELEM_COUNTRY_ID.equals(fieldName)) {
+                builder.setCountryId(jp.getValueAsInt());
+            } else if (NODE_DATACENTER.equals(fieldName)) {
+                builder.setDataCenterInfo(readDataCenterInfo(jp));
+            } else if (NODE_LEASE.equals(fieldName)) {
+                builder.setLeaseInfo(readLeaseInfo(jp));
+            } else if (NODE_METADATA.equals(fieldName)) {
+                builder.setMetadata(readMetadata(jp));
+            } else if (ELEM_HEALTHCHECKURL.equals(fieldName)) {
+                healthCheckUrl = jp.getText();
+            } else if (ELEM_SECHEALTHCHECKURL.equals(fieldName)) {
+                healthCheckSecureUrl = jp.getText();
+            } else if (ELEM_APPGROUPNAME.equals(fieldName)) {
+                builder.setAppGroupName(jp.getText());
+            } else if (ELEM_HOMEPAGEURL.equals(fieldName)) {
+                builder.setHomePageUrlForDeser(jp.getText());
+            } else if (ELEM_STATUSPAGEURL.equals(fieldName)) {
+                builder.setStatusPageUrlForDeser(jp.getText());
+            } else if (ELEM_VIPADDRESS.equals(fieldName)) {
+                builder.setVIPAddressDeser(jp.getText());
+            } else if (ELEM_SECVIPADDRESS.equals(fieldName)) {
+                builder.setSecureVIPAddressDeser(jp.getText());
+            } else if (ELEM_ISCOORDINATINGDISCSOERVER.equals(fieldName)) {
+                builder.setIsCoordinatingDiscoveryServer(jp.getValueAsBoolean());
+            } else if (ELEM_LASTUPDATEDTS.equals(fieldName)) {
+                builder.setLastUpdatedTimestamp(jp.getValueAsLong());
+            } else if (ELEM_LASTDIRTYTS.equals(fieldName)) {
+                builder.setLastDirtyTimestamp(jp.getValueAsLong());
+            } else if (ELEM_ACTIONTYPE.equals(fieldName)) {
+                builder.setActionType(ActionType.valueOf(jp.getText()));
+            } else if (ELEM_ASGNAME.equals(fieldName)) {
+                builder.setASGName(jp.getText());
+            } else {
+                jp.skipChildren();
+            }
+        }
+        builder.setHealthCheckUrlsForDeser(healthCheckUrl, healthCheckSecureUrl);
+
+        return builder.build();
+    }
+
+    private static void readPort(JsonParser jp, InstanceInfo.Builder builder, PortType portType) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            jp.nextToken();
+            if (ELEM_PORT_VALUE.equals(fieldName)) {
+                int port = jp.getValueAsInt();
+                if (portType == PortType.SECURE) {
+                    builder.setSecurePort(port);
+                } else {
+                    builder.setPort(port);
+                }
+            } else if (ELEM_PORT_ENABLED.equals(fieldName)) {
+                builder.enablePort(portType, jp.getValueAsBoolean());
+            } else {
+                jp.skipChildren();
+            }
+        }
+    }
+
+    private static DataCenterInfo readDataCenterInfo(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        Name name = null;
+        Map<String, String> metadata = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (ELEM_NAME.equals(fieldName) && token != JsonToken.VALUE_NULL) {
+                name = Name.valueOf(jp.getText());
+            } else if (DATACENTER_METADATA.equals(fieldName) && token == JsonToken.START_OBJECT) {
+                metadata = readStringMap(jp, new HashMap<String, String>());
+            } else {
+                jp.skipChildren();
+            }
+        }
+        if (name == null) {
+            throw new JsonParseException("Data center info without a name", jp.getCurrentLocation());
+        }
+        if (name != Name.Amazon) {
+            return MyDataCenterInfo.sharedInstance(name);
+        }
+        AmazonInfo amazonInfo = new AmazonInfo();
+        amazonInfo.setMetadata(metadata == null ? new HashMap<String, String>() : metadata);
+        return amazonInfo;
+    }
+
+    private static LeaseInfo readLeaseInfo(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        LeaseInfo.Builder builder = LeaseInfo.Builder.newBuilder();
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (ELEM_DURATION.equals(fieldName)) {
+                builder.setDurationInSecs((int) jp.getValueAsLong());
+            } else if (ELEM_EVICTION_TIMESTAMP.equals(fieldName)) {
+                builder.setEvictionTimestamp(jp.getValueAsLong());
+            } else if (ELEM_LAST_RENEW_TIMESTAMP.equals(fieldName)) {
+                builder.setRenewalTimestamp(jp.getValueAsLong());
+            } else if (ELEM_REG_TIMESTAMP.equals(fieldName)) {
+                builder.setRegistrationTimestamp(jp.getValueAsLong());
+            } else if (ELEM_RENEW_INT.equals(fieldName)) {
+                builder.setRenewalIntervalInSecs((int) jp.getValueAsLong());
+            } else if (ELEM_SERVICE_UP_TIMESTAMP.equals(fieldName)) {
+                builder.setServiceUpTimestamp(jp.getValueAsLong());
+            } else {
+                jp.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The metadata map without the "@class" backwards compatibility entry; an immutable empty map if no entry is left.
+     */
+    private static Map<String, String> readMetadata(JsonParser jp) throws IOException {
+        expect(jp.getCurrentToken(), JsonToken.START_OBJECT, jp);
+        Map<String, String> metadata = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String key = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (ELEM_CLASS.equals(key) || token == JsonToken.VALUE_NULL) {
+                jp.skipChildren();
+                continue;
+            }
+            if (metadata == null) {
+                metadata = new ConcurrentHashMap<String, String>();
+            }
+            metadata.put(StringCache.intern(key), StringCache.intern(jp.getText()));
+        }
+        return metadata == null ? Collections.<String, String>emptyMap() : metadata;
+    }
+
+    private static Map<String, String> readStringMap(JsonParser jp, Map<String, String> map) throws IOException {
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String key = jp.getCurrentName();
+            JsonToken token = jp.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            map.put(StringCache.intern(key), StringCache.intern(jp.getText()));
+        }
+        return map;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser jp) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException("Expected " + expected + ", got " + actual, jp.getCurrentLocation());
+        }
+    }
+}
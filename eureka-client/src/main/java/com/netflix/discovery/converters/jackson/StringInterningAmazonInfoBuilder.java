@@ -1,38 +1,20 @@
 package com.netflix.discovery.converters.jackson;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import com.netflix.appinfo.AmazonInfo;
-import com.netflix.appinfo.AmazonInfo.MetaDataKey;
 import com.netflix.appinfo.DataCenterInfo.Name;
 import com.netflix.discovery.util.StringCache;
 
 /**
- * Amazon instance info builder that is doing key names interning, together with
- * value interning for selected keys (see {@link StringInterningAmazonInfoBuilder#VALUE_INTERN_KEYS}).
- *
- * The amount of string objects that is interned here is very limited in scope, and is done by calling
- * {@link String#intern()}, with no custom build string cache.
+ * Amazon instance info builder that is doing key names and values interning through the bounded
+ * {@link StringCache}, like the other decoders do.
  *
  * @author Tomasz Bak
  */
 public class StringInterningAmazonInfoBuilder {
 
-    private static final Set<String> VALUE_INTERN_KEYS;
-
-    static {
-        HashSet<String> keys = new HashSet<>();
-        keys.add(MetaDataKey.accountId.getName());
-        keys.add(MetaDataKey.amiId.getName());
-        keys.add(MetaDataKey.availabilityZone.getName());
-        keys.add(MetaDataKey.instanceType.getName());
-        keys.add(MetaDataKey.vpcId.getName());
-        VALUE_INTERN_KEYS = keys;
-    }
-
     private HashMap<String, String> metadata;
 
     public StringInterningAmazonInfoBuilder withName(String name) {
@@ -46,12 +28,7 @@ public class StringInterningAmazonInfoBuilder {
         }
         this.metadata = new HashMap<>();
         for (Map.Entry<String, String> entry : metadata.entrySet()) {
-            String key = entry.getKey().intern();
-            String value = entry.getValue();
-            if (VALUE_INTERN_KEYS.contains(key)) {
-                value = StringCache.intern(value);
-            }
-            this.metadata.put(key, value);
+            this.metadata.put(StringCache.intern(entry.getKey()), StringCache.intern(entry.getValue()));
         }
         return this;
     }
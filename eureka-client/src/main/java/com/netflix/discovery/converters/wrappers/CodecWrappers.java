@@ -4,11 +4,14 @@ import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
 import com.netflix.discovery.converters.EurekaJacksonCodec;
+import com.netflix.discovery.converters.EurekaStreamingJsonCodec;
 import com.netflix.discovery.converters.JsonXStream;
 import com.netflix.discovery.converters.KeyFormatter;
 import com.netflix.discovery.converters.XmlXStream;
@@ -123,6 +126,8 @@ public final class CodecWrappers {
             return new JacksonJsonMini();
         } else if (getCodecName(LegacyJacksonJson.class).equals(name)) {
             return new LegacyJacksonJson();
+        } else if (getCodecName(StreamingJson.class).equals(name)) {
+            return new StreamingJson();
         } else if (getCodecName(XStreamJson.class).equals(name)) {
             return new XStreamJson();
         } else if (getCodecName(JacksonXml.class).equals(name)) {
@@ -131,6 +136,8 @@ public final class CodecWrappers {
             return new JacksonXmlMini();
         } else if (getCodecName(XStreamXml.class).equals(name)) {
             return new XStreamXml();
+        } else if (getCodecName(EurekaBinary.class).equals(name)) {
+            return new EurekaBinary();
         } else {
             return null;
         }
@@ -315,6 +322,45 @@ public final class CodecWrappers {
         }
     }
 
+    /**
+     * Drop-in replacement for {@link LegacyJacksonJson}, producing the same JSON payload without bean
+     * introspection or intermediate trees.
+     */
+    public static class StreamingJson implements CodecWrapper {
+
+        protected final EurekaStreamingJsonCodec codec = new EurekaStreamingJsonCodec();
+
+        @Override
+        public String codecName() {
+            return getCodecName(this.getClass());
+        }
+
+        @Override
+        public boolean support(MediaType mediaType) {
+            return mediaType.equals(MediaType.APPLICATION_JSON_TYPE);
+        }
+
+        @Override
+        public <T> String encode(T object) throws IOException {
+            return codec.writeToString(object);
+        }
+
+        @Override
+        public <T> void encode(T object, OutputStream outputStream) throws IOException {
+            codec.writeTo(object, outputStream);
+        }
+
+        @Override
+        public <T> T decode(String textValue, Class<T> type) throws IOException {
+            return codec.readValue(type, textValue);
+        }
+
+        @Override
+        public <T> T decode(InputStream inputStream, Class<T> type) throws IOException {
+            return codec.readValue(type, inputStream);
+        }
+    }
+
     public static class XStreamJson implements CodecWrapper {
 
         protected final JsonXStream codec = JsonXStream.getInstance();
@@ -387,4 +433,47 @@ public final class CodecWrappers {
             return (T) codec.fromXML(inputStream, type);
         }
     }
+
+    /**
+     * The compact binary codec. The binary payloads are carried in strings holding one char per byte
+     * (ISO-8859-1), so they go through the string based response cache unchanged.
+     */
+    public static class EurekaBinary implements CodecWrapper {
+
+        public static final MediaType MEDIA_TYPE = MediaType.valueOf(EurekaBinaryCodec.MEDIA_TYPE);
+
+        public static final Charset PAYLOAD_CHARSET = Charset.forName("ISO-8859-1");
+
+        protected final EurekaBinaryCodec codec = new EurekaBinaryCodec();
+
+        @Override
+        public String codecName() {
+            return getCodecName(this.getClass());
+        }
+
+        @Override
+        public boolean support(MediaType mediaType) {
+            return MEDIA_TYPE.getType().equals(mediaType.getType()) && MEDIA_TYPE.getSubtype().equals(mediaType.getSubtype());
+        }
+
+        @Override
+        public <T> String encode(T object) throws IOException {
+            return new String(codec.writeToBytes(object), PAYLOAD_CHARSET);
+        }
+
+        @Override
+        public <T> void encode(T object, OutputStream outputStream) throws IOException {
+            codec.writeTo(object, outputStream);
+        }
+
+        @Override
+        public <T> T decode(String textValue, Class<T> type) throws IOException {
+            return codec.readValue(type, textValue.getBytes(PAYLOAD_CHARSET));
+        }
+
+        @Override
+        public <T> T decode(InputStream inputStream, Class<T> type) throws IOException {
+            return codec.readValue(type, inputStream);
+        }
+    }
 }
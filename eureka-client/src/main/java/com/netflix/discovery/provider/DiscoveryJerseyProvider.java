@@ -64,6 +64,8 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter, MessageBodyRe
 
     private final EncoderWrapper encoder;
     private final DecoderWrapper decoder;
+    // Binary payloads are served only to clients asking for them, and are decoded whatever the configured decoder
+    private final DecoderWrapper binaryDecoder = CodecWrappers.getDecoder(CodecWrappers.EurekaBinary.class);
 
     public DiscoveryJerseyProvider() {
         this(null, null);
@@ -94,6 +96,9 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter, MessageBodyRe
         if ("application".equals(mediaType.getType()) && ("xml".equals(mediaType.getSubtype()) || "json".equals(mediaType.getSubtype()))) {
             return checkForAnnotation(serializableClass);
         }
+        if (binaryDecoder.support(mediaType)) {
+            return checkForAnnotation(serializableClass);
+        }
         return false;
     }
 
@@ -101,6 +106,7 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter, MessageBodyRe
     public Object readFrom(Class serializableClass, Type type,
                            Annotation[] annotations, MediaType mediaType,
                            MultivaluedMap headers, InputStream inputStream) throws IOException {
+        DecoderWrapper decoder = binaryDecoder.support(mediaType) ? binaryDecoder : this.decoder;
         if (decoder.support(mediaType)) {
             try {
                 return decoder.decode(inputStream, serializableClass);
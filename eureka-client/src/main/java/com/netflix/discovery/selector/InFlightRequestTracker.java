@@ -0,0 +1,49 @@
+package com.netflix.discovery.selector;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * {@link InstanceLoad} given by the number of requests the client has in flight to an instance. Each
+ * {@link #onRequestStarted(InstanceInfo)} call must be followed by {@link #onRequestCompleted(InstanceInfo)},
+ * whatever the request outcome.
+ *
+ * Counters are kept per instance id, and a counter is created the first time a request is sent to an instance
+ * only. Counters of instances that are gone can be dropped with {@link #remove(InstanceInfo)}.
+ */
+public class InFlightRequestTracker implements InstanceLoad {
+
+    private final ConcurrentMap<String, AtomicLong> inFlightRequests = new ConcurrentHashMap<String, AtomicLong>();
+
+    public void onRequestStarted(InstanceInfo instance) {
+        AtomicLong counter = inFlightRequests.get(instance.getId());
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = inFlightRequests.putIfAbsent(instance.getId(), newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    public void onRequestCompleted(InstanceInfo instance) {
+        AtomicLong counter = inFlightRequests.get(instance.getId());
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    public void remove(InstanceInfo instance) {
+        inFlightRequests.remove(instance.getId());
+    }
+
+    @Override
+    public long getLoad(InstanceInfo instance) {
+        AtomicLong counter = inFlightRequests.get(instance.getId());
+        return counter == null ? 0 : counter.get();
+    }
+}
@@ -0,0 +1,12 @@
+package com.netflix.discovery.selector;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Load of an instance as seen by this client, used by {@link InstanceSelectors#powerOfTwoChoices(InstanceLoad)}.
+ * The lower the value, the less loaded the instance is. It is called twice per selection, so it must be cheap.
+ */
+public interface InstanceLoad {
+
+    long getLoad(InstanceInfo instance);
+}
@@ -0,0 +1,23 @@
+package com.netflix.discovery.selector;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Picks one instance from the instances registered under a VIP address. Selectors are called with the list
+ * held by the client VIP index, so they must neither modify it nor keep a reference to it, and should not allocate,
+ * as they are typically called once per request. Implementations are thread safe.
+ *
+ * See {@link InstanceSelectors} for the available implementations.
+ */
+public interface InstanceSelector {
+
+    /**
+     * @param instances non empty list of instances registered under a VIP address
+     * @param key request key, used by key aware selectors only
+     * @return selected instance, one of the given list
+     */
+    InstanceInfo select(List<InstanceInfo> instances, @Nullable String key);
+}
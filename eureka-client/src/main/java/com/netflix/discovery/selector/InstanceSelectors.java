@@ -0,0 +1,48 @@
+package com.netflix.discovery.selector;
+
+/**
+ * Factory of the {@link InstanceSelector}s, to be used with
+ * {@link com.netflix.discovery.EurekaClient#selectInstance(String, boolean, InstanceSelector, String)}.
+ * Selectors hold no reference to the registry, so a single selector can be shared by all VIP addresses and
+ * all clients.
+ */
+public final class InstanceSelectors {
+
+    private InstanceSelectors() {
+    }
+
+    /**
+     * Round robin, with a position kept per thread instead of a shared counter.
+     */
+    public static InstanceSelector roundRobin() {
+        return new StripedRoundRobinSelector();
+    }
+
+    /**
+     * The less loaded of two instances picked at random.
+     *
+     * @param instanceLoad load of an instance, for example {@link InFlightRequestTracker}
+     */
+    public static InstanceSelector powerOfTwoChoices(InstanceLoad instanceLoad) {
+        return new PowerOfTwoChoicesSelector(instanceLoad);
+    }
+
+    /**
+     * Random selection, with the instances in the given zone weighing {@code sameZoneWeight} times more than
+     * the other instances.
+     *
+     * @param zone client zone, for example {@link com.netflix.appinfo.InstanceInfo#getZone(String[], com.netflix.appinfo.InstanceInfo)}
+     *             of the client own instance
+     */
+    public static InstanceSelector zoneAffinity(String zone, int sameZoneWeight) {
+        return new ZoneAffinitySelector(zone, sameZoneWeight);
+    }
+
+    /**
+     * Consistent hashing of the request key, so that requests with the same key go to the same instance for as
+     * long as it is registered.
+     */
+    public static InstanceSelector consistentHashing() {
+        return new RendezvousHashingSelector();
+    }
+}
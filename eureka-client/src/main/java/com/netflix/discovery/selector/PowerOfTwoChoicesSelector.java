@@ -0,0 +1,37 @@
+package com.netflix.discovery.selector;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Picks two distinct instances at random, and selects the one with the lower {@link InstanceLoad}. Compared to
+ * picking the least loaded instance overall, it needs no scan of the list, and does not send a burst of requests
+ * to an instance which just happened to report the lowest load.
+ */
+class PowerOfTwoChoicesSelector implements InstanceSelector {
+
+    private final InstanceLoad instanceLoad;
+
+    PowerOfTwoChoicesSelector(InstanceLoad instanceLoad) {
+        this.instanceLoad = instanceLoad;
+    }
+
+    @Override
+    public InstanceInfo select(List<InstanceInfo> instances, String key) {
+        int size = instances.size();
+        if (size == 1) {
+            return instances.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIdx = random.nextInt(size);
+        int secondIdx = random.nextInt(size - 1);
+        if (secondIdx >= firstIdx) {
+            secondIdx++;
+        }
+        InstanceInfo first = instances.get(firstIdx);
+        InstanceInfo second = instances.get(secondIdx);
+        return instanceLoad.getLoad(second) < instanceLoad.getLoad(first) ? second : first;
+    }
+}
@@ -0,0 +1,58 @@
+package com.netflix.discovery.selector;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Consistent hashing of request keys over instances, using rendezvous (highest random weight) hashing. Each
+ * instance gets a score which is a hash of the key and the instance id, and the instance with the highest
+ * score is selected. A key therefore maps to the same instance whatever the order of the list, and if an instance
+ * is added or removed, only the keys that map to that instance move. Unlike a hash ring, it needs no state
+ * to be rebuilt when the registry changes, at the cost of a pass over the list for each selection.
+ *
+ * A request without a key is sent to a random instance.
+ */
+class RendezvousHashingSelector implements InstanceSelector {
+
+    @Override
+    public InstanceInfo select(List<InstanceInfo> instances, String key) {
+        int size = instances.size();
+        if (key == null) {
+            return instances.get(ThreadLocalRandom.current().nextInt(size));
+        }
+        long keyHash = ((long) key.hashCode()) << 32;
+
+        InstanceInfo selected = null;
+        long selectedScore = 0;
+        for (int i = 0; i < size; i++) {
+            InstanceInfo instance = instances.get(i);
+            long score = score(keyHash, instance.getId());
+            if (selected == null || score > selectedScore
+                    || score == selectedScore && compareIds(instance.getId(), selected.getId()) < 0) {
+                selected = instance;
+                selectedScore = score;
+            }
+        }
+        return selected;
+    }
+
+    private static long score(long keyHash, String id) {
+        long h = keyHash | ((id == null ? 0 : id.hashCode()) & 0xFFFFFFFFL);
+        // MurmurHash3 64-bit finalizer
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int compareIds(String id1, String id2) {
+        if (id1 == null) {
+            return id2 == null ? 0 : -1;
+        }
+        return id2 == null ? 1 : id1.compareTo(id2);
+    }
+}
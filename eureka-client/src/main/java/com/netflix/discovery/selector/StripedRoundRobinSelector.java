@@ -0,0 +1,30 @@
+package com.netflix.discovery.selector;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Round robin, with a separate position kept by each thread, so selecting threads never write to shared memory.
+ * Each thread starts at a random position, so the threads are striped over the list, and the traffic of all
+ * of them is evenly spread, as with a single shared counter.
+ *
+ * The positions are not tied to a particular list, so a registry refresh does not reset them.
+ */
+class StripedRoundRobinSelector implements InstanceSelector {
+
+    private final ThreadLocal<int[]> positions = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[]{ThreadLocalRandom.current().nextInt()};
+        }
+    };
+
+    @Override
+    public InstanceInfo select(List<InstanceInfo> instances, String key) {
+        int[] position = positions.get();
+        int next = position[0]++;
+        return instances.get((next & Integer.MAX_VALUE) % instances.size());
+    }
+}
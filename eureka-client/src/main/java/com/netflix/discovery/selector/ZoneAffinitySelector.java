@@ -0,0 +1,72 @@
+package com.netflix.discovery.selector;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.AmazonInfo.MetaDataKey;
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Random selection, where each instance in the client zone weighs {@code sameZoneWeight} times more than an
+ * instance in another zone. A weight of 1 is a plain random selection, and a very high weight sends traffic to
+ * other zones only if there is no instance in the client zone.
+ *
+ * The zone of an instance is taken from its {@link AmazonInfo}. Instances with other data center info are
+ * always treated as being in another zone. A selection takes two passes over the list, without allocation.
+ */
+class ZoneAffinitySelector implements InstanceSelector {
+
+    private final String zone;
+    private final int sameZoneWeight;
+
+    ZoneAffinitySelector(String zone, int sameZoneWeight) {
+        if (zone == null) {
+            throw new IllegalArgumentException("Zone cannot be null");
+        }
+        if (sameZoneWeight < 1) {
+            throw new IllegalArgumentException("Same zone weight must be at least 1, but is " + sameZoneWeight);
+        }
+        this.zone = zone;
+        this.sameZoneWeight = sameZoneWeight;
+    }
+
+    @Override
+    public InstanceInfo select(List<InstanceInfo> instances, String key) {
+        int size = instances.size();
+        int sameZoneCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (isInZone(instances.get(i))) {
+                sameZoneCount++;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (sameZoneCount == 0 || sameZoneCount == size) {
+            return instances.get(random.nextInt(size));
+        }
+
+        long sameZoneTotal = (long) sameZoneCount * sameZoneWeight;
+        long draw = random.nextLong(sameZoneTotal + size - sameZoneCount);
+        boolean sameZone = draw < sameZoneTotal;
+        // n-th instance within the chosen group
+        int remaining = (int) (sameZone ? draw / sameZoneWeight : draw - sameZoneTotal);
+        for (int i = 0; i < size; i++) {
+            InstanceInfo instance = instances.get(i);
+            if (isInZone(instance) == sameZone && remaining-- == 0) {
+                return instance;
+            }
+        }
+        // Unreachable, as the list is read-only
+        return instances.get(size - 1);
+    }
+
+    private boolean isInZone(InstanceInfo instance) {
+        DataCenterInfo dataCenterInfo = instance.getDataCenterInfo();
+        if (dataCenterInfo instanceof AmazonInfo) {
+            return zone.equals(((AmazonInfo) dataCenterInfo).get(MetaDataKey.availabilityZone));
+        }
+        return false;
+    }
+}
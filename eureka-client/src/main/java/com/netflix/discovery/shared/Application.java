@@ -24,6 +24,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -72,6 +73,14 @@ public class Application {
 
     private Map<String, InstanceInfo> instancesMap;
 
+    /**
+     * Shuffled instances by virtual host name, built with {@link #shuffledInstances}. Keys are case insensitive.
+     */
+    @XStreamOmitField
+    private volatile Map<String, List<InstanceInfo>> virtualHostNameInstancesMap;
+    @XStreamOmitField
+    private volatile Map<String, List<InstanceInfo>> secureVirtualHostNameInstancesMap;
+
     public Application() {
         instances = new LinkedHashSet<InstanceInfo>();
         instancesMap = new ConcurrentHashMap<String, InstanceInfo>();
@@ -151,6 +160,26 @@ public class Application {
     }
 
 
+    /**
+     * Gets the instances of this application with the given virtual host name. Once the instances are shuffled,
+     * this is a lookup of the list built by the shuffle. Before that, the instances are searched for.
+     *
+     * @param virtualHostName the virtual host name, matched ignoring case
+     * @param secure true for the secure virtual host name
+     * @return the shuffled instances with this virtual host name, or an empty list if there are none. The list is
+     *         shared by all callers, and is read-only.
+     */
+    public List<InstanceInfo> getInstancesByVirtualHostName(String virtualHostName, boolean secure) {
+        Map<String, List<InstanceInfo>> instancesByVirtualHostName = secure
+                ? this.secureVirtualHostNameInstancesMap
+                : this.virtualHostNameInstancesMap;
+        if (instancesByVirtualHostName == null) {
+            instancesByVirtualHostName = indexByVirtualHostName(getInstances(), secure);
+        }
+        List<InstanceInfo> result = instancesByVirtualHostName.get(virtualHostName);
+        return result == null ? Collections.<InstanceInfo>emptyList() : result;
+    }
+
     /**
      * Get the instance info that matches the given id.
      *
@@ -239,9 +268,41 @@ public class Application {
 
         }
         Collections.shuffle(instanceInfoList);
+        this.virtualHostNameInstancesMap = indexByVirtualHostName(instanceInfoList, false);
+        this.secureVirtualHostNameInstancesMap = indexByVirtualHostName(instanceInfoList, true);
         this.shuffledInstances.set(instanceInfoList);
     }
 
+    /**
+     * Groups the instances by each of the comma separated virtual host names they have, keeping their order, into
+     * read-only lists.
+     */
+    private static Map<String, List<InstanceInfo>> indexByVirtualHostName(List<InstanceInfo> instanceInfoList,
+                                                                          boolean secure) {
+        Map<String, List<InstanceInfo>> result = new TreeMap<String, List<InstanceInfo>>(String.CASE_INSENSITIVE_ORDER);
+        for (InstanceInfo instanceInfo : instanceInfoList) {
+            String vipAddresses = secure ? instanceInfo.getSecureVipAddress() : instanceInfo.getVIPAddress();
+            if (vipAddresses == null) {
+                continue;
+            }
+            for (String vipAddress : vipAddresses.split(",")) {
+                String virtualHostName = vipAddress.trim();
+                List<InstanceInfo> instances = result.get(virtualHostName);
+                if (instances == null) {
+                    instances = new ArrayList<InstanceInfo>();
+                    result.put(virtualHostName, instances);
+                }
+                if (instances.isEmpty() || instances.get(instances.size() - 1) != instanceInfo) {
+                    instances.add(instanceInfo);
+                }
+            }
+        }
+        for (Map.Entry<String, List<InstanceInfo>> entry : result.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return result;
+    }
+
     private void removeInstance(InstanceInfo i, boolean markAsDirty) {
         instancesMap.remove(i.getId());
         synchronized (instances) {
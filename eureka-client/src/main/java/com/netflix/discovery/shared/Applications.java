@@ -19,7 +19,9 @@ package com.netflix.discovery.shared;
 import javax.annotation.Nullable;
 import java.util.AbstractQueue;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -84,6 +86,19 @@ public class Applications {
     private Map<String, AtomicReference<List<InstanceInfo>>> shuffleVirtualHostNameMap = new ConcurrentHashMap<String, AtomicReference<List<InstanceInfo>>>();
     private Map<String, AtomicReference<List<InstanceInfo>>> shuffledSecureVirtualHostNameMap = new ConcurrentHashMap<String, AtomicReference<List<InstanceInfo>>>();
 
+    /**
+     * Virtual host names of each application, as indexed by the last shuffle, so the lists of the virtual host
+     * names an application is removed from can be found when only that application changes.
+     */
+    private Map<String, Set<String>> appNameVirtualHostNamesMap = new ConcurrentHashMap<String, Set<String>>();
+    private Map<String, Set<String>> appNameSecureVirtualHostNamesMap = new ConcurrentHashMap<String, Set<String>>();
+
+    /**
+     * Instances by id, built by the last shuffle, and updated by {@link #copyWith(Collection)}. Null if
+     * applications were added since, in which case lookups by id scan the applications.
+     */
+    private volatile InstanceIdIndex instanceIdIndex;
+
     private String appsHashCode;
 
     /**
@@ -120,6 +135,56 @@ public class Applications {
         this.applications.addAll(apps);
     }
 
+    /**
+     * Creates a new applications list, in which the given applications replace the ones of the same name,
+     * or are added if there are none. This list is not modified, and all its other applications are shared
+     * with the new list, so a registry update can be prepared aside from the list being read, and published
+     * by a reference swap. The virtual host name lists are shared too, until the new list is indexed by
+     * {@link #shuffleInstances(boolean, Collection)}, which must be done before use. The index of instances
+     * by id is updated right away, so the changed applications must not be modified afterwards.
+     *
+     * @param changedApps the applications to replace or add, not shared with any other list
+     * @return the new applications list, with the version and hash code of this one
+     */
+    public Applications copyWith(Collection<Application> changedApps) {
+        Map<String, Application> changedAppsByName = new HashMap<String, Application>();
+        for (Application app : changedApps) {
+            changedAppsByName.put(app.getName().toUpperCase(Locale.ROOT), app);
+        }
+        Applications copy = new Applications();
+        List<Application> replacedApps = new ArrayList<Application>();
+        for (Application app : applications) {
+            Application changedApp = changedAppsByName.remove(app.getName().toUpperCase(Locale.ROOT));
+            if (changedApp == null) {
+                copy.putApplication(app);
+            } else {
+                copy.putApplication(changedApp);
+                replacedApps.add(app);
+            }
+        }
+        for (Application app : changedAppsByName.values()) {
+            copy.putApplication(app);
+        }
+        copy.appsHashCode = appsHashCode;
+        copy.versionDelta = versionDelta;
+        copy.shuffleVirtualHostNameMap.putAll(shuffleVirtualHostNameMap);
+        copy.shuffledSecureVirtualHostNameMap.putAll(shuffledSecureVirtualHostNameMap);
+        copy.virtualHostNameIndexMap.putAll(virtualHostNameIndexMap);
+        copy.secureVirtualHostNameIndexMap.putAll(secureVirtualHostNameIndexMap);
+        copy.appNameVirtualHostNamesMap.putAll(appNameVirtualHostNamesMap);
+        copy.appNameSecureVirtualHostNamesMap.putAll(appNameSecureVirtualHostNamesMap);
+        InstanceIdIndex currentIdIndex = instanceIdIndex;
+        if (currentIdIndex != null) {
+            copy.instanceIdIndex = currentIdIndex.withChanges(replacedApps, changedApps);
+        }
+        return copy;
+    }
+
+    private void putApplication(Application app) {
+        appNameApplicationMap.put(app.getName().toUpperCase(Locale.ROOT), app);
+        applications.add(app);
+    }
+
     /**
      * Add the <em>application</em> to the list.
      *
@@ -127,6 +192,7 @@ public class Applications {
      *            the <em>application</em> to be added.
      */
     public void addApplication(Application app) {
+        instanceIdIndex = null;
         appNameApplicationMap.put(app.getName().toUpperCase(Locale.ROOT), app);
         addInstancesToVIPMaps(app);
         applications.add(app);
@@ -164,7 +230,8 @@ public class Applications {
      * @param virtualHostName
      *            the virtual hostname for which the instances need to be
      *            returned.
-     * @return list of <em>instances</em>.
+     * @return list of <em>instances</em>. Once the instances are shuffled, this is the shuffled list shared by
+     *         all callers, which is read-only.
      */
     public List<InstanceInfo> getInstancesByVirtualHostName(String virtualHostName) {
         AtomicReference<List<InstanceInfo>> ref = this.shuffleVirtualHostNameMap
@@ -183,7 +250,8 @@ public class Applications {
      * @param secureVirtualHostName
      *            the virtual hostname for which the secure instances need to be
      *            returned.
-     * @return list of <em>instances</em>.
+     * @return list of <em>instances</em>. Once the instances are shuffled, this is the shuffled list shared by
+     *         all callers, which is read-only.
      */
     public List<InstanceInfo> getInstancesBySecureVirtualHostName(String secureVirtualHostName) {
         AtomicReference<List<InstanceInfo>> ref = this.shuffledSecureVirtualHostNameMap
@@ -195,6 +263,29 @@ public class Applications {
         }
     }
 
+    /**
+     * Gets the instances with the given id, in all applications. Once the applications are shuffled, this is
+     * a lookup in an index of instances by id.
+     *
+     * @param id the instance id
+     * @return the instances with the given id, or an empty list. Once the applications are shuffled, this is the
+     *         list held by the index, which is read-only.
+     */
+    public List<InstanceInfo> getInstancesById(String id) {
+        InstanceIdIndex idIndex = this.instanceIdIndex;
+        if (idIndex != null) {
+            return idIndex.get(id);
+        }
+        List<InstanceInfo> instancesList = new ArrayList<InstanceInfo>();
+        for (Application app : this.applications) {
+            InstanceInfo instanceInfo = app.getByInstanceId(id);
+            if (instanceInfo != null) {
+                instancesList.add(instanceInfo);
+            }
+        }
+        return instancesList;
+    }
+
     @Deprecated
     public void setVersion(Long version) {
         this.versionDelta = version;
@@ -402,6 +493,95 @@ public class Applications {
         shuffleInstances(filterUpInstances, false, null, null, null);
     }
 
+    /**
+     * Shuffles the instances of the given applications only, and rebuilds only the lists of the virtual host
+     * names these applications had or have. The other applications and lists must be shuffled already, as is
+     * the case for the ones shared with a shuffled list by {@link #copyWith(Collection)}. The cost is thus
+     * proportional to the size of the changed applications and of their virtual host names, and not to the
+     * registry size.
+     *
+     * @param filterUpInstances whether to return only UP instances
+     * @param changedApps the applications of this list with changed instances
+     */
+    public void shuffleInstances(boolean filterUpInstances, Collection<Application> changedApps) {
+        Set<String> changedAppNames = new HashSet<String>();
+        Set<String> changedVirtualHostNames = new HashSet<String>();
+        Set<String> changedSecureVirtualHostNames = new HashSet<String>();
+        for (Application application : changedApps) {
+            application.shuffleAndStoreInstances(filterUpInstances);
+
+            String appName = application.getName().toUpperCase(Locale.ROOT);
+            changedAppNames.add(appName);
+            changedVirtualHostNames.addAll(replaceVirtualHostNames(appName,
+                    getVirtualHostNames(application, false), appNameVirtualHostNamesMap));
+            changedSecureVirtualHostNames.addAll(replaceVirtualHostNames(appName,
+                    getVirtualHostNames(application, true), appNameSecureVirtualHostNamesMap));
+        }
+        for (String virtualHostName : changedVirtualHostNames) {
+            reindexVirtualHostName(virtualHostName, false, changedAppNames, changedApps,
+                    shuffleVirtualHostNameMap, virtualHostNameIndexMap, filterUpInstances);
+        }
+        for (String secureVirtualHostName : changedSecureVirtualHostNames) {
+            reindexVirtualHostName(secureVirtualHostName, true, changedAppNames, changedApps,
+                    shuffledSecureVirtualHostNameMap, secureVirtualHostNameIndexMap, filterUpInstances);
+        }
+    }
+
+    /**
+     * @return the virtual host names the application had before, and has now
+     */
+    private static Set<String> replaceVirtualHostNames(String appName, Set<String> virtualHostNames,
+                                                       Map<String, Set<String>> appNameVirtualHostNamesMap) {
+        Set<String> previousVirtualHostNames = virtualHostNames.isEmpty()
+                ? appNameVirtualHostNamesMap.remove(appName)
+                : appNameVirtualHostNamesMap.put(appName, virtualHostNames);
+        if (previousVirtualHostNames == null || previousVirtualHostNames.isEmpty()) {
+            return virtualHostNames;
+        }
+        Set<String> changedVirtualHostNames = new HashSet<String>(previousVirtualHostNames);
+        changedVirtualHostNames.addAll(virtualHostNames);
+        return changedVirtualHostNames;
+    }
+
+    /**
+     * Rebuilds the shuffled list of a virtual host name from its current list, without the instances of
+     * the changed applications, and the instances of the changed applications with this virtual host name.
+     */
+    private static void reindexVirtualHostName(String virtualHostName, boolean secure,
+                                               Set<String> changedAppNames, Collection<Application> changedApps,
+                                               Map<String, AtomicReference<List<InstanceInfo>>> destMap,
+                                               Map<String, AtomicLong> vipIndexMap, boolean filterUpInstances) {
+        List<InstanceInfo> l = new ArrayList<InstanceInfo>();
+        AtomicReference<List<InstanceInfo>> current = destMap.get(virtualHostName);
+        if (current != null && current.get() != null) {
+            for (InstanceInfo instanceInfo : current.get()) {
+                String appName = instanceInfo.getAppName();
+                if (appName == null || !changedAppNames.contains(appName.toUpperCase(Locale.ROOT))) {
+                    l.add(instanceInfo);
+                }
+            }
+        }
+        for (Application application : changedApps) {
+            for (InstanceInfo instanceInfo : application.getInstances()) {
+                if (filterUpInstances && !InstanceStatus.UP.equals(instanceInfo.getStatus())) {
+                    continue;
+                }
+                String vipAddresses = secure ? instanceInfo.getSecureVipAddress() : instanceInfo.getVIPAddress();
+                if (hasVirtualHostName(vipAddresses, virtualHostName)) {
+                    l.add(instanceInfo);
+                }
+            }
+        }
+        if (l.isEmpty()) {
+            destMap.remove(virtualHostName);
+            return;
+        }
+        Collections.shuffle(l);
+        // A new reference, as the current one may be shared with the applications this list was copied from
+        destMap.put(virtualHostName, new AtomicReference<List<InstanceInfo>>(Collections.unmodifiableList(l)));
+        vipIndexMap.put(virtualHostName, new AtomicLong(0));
+    }
+
     /**
      * Shuffles a whole region so that the instances will not always be returned in the same order.
      * @param remoteRegionsRegistry the map of remote region names to their registries
@@ -419,15 +599,32 @@ public class Applications {
                                   @Nullable Map<String, Applications> remoteRegionsRegistry,
                                   @Nullable EurekaClientConfig clientConfig,
                                   @Nullable InstanceRegionChecker instanceRegionChecker) {
-        this.virtualHostNameAppMap.clear();
-        this.secureVirtualHostNameAppMap.clear();
         for (Application application : appNameApplicationMap.values()) {
             if (indexByRemoteRegions) {
                 application.shuffleAndStoreInstances(remoteRegionsRegistry, clientConfig, instanceRegionChecker);
             } else {
                 application.shuffleAndStoreInstances(filterUpInstances);
             }
+        }
+        indexVirtualHostNames(filterUpInstances);
+    }
+
+    private void indexVirtualHostNames(boolean filterUpInstances) {
+        this.virtualHostNameAppMap.clear();
+        this.secureVirtualHostNameAppMap.clear();
+        this.appNameVirtualHostNamesMap.clear();
+        this.appNameSecureVirtualHostNamesMap.clear();
+        for (Map.Entry<String, Application> entry : appNameApplicationMap.entrySet()) {
+            Application application = entry.getValue();
             this.addInstancesToVIPMaps(application);
+            Set<String> virtualHostNames = getVirtualHostNames(application, false);
+            if (!virtualHostNames.isEmpty()) {
+                this.appNameVirtualHostNamesMap.put(entry.getKey(), virtualHostNames);
+            }
+            Set<String> secureVirtualHostNames = getVirtualHostNames(application, true);
+            if (!secureVirtualHostNames.isEmpty()) {
+                this.appNameSecureVirtualHostNamesMap.put(entry.getKey(), secureVirtualHostNames);
+            }
         }
         shuffleAndFilterInstances(this.virtualHostNameAppMap,
                 this.shuffleVirtualHostNameMap, virtualHostNameIndexMap,
@@ -435,6 +632,7 @@ public class Applications {
         shuffleAndFilterInstances(this.secureVirtualHostNameAppMap,
                 this.shuffledSecureVirtualHostNameMap,
                 secureVirtualHostNameIndexMap, filterUpInstances);
+        this.instanceIdIndex = InstanceIdIndex.of(appNameApplicationMap.values());
     }
 
     /**
@@ -479,12 +677,8 @@ public class Applications {
                 }
             }
             Collections.shuffle(l);
-            AtomicReference<List<InstanceInfo>> instanceInfoList = destMap.get(entries.getKey());
-            if (instanceInfoList == null) {
-                instanceInfoList = new AtomicReference<List<InstanceInfo>>(l);
-                destMap.put(entries.getKey(), instanceInfoList);
-            }
-            instanceInfoList.set(l);
+            // A new reference, as the current one may be shared with a copy of these applications
+            destMap.put(entries.getKey(), new AtomicReference<List<InstanceInfo>>(Collections.unmodifiableList(l)));
             vipIndexMap.put(entries.getKey(), new AtomicLong(0));
         }
 
@@ -516,6 +710,33 @@ public class Applications {
         }
     }
 
+    /**
+     * @return the upper case virtual host names of the application instances
+     */
+    private static Set<String> getVirtualHostNames(Application app, boolean secure) {
+        Set<String> virtualHostNames = new HashSet<String>();
+        for (InstanceInfo info : app.getInstances()) {
+            String vipAddresses = secure ? info.getSecureVipAddress() : info.getVIPAddress();
+            if (vipAddresses != null) {
+                for (String vipAddress : vipAddresses.split(",")) {
+                    virtualHostNames.add(vipAddress.toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return virtualHostNames;
+    }
+
+    private static boolean hasVirtualHostName(String vipAddresses, String virtualHostName) {
+        if (vipAddresses != null) {
+            for (String vipAddress : vipAddresses.split(",")) {
+                if (vipAddress.toUpperCase(Locale.ROOT).equals(virtualHostName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Adds the instances to the internal vip address map.
      * @param app - the applications for which the instances need to be added.
@@ -535,4 +756,126 @@ public class Applications {
         }
     }
 
+    /**
+     * Builds a shuffled and indexed applications list from instances added one at a time, as a registry payload
+     * is decoded, so that a full registry fetch does not first materialize a plain applications list and then
+     * copy it into the shuffled lists and virtual host name maps. The result is the list
+     * {@link #shuffleInstances(boolean)} would give for the same instances.
+     */
+    public static final class Builder {
+
+        private final Applications applications = new Applications();
+
+        private boolean filterUpInstances;
+        private InterestSet interestSet;
+
+        private Builder() {
+        }
+
+        public static Builder newBuilder() {
+            return new Builder();
+        }
+
+        /**
+         * @param filterUpInstances whether only the instances with status {@link InstanceStatus#UP} are
+         *                          returned by virtual host name and by the shuffled application lists
+         */
+        public Builder withFilterUpInstances(boolean filterUpInstances) {
+            this.filterUpInstances = filterUpInstances;
+            return this;
+        }
+
+        /**
+         * Keeps only the instances selected by the interest set, as {@link InterestSet#filter(Applications)} does.
+         */
+        public Builder withInterestSet(@Nullable InterestSet interestSet) {
+            this.interestSet = interestSet;
+            return this;
+        }
+
+        public Builder setVersion(Long version) {
+            applications.setVersion(version);
+            return this;
+        }
+
+        public Builder setAppsHashCode(String appsHashCode) {
+            applications.setAppsHashCode(appsHashCode);
+            return this;
+        }
+
+        /**
+         * Adds an application, which may have no instances. Applications without instances selected by the
+         * interest set are not added.
+         */
+        public Builder addApplication(String appName) {
+            if (interestSet == null) {
+                getOrAddApplication(appName);
+            }
+            return this;
+        }
+
+        public Builder addInstance(String appName, InstanceInfo info) {
+            if (interestSet != null && !interestSet.matches(info)) {
+                return this;
+            }
+            Application application = getOrAddApplication(appName);
+            application.addInstance(info);
+
+            String appKey = application.getName().toUpperCase(Locale.ROOT);
+            indexVirtualHostNames(appKey, info, info.getVIPAddress(),
+                    applications.virtualHostNameAppMap, applications.appNameVirtualHostNamesMap);
+            indexVirtualHostNames(appKey, info, info.getSecureVipAddress(),
+                    applications.secureVirtualHostNameAppMap, applications.appNameSecureVirtualHostNamesMap);
+            return this;
+        }
+
+        public Applications build() {
+            for (Application application : applications.appNameApplicationMap.values()) {
+                application.shuffleAndStoreInstances(filterUpInstances);
+            }
+            applications.shuffleAndFilterInstances(applications.virtualHostNameAppMap,
+                    applications.shuffleVirtualHostNameMap, applications.virtualHostNameIndexMap, filterUpInstances);
+            applications.shuffleAndFilterInstances(applications.secureVirtualHostNameAppMap,
+                    applications.shuffledSecureVirtualHostNameMap, applications.secureVirtualHostNameIndexMap,
+                    filterUpInstances);
+            applications.instanceIdIndex = InstanceIdIndex.of(applications.appNameApplicationMap.values());
+            return applications;
+        }
+
+        private Application getOrAddApplication(String appName) {
+            Application application = applications.appNameApplicationMap.get(appName.toUpperCase(Locale.ROOT));
+            if (application == null) {
+                application = new Application(appName);
+                applications.putApplication(application);
+            }
+            return application;
+        }
+
+        /**
+         * Adds the instance to the lists of its virtual host names, and the names to the ones of its application,
+         * as {@link #indexVirtualHostNames(boolean)} does for a whole list.
+         */
+        private static void indexVirtualHostNames(String appKey, InstanceInfo info, String vipAddresses,
+                                                  Map<String, AbstractQueue<InstanceInfo>> vipMap,
+                                                  Map<String, Set<String>> appNameVirtualHostNamesMap) {
+            if (vipAddresses == null) {
+                return;
+            }
+            Set<String> virtualHostNames = appNameVirtualHostNamesMap.get(appKey);
+            if (virtualHostNames == null) {
+                virtualHostNames = new HashSet<String>();
+                appNameVirtualHostNamesMap.put(appKey, virtualHostNames);
+            }
+            for (String vipAddress : vipAddresses.split(",")) {
+                String vipName = vipAddress.toUpperCase(Locale.ROOT);
+                AbstractQueue<InstanceInfo> instanceInfoList = vipMap.get(vipName);
+                if (instanceInfoList == null) {
+                    instanceInfoList = new ConcurrentLinkedQueue<InstanceInfo>();
+                    vipMap.put(vipName, instanceInfoList);
+                }
+                instanceInfoList.add(info);
+                virtualHostNames.add(vipName);
+            }
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.netflix.discovery.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Read-only index of the instances of an {@link Applications} by instance id. The index is split into shards
+ * by id hash, so an index updated with the changes of a few applications is a copy of the shards holding their
+ * instances only, and shares all other shards with the index it is derived from.
+ */
+final class InstanceIdIndex {
+
+    private static final int SHARD_COUNT = 256;
+
+    private final Map<String, List<InstanceInfo>>[] shards;
+
+    private InstanceIdIndex(Map<String, List<InstanceInfo>>[] shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * @return the instances with the given id, or an empty list. The list must not be modified.
+     */
+    List<InstanceInfo> get(String id) {
+        Map<String, List<InstanceInfo>> shard = shards[shardOf(id)];
+        List<InstanceInfo> instances = shard == null ? null : shard.get(id);
+        return instances == null ? Collections.<InstanceInfo>emptyList() : instances;
+    }
+
+    /**
+     * Creates a new index, without the instances of the replaced applications, and with the instances of
+     * the changed applications. This index is not modified.
+     *
+     * @param replacedApps the applications as indexed by this index, which are replaced or removed
+     * @param changedApps the applications that replace them, or are added
+     */
+    InstanceIdIndex withChanges(Collection<Application> replacedApps, Collection<Application> changedApps) {
+        Map<String, List<InstanceInfo>>[] newShards = Arrays.copyOf(shards, SHARD_COUNT);
+        boolean[] copied = new boolean[SHARD_COUNT];
+        for (Application app : replacedApps) {
+            for (InstanceInfo instanceInfo : app.getInstancesAsIsFromEureka()) {
+                int shardIdx = shardOf(instanceInfo.getId());
+                Map<String, List<InstanceInfo>> shard = copyOnWrite(newShards, copied, shardIdx);
+                remove(shard, instanceInfo);
+            }
+        }
+        for (Application app : changedApps) {
+            for (InstanceInfo instanceInfo : app.getInstancesAsIsFromEureka()) {
+                int shardIdx = shardOf(instanceInfo.getId());
+                Map<String, List<InstanceInfo>> shard = copyOnWrite(newShards, copied, shardIdx);
+                add(shard, instanceInfo);
+            }
+        }
+        return new InstanceIdIndex(newShards);
+    }
+
+    static InstanceIdIndex of(Collection<Application> apps) {
+        @SuppressWarnings("unchecked")
+        Map<String, List<InstanceInfo>>[] shards = new Map[SHARD_COUNT];
+        for (Application app : apps) {
+            for (InstanceInfo instanceInfo : app.getInstancesAsIsFromEureka()) {
+                int shardIdx = shardOf(instanceInfo.getId());
+                if (shards[shardIdx] == null) {
+                    shards[shardIdx] = new HashMap<String, List<InstanceInfo>>();
+                }
+                add(shards[shardIdx], instanceInfo);
+            }
+        }
+        return new InstanceIdIndex(shards);
+    }
+
+    private static Map<String, List<InstanceInfo>> copyOnWrite(Map<String, List<InstanceInfo>>[] shards,
+                                                               boolean[] copied, int shardIdx) {
+        if (!copied[shardIdx]) {
+            shards[shardIdx] = shards[shardIdx] == null
+                    ? new HashMap<String, List<InstanceInfo>>()
+                    : new HashMap<String, List<InstanceInfo>>(shards[shardIdx]);
+            copied[shardIdx] = true;
+        }
+        return shards[shardIdx];
+    }
+
+    private static void add(Map<String, List<InstanceInfo>> shard, InstanceInfo instanceInfo) {
+        List<InstanceInfo> current = shard.get(instanceInfo.getId());
+        if (current == null) {
+            shard.put(instanceInfo.getId(), Collections.singletonList(instanceInfo));
+        } else {
+            List<InstanceInfo> instances = new ArrayList<InstanceInfo>(current.size() + 1);
+            instances.addAll(current);
+            instances.add(instanceInfo);
+            shard.put(instanceInfo.getId(), Collections.unmodifiableList(instances));
+        }
+    }
+
+    private static void remove(Map<String, List<InstanceInfo>> shard, InstanceInfo instanceInfo) {
+        List<InstanceInfo> current = shard.get(instanceInfo.getId());
+        if (current == null) {
+            return;
+        }
+        List<InstanceInfo> instances = new ArrayList<InstanceInfo>(current.size());
+        for (InstanceInfo indexed : current) {
+            if (indexed != instanceInfo) {
+                instances.add(indexed);
+            }
+        }
+        if (instances.isEmpty()) {
+            shard.remove(instanceInfo.getId());
+        } else if (instances.size() < current.size()) {
+            shard.put(instanceInfo.getId(), Collections.unmodifiableList(instances));
+        }
+    }
+
+    private static int shardOf(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (SHARD_COUNT - 1);
+    }
+}
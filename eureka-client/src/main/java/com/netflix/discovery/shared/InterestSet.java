@@ -0,0 +1,236 @@
+package com.netflix.discovery.shared;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * The part of the registry a client subscribes to, instead of fetching the whole registry: all instances of
+ * given applications, and the instances registered under given VIP or secure VIP addresses.
+ *
+ * <p>
+ * The string form is a comma separated list of <code>app:&lt;name&gt;</code>, <code>vip:&lt;address&gt;</code>
+ * and <code>svip:&lt;address&gt;</code> entries. Application names are case insensitive, and VIP addresses are
+ * matched exactly, as by the VIP queries. The canonical form returned by {@link #toString()} lists the entries
+ * in a fixed order, so equal interest sets always have the same string form, whatever the order they were
+ * declared in.
+ * </p>
+ *
+ * <p>
+ * An interest set holds at most {@link #MAX_ENTRIES} entries, of at most {@link #MAX_ENTRY_LENGTH} characters
+ * each, as the server builds and caches a payload per distinct interest set.
+ * </p>
+ */
+public final class InterestSet {
+
+    private static final String APP_PREFIX = "app:";
+    private static final String VIP_PREFIX = "vip:";
+    private static final String SVIP_PREFIX = "svip:";
+
+    public static final int MAX_ENTRIES = 256;
+    public static final int MAX_ENTRY_LENGTH = 256;
+
+    private final Set<String> applicationNames;
+    private final Set<String> vipAddresses;
+    private final Set<String> secureVipAddresses;
+    private final String canonicalForm;
+
+    private InterestSet(Set<String> applicationNames, Set<String> vipAddresses, Set<String> secureVipAddresses) {
+        this.applicationNames = Collections.unmodifiableSet(applicationNames);
+        this.vipAddresses = Collections.unmodifiableSet(vipAddresses);
+        this.secureVipAddresses = Collections.unmodifiableSet(secureVipAddresses);
+
+        StringBuilder sb = new StringBuilder();
+        appendEntries(sb, APP_PREFIX, applicationNames);
+        appendEntries(sb, VIP_PREFIX, vipAddresses);
+        appendEntries(sb, SVIP_PREFIX, secureVipAddresses);
+        this.canonicalForm = sb.toString();
+    }
+
+    /**
+     * @return upper case application names
+     */
+    public Set<String> getApplicationNames() {
+        return applicationNames;
+    }
+
+    public Set<String> getVipAddresses() {
+        return vipAddresses;
+    }
+
+    public Set<String> getSecureVipAddresses() {
+        return secureVipAddresses;
+    }
+
+    public boolean isEmpty() {
+        return applicationNames.isEmpty() && vipAddresses.isEmpty() && secureVipAddresses.isEmpty();
+    }
+
+    /**
+     * @return true if the instance belongs to one of the applications, or has one of the VIP addresses
+     */
+    public boolean matches(InstanceInfo instanceInfo) {
+        String appName = instanceInfo.getAppName();
+        if (appName != null && applicationNames.contains(appName.toUpperCase(Locale.ROOT))) {
+            return true;
+        }
+        return containsAny(vipAddresses, instanceInfo.getVIPAddress())
+                || containsAny(secureVipAddresses, instanceInfo.getSecureVipAddress());
+    }
+
+    /**
+     * Creates a new applications list, with the instances of the given list selected by this interest set. The
+     * given list is not modified. The version and the apps hash code are copied as is, as the apps hash code of a
+     * delta is the hash code of the registry the server holds for the client.
+     */
+    public Applications filter(Applications apps) {
+        Applications result = new Applications();
+        for (Application app : apps.getRegisteredApplications()) {
+            Application filteredApp = null;
+            for (InstanceInfo instanceInfo : app.getInstancesAsIsFromEureka()) {
+                if (matches(instanceInfo)) {
+                    if (filteredApp == null) {
+                        filteredApp = new Application(app.getName());
+                        result.addApplication(filteredApp);
+                    }
+                    filteredApp.addInstance(instanceInfo);
+                }
+            }
+        }
+        result.setVersion(apps.getVersion());
+        result.setAppsHashCode(apps.getAppsHashCode());
+        return result;
+    }
+
+    private static boolean containsAny(Set<String> addresses, String vipAddresses) {
+        if (addresses.isEmpty() || vipAddresses == null) {
+            return false;
+        }
+        for (String vipAddress : vipAddresses.split(",")) {
+            if (addresses.contains(vipAddress)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendEntries(StringBuilder sb, String prefix, Set<String> values) {
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(prefix).append(value);
+        }
+    }
+
+    /**
+     * @param interest interest set in its string form
+     * @return the interest set, empty if the string is null or blank
+     * @throws IllegalArgumentException if an entry is not of a known type, or the interest set is over the
+     *         {@link #MAX_ENTRIES} or {@link #MAX_ENTRY_LENGTH} limits
+     */
+    public static InterestSet parse(String interest) {
+        Builder builder = newBuilder();
+        if (interest == null) {
+            return builder.build();
+        }
+        // Longest string form of an interest set within the limits, checked before splitting it
+        if (interest.length() > MAX_ENTRIES * (MAX_ENTRY_LENGTH + SVIP_PREFIX.length() + 1)) {
+            throw new IllegalArgumentException("Interest set of " + interest.length() + " characters is too long");
+        }
+        for (String entry : interest.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.startsWith(APP_PREFIX)) {
+                builder.withApplication(trimmed.substring(APP_PREFIX.length()));
+            } else if (trimmed.startsWith(VIP_PREFIX)) {
+                builder.withVipAddress(trimmed.substring(VIP_PREFIX.length()));
+            } else if (trimmed.startsWith(SVIP_PREFIX)) {
+                builder.withSecureVipAddress(trimmed.substring(SVIP_PREFIX.length()));
+            } else {
+                throw new IllegalArgumentException("Invalid interest set entry " + trimmed);
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof InterestSet && canonicalForm.equals(((InterestSet) o).canonicalForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return canonicalForm.hashCode();
+    }
+
+    /**
+     * @return the canonical string form
+     */
+    @Override
+    public String toString() {
+        return canonicalForm;
+    }
+
+    public static final class Builder {
+        private final Set<String> applicationNames = new TreeSet<String>();
+        private final Set<String> vipAddresses = new TreeSet<String>();
+        private final Set<String> secureVipAddresses = new TreeSet<String>();
+
+        private Builder() {
+        }
+
+        public Builder withApplication(String appName) {
+            applicationNames.add(checkEntry(appName).toUpperCase(Locale.ROOT));
+            return this;
+        }
+
+        public Builder withVipAddress(String vipAddress) {
+            vipAddresses.add(checkEntry(vipAddress));
+            return this;
+        }
+
+        public Builder withSecureVipAddress(String secureVipAddress) {
+            secureVipAddresses.add(checkEntry(secureVipAddress));
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the interest set has more than {@link #MAX_ENTRIES} entries
+         */
+        public InterestSet build() {
+            int entryCount = applicationNames.size() + vipAddresses.size() + secureVipAddresses.size();
+            if (entryCount > MAX_ENTRIES) {
+                throw new IllegalArgumentException("Interest set of " + entryCount + " entries is over the limit of " + MAX_ENTRIES);
+            }
+            return new InterestSet(
+                    new TreeSet<String>(applicationNames),
+                    new TreeSet<String>(vipAddresses),
+                    new TreeSet<String>(secureVipAddresses));
+        }
+
+        private static String checkEntry(String value) {
+            if (value == null || value.trim().isEmpty() || value.indexOf(',') >= 0) {
+                throw new IllegalArgumentException("Invalid interest set entry value '" + value + '\'');
+            }
+            String trimmed = value.trim();
+            if (trimmed.length() > MAX_ENTRY_LENGTH) {
+                throw new IllegalArgumentException("Interest set entry of " + trimmed.length()
+                        + " characters is over the limit of " + MAX_ENTRY_LENGTH);
+            }
+            return trimmed;
+        }
+    }
+}
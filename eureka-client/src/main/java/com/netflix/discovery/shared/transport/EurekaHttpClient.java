@@ -4,6 +4,9 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
+
+import static com.netflix.discovery.shared.transport.EurekaHttpResponse.anEurekaHttpResponse;
 
 /**
  * Low level Eureka HTTP client API.
@@ -12,6 +15,11 @@ import com.netflix.discovery.shared.Applications;
  */
 public interface EurekaHttpClient {
 
+    /**
+     * Status code returned by {@link #getDeltaSince(long)} if the requested changes are no longer available.
+     */
+    int DELTA_SINCE_VERSION_GONE = 410;
+
     EurekaHttpResponse<Void> register(InstanceInfo info);
 
     EurekaHttpResponse<Void> cancel(String appName, String id);
@@ -26,6 +34,53 @@ public interface EurekaHttpClient {
 
     EurekaHttpResponse<Applications> getDelta();
 
+    /**
+     * Get the changes made to the registry after the given registry version (the version of the last full registry
+     * or delta applied by the client). A server that does not serve these changes replies with
+     * {@link #DELTA_SINCE_VERSION_GONE} status code, in which case the regular delta must be fetched instead.
+     * Clients that do not support it reply with the same status code.
+     */
+    default EurekaHttpResponse<Applications> getDeltaSince(long registryVersion) {
+        return anEurekaHttpResponse(DELTA_SINCE_VERSION_GONE, Applications.class).build();
+    }
+
+    /**
+     * Get the local region instances selected by the given interest set, instead of the whole registry.
+     * By default the whole registry is fetched, and filtered on the client side.
+     */
+    default EurekaHttpResponse<Applications> getApplications(InterestSet interestSet) {
+        EurekaHttpResponse<Applications> response = getApplications();
+        if (response.getEntity() == null) {
+            return response;
+        }
+        Applications apps = interestSet.filter(response.getEntity());
+        apps.setAppsHashCode(apps.getReconcileHashCode());
+        return anEurekaHttpResponse(response.getStatusCode(), apps).headers(response.getHeaders()).build();
+    }
+
+    /**
+     * Same as {@link #getDelta()}, with the changes limited to the instances selected by the given interest set.
+     * The apps hash code is the one of the instances selected from the full registry. By default the regular
+     * delta is fetched, and filtered on the client side, so its apps hash code remains the one of the full registry,
+     * which a client holding only its interest set reconciles by fetching {@link #getApplications(InterestSet)}.
+     */
+    default EurekaHttpResponse<Applications> getDelta(InterestSet interestSet) {
+        EurekaHttpResponse<Applications> response = getDelta();
+        if (response.getEntity() == null) {
+            return response;
+        }
+        Applications delta = interestSet.filter(response.getEntity());
+        return anEurekaHttpResponse(response.getStatusCode(), delta).headers(response.getHeaders()).build();
+    }
+
+    /**
+     * Same as {@link #getDeltaSince(long)}, with the changes limited to the instances selected by the given
+     * interest set.
+     */
+    default EurekaHttpResponse<Applications> getDeltaSince(long registryVersion, InterestSet interestSet) {
+        return anEurekaHttpResponse(DELTA_SINCE_VERSION_GONE, Applications.class).build();
+    }
+
     EurekaHttpResponse<Applications> getVip(String vipAddress);
 
     EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress);
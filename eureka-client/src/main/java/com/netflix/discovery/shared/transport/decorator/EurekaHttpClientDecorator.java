@@ -20,6 +20,7 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 
@@ -36,6 +37,7 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         DeleteStatusOverride,
         GetApplications,
         GetDelta,
+        GetDeltaSince,
         GetVip,
         GetSecureVip,
         GetApplication,
@@ -159,6 +161,66 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         });
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(final long registryVersion) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDeltaSince(registryVersion);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDeltaSince;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplications(final InterestSet interestSet) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getApplications(interestSet);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetApplications;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDelta(final InterestSet interestSet) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDelta(interestSet);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(final long registryVersion, final InterestSet interestSet) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDeltaSince(registryVersion, interestSet);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDeltaSince;
+            }
+        });
+    }
+
     @Override
     public EurekaHttpResponse<Applications> getVip(final String vipAddress) {
         return execute(new RequestExecutor<Applications>() {
@@ -36,6 +36,8 @@ public final class ServerStatusEvaluators {
                 return true;
             } else if (requestType == RequestType.GetDelta && (statusCode == 403 || statusCode == 404)) {
                 return true;
+            } else if (requestType == RequestType.GetDeltaSince && (statusCode == 403 || statusCode == 404 || statusCode == 410)) {
+                return true;
             }
             return false;
         }
@@ -13,6 +13,7 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
@@ -168,6 +169,27 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
         return getApplicationsInternal("apps/delta");
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion) {
+        return getApplicationsInternal("apps/delta", "since", Long.toString(registryVersion));
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplications(InterestSet interestSet) {
+        return getApplicationsInternal("apps/", "interest", interestSet.toString());
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDelta(InterestSet interestSet) {
+        return getApplicationsInternal("apps/delta", "interest", interestSet.toString());
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion, InterestSet interestSet) {
+        return getApplicationsInternal("apps/delta",
+                "since", Long.toString(registryVersion), "interest", interestSet.toString());
+    }
+
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress) {
         return getApplicationsInternal("vips/" + vipAddress);
@@ -178,10 +200,17 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
         return getApplicationsInternal("svips/" + secureVipAddress);
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath) {
+    /**
+     * @param queryParams query parameter name/value pairs
+     */
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String... queryParams) {
         ClientResponse response = null;
         try {
-            Builder requestBuilder = jerseyClient.resource(serviceUrl).path(urlPath).getRequestBuilder();
+            WebResource webResource = jerseyClient.resource(serviceUrl).path(urlPath);
+            for (int i = 0; i < queryParams.length; i += 2) {
+                webResource = webResource.queryParam(queryParams[i], queryParams[i + 1]);
+            }
+            Builder requestBuilder = webResource.getRequestBuilder();
             addExtraHeaders(requestBuilder);
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get(ClientResponse.class);
 
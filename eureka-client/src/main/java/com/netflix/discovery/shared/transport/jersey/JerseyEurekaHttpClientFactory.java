@@ -19,6 +19,7 @@ package com.netflix.discovery.shared.transport.jersey;
 import com.netflix.appinfo.AbstractEurekaIdentity;
 import com.netflix.appinfo.EurekaClientIdentity;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaBinaryAcceptFilter;
 import com.netflix.discovery.EurekaClientConfig;
 import com.netflix.discovery.EurekaIdentityHeaderFilter;
 import com.netflix.discovery.shared.resolver.EurekaEndpoint;
@@ -72,7 +73,8 @@ public class JerseyEurekaHttpClientFactory implements TransportClientFactory {
                 .withConnectionIdleTimeout(clientConfig.getEurekaConnectionIdleTimeoutSeconds())
                 .withEncoder(clientConfig.getEncoderName())
                 .withDecoder(clientConfig.getDecoderName(), clientConfig.getClientDataAccept())
-                .withClientIdentity(clientIdentity);
+                .withClientIdentity(clientIdentity)
+                .withBinaryCodec("true".equalsIgnoreCase(clientConfig.getExperimental("codec.binary.enabled")));
 
         if ("true".equals(System.getProperty("com.netflix.eureka.shouldSSLConnectionsUseSystemSocketFactory"))) {
             clientBuilder.withClientName("DiscoveryClient-HTTPClient-System").withSystemSSLConfiguration();
@@ -103,6 +105,17 @@ public class JerseyEurekaHttpClientFactory implements TransportClientFactory {
      * EurekaJerseyClientBuilder here, and remove it.
      */
     public static class JerseyEurekaHttpClientFactoryBuilder extends EurekaClientFactoryBuilder<JerseyEurekaHttpClientFactory, JerseyEurekaHttpClientFactoryBuilder> {
+
+        private boolean binaryCodec;
+
+        /**
+         * Ask the servers for compact binary registry payloads, falling back to JSON with the servers not serving them.
+         */
+        public JerseyEurekaHttpClientFactoryBuilder withBinaryCodec(boolean binaryCodec) {
+            this.binaryCodec = binaryCodec;
+            return this;
+        }
+
         @Override
         public JerseyEurekaHttpClientFactory build() {
             EurekaJerseyClientBuilder clientBuilder = new EurekaJerseyClientBuilder()
@@ -127,6 +140,10 @@ public class JerseyEurekaHttpClientFactory implements TransportClientFactory {
             AbstractEurekaIdentity identity = clientIdentity == null ? new EurekaClientIdentity(ip) : clientIdentity;
             discoveryApacheClient.addFilter(new EurekaIdentityHeaderFilter(identity));
 
+            if (binaryCodec) {
+                discoveryApacheClient.addFilter(new EurekaBinaryAcceptFilter());
+            }
+
             return new JerseyEurekaHttpClientFactory(jerseyClient, allowRedirect);
         }
     }
@@ -0,0 +1,109 @@
+package com.netflix.discovery.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of strings, held in a single array of alternating keys and values. It is meant for the small
+ * metadata maps of the registry entries held by a client: it takes a fraction of the heap of a
+ * {@link java.util.HashMap}, which allocates a table and an entry object per mapping, and a lookup scanning the
+ * few keys of a metadata map is as fast as hashing.
+ */
+public final class ImmutableArrayMap extends AbstractMap<String, String> {
+
+    private final String[] keysAndValues;
+
+    private ImmutableArrayMap(String[] keysAndValues) {
+        this.keysAndValues = keysAndValues;
+    }
+
+    /**
+     * @return an immutable copy of the given map, with its keys and values shared through the {@link StringCache}
+     */
+    public static Map<String, String> copyOf(Map<String, String> map) {
+        if (map instanceof ImmutableArrayMap) {
+            return map;
+        }
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String[] keysAndValues = new String[2 * map.size()];
+        int idx = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            keysAndValues[idx++] = StringCache.intern(entry.getKey());
+            keysAndValues[idx++] = StringCache.intern(entry.getValue());
+        }
+        return new ImmutableArrayMap(keysAndValues);
+    }
+
+    @Override
+    public int size() {
+        return keysAndValues.length / 2;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int idx = indexOf(key);
+        return idx < 0 ? null : keysAndValues[idx + 1];
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ImmutableArrayMap.this.size();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            String candidate = keysAndValues[i];
+            if (candidate == key || (candidate != null && candidate.equals(key))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int idx;
+
+        @Override
+        public boolean hasNext() {
+            return idx < keysAndValues.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = new SimpleImmutableEntry<String, String>(keysAndValues[idx], keysAndValues[idx + 1]);
+            idx += 2;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Immutable map");
+        }
+    }
+}
@@ -1,73 +1,204 @@
 package com.netflix.discovery.util;
 
-import java.lang.ref.WeakReference;
-import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.netflix.discovery.EurekaClientNames.METRIC_STRING_CACHE_PREFIX;
 
 /**
- * An alternative to {@link String#intern()} with no capacity constraints.
+ * A bounded alternative to {@link String#intern()}, used to share the many equal strings decoded from registry
+ * payloads, like application names, VIP addresses, zones and metadata.
+ *
+ * <p>
+ * The cache is a direct mapped table: a string hashes to a single slot, and takes the slot over from the string held
+ * there if it is a different one. Lookups and updates are a read and a compare-and-set of the slot, so concurrent
+ * decoding threads never wait on each other, and a lost race only costs a missed deduplication. Eviction is size-aware:
+ * the total length of the held strings is kept within a budget, so a string only takes a slot over if the budget
+ * allows for the difference in length with the string it evicts.
+ * </p>
+ *
+ * <p>
+ * The default instance is configured with the {@code eureka.stringCache.lengthLimit},
+ * {@code eureka.stringCache.capacity} and {@code eureka.stringCache.maxChars} properties, read once.
+ * </p>
  *
  * @author Tomasz Bak
  */
 public class StringCache {
 
-    public static final int LENGTH_LIMIT = 38;
+    private static final Logger logger = LoggerFactory.getLogger(StringCache.class);
+
+    public static final int LENGTH_LIMIT = 256;
+    public static final int CAPACITY = 8192;
+    public static final long MAX_CHARS = 256 * 1024;
+
+    /**
+     * The size of a {@link String} object and of the header of its character array, which a cache hit saves besides
+     * the characters.
+     */
+    private static final int STRING_OVERHEAD_BYTES = 40;
 
-    private static final StringCache INSTANCE = new StringCache();
+    private static final StringCache INSTANCE = newDefaultInstance();
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Map<String, WeakReference<String>> cache = new WeakHashMap<String, WeakReference<String>>();
     private final int lengthLimit;
+    private final long maxChars;
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong chars = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
 
     public StringCache() {
         this(LENGTH_LIMIT);
     }
 
     public StringCache(int lengthLimit) {
+        this(lengthLimit, CAPACITY, MAX_CHARS);
+    }
+
+    /**
+     * @param lengthLimit the length of the longest strings to cache, or a negative value for no limit
+     * @param capacity the number of slots, rounded up to a power of two
+     * @param maxChars the maximum total length of the cached strings
+     */
+    public StringCache(int lengthLimit, int capacity, long maxChars) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
         this.lengthLimit = lengthLimit;
+        this.maxChars = maxChars;
+        int tableSize = Integer.highestOneBit(capacity);
+        if (tableSize < capacity) {
+            tableSize <<= 1;
+        }
+        this.table = new AtomicReferenceArray<String>(tableSize);
+        this.mask = tableSize - 1;
     }
 
     public String cachedValueOf(final String str) {
-        if (str != null && (lengthLimit < 0 || str.length() <= lengthLimit)) {
-            // Return value from cache if available
-            try {
-                lock.readLock().lock();
-                WeakReference<String> ref = cache.get(str);
-                if (ref != null) {
-                    return ref.get();
-                }
-            } finally {
-                lock.readLock().unlock();
-            }
+        if (str == null || (lengthLimit >= 0 && str.length() > lengthLimit)) {
+            return str;
+        }
+        int index = spread(str.hashCode()) & mask;
+        String cached = table.get(index);
+        if (cached != null && cached.equals(str)) {
+            hits.incrementAndGet();
+            savedBytes.addAndGet(STRING_OVERHEAD_BYTES + 2L * cached.length());
+            return cached;
+        }
+        misses.incrementAndGet();
 
-            // Update cache with new content
-            try {
-                lock.writeLock().lock();
-                WeakReference<String> ref = cache.get(str);
-                if (ref != null) {
-                    return ref.get();
-                }
-                cache.put(str, new WeakReference<>(str));
-            } finally {
-                lock.writeLock().unlock();
-            }
+        int delta = str.length() - (cached == null ? 0 : cached.length());
+        if (delta > 0 && !reserveChars(delta)) {
             return str;
         }
+        if (table.compareAndSet(index, cached, str)) {
+            if (delta < 0) {
+                chars.addAndGet(delta);
+            }
+            if (cached == null) {
+                size.incrementAndGet();
+            }
+        } else if (delta > 0) {
+            chars.addAndGet(-delta);
+        }
         return str;
     }
 
-    public int size() {
-        try {
-            lock.readLock().lock();
-            return cache.size();
-        } finally {
-            lock.readLock().unlock();
+    /**
+     * The budget is reserved before the slot is taken over, so concurrent insertions never exceed it together.
+     */
+    private boolean reserveChars(int delta) {
+        while (true) {
+            long current = chars.get();
+            if (current + delta > maxChars) {
+                return false;
+            }
+            if (chars.compareAndSet(current, current + delta)) {
+                return true;
+            }
         }
     }
 
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "size", type = DataSourceType.GAUGE)
+    public int size() {
+        return size.get();
+    }
+
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "chars", type = DataSourceType.GAUGE)
+    public long getChars() {
+        return chars.get();
+    }
+
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "hits", type = DataSourceType.COUNTER)
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "misses", type = DataSourceType.COUNTER)
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the percentage of the lookups of cacheable strings that found an equal string
+     */
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "hitRate", type = DataSourceType.GAUGE)
+    public double getHitRate() {
+        long currentHits = hits.get();
+        long lookups = currentHits + misses.get();
+        return lookups == 0 ? 0 : 100.0 * currentHits / lookups;
+    }
+
+    /**
+     * @return an estimate of the bytes not allocated for the strings, or made collectable, by the cache hits
+     */
+    @Monitor(name = METRIC_STRING_CACHE_PREFIX + "savedBytes", type = DataSourceType.COUNTER)
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
     public static String intern(String original) {
         return INSTANCE.cachedValueOf(original);
     }
+
+    public static StringCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static StringCache newDefaultInstance() {
+        StringCache cache;
+        try {
+            DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+            cache = new StringCache(
+                    properties.getIntProperty("eureka.stringCache.lengthLimit", LENGTH_LIMIT).get(),
+                    properties.getIntProperty("eureka.stringCache.capacity", CAPACITY).get(),
+                    properties.getLongProperty("eureka.stringCache.maxChars", MAX_CHARS).get()
+            );
+        } catch (Throwable e) {
+            logger.warn("Cannot configure the string cache; using the defaults", e);
+            cache = new StringCache();
+        }
+        try {
+            Monitors.registerObject(cache);
+        } catch (Throwable e) {
+            logger.warn("Cannot register the string cache metrics", e);
+        }
+        return cache;
+    }
 }
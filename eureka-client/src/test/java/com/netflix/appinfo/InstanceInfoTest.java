@@ -1,5 +1,8 @@
 package com.netflix.appinfo;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.netflix.appinfo.InstanceInfo.Builder;
 import com.netflix.appinfo.InstanceInfo.PortType;
 import com.netflix.config.ConcurrentCompositeConfiguration;
@@ -14,8 +17,10 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * Created by jzarfoss on 2/12/14.
@@ -139,4 +144,81 @@ public class InstanceInfoTest {
         assertThat(instanceInfo2.getInstanceId(), is(not(instanceInfo2.getId())));
         assertThat(dataCenterInfoId, is(instanceInfo2.getId()));
     }
+
+    @Test
+    public void testCompactKeepsInstanceContent() throws Exception {
+        InstanceInfo instanceInfo = InstanceInfoGenerator.takeOne();
+        AmazonInfo amazonInfo = (AmazonInfo) instanceInfo.getDataCenterInfo();
+        Map<String, String> metadata = new HashMap<>(instanceInfo.getMetadata());
+        Map<String, String> amazonMetadata = new HashMap<>(amazonInfo.getMetadata());
+        String id = instanceInfo.getId();
+
+        instanceInfo.compact();
+
+        assertThat(instanceInfo.getMetadata(), is(equalTo(metadata)));
+        assertThat(amazonInfo.getMetadata(), is(equalTo(amazonMetadata)));
+        assertThat(instanceInfo.getDataCenterInfo(), is(sameInstance((DataCenterInfo) amazonInfo)));
+        assertThat(instanceInfo.getId(), is(equalTo(id)));
+        try {
+            instanceInfo.getMetadata().put("key", "value");
+            fail("Compacted metadata should be read-only");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompactSharesDataCenterInfo() throws Exception {
+        InstanceInfo first = newBuilder().setAppName("test").setHostName("host1")
+                .setDataCenterInfo(new MyDataCenterInfo(DataCenterInfo.Name.MyOwn)).build();
+        InstanceInfo second = newBuilder().setAppName("test").setHostName("host2")
+                .setDataCenterInfo(new MyDataCenterInfo(DataCenterInfo.Name.MyOwn)).build();
+
+        first.compact();
+        second.compact();
+
+        assertThat(first.getDataCenterInfo(), is(sameInstance(second.getDataCenterInfo())));
+        assertThat(first.getDataCenterInfo().getName(), is(equalTo(DataCenterInfo.Name.MyOwn)));
+    }
+
+    @Test
+    public void testCompactKeepsOtherDataCenterInfoImplementations() throws Exception {
+        DataCenterInfo dataCenterInfo = new DataCenterInfo() {
+            @Override
+            public Name getName() {
+                return Name.MyOwn;
+            }
+        };
+        InstanceInfo instanceInfo = newBuilder().setAppName("test").setHostName("host1")
+                .setDataCenterInfo(dataCenterInfo).build();
+
+        instanceInfo.compact();
+
+        assertThat(instanceInfo.getDataCenterInfo(), is(sameInstance(dataCenterInfo)));
+    }
+
+    @Test
+    public void testCompactKeepsDataCenterInfoWithOwnState() throws Exception {
+        DataCenterInfo dataCenterInfo = new CustomDataCenterInfo("dc-1");
+        InstanceInfo instanceInfo = newBuilder().setAppName("test").setHostName("host1")
+                .setDataCenterInfo(dataCenterInfo).build();
+
+        instanceInfo.compact();
+
+        assertThat(instanceInfo.getDataCenterInfo(), is(sameInstance(dataCenterInfo)));
+    }
+
+    static class CustomDataCenterInfo extends MyDataCenterInfo {
+
+        private final String dataCenterId;
+
+        CustomDataCenterInfo(String dataCenterId) {
+            super(DataCenterInfo.Name.MyOwn);
+            this.dataCenterId = dataCenterId;
+        }
+
+        String getDataCenterId() {
+            return dataCenterId;
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package com.netflix.discovery.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.EurekaEntityComparators;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EurekaBinaryCodecTest {
+
+    private final EurekaBinaryCodec codec = new EurekaBinaryCodec();
+
+    @Test
+    public void testInstanceInfoEncodeDecode() throws Exception {
+        InstanceInfo instanceInfo = EurekaJacksonCodecTest.INSTANCE_INFO_1_A1;
+
+        InstanceInfo decoded = codec.readValue(InstanceInfo.class, codec.writeToBytes(instanceInfo));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, instanceInfo));
+    }
+
+    @Test
+    public void testInstanceInfoWithoutMetaDataEncodeDecode() throws Exception {
+        InstanceInfo noMetaDataInfo = InstanceInfoGenerator.newBuilder(1, 1).withMetaData(false).build().serviceIterator().next();
+
+        InstanceInfo decoded = codec.readValue(InstanceInfo.class, codec.writeToBytes(noMetaDataInfo));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, noMetaDataInfo));
+    }
+
+    @Test
+    public void testApplicationsEncodeDecode() throws Exception {
+        Applications decoded = codec.readValue(Applications.class, codec.writeToBytes(EurekaJacksonCodecTest.APPLICATIONS));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, EurekaJacksonCodecTest.APPLICATIONS));
+    }
+
+    @Test
+    public void testApplicationsDecodeIntoBuilder() throws Exception {
+        Applications.Builder builder = Applications.Builder.newBuilder();
+
+        codec.readApplications(new ByteArrayInputStream(codec.writeToBytes(EurekaJacksonCodecTest.APPLICATIONS)), builder);
+
+        assertTrue(EurekaEntityComparators.equal(builder.build(), EurekaJacksonCodecTest.APPLICATIONS));
+    }
+
+    @Test
+    public void testRepeatedStringsAreDecodedIntoSingleInstance() throws Exception {
+        Iterator<InstanceInfo> infoIterator = InstanceInfoGenerator.newBuilder(4, 1).withMetaData(true).build().serviceIterator();
+        Application application = new Application(EurekaJacksonCodecTest.INSTANCE_INFO_1_A1.getAppName());
+        while (infoIterator.hasNext()) {
+            application.addInstance(infoIterator.next());
+        }
+
+        Application decoded = codec.readValue(Application.class, codec.writeToBytes(application));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, application));
+        InstanceInfo first = decoded.getInstances().get(0);
+        InstanceInfo second = decoded.getInstances().get(1);
+        assertThat(first.getVIPAddress(), is(equalTo(second.getVIPAddress())));
+        assertThat(first.getVIPAddress(), is(sameInstance(second.getVIPAddress())));
+    }
+
+    @Test
+    public void testNonAmazonDataCenterInfoIsDecodedIntoSharedInstance() throws Exception {
+        InstanceInfo instanceInfo = new InstanceInfo.Builder(EurekaJacksonCodecTest.INSTANCE_INFO_1_A1)
+                .setDataCenterInfo(new MyDataCenterInfo(Name.MyOwn))
+                .build();
+
+        InstanceInfo decoded = codec.readValue(InstanceInfo.class, codec.writeToBytes(instanceInfo));
+
+        assertThat(decoded.getDataCenterInfo(), is(sameInstance((Object) MyDataCenterInfo.sharedInstance(Name.MyOwn))));
+    }
+
+    @Test
+    public void testDictionarySizeAbovePayloadLengthIsRejected() throws Exception {
+        // Header of an instance payload, followed by a dictionary size of 1000000 (zigzag varint) and no entries
+        byte[] payload = {'E', 'K', 'B', 1, 3, (byte) 0x80, (byte) 0x89, (byte) 0x7A};
+        try {
+            codec.readValue(InstanceInfo.class, payload);
+            fail("Expected the dictionary size to be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is(equalTo("Invalid dictionary size 1000000")));
+        }
+    }
+
+    @Test
+    public void testBinaryPayloadIsSmallerThanJson() throws Exception {
+        Applications applications = InstanceInfoGenerator.newBuilder(200, 10).withMetaData(true).build().toApplications();
+
+        byte[] binary = codec.writeToBytes(applications);
+        String json = new EurekaJacksonCodec().writeToString(applications);
+
+        assertTrue("Binary payload of " + binary.length + " bytes", binary.length < json.length() / 2);
+    }
+
+    @Test
+    public void testWrapperStringPayloadKeepsBytes() throws Exception {
+        CodecWrappers.EurekaBinary wrapper = (CodecWrappers.EurekaBinary) CodecWrappers.getCodec(CodecWrappers.EurekaBinary.class);
+
+        String payload = wrapper.encode(EurekaJacksonCodecTest.APPLICATIONS);
+        Applications decoded = wrapper.decode(payload, Applications.class);
+
+        assertThat(payload.getBytes(CodecWrappers.EurekaBinary.PAYLOAD_CHARSET),
+                is(equalTo(codec.writeToBytes(EurekaJacksonCodecTest.APPLICATIONS))));
+        assertTrue(EurekaEntityComparators.equal(decoded, EurekaJacksonCodecTest.APPLICATIONS));
+    }
+}
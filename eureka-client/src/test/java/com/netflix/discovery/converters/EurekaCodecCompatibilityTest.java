@@ -40,6 +40,7 @@ public class EurekaCodecCompatibilityTest {
     static {
         availableJsonWrappers.add(new CodecWrappers.XStreamJson());
         availableJsonWrappers.add(new CodecWrappers.LegacyJacksonJson());
+        availableJsonWrappers.add(new CodecWrappers.StreamingJson());
         availableJsonWrappers.add(new CodecWrappers.JacksonJson());
 
         availableXmlWrappers.add(new CodecWrappers.JacksonXml());
@@ -238,6 +239,7 @@ public class EurekaCodecCompatibilityTest {
 
         List<CodecWrapper> jsonCodes = Arrays.asList(
                 new CodecWrappers.LegacyJacksonJson(),
+                new CodecWrappers.StreamingJson(),
                 new CodecWrappers.JacksonJson()
         );
 
@@ -0,0 +1,115 @@
+package com.netflix.discovery.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.EurekaEntityComparators;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EurekaStreamingJsonCodecTest {
+
+    private final EurekaJacksonCodec legacyCodec = new EurekaJacksonCodec();
+    private final EurekaStreamingJsonCodec codec = new EurekaStreamingJsonCodec(legacyCodec);
+
+    @Test
+    public void testInstanceInfoEncodingIsIdenticalToLegacyCodec() throws Exception {
+        InstanceInfo instanceInfo = EurekaJacksonCodecTest.INSTANCE_INFO_1_A1;
+        InstanceInfo noMetaDataInfo = InstanceInfoGenerator.newBuilder(1, 1).withMetaData(false).build().serviceIterator().next();
+        InstanceInfo emptyMetaDataInfo = new InstanceInfo.Builder(instanceInfo).setMetadata(Collections.<String, String>emptyMap()).build();
+
+        assertThat(codec.writeToString(instanceInfo), is(equalTo(legacyCodec.writeToString(instanceInfo))));
+        assertThat(codec.writeToString(noMetaDataInfo), is(equalTo(legacyCodec.writeToString(noMetaDataInfo))));
+        assertThat(codec.writeToString(emptyMetaDataInfo), is(equalTo(legacyCodec.writeToString(emptyMetaDataInfo))));
+    }
+
+    @Test
+    public void testApplicationsEncodingIsIdenticalToLegacyCodec() throws Exception {
+        Applications applications = EurekaJacksonCodecTest.APPLICATIONS;
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        codec.writeTo(applications, streamed);
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        legacyCodec.writeTo(applications, legacy);
+
+        assertThat(streamed.toByteArray(), is(equalTo(legacy.toByteArray())));
+        assertThat(codec.writeToString(applications), is(equalTo(legacyCodec.writeToString(applications))));
+    }
+
+    @Test
+    public void testInstanceInfoEncodeDecode() throws Exception {
+        InstanceInfo instanceInfo = EurekaJacksonCodecTest.INSTANCE_INFO_1_A1;
+
+        InstanceInfo decoded = codec.readValue(InstanceInfo.class, codec.writeToString(instanceInfo));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, instanceInfo));
+    }
+
+    @Test
+    public void testNameOnlyDataCenterInfoIsDecodedIntoSharedInstance() throws Exception {
+        InstanceInfo instanceInfo = new InstanceInfo.Builder(new InstanceInfo(EurekaJacksonCodecTest.INSTANCE_INFO_1_A1))
+                .setDataCenterInfo(new MyDataCenterInfo(Name.MyOwn))
+                .build();
+        String encoded = legacyCodec.writeToString(instanceInfo);
+
+        MyDataCenterInfo expected = MyDataCenterInfo.sharedInstance(Name.MyOwn);
+        assertThat(codec.readValue(InstanceInfo.class, encoded).getDataCenterInfo(), is(sameInstance((Object) expected)));
+        assertThat(legacyCodec.readValue(InstanceInfo.class, encoded).getDataCenterInfo(), is(sameInstance((Object) expected)));
+    }
+
+    @Test
+    public void testApplicationsEncodeDecode() throws Exception {
+        Applications applications = InstanceInfoGenerator.newBuilder(20, 4).withMetaData(true).build().toApplications();
+
+        Applications decoded = codec.readValue(Applications.class,
+                new ByteArrayInputStream(legacyCodec.writeToString(applications).getBytes("UTF-8")));
+
+        assertTrue(EurekaEntityComparators.equal(decoded, applications));
+    }
+
+    @Test
+    public void testApplicationsDecodeIntoBuilder() throws Exception {
+        Applications applications = InstanceInfoGenerator.newBuilder(20, 4).withMetaData(true).build().toApplications();
+        applications.setVersion(5L);
+        applications.setAppsHashCode(applications.getReconcileHashCode());
+        Applications.Builder builder = Applications.Builder.newBuilder();
+
+        codec.readApplications(new ByteArrayInputStream(legacyCodec.writeToString(applications).getBytes("UTF-8")), builder);
+        Applications decoded = builder.build();
+
+        assertTrue(EurekaEntityComparators.equal(decoded, applications));
+        String vipAddress = applications.getRegisteredApplications().get(0).getInstances().get(0).getVIPAddress();
+        applications.shuffleInstances(false);
+        assertThat(decoded.getInstancesByVirtualHostName(vipAddress).size(),
+                is(equalTo(applications.getInstancesByVirtualHostName(vipAddress).size())));
+    }
+
+    @Test
+    public void testDecodeOfUnwrappedSingleItems() throws Exception {
+        InstanceInfo instanceInfo = EurekaJacksonCodecTest.INSTANCE_INFO_1_A1;
+        String instanceJson = codec.writeToString(instanceInfo);
+        String instanceBody = instanceJson.substring("{\"instance\":".length(), instanceJson.length() - 1);
+        String applicationsJson = "{\"applications\":{\"versions__delta\":\"3\",\"apps__hashcode\":\"UP_1_\","
+                + "\"application\":{\"name\":\"" + instanceInfo.getAppName() + "\",\"instance\":" + instanceBody + "}}}";
+
+        Applications decoded = codec.readValue(Applications.class, applicationsJson);
+
+        assertThat(decoded.getVersion(), is(equalTo(3L)));
+        assertThat(decoded.getAppsHashCode(), is(equalTo("UP_1_")));
+        Application application = decoded.getRegisteredApplications(instanceInfo.getAppName());
+        assertThat(application.getInstances().size(), is(equalTo(1)));
+        assertTrue(EurekaEntityComparators.equal(application.getInstances().get(0), instanceInfo));
+    }
+}
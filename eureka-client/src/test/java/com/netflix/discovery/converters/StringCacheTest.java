@@ -1,8 +1,17 @@
 package com.netflix.discovery.converters;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.netflix.discovery.util.StringCache;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -13,24 +22,84 @@ public class StringCacheTest {
     public static final int CACHE_SIZE = 100000;
 
     @Test
-    public void testVerifyStringsAreGarbageCollectedIfNotReferenced() throws Exception {
+    public void testDefaultCacheIsBoundedByDefaultCapacity() throws Exception {
         StringCache cache = new StringCache();
         for (int i = 0; i < CACHE_SIZE; i++) {
             cache.cachedValueOf("id#" + i);
         }
-        gc();
-        // Testing GC behavior is unpredictable, so we set here low target level
-        // The tests run on desktop show that all strings are removed actually.
-        assertTrue(cache.size() < CACHE_SIZE * 0.1);
+        assertTrue(cache.size() <= StringCache.CAPACITY);
+        assertTrue(cache.getChars() <= StringCache.MAX_CHARS);
+    }
+
+    @Test
+    public void testEqualStringsAreResolvedToSingleInstance() throws Exception {
+        StringCache cache = new StringCache();
+        String first = cache.cachedValueOf(new String("us-east-1c"));
+        String second = cache.cachedValueOf(new String("us-east-1c"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(cache.size(), is(equalTo(1)));
+        assertThat(cache.getHits(), is(equalTo(1L)));
+        assertThat(cache.getMisses(), is(equalTo(1L)));
+        assertTrue(cache.getSavedBytes() > 0);
     }
 
-    public static void gc() {
-        System.gc();
-        System.runFinalization();
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            // IGNORE
+    @Test
+    public void testStringsAboveLengthLimitAreNotCached() throws Exception {
+        StringCache cache = new StringCache(4);
+        String longValue = new String("longer than four");
+
+        assertThat(cache.cachedValueOf(longValue), is(sameInstance(longValue)));
+        assertThat(cache.cachedValueOf(new String("longer than four")), is(not(sameInstance(longValue))));
+        assertThat(cache.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testSizeIsBoundedByCapacity() throws Exception {
+        StringCache cache = new StringCache(StringCache.LENGTH_LIMIT, 64, StringCache.MAX_CHARS);
+        for (int i = 0; i < 10000; i++) {
+            cache.cachedValueOf("id#" + i);
+        }
+        assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    public void testTotalLengthIsBoundedByCharBudget() throws Exception {
+        StringCache cache = new StringCache(StringCache.LENGTH_LIMIT, 1024, 100);
+        for (int i = 0; i < 10000; i++) {
+            cache.cachedValueOf("value#" + i);
+        }
+        assertTrue(cache.getChars() <= 100);
+        assertTrue(cache.size() > 0);
+    }
+
+    @Test
+    public void testCharBudgetHoldsUnderConcurrentInsertions() throws Exception {
+        final StringCache cache = new StringCache(StringCache.LENGTH_LIMIT, 1024, 100);
+        final AtomicLong maxChars = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 100000;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        cache.cachedValueOf("value#" + (offset + i));
+                        long chars = cache.getChars();
+                        if (chars > maxChars.get()) {
+                            maxChars.set(chars);
+                        }
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
         }
+        assertTrue("Char budget exceeded: " + maxChars.get(), maxChars.get() <= 100);
+        assertTrue(cache.getChars() <= 100);
+        assertTrue(cache.size() > 0);
     }
-}
\ No newline at end of file
+}
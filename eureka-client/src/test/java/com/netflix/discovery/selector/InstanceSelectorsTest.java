@@ -0,0 +1,114 @@
+package com.netflix.discovery.selector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.InstanceInfo;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceSelectorsTest {
+
+    private final List<InstanceInfo> instances = Collections.unmodifiableList(newInstances(10, "us-east-1c"));
+
+    @Test
+    public void testRoundRobinVisitsAllInstancesInTurn() throws Exception {
+        InstanceSelector selector = InstanceSelectors.roundRobin();
+
+        Set<InstanceInfo> selected = new HashSet<>();
+        InstanceInfo previous = null;
+        for (int i = 0; i < instances.size(); i++) {
+            InstanceInfo next = selector.select(instances, null);
+            assertThat(next, is(not(equalTo(previous))));
+            selected.add(next);
+            previous = next;
+        }
+        assertThat(selected.size(), is(equalTo(instances.size())));
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesNeverSelectsMostLoadedInstance() throws Exception {
+        InFlightRequestTracker tracker = new InFlightRequestTracker();
+        List<InstanceInfo> pair = instances.subList(0, 2);
+        tracker.onRequestStarted(pair.get(0));
+
+        InstanceSelector selector = InstanceSelectors.powerOfTwoChoices(tracker);
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.select(pair, null), is(equalTo(pair.get(1))));
+        }
+
+        tracker.onRequestCompleted(pair.get(0));
+        assertThat(tracker.getLoad(pair.get(0)), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testZoneAffinityPrefersClientZone() throws Exception {
+        List<InstanceInfo> mixed = new ArrayList<>(newInstances(5, "us-east-1c"));
+        List<InstanceInfo> sameZone = newInstances(5, "us-east-1d");
+        mixed.addAll(sameZone);
+
+        InstanceSelector selector = InstanceSelectors.zoneAffinity("us-east-1d", 1000);
+        int sameZoneSelections = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sameZone.contains(selector.select(mixed, null))) {
+                sameZoneSelections++;
+            }
+        }
+        assertTrue("Only " + sameZoneSelections + " selections in client zone", sameZoneSelections > 950);
+
+        // No instance in client zone, so all zones are used
+        InstanceSelector otherZoneSelector = InstanceSelectors.zoneAffinity("us-east-1e", 1000);
+        assertTrue(mixed.contains(otherZoneSelector.select(mixed, null)));
+    }
+
+    @Test
+    public void testConsistentHashingIsIndependentOfOrderAndStableOnRemoval() throws Exception {
+        InstanceSelector selector = InstanceSelectors.consistentHashing();
+
+        Map<String, InstanceInfo> assignment = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            assignment.put("key" + i, selector.select(instances, "key" + i));
+        }
+
+        List<InstanceInfo> reshuffled = new ArrayList<>(instances);
+        Collections.reverse(reshuffled);
+        InstanceInfo removed = reshuffled.remove(0);
+        for (Map.Entry<String, InstanceInfo> entry : assignment.entrySet()) {
+            InstanceInfo selected = selector.select(reshuffled, entry.getKey());
+            if (entry.getValue() != removed) {
+                assertThat(selected, is(equalTo(entry.getValue())));
+            } else {
+                assertThat(selected, is(not(equalTo(removed))));
+            }
+        }
+    }
+
+    private static List<InstanceInfo> newInstances(int count, String zone) {
+        List<InstanceInfo> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String instanceId = zone + "-i-" + i;
+            AmazonInfo dataCenterInfo = AmazonInfo.Builder.newBuilder()
+                    .addMetadata(AmazonInfo.MetaDataKey.availabilityZone, zone)
+                    .addMetadata(AmazonInfo.MetaDataKey.instanceId, instanceId)
+                    .build();
+            result.add(InstanceInfo.Builder.newBuilder()
+                    .setAppName("selectorTest")
+                    .setVIPAddress("selectorTest.vip")
+                    .setHostName(instanceId + ".hostname")
+                    .setDataCenterInfo(dataCenterInfo)
+                    .build());
+        }
+        return result;
+    }
+}
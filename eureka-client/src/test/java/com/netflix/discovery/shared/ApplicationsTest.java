@@ -1,6 +1,8 @@
 package com.netflix.discovery.shared;
 
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.collect.Iterables;
@@ -10,7 +12,9 @@ import org.junit.Test;
 
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class ApplicationsTest {
 
@@ -49,4 +53,184 @@ public class ApplicationsTest {
         assertNull(application.getByInstanceId("test.hostname"));
         assertTrue(testApp.isEmpty());
     }
+
+    /**
+     * Test that copyWith shares the unchanged applications with the original applications list, and leaves
+     * the original list and its virtual host name index unmodified.
+     */
+    @Test
+    public void copyWithChangedApplicationTest() {
+        InstanceInfo first = newInstanceInfo("first", "first.hostname", "first.vip");
+        InstanceInfo second = newInstanceInfo("second", "second.hostname", "second.vip");
+        Application firstApp = new Application("first", Collections.singletonList(first));
+        Application secondApp = new Application("second", Collections.singletonList(second));
+        Applications applications = new Applications();
+        applications.addApplication(firstApp);
+        applications.addApplication(secondApp);
+        applications.setVersion(1L);
+        applications.shuffleInstances(true);
+
+        InstanceInfo added = newInstanceInfo("second", "added.hostname", "second.vip");
+        Application changedApp = new Application("second", secondApp.getInstancesAsIsFromEureka());
+        changedApp.addInstance(added);
+        List<Application> changedApps = Collections.singletonList(changedApp);
+        Applications copy = applications.copyWith(changedApps);
+        copy.shuffleInstances(true, changedApps);
+
+        assertSame(firstApp, copy.getRegisteredApplications("first"));
+        assertSame(changedApp, copy.getRegisteredApplications("second"));
+        assertEquals(2, copy.getRegisteredApplications().size());
+        assertEquals(Long.valueOf(1L), copy.getVersion());
+        assertEquals(1, copy.getInstancesByVirtualHostName("first.vip").size());
+        assertEquals(2, copy.getInstancesByVirtualHostName("second.vip").size());
+        // Only the lists of the changed application are rebuilt
+        assertSame(applications.getInstancesByVirtualHostName("first.vip"), copy.getInstancesByVirtualHostName("first.vip"));
+
+        assertSame(secondApp, applications.getRegisteredApplications("second"));
+        assertEquals(1, secondApp.getInstances().size());
+        assertEquals(1, applications.getInstancesByVirtualHostName("second.vip").size());
+    }
+
+    /**
+     * Test that the incremental shuffle removes the instances of a changed application from the lists of
+     * the virtual host names it no longer has, and keeps the instances of other applications in shared lists.
+     */
+    @Test
+    public void shuffleChangedApplicationsTest() {
+        InstanceInfo first = newInstanceInfo("first", "first.hostname", "shared.vip");
+        InstanceInfo second = newInstanceInfo("second", "second.hostname", "shared.vip,second.vip");
+        Applications applications = new Applications();
+        applications.addApplication(new Application("first", Collections.singletonList(first)));
+        applications.addApplication(new Application("second", Collections.singletonList(second)));
+        applications.shuffleInstances(true);
+        assertEquals(2, applications.getInstancesByVirtualHostName("shared.vip").size());
+
+        InstanceInfo moved = newInstanceInfo("second", "second.hostname", "other.vip");
+        List<Application> changedApps = Collections.singletonList(
+                new Application("second", Collections.singletonList(moved)));
+        Applications copy = applications.copyWith(changedApps);
+        copy.shuffleInstances(true, changedApps);
+
+        assertEquals(Iterables.getOnlyElement(copy.getInstancesByVirtualHostName("shared.vip")), first);
+        assertTrue(copy.getInstancesByVirtualHostName("second.vip").isEmpty());
+        assertEquals(Iterables.getOnlyElement(copy.getInstancesByVirtualHostName("other.vip")), moved);
+        assertEquals(2, applications.getInstancesByVirtualHostName("shared.vip").size());
+    }
+
+    /**
+     * Test that the instance id index and the application virtual host name index follow a copy with a changed
+     * application, and are left unmodified in the original list.
+     */
+    @Test
+    public void instanceIndexesTest() {
+        InstanceInfo first = newInstanceInfo("first", "first.hostname", "first.vip, shared.vip");
+        InstanceInfo second = newInstanceInfo("second", "second.hostname", "shared.vip");
+        Applications applications = new Applications();
+        applications.addApplication(new Application("first", Collections.singletonList(first)));
+        applications.addApplication(new Application("second", Collections.singletonList(second)));
+        applications.shuffleInstances(true);
+
+        Application firstApp = applications.getRegisteredApplications("first");
+        assertEquals(Iterables.getOnlyElement(firstApp.getInstancesByVirtualHostName("SHARED.vip", false)), first);
+        assertTrue(firstApp.getInstancesByVirtualHostName("shared.vip", true).isEmpty());
+        assertEquals(Iterables.getOnlyElement(applications.getInstancesById("first.hostname")), first);
+
+        InstanceInfo added = newInstanceInfo("second", "added.hostname", "shared.vip");
+        List<Application> changedApps = Collections.singletonList(
+                new Application("second", Collections.singletonList(added)));
+        Applications copy = applications.copyWith(changedApps);
+        copy.shuffleInstances(true, changedApps);
+
+        assertEquals(Iterables.getOnlyElement(copy.getInstancesById("added.hostname")), added);
+        assertTrue(copy.getInstancesById("second.hostname").isEmpty());
+        assertEquals(Iterables.getOnlyElement(copy.getInstancesById("first.hostname")), first);
+        assertEquals(Iterables.getOnlyElement(copy.getRegisteredApplications("second")
+                .getInstancesByVirtualHostName("shared.vip", false)), added);
+
+        assertEquals(Iterables.getOnlyElement(applications.getInstancesById("second.hostname")), second);
+        assertTrue(applications.getInstancesById("added.hostname").isEmpty());
+    }
+
+    /**
+     * Test that the indexed lists shared by all callers cannot be modified by one of them.
+     */
+    @Test
+    public void indexedListsAreReadOnlyTest() {
+        InstanceInfo first = newInstanceInfo("first", "first.hostname", "shared.vip");
+        InstanceInfo second = newInstanceInfo("first", "second.hostname", "shared.vip");
+        Applications applications = new Applications();
+        applications.addApplication(new Application("first", Arrays.asList(first, second)));
+        applications.shuffleInstances(true);
+
+        assertReadOnly(applications.getInstancesByVirtualHostName("shared.vip"));
+        assertReadOnly(applications.getInstancesById("first.hostname"));
+        assertReadOnly(applications.getRegisteredApplications("first").getInstancesByVirtualHostName("shared.vip", false));
+        assertEquals(2, applications.getInstancesByVirtualHostName("shared.vip").size());
+    }
+
+    /**
+     * Test that the builder gives the indexes of a shuffled list of the same instances, keeping empty applications
+     * and only the instances selected by an interest set if one is given.
+     */
+    @Test
+    public void builderTest() {
+        InstanceInfo first = newInstanceInfo("first", "first.hostname", "first.vip,shared.vip");
+        InstanceInfo second = newInstanceInfo("second", "second.hostname", "shared.vip");
+        InstanceInfo other = newInstanceInfo("third", "third.hostname", "third.vip");
+
+        Applications built = Applications.Builder.newBuilder()
+                .withFilterUpInstances(true)
+                .setVersion(3L)
+                .setAppsHashCode("UP_3_")
+                .addInstance("first", first)
+                .addInstance("second", second)
+                .addInstance("third", other)
+                .addApplication("empty")
+                .build();
+
+        assertEquals(Long.valueOf(3L), built.getVersion());
+        assertEquals("UP_3_", built.getAppsHashCode());
+        assertEquals(4, built.getRegisteredApplications().size());
+        assertEquals(2, built.getInstancesByVirtualHostName("shared.vip").size());
+        assertEquals(Iterables.getOnlyElement(built.getInstancesByVirtualHostName("first.vip")), first);
+        assertEquals(Iterables.getOnlyElement(built.getInstancesById("second.hostname")), second);
+        assertEquals(Iterables.getOnlyElement(built.getRegisteredApplications("first")
+                .getInstancesByVirtualHostName("shared.vip", false)), first);
+        assertEquals(0L, built.getNextIndex("SHARED.VIP", false).get());
+
+        Applications filtered = Applications.Builder.newBuilder()
+                .withInterestSet(InterestSet.newBuilder().withVipAddress("shared.vip").build())
+                .addInstance("first", first)
+                .addInstance("second", second)
+                .addInstance("third", other)
+                .addApplication("empty")
+                .build();
+
+        assertEquals(2, filtered.getRegisteredApplications().size());
+        assertNull(filtered.getRegisteredApplications("third"));
+        assertTrue(filtered.getInstancesByVirtualHostName("third.vip").isEmpty());
+        assertEquals(2, filtered.getInstancesByVirtualHostName("shared.vip").size());
+    }
+
+    private static InstanceInfo newInstanceInfo(String appName, String hostName, String vipAddress) {
+        DataCenterInfo myDCI = new DataCenterInfo() {
+            public DataCenterInfo.Name getName() {
+                return DataCenterInfo.Name.MyOwn;
+            }
+        };
+        return InstanceInfo.Builder.newBuilder()
+                .setAppName(appName)
+                .setVIPAddress(vipAddress)
+                .setDataCenterInfo(myDCI)
+                .setHostName(hostName).build();
+    }
+
+    private static void assertReadOnly(List<InstanceInfo> instances) {
+        try {
+            instances.clear();
+            fail("Indexed list of " + instances.size() + " instances can be modified");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package com.netflix.discovery.shared;
+
+import java.util.Arrays;
+
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.InstanceInfo;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class InterestSetTest {
+
+    @Test
+    public void testCanonicalFormIsIndependentOfDeclarationOrder() throws Exception {
+        InterestSet interestSet = InterestSet.parse("vip:b.vip, svip:c.svip,app:second,app:First");
+
+        assertThat(interestSet.toString(), is(equalTo("app:FIRST,app:SECOND,vip:b.vip,svip:c.svip")));
+        assertThat(InterestSet.parse(interestSet.toString()), is(equalTo(interestSet)));
+        assertThat(InterestSet.newBuilder()
+                .withSecureVipAddress("c.svip")
+                .withApplication("second")
+                .withVipAddress("b.vip")
+                .withApplication("FIRST")
+                .build(), is(equalTo(interestSet)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsUnknownEntryType() throws Exception {
+        InterestSet.parse("app:first,host:first.hostname");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsTooManyEntries() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= InterestSet.MAX_ENTRIES; i++) {
+            sb.append("app:app").append(i).append(',');
+        }
+        InterestSet.parse(sb.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsTooLongEntry() throws Exception {
+        char[] name = new char[InterestSet.MAX_ENTRY_LENGTH + 1];
+        Arrays.fill(name, 'a');
+        InterestSet.parse("app:first,vip:" + new String(name));
+    }
+
+    @Test
+    public void testFilterSelectsInstancesByApplicationOrVipAddress() throws Exception {
+        InstanceInfo byName = newInstanceInfo("first", "first.hostname", "first.vip");
+        InstanceInfo byVip = newInstanceInfo("second", "second.hostname", "other.vip,shared.vip");
+        InstanceInfo other = newInstanceInfo("third", "third.hostname", "third.vip");
+        Applications apps = new Applications();
+        apps.addApplication(new Application("first"));
+        apps.getRegisteredApplications("first").addInstance(byName);
+        apps.addApplication(new Application("second"));
+        apps.getRegisteredApplications("second").addInstance(byVip);
+        apps.addApplication(new Application("third"));
+        apps.getRegisteredApplications("third").addInstance(other);
+        apps.setVersion(7L);
+        apps.setAppsHashCode("UP_3_");
+
+        InterestSet interestSet = InterestSet.newBuilder().withApplication("first").withVipAddress("shared.vip").build();
+        Applications filtered = interestSet.filter(apps);
+
+        assertThat(filtered.getRegisteredApplications().size(), is(equalTo(2)));
+        assertThat(filtered.getRegisteredApplications("first").getByInstanceId("first.hostname"), is(notNullValue()));
+        assertThat(filtered.getRegisteredApplications("second").getByInstanceId("second.hostname"), is(notNullValue()));
+        assertThat(filtered.getRegisteredApplications("third"), is(nullValue()));
+        assertThat(filtered.getVersion(), is(equalTo(7L)));
+        assertThat(filtered.getAppsHashCode(), is(equalTo("UP_3_")));
+        assertThat(apps.getRegisteredApplications().size(), is(equalTo(3)));
+    }
+
+    private static InstanceInfo newInstanceInfo(String appName, String hostName, String vipAddress) {
+        DataCenterInfo myDCI = new DataCenterInfo() {
+            public DataCenterInfo.Name getName() {
+                return DataCenterInfo.Name.MyOwn;
+            }
+        };
+        return InstanceInfo.Builder.newBuilder()
+                .setAppName(appName)
+                .setVIPAddress(vipAddress)
+                .setDataCenterInfo(myDCI)
+                .setHostName(hostName).build();
+    }
+}
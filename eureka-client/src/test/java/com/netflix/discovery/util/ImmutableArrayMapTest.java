@@ -0,0 +1,46 @@
+package com.netflix.discovery.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ImmutableArrayMapTest {
+
+    @Test
+    public void testCopyHasSameMappings() throws Exception {
+        Map<String, String> original = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            original.put("key" + i, "value" + i);
+        }
+
+        Map<String, String> copy = ImmutableArrayMap.copyOf(original);
+
+        assertThat(copy, is(equalTo(original)));
+        assertThat(copy.hashCode(), is(equalTo(original.hashCode())));
+        assertThat(copy.size(), is(equalTo(10)));
+        assertThat(copy.get("key3"), is(equalTo("value3")));
+        assertTrue(copy.containsKey("key9"));
+        assertThat(copy.get("key10"), is(nullValue()));
+        assertThat(ImmutableArrayMap.copyOf(copy), is(sameInstance(copy)));
+    }
+
+    @Test
+    public void testCopyOfEmptyMapIsSharedEmptyMap() throws Exception {
+        Map<String, String> empty = Collections.emptyMap();
+        assertThat(ImmutableArrayMap.copyOf(new HashMap<String, String>()), is(sameInstance(empty)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCopyIsImmutable() throws Exception {
+        ImmutableArrayMap.copyOf(Collections.singletonMap("key", "value")).put("other", "value");
+    }
+}
@@ -2,6 +2,8 @@ package com.netflix.eureka.cluster;
 
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -11,8 +13,35 @@ import com.netflix.eureka.resources.ASGResource.ASGStatus;
  */
 public interface HttpReplicationClient extends EurekaHttpClient {
 
+    /**
+     * Receives the outcome of an asynchronous replication request, on a transport thread.
+     */
+    interface ReplicationCallback<T> {
+
+        void onResponse(EurekaHttpResponse<T> response);
+
+        void onError(Throwable e);
+    }
+
     EurekaHttpResponse<Void> statusUpdate(String asgName, ASGStatus newStatus);
 
     EurekaHttpResponse<ReplicationListResponse> submitBatchUpdates(ReplicationList replicationList);
 
+    /**
+     * Sends a batch of heartbeats in the compact format. Peers not supporting it reply with 404.
+     */
+    EurekaHttpResponse<HeartbeatListResponse> submitHeartbeats(HeartbeatList heartbeatList);
+
+    /**
+     * Asynchronous variant of {@link #submitBatchUpdates(ReplicationList)}, which returns without waiting for the
+     * peer reply.
+     */
+    void submitBatchUpdatesAsync(ReplicationList replicationList, ReplicationCallback<ReplicationListResponse> callback);
+
+    /**
+     * Asynchronous variant of {@link #submitHeartbeats(HeartbeatList)}, which returns without waiting for the
+     * peer reply.
+     */
+    void submitHeartbeatsAsync(HeartbeatList heartbeatList, ReplicationCallback<HeartbeatListResponse> callback);
+
 }
@@ -27,6 +27,8 @@ import com.netflix.eureka.lease.Lease;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
+import com.netflix.eureka.util.ExperimentalProperties;
+import com.netflix.eureka.util.batcher.AdaptiveBatchingController;
 import com.netflix.eureka.util.batcher.TaskDispatcher;
 import com.netflix.eureka.util.batcher.TaskDispatchers;
 import org.slf4j.Logger;
@@ -67,13 +69,23 @@ public class PeerEurekaNode {
      */
     private static final int BATCH_SIZE = 250;
 
+    /**
+     * Defaults of the adaptive batching controller. The batch size is adjusted between the minimum
+     * and {@link #BATCH_SIZE}.
+     */
+    private static final int MIN_ADAPTIVE_BATCH_SIZE = 10;
+    private static final int TARGET_BATCH_LATENCY_MS = 1000;
+
     private static final Logger logger = LoggerFactory.getLogger(PeerEurekaNode.class);
 
     public static final String BATCH_URL_PATH = "peerreplication/batch/";
 
+    public static final String HEARTBEATS_URL_PATH = "peerreplication/heartbeats/";
+
     public static final String HEADER_REPLICATION = "x-netflix-discovery-replication";
 
     private final String serviceUrl;
+    private final String serviceHost;
     private final EurekaServerConfig config;
     private final long maxProcessingDelayMs;
     private final PeerAwareInstanceRegistry registry;
@@ -96,30 +108,83 @@ public class PeerEurekaNode {
         this.replicationClient = replicationClient;
 
         this.serviceUrl = serviceUrl;
+        this.serviceHost = serviceUrl == null ? null : PeerEurekaNodes.hostFromUrl(serviceUrl);
         this.config = config;
         this.maxProcessingDelayMs = config.getMaxTimeForReplication();
 
         String batcherName = getBatcherName();
-        ReplicationTaskProcessor taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient);
-        this.batchingDispatcher = TaskDispatchers.createBatchingTaskDispatcher(
-                batcherName,
-                config.getMaxElementsInPeerReplicationPool(),
-                batchSize,
-                config.getMaxThreadsForPeerReplication(),
-                maxBatchingDelayMs,
-                serverUnavailableSleepTimeMs,
-                retrySleepTimeMs,
-                taskProcessor
-        );
-        this.nonBatchingDispatcher = TaskDispatchers.createNonBatchingTaskDispatcher(
-                targetHost,
-                config.getMaxElementsInStatusReplicationPool(),
-                config.getMaxThreadsForStatusReplication(),
-                maxBatchingDelayMs,
-                serverUnavailableSleepTimeMs,
-                retrySleepTimeMs,
-                taskProcessor
-        );
+        boolean compactHeartbeats = "true".equalsIgnoreCase(config.getExperimental("peerReplication.compactHeartbeats.enabled"));
+        ReplicationTaskProcessor taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient, compactHeartbeats);
+        boolean eventDrivenDispatcher = "true".equalsIgnoreCase(config.getExperimental("peerReplication.eventDrivenDispatcher.enabled"));
+        AdaptiveBatchingController batchingController = null;
+        if ("true".equalsIgnoreCase(config.getExperimental("peerReplication.adaptiveBatching.enabled"))) {
+            batchingController = new AdaptiveBatchingController(
+                    batcherName,
+                    ExperimentalProperties.getInt(config, "peerReplication.adaptiveBatching.minBatchSize", MIN_ADAPTIVE_BATCH_SIZE),
+                    batchSize,
+                    ExperimentalProperties.getInt(config, "peerReplication.adaptiveBatching.targetLatencyMs", TARGET_BATCH_LATENCY_MS)
+            );
+        }
+        if ("true".equalsIgnoreCase(config.getExperimental("peerReplication.async.enabled"))) {
+            int maxInFlightBatches = ExperimentalProperties.getInt(
+                    config, "peerReplication.async.maxInFlightBatches", config.getMaxThreadsForPeerReplication());
+            this.batchingDispatcher = TaskDispatchers.createAsyncBatchingTaskDispatcher(
+                    batcherName,
+                    config.getMaxElementsInPeerReplicationPool(),
+                    batchSize,
+                    maxInFlightBatches,
+                    maxBatchingDelayMs,
+                    serverUnavailableSleepTimeMs,
+                    retrySleepTimeMs,
+                    taskProcessor,
+                    batchingController
+            );
+        } else if (eventDrivenDispatcher) {
+            this.batchingDispatcher = TaskDispatchers.createEventDrivenBatchingTaskDispatcher(
+                    batcherName,
+                    config.getMaxElementsInPeerReplicationPool(),
+                    batchSize,
+                    config.getMaxThreadsForPeerReplication(),
+                    maxBatchingDelayMs,
+                    serverUnavailableSleepTimeMs,
+                    retrySleepTimeMs,
+                    taskProcessor,
+                    batchingController
+            );
+        } else {
+            this.batchingDispatcher = TaskDispatchers.createBatchingTaskDispatcher(
+                    batcherName,
+                    config.getMaxElementsInPeerReplicationPool(),
+                    batchSize,
+                    config.getMaxThreadsForPeerReplication(),
+                    maxBatchingDelayMs,
+                    serverUnavailableSleepTimeMs,
+                    retrySleepTimeMs,
+                    taskProcessor,
+                    batchingController
+            );
+        }
+        if (eventDrivenDispatcher) {
+            this.nonBatchingDispatcher = TaskDispatchers.createEventDrivenNonBatchingTaskDispatcher(
+                    targetHost,
+                    config.getMaxElementsInStatusReplicationPool(),
+                    config.getMaxThreadsForStatusReplication(),
+                    maxBatchingDelayMs,
+                    serverUnavailableSleepTimeMs,
+                    retrySleepTimeMs,
+                    taskProcessor
+            );
+        } else {
+            this.nonBatchingDispatcher = TaskDispatchers.createNonBatchingTaskDispatcher(
+                    targetHost,
+                    config.getMaxElementsInStatusReplicationPool(),
+                    config.getMaxThreadsForStatusReplication(),
+                    maxBatchingDelayMs,
+                    serverUnavailableSleepTimeMs,
+                    retrySleepTimeMs,
+                    taskProcessor
+            );
+        }
     }
 
     /**
@@ -313,6 +378,13 @@ public class PeerEurekaNode {
         return serviceUrl;
     }
 
+    /**
+     * @return the host name of the service url, or null if it cannot be parsed
+     */
+    public String getServiceHost() {
+        return serviceHost;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
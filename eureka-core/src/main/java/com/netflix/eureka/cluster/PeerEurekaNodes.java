@@ -215,6 +215,14 @@ public class PeerEurekaNodes {
         return hostName != null && hostName.equals(myInfo.getHostName());
     }
 
+    /**
+     * Same as {@link #isThisMe(String)}, using the host name the node parsed from its service url.
+     */
+    public static boolean isThisMe(PeerEurekaNode node) {
+        String hostName = node.getServiceHost();
+        return hostName != null && hostName.equals(ApplicationInfoManager.getInstance().getInfo().getHostName());
+    }
+
     public static String hostFromUrl(String url) {
         URI uri;
         try {
@@ -1,16 +1,22 @@
 package com.netflix.eureka.cluster;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.HttpReplicationClient.ReplicationCallback;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance.ReplicationInstanceBuilder;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
-import com.netflix.eureka.util.batcher.TaskProcessor;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
+import com.netflix.eureka.util.batcher.AsyncTaskProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,19 +25,33 @@ import static com.netflix.eureka.cluster.protocol.ReplicationInstance.Replicatio
 /**
  * @author Tomasz Bak
  */
-class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
+class ReplicationTaskProcessor implements AsyncTaskProcessor<ReplicationTask> {
 
     private static final Logger logger = LoggerFactory.getLogger(ReplicationTaskProcessor.class);
 
+    /**
+     * How long to replicate heartbeats in the regular batch format, after the peer rejected the compact one.
+     */
+    private static final long COMPACT_HEARTBEATS_RECHECK_INTERVAL_MS = 5 * 60 * 1000;
+
     private final HttpReplicationClient replicationClient;
 
     private final String peerId;
 
+    private final boolean compactHeartbeats;
+
     private volatile long lastNetworkErrorTime;
 
+    private volatile long compactHeartbeatsRejectedTime;
+
     ReplicationTaskProcessor(String peerId, HttpReplicationClient replicationClient) {
+        this(peerId, replicationClient, false);
+    }
+
+    ReplicationTaskProcessor(String peerId, HttpReplicationClient replicationClient, boolean compactHeartbeats) {
         this.replicationClient = replicationClient;
         this.peerId = peerId;
+        this.compactHeartbeats = compactHeartbeats;
     }
 
     @Override
@@ -64,36 +84,205 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         return ProcessingResult.Success;
     }
 
+    /**
+     * Heartbeats in the batch are sent separately in the compact {@link HeartbeatList} format, if enabled and
+     * supported by the peer. The result of a batch applies to all its tasks, which are all retried after a transient
+     * failure or congestion, so the heartbeats are sent first, and the other tasks only once they succeeded:
+     * <ul>
+     *     <li>if the heartbeats fail, the other tasks were not sent yet, so the retry sends them for the first time</li>
+     *     <li>if the other tasks fail, the retry sends the heartbeats again, which is harmless, as a heartbeat only
+     *     renews the lease, and carries the same dirty timestamp</li>
+     * </ul>
+     * A registration sent in the same batch as a heartbeat of the same instance then reaches the peer after the
+     * heartbeat; the peer replies 404 to the heartbeat, which is handled as for any heartbeat of an instance unknown
+     * to the peer, by replicating the registration.
+     */
     @Override
     public ProcessingResult process(List<ReplicationTask> tasks) {
-        ReplicationList list = createReplicationListOf(tasks);
+        List<InstanceReplicationTask> heartbeats = new ArrayList<>();
+        List<ReplicationTask> others = new ArrayList<>();
+        if (!splitCompactHeartbeats(tasks, heartbeats, others)) {
+            return processReplicationList(tasks);
+        }
+        ProcessingResult result = processHeartbeatList(heartbeats);
+        if (result != ProcessingResult.Success || others.isEmpty()) {
+            return result;
+        }
+        return processReplicationList(others);
+    }
+
+    /**
+     * Same as {@link #process(List)}, but the requests are sent with the asynchronous replication client API,
+     * and the result is reported from the transport thread that received the last reply.
+     */
+    @Override
+    public void processAsync(List<ReplicationTask> tasks, final Callback callback) {
+        List<InstanceReplicationTask> heartbeats = new ArrayList<>();
+        final List<ReplicationTask> others = new ArrayList<>();
+        if (!splitCompactHeartbeats(tasks, heartbeats, others)) {
+            processReplicationListAsync(tasks, callback);
+        } else if (others.isEmpty()) {
+            processHeartbeatListAsync(heartbeats, callback);
+        } else {
+            processHeartbeatListAsync(heartbeats, new Callback() {
+                @Override
+                public void onCompleted(ProcessingResult result) {
+                    if (result == ProcessingResult.Success) {
+                        processReplicationListAsync(others, callback);
+                    } else {
+                        callback.onCompleted(result);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Moves the heartbeats that fit the compact format to {@code heartbeats}, and all other tasks to {@code others}.
+     *
+     * @return false if the compact format shall not be used for this batch
+     */
+    private boolean splitCompactHeartbeats(List<ReplicationTask> tasks,
+                                           List<InstanceReplicationTask> heartbeats,
+                                           List<ReplicationTask> others) {
+        if (!compactHeartbeats
+                || System.currentTimeMillis() - compactHeartbeatsRejectedTime < COMPACT_HEARTBEATS_RECHECK_INTERVAL_MS) {
+            return false;
+        }
+        for (ReplicationTask task : tasks) {
+            if (isCompactHeartbeat(task)) {
+                heartbeats.add((InstanceReplicationTask) task);
+            } else {
+                others.add(task);
+            }
+        }
+        return !heartbeats.isEmpty();
+    }
+
+    private ProcessingResult processHeartbeatList(List<InstanceReplicationTask> heartbeats) {
         try {
-            EurekaHttpResponse<ReplicationListResponse> response = replicationClient.submitBatchUpdates(list);
-            int statusCode = response.getStatusCode();
-            if (!isSuccess(statusCode)) {
-                if (statusCode == 503) {
-                    logger.warn("Server busy (503) HTTP status code received from the peer {}; rescheduling tasks after delay", peerId);
-                    return ProcessingResult.Congestion;
-                } else {
-                    // Unexpected error returned from the server. This should ideally never happen.
-                    logger.error("Batch update failure with HTTP status code {}; discarding {} replication tasks", statusCode, tasks.size());
-                    return ProcessingResult.PermanentError;
+            EurekaHttpResponse<HeartbeatListResponse> response = replicationClient.submitHeartbeats(createHeartbeatListOf(heartbeats));
+            if (isCompactHeartbeatsRejected(response.getStatusCode())) {
+                return processReplicationList(new ArrayList<ReplicationTask>(heartbeats));
+            }
+            return handleHeartbeatListResponse(heartbeats, response);
+        } catch (Throwable e) {
+            return handleTransportError(e);
+        }
+    }
+
+    private void processHeartbeatListAsync(final List<InstanceReplicationTask> heartbeats, final Callback callback) {
+        try {
+            replicationClient.submitHeartbeatsAsync(createHeartbeatListOf(heartbeats), new ReplicationCallback<HeartbeatListResponse>() {
+                @Override
+                public void onResponse(EurekaHttpResponse<HeartbeatListResponse> response) {
+                    if (isCompactHeartbeatsRejected(response.getStatusCode())) {
+                        processReplicationListAsync(new ArrayList<ReplicationTask>(heartbeats), callback);
+                        return;
+                    }
+                    ProcessingResult result;
+                    try {
+                        result = handleHeartbeatListResponse(heartbeats, response);
+                    } catch (Throwable e) {
+                        result = handleTransportError(e);
+                    }
+                    callback.onCompleted(result);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    callback.onCompleted(handleTransportError(e));
                 }
+            });
+        } catch (Throwable e) {
+            callback.onCompleted(handleTransportError(e));
+        }
+    }
+
+    private boolean isCompactHeartbeatsRejected(int statusCode) {
+        if (statusCode == 404) {
+            logger.info("Peer {} does not support compact heartbeat batches; using regular batches", peerId);
+            compactHeartbeatsRejectedTime = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    private ProcessingResult handleHeartbeatListResponse(List<InstanceReplicationTask> heartbeats,
+                                                         EurekaHttpResponse<HeartbeatListResponse> response) {
+        int statusCode = response.getStatusCode();
+        if (!isSuccess(statusCode)) {
+            if (statusCode == 503) {
+                logger.warn("Server busy (503) HTTP status code received from the peer {}; rescheduling tasks after delay", peerId);
+                return ProcessingResult.Congestion;
             } else {
-                handleBatchResponse(tasks, response.getEntity().getResponseList());
+                logger.error("Heartbeat batch failure with HTTP status code {}; discarding {} heartbeats", statusCode, heartbeats.size());
+                return ProcessingResult.PermanentError;
             }
+        }
+        handleHeartbeatResponse(heartbeats, response.getEntity());
+        return ProcessingResult.Success;
+    }
+
+    private ProcessingResult processReplicationList(List<ReplicationTask> tasks) {
+        try {
+            EurekaHttpResponse<ReplicationListResponse> response = replicationClient.submitBatchUpdates(createReplicationListOf(tasks));
+            return handleReplicationListResponse(tasks, response);
         } catch (Throwable e) {
-            if (isNetworkConnectException(e)) {
-                logNetworkErrorSample(null, e);
-                return ProcessingResult.TransientError;
+            return handleTransportError(e);
+        }
+    }
+
+    private void processReplicationListAsync(final List<ReplicationTask> tasks, final Callback callback) {
+        try {
+            replicationClient.submitBatchUpdatesAsync(createReplicationListOf(tasks), new ReplicationCallback<ReplicationListResponse>() {
+                @Override
+                public void onResponse(EurekaHttpResponse<ReplicationListResponse> response) {
+                    ProcessingResult result;
+                    try {
+                        result = handleReplicationListResponse(tasks, response);
+                    } catch (Throwable e) {
+                        result = handleTransportError(e);
+                    }
+                    callback.onCompleted(result);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    callback.onCompleted(handleTransportError(e));
+                }
+            });
+        } catch (Throwable e) {
+            callback.onCompleted(handleTransportError(e));
+        }
+    }
+
+    private ProcessingResult handleReplicationListResponse(List<ReplicationTask> tasks,
+                                                           EurekaHttpResponse<ReplicationListResponse> response) {
+        int statusCode = response.getStatusCode();
+        if (!isSuccess(statusCode)) {
+            if (statusCode == 503) {
+                logger.warn("Server busy (503) HTTP status code received from the peer {}; rescheduling tasks after delay", peerId);
+                return ProcessingResult.Congestion;
             } else {
-                logger.error("Not re-trying this exception because it does not seem to be a network exception", e);
+                // Unexpected error returned from the server. This should ideally never happen.
+                logger.error("Batch update failure with HTTP status code {}; discarding {} replication tasks", statusCode, tasks.size());
                 return ProcessingResult.PermanentError;
             }
         }
+        handleBatchResponse(tasks, response.getEntity().getResponseList());
         return ProcessingResult.Success;
     }
 
+    private ProcessingResult handleTransportError(Throwable e) {
+        if (isNetworkConnectException(e)) {
+            logNetworkErrorSample(null, e);
+            return ProcessingResult.TransientError;
+        }
+        logger.error("Not re-trying this exception because it does not seem to be a network exception", e);
+        return ProcessingResult.PermanentError;
+    }
+
     /**
      * We want to retry eagerly, but without flooding log file with tons of error entries.
      * As tasks are executed by a pool of threads the error logging multiplies. For example:
@@ -125,6 +314,20 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         }
     }
 
+    private void handleHeartbeatResponse(List<InstanceReplicationTask> heartbeats, HeartbeatListResponse response) {
+        List<Integer> failedIndexes = response.getFailedIndexes();
+        List<ReplicationInstanceResponse> failedResponses = response.getFailedResponses();
+        int nextFailed = 0;
+        for (int i = 0; i < heartbeats.size(); i++) {
+            if (nextFailed < failedIndexes.size() && failedIndexes.get(nextFailed) == i) {
+                handleBatchResponse(heartbeats.get(i), failedResponses.get(nextFailed));
+                nextFailed++;
+            } else {
+                heartbeats.get(i).handleSuccess();
+            }
+        }
+    }
+
     private void handleBatchResponse(ReplicationTask task, ReplicationInstanceResponse response) {
         int statusCode = response.getStatusCode();
         if (isSuccess(statusCode)) {
@@ -139,6 +342,14 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         }
     }
 
+    private static HeartbeatList createHeartbeatListOf(List<InstanceReplicationTask> heartbeats) {
+        HeartbeatList.Builder builder = HeartbeatList.newBuilder(heartbeats.size());
+        for (InstanceReplicationTask task : heartbeats) {
+            builder.withHeartbeat(task.getAppName(), task.getId(), task.getInstanceInfo().getLastDirtyTimestamp());
+        }
+        return builder.build();
+    }
+
     private ReplicationList createReplicationListOf(List<ReplicationTask> tasks) {
         ReplicationList list = new ReplicationList();
         for (ReplicationTask task : tasks) {
@@ -148,6 +359,20 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         return list;
     }
 
+    /**
+     * A heartbeat fits the compact format, unless it carries an overridden status.
+     */
+    private static boolean isCompactHeartbeat(ReplicationTask task) {
+        if (task.getAction() != Action.Heartbeat || !(task instanceof InstanceReplicationTask)) {
+            return false;
+        }
+        InstanceReplicationTask instanceTask = (InstanceReplicationTask) task;
+        InstanceInfo instanceInfo = instanceTask.getInstanceInfo();
+        InstanceStatus overriddenStatus = instanceTask.getOverriddenStatus();
+        return instanceInfo != null && instanceInfo.getLastDirtyTimestamp() != null
+                && (overriddenStatus == null || overriddenStatus == InstanceStatus.UNKNOWN);
+    }
+
     private static boolean isSuccess(int statusCode) {
         return statusCode >= 200 && statusCode < 300;
     }
@@ -0,0 +1,135 @@
+package com.netflix.eureka.cluster.protocol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Batch of replicated heartbeats in a column oriented layout. Compared to a {@link ReplicationList} of heartbeats,
+ * each heartbeat is reduced to an index into the list of application names, the instance id and the last dirty
+ * timestamp. Heartbeats carrying an overridden status are replicated with {@link ReplicationList} instead.
+ */
+@Serializer("jackson") // For backwards compatibility with DiscoveryJerseyProvider
+public class HeartbeatList {
+
+    private final List<String> appNames;
+    private final int[] appIndexes;
+    private final List<String> ids;
+    private final long[] lastDirtyTimestamps;
+
+    @JsonCreator
+    public HeartbeatList(@JsonProperty("appNames") List<String> appNames,
+                         @JsonProperty("appIndexes") int[] appIndexes,
+                         @JsonProperty("ids") List<String> ids,
+                         @JsonProperty("lastDirtyTimestamps") long[] lastDirtyTimestamps) {
+        this.appNames = appNames;
+        this.appIndexes = appIndexes;
+        this.ids = ids;
+        this.lastDirtyTimestamps = lastDirtyTimestamps;
+    }
+
+    public List<String> getAppNames() {
+        return appNames;
+    }
+
+    public int[] getAppIndexes() {
+        return appIndexes;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public long[] getLastDirtyTimestamps() {
+        return lastDirtyTimestamps;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public String getAppName(int idx) {
+        return appNames.get(appIndexes[idx]);
+    }
+
+    public String getId(int idx) {
+        return ids.get(idx);
+    }
+
+    public long getLastDirtyTimestamp(int idx) {
+        return lastDirtyTimestamps[idx];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatList that = (HeartbeatList) o;
+
+        return appNames.equals(that.appNames) && Arrays.equals(appIndexes, that.appIndexes)
+                && ids.equals(that.ids) && Arrays.equals(lastDirtyTimestamps, that.lastDirtyTimestamps);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = appNames.hashCode();
+        result = 31 * result + Arrays.hashCode(appIndexes);
+        result = 31 * result + ids.hashCode();
+        result = 31 * result + Arrays.hashCode(lastDirtyTimestamps);
+        return result;
+    }
+
+    public static Builder newBuilder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public static class Builder {
+        private final Map<String, Integer> appIndexByName = new HashMap<>();
+        private final List<String> appNames = new ArrayList<>();
+        private final List<String> ids;
+        private int[] appIndexes;
+        private long[] lastDirtyTimestamps;
+
+        private Builder(int expectedSize) {
+            this.ids = new ArrayList<>(expectedSize);
+            this.appIndexes = new int[expectedSize];
+            this.lastDirtyTimestamps = new long[expectedSize];
+        }
+
+        public Builder withHeartbeat(String appName, String id, long lastDirtyTimestamp) {
+            Integer appIndex = appIndexByName.get(appName);
+            if (appIndex == null) {
+                appIndex = appNames.size();
+                appNames.add(appName);
+                appIndexByName.put(appName, appIndex);
+            }
+            int idx = ids.size();
+            if (idx == appIndexes.length) {
+                appIndexes = Arrays.copyOf(appIndexes, Math.max(4, idx * 2));
+                lastDirtyTimestamps = Arrays.copyOf(lastDirtyTimestamps, appIndexes.length);
+            }
+            ids.add(id);
+            appIndexes[idx] = appIndex;
+            lastDirtyTimestamps[idx] = lastDirtyTimestamp;
+            return this;
+        }
+
+        public HeartbeatList build() {
+            return new HeartbeatList(
+                    appNames,
+                    Arrays.copyOf(appIndexes, ids.size()),
+                    ids,
+                    Arrays.copyOf(lastDirtyTimestamps, ids.size())
+            );
+        }
+    }
+}
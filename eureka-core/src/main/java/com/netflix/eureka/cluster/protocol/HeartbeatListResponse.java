@@ -0,0 +1,60 @@
+package com.netflix.eureka.cluster.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Reply to a {@link HeartbeatList}. Only the heartbeats that did not succeed are listed, by their position
+ * in the batch, so the reply to a batch of successful heartbeats is empty.
+ */
+@Serializer("jackson") // For backwards compatibility with DiscoveryJerseyProvider
+public class HeartbeatListResponse {
+    private final List<Integer> failedIndexes;
+    private final List<ReplicationInstanceResponse> failedResponses;
+
+    public HeartbeatListResponse() {
+        this.failedIndexes = new ArrayList<>();
+        this.failedResponses = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public HeartbeatListResponse(@JsonProperty("failedIndexes") List<Integer> failedIndexes,
+                                 @JsonProperty("failedResponses") List<ReplicationInstanceResponse> failedResponses) {
+        this.failedIndexes = failedIndexes;
+        this.failedResponses = failedResponses;
+    }
+
+    public List<Integer> getFailedIndexes() {
+        return failedIndexes;
+    }
+
+    public List<ReplicationInstanceResponse> getFailedResponses() {
+        return failedResponses;
+    }
+
+    public void addFailure(int index, ReplicationInstanceResponse response) {
+        failedIndexes.add(index);
+        failedResponses.add(response);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatListResponse that = (HeartbeatListResponse) o;
+
+        return failedIndexes.equals(that.failedIndexes) && failedResponses.equals(that.failedResponses);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * failedIndexes.hashCode() + failedResponses.hashCode();
+    }
+}
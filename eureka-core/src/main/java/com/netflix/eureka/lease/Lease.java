@@ -39,7 +39,7 @@ public class Lease<T> {
     public static final int DEFAULT_DURATION_IN_SECS = 90;
 
     private T holder;
-    private long evictionTimestamp;
+    private volatile long evictionTimestamp;
     private long registrationTimestamp;
     private long serviceUpTimestamp;
     // Make it volatile so that the expiration task would see this quicker
@@ -108,7 +108,25 @@ public class Lease<T> {
      * @param additionalLeaseMs any additional lease time to add to the lease evaluation in ms.
      */
     public boolean isExpired(long additionalLeaseMs) {
-        return (evictionTimestamp > 0 || System.currentTimeMillis() > (lastUpdateTimestamp + duration + additionalLeaseMs));
+        return isExpired(System.currentTimeMillis(), additionalLeaseMs);
+    }
+
+    /**
+     * Checks if the lease has expired at the given time. See {@link #isExpired(long)}.
+     *
+     * @param now the current time, so the caller can evaluate many leases with a single clock read.
+     * @param additionalLeaseMs any additional lease time to add to the lease evaluation in ms.
+     */
+    public boolean isExpired(long now, long additionalLeaseMs) {
+        return (evictionTimestamp > 0 || now > (lastUpdateTimestamp + duration + additionalLeaseMs));
+    }
+
+    /**
+     * Gets the milliseconds since epoch after which the lease is considered expired, unless renewed.
+     * Renewals only ever move it later.
+     */
+    public long getExpirationTimestamp() {
+        return lastUpdateTimestamp + duration;
     }
 
     /**
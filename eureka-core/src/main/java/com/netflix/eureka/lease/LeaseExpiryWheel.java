@@ -0,0 +1,123 @@
+package com.netflix.eureka.lease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Timing wheel of leases ordered by their expiration time, so finding expired leases touches only the leases
+ * that are due, instead of every lease in the registry.
+ *
+ * <p>
+ * Each slot holds the leases expiring within one tick. Leases further ahead than the wheel span are parked in
+ * the last slot of the span. Renewals do not move a lease, as they only ever extend it, and the renewal path
+ * should stay a single timestamp update. Instead, when the slot of a lease comes due, a lease that was renewed
+ * meanwhile is scheduled again according to its current expiration time. So in steady state every live lease
+ * is touched about once per lease validity period (which is twice the lease duration, see
+ * {@link Lease#isExpired(long)}).
+ * </p>
+ *
+ * <p>
+ * Leases may be scheduled concurrently. Expired leases are collected by a single thread at a time. Leases that
+ * are no longer active (canceled, or replaced by a new registration) are not removed eagerly; it is up to
+ * the caller to skip them when they are returned as expired, and not to schedule them again.
+ * </p>
+ */
+public class LeaseExpiryWheel<T> {
+
+    public static final long DEFAULT_TICK_MS = 1000;
+    public static final int DEFAULT_SLOTS = 512;
+
+    private final long tickMs;
+    private final ConcurrentLinkedQueue<Lease<T>>[] slots;
+    private final int mask;
+
+    /**
+     * First tick to be collected next time. Ticks before it were already collected.
+     */
+    private volatile long cursorTick;
+
+    public LeaseExpiryWheel() {
+        this(DEFAULT_TICK_MS, DEFAULT_SLOTS, System.currentTimeMillis());
+    }
+
+    /**
+     * @param slots number of slots, rounded up to the next power of two
+     * @param startTimeMs time from which expired leases are collected
+     */
+    @SuppressWarnings("unchecked")
+    public LeaseExpiryWheel(long tickMs, int slots, long startTimeMs) {
+        int size = Integer.highestOneBit(Math.max(2, slots) - 1) << 1;
+        this.tickMs = tickMs;
+        this.slots = new ConcurrentLinkedQueue[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new ConcurrentLinkedQueue<Lease<T>>();
+        }
+        this.mask = size - 1;
+        this.cursorTick = startTimeMs / tickMs;
+    }
+
+    /**
+     * Schedules the lease at its current expiration time. A lease that is already past its expiration time
+     * is scheduled in the next slot to be collected.
+     */
+    public void schedule(Lease<T> lease) {
+        long cursor = cursorTick;
+        long tick = lease.getExpirationTimestamp() / tickMs;
+        if (tick < cursor) {
+            tick = cursor;
+        } else if (tick > cursor + mask) {
+            tick = cursor + mask;
+        }
+        slots[(int) (tick & mask)].add(lease);
+    }
+
+    /**
+     * Collects the leases due up to the given time, which are expired at that time. Leases from the due
+     * slots that are not expired (as they were renewed) are scheduled again. Leases that are returned are
+     * removed from the wheel; a lease that stays active although expired (for example because of self
+     * preservation) must be scheduled again by the caller.
+     *
+     * @param now current time
+     * @param additionalLeaseMs additional lease time, see {@link Lease#isExpired(long, long)}
+     */
+    public synchronized List<Lease<T>> collectExpired(long now, long additionalLeaseMs) {
+        long lastTick = (now - additionalLeaseMs) / tickMs;
+        long firstTick = cursorTick;
+        if (lastTick < firstTick) {
+            return new ArrayList<>();
+        }
+        // A full turn of the wheel covers all slots
+        long endTick = Math.min(lastTick, firstTick + mask);
+        // The current tick is not over yet, so its slot is collected again next time
+        cursorTick = lastTick;
+
+        List<Lease<T>> expired = new ArrayList<>();
+        List<Lease<T>> renewed = new ArrayList<>();
+        for (long tick = firstTick; tick <= endTick; tick++) {
+            ConcurrentLinkedQueue<Lease<T>> slot = slots[(int) (tick & mask)];
+            Lease<T> lease;
+            while ((lease = slot.poll()) != null) {
+                if (lease.isExpired(now, additionalLeaseMs)) {
+                    expired.add(lease);
+                } else {
+                    renewed.add(lease);
+                }
+            }
+        }
+        // Scheduled after all due slots are drained, as parked leases may land in one of them
+        for (Lease<T> lease : renewed) {
+            schedule(lease);
+        }
+        return expired;
+    }
+
+    /**
+     * Removes all leases.
+     */
+    public synchronized void clear() {
+        for (ConcurrentLinkedQueue<Lease<T>> slot : slots) {
+            slot.clear();
+        }
+    }
+}
@@ -35,11 +35,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.ActionType;
@@ -47,10 +49,13 @@ import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.appinfo.LeaseInfo;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.lease.Lease;
+import com.netflix.eureka.lease.LeaseExpiryWheel;
 import com.netflix.eureka.resources.ServerCodecs;
+import com.netflix.eureka.util.ExperimentalProperties;
 import com.netflix.eureka.util.MeasuredRate;
 import com.netflix.servo.annotations.DataSourceType;
 import org.slf4j.Logger;
@@ -74,9 +79,21 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     private static final Logger logger = LoggerFactory.getLogger(AbstractInstanceRegistry.class);
 
     private static final String[] EMPTY_STR_ARRAY = new String[0];
+    private static final int MAX_OPTIMISTIC_DELTA_READS = 3;
     private final ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>> registry
             = new ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>>();
     protected Map<String, RemoteRegionRegistry> regionNameVSRemoteRegistry = new HashMap<String, RemoteRegionRegistry>();
+    // Secondary indexes of the leases in the registry by VIP and secure VIP address
+    private final ConcurrentMap<String, Set<Lease<InstanceInfo>>> vipIndex =
+            new ConcurrentHashMap<String, Set<Lease<InstanceInfo>>>();
+    private final ConcurrentMap<String, Set<Lease<InstanceInfo>>> secureVipIndex =
+            new ConcurrentHashMap<String, Set<Lease<InstanceInfo>>>();
+    // Leases by instance id, so a renewal finds its lease with a single lookup. Instance ids are not guaranteed
+    // to be unique across applications, hence a hit is checked against the application name.
+    private final ConcurrentHashMap<String, Lease<InstanceInfo>> leasesById =
+            new ConcurrentHashMap<String, Lease<InstanceInfo>>();
+    // Leases ordered by expiration time, so eviction only touches the leases that are due
+    private final LeaseExpiryWheel<InstanceInfo> leaseExpiryWheel = new LeaseExpiryWheel<InstanceInfo>();
     protected final ConcurrentMap<String, InstanceStatus> overriddenInstanceStatusMap = CacheBuilder
             .newBuilder().initialCapacity(500)
             .expireAfterAccess(1, TimeUnit.HOURS)
@@ -85,11 +102,13 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     // CircularQueues here for debugging/statistics purposes only
     private final CircularQueue<Pair<Long, String>> recentRegisteredQueue;
     private final CircularQueue<Pair<Long, String>> recentCanceledQueue;
-    private ConcurrentLinkedQueue<RecentlyChangedItem> recentlyChangedQueue = new ConcurrentLinkedQueue<RecentlyChangedItem>();
+    // Versions start from a time based value, so versions issued by different servers (or by this server before
+    // a restart) practically never overlap, and a client presenting a foreign version is asked to refetch.
+    private final RegistryChangeLog recentlyChangedLog = new RegistryChangeLog(
+            RegistryChangeLog.DEFAULT_INITIAL_CAPACITY, System.currentTimeMillis() << 16);
+    private volatile ReconcileHashCodeHolder localReconcileHashCode;
 
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock read = readWriteLock.readLock();
-    private final Lock write = readWriteLock.writeLock();
+    private final StripedRegistryLock registryLock;
     protected final Object lock = new Object();
 
     private Timer deltaRetentionTimer = new Timer("Eureka-DeltaRetentionTimer", true);
@@ -114,6 +133,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         this.serverCodecs = serverCodecs;
         this.recentCanceledQueue = new CircularQueue<Pair<Long, String>>(1000);
         this.recentRegisteredQueue = new CircularQueue<Pair<Long, String>>(1000);
+        this.registryLock = new StripedRegistryLock(
+                ExperimentalProperties.getInt(serverConfig, "registry.lockStripes", StripedRegistryLock.DEFAULT_STRIPES));
         this.deltaRetentionTimer.schedule(getDeltaRetentionTask(),
                 serverConfig.getDeltaRetentionTimerIntervalInMs(),
                 serverConfig.getDeltaRetentionTimerIntervalInMs());
@@ -167,8 +188,12 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         overriddenInstanceStatusMap.clear();
         recentCanceledQueue.clear();
         recentRegisteredQueue.clear();
-        recentlyChangedQueue.clear();
+        recentlyChangedLog.clear();
         registry.clear();
+        leasesById.clear();
+        vipIndex.clear();
+        secureVipIndex.clear();
+        leaseExpiryWheel.clear();
     }
 
     // for server info use
@@ -183,6 +208,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @see com.netflix.eureka.lease.LeaseManager#register(java.lang.Object, int, boolean)
      */
     public void register(InstanceInfo r, int leaseDuration, boolean isReplication) {
+        Lock read = registryLock.forApplication(r.getAppName());
         try {
             read.lock();
             Map<String, Lease<InstanceInfo>> gMap = registry.get(r.getAppName());
@@ -226,12 +252,16 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             if (existingLease != null) {
                 lease.setServiceUpTimestamp(existingLease.getServiceUpTimestamp());
             }
-            gMap.put(r.getId(), lease);
-            synchronized (recentRegisteredQueue) {
-                recentRegisteredQueue.add(new Pair<Long, String>(
-                        System.currentTimeMillis(),
-                        r.getAppName() + "(" + r.getId() + ")"));
+            Lease<InstanceInfo> replacedLease = gMap.put(r.getId(), lease);
+            if (replacedLease != null) {
+                removeFromVipIndexes(replacedLease);
             }
+            leasesById.put(r.getId(), lease);
+            addToVipIndexes(lease);
+            leaseExpiryWheel.schedule(lease);
+            recentRegisteredQueue.add(new Pair<Long, String>(
+                    System.currentTimeMillis(),
+                    r.getAppName() + "(" + r.getId() + ")"));
             // This is where the initial state transfer of overridden status happens
             if (!InstanceStatus.UNKNOWN.equals(r.getOverriddenStatus())) {
                 logger.debug("Found overridden status {} for instance {}. Checking to see if needs to be add to the "
@@ -256,7 +286,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                 lease.serviceUp();
             }
             r.setActionType(ActionType.ADDED);
-            recentlyChangedQueue.add(new RecentlyChangedItem(lease));
+            recentlyChangedLog.append(lease);
             r.setLastUpdatedTimestamp();
             invalidateCache(r.getAppName(), r.getVIPAddress(), r.getSecureVipAddress());
             logger.info("Registered instance {}/{} with status {} (replication={})",
@@ -291,6 +321,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * in the remote peers as valid cancellations, so self preservation mode would not kick-in.
      */
     protected boolean internalCancel(String appName, String id, boolean isReplication) {
+        Lock read = registryLock.forApplication(appName);
         try {
             read.lock();
             CANCEL.increment(isReplication);
@@ -299,9 +330,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             if (gMap != null) {
                 leaseToCancel = gMap.remove(id);
             }
-            synchronized (recentCanceledQueue) {
-                recentCanceledQueue.add(new Pair<Long, String>(System.currentTimeMillis(), appName + "(" + id + ")"));
-            }
+            recentCanceledQueue.add(new Pair<Long, String>(System.currentTimeMillis(), appName + "(" + id + ")"));
             InstanceStatus instanceStatus = overriddenInstanceStatusMap.remove(id);
             if (instanceStatus != null) {
                 logger.debug("Removed instance id {} from the overridden map which has value {}", id, instanceStatus.name());
@@ -312,12 +341,14 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                 return false;
             } else {
                 leaseToCancel.cancel();
+                leasesById.remove(id, leaseToCancel);
+                removeFromVipIndexes(leaseToCancel);
                 InstanceInfo instanceInfo = leaseToCancel.getHolder();
                 String vip = null;
                 String svip = null;
                 if (instanceInfo != null) {
                     instanceInfo.setActionType(ActionType.DELETED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(leaseToCancel));
+                    recentlyChangedLog.append(leaseToCancel);
                     instanceInfo.setLastUpdatedTimestamp();
                     vip = instanceInfo.getVIPAddress();
                     svip = instanceInfo.getSecureVipAddress();
@@ -338,16 +369,21 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @see com.netflix.eureka.lease.LeaseManager#renew(java.lang.String, java.lang.String, boolean)
      */
     public boolean renew(String appName, String id, boolean isReplication) {
+        return renewLease(appName, id, isReplication) != null;
+    }
+
+    /**
+     * Renews the lease of the given instance, as {@link #renew(String, String, boolean)} does.
+     *
+     * @return the renewed lease, or null if there is no lease to renew
+     */
+    protected Lease<InstanceInfo> renewLease(String appName, String id, boolean isReplication) {
         RENEW.increment(isReplication);
-        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-        Lease<InstanceInfo> leaseToRenew = null;
-        if (gMap != null) {
-            leaseToRenew = gMap.get(id);
-        }
+        Lease<InstanceInfo> leaseToRenew = getLease(appName, id);
         if (leaseToRenew == null) {
             RENEW_NOT_FOUND.increment(isReplication);
             logger.warn("DS: Registry: lease doesn't exist, registering resource: {} - {}", appName, id);
-            return false;
+            return null;
         } else {
             InstanceInfo instanceInfo = leaseToRenew.getHolder();
             if (instanceInfo != null) {
@@ -358,9 +394,9 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                     logger.info("Instance status UNKNOWN possibly due to deleted override for instance {}"
                             + "; re-register required", instanceInfo.getId());
                     RENEW_NOT_FOUND.increment(isReplication);
-                    return false;
+                    return null;
                 }
-                if (!instanceInfo.getStatus().equals(overriddenInstanceStatus)) {
+                if (instanceInfo.getStatus() != overriddenInstanceStatus) {
                     Object[] args = {
                             instanceInfo.getStatus().name(),
                             instanceInfo.getOverriddenStatus().name(),
@@ -374,8 +410,23 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             }
             renewsLastMin.increment();
             leaseToRenew.renew();
-            return true;
+            return leaseToRenew;
+        }
+    }
+
+    /**
+     * Finds the lease of the given instance, through the instance id index when possible.
+     */
+    private Lease<InstanceInfo> getLease(String appName, String id) {
+        Lease<InstanceInfo> lease = leasesById.get(id);
+        if (lease != null) {
+            InstanceInfo holder = lease.getHolder();
+            if (lease.getEvictionTimestamp() == 0 && holder != null && holder.getAppName().equals(appName)) {
+                return lease;
+            }
         }
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        return gMap == null ? null : gMap.get(id);
     }
 
     /**
@@ -453,6 +504,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public boolean statusUpdate(String appName, String id,
                                 InstanceStatus newStatus, String lastDirtyTimestamp,
                                 boolean isReplication) {
+        Lock read = registryLock.forApplication(appName);
         try {
             read.lock();
             STATUS_UPDATE.increment(isReplication);
@@ -494,7 +546,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                         info.setStatus(newStatus);
                     }
                     info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
+                    recentlyChangedLog.append(lease);
                     info.setLastUpdatedTimestamp();
                     invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
                 }
@@ -521,6 +573,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                                         InstanceStatus newStatus,
                                         String lastDirtyTimestamp,
                                         boolean isReplication) {
+        Lock read = registryLock.forApplication(appName);
         try {
             read.lock();
             STATUS_OVERRIDE_DELETE.increment(isReplication);
@@ -555,7 +608,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                         info.setLastDirtyTimestamp(replicaDirtyTimestamp);
                     }
                     info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
+                    recentlyChangedLog.append(lease);
                     info.setLastUpdatedTimestamp();
                     invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
                 }
@@ -588,15 +641,10 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         // if we do not that, we might wipe out whole apps before self preservation kicks in. By randomizing it,
         // the impact should be evenly distributed across all applications.
         List<Lease<InstanceInfo>> expiredLeases = new ArrayList<>();
-        for (Entry<String, Map<String, Lease<InstanceInfo>>> groupEntry : registry.entrySet()) {
-            Map<String, Lease<InstanceInfo>> leaseMap = groupEntry.getValue();
-            if (leaseMap != null) {
-                for (Entry<String, Lease<InstanceInfo>> leaseEntry : leaseMap.entrySet()) {
-                    Lease<InstanceInfo> lease = leaseEntry.getValue();
-                    if (lease.isExpired(additionalLeaseMs) && lease.getHolder() != null) {
-                        expiredLeases.add(lease);
-                    }
-                }
+        for (Lease<InstanceInfo> lease : leaseExpiryWheel.collectExpired(System.currentTimeMillis(), additionalLeaseMs)) {
+            // Canceled and replaced leases are dropped from the wheel here
+            if (lease.getHolder() != null && isRegistered(lease)) {
+                expiredLeases.add(lease);
             }
         }
 
@@ -630,6 +678,15 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                 }
             }
         }
+        // Leases spared by the eviction limit are checked again on the next run
+        for (int i = Math.max(toEvict, 0); i < expiredLeases.size(); i++) {
+            leaseExpiryWheel.schedule(expiredLeases.get(i));
+        }
+    }
+
+    private boolean isRegistered(Lease<InstanceInfo> lease) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(lease.getHolder().getAppName());
+        return leaseMap != null && leaseMap.get(lease.getHolder().getId()) == lease;
     }
 
 
@@ -744,7 +801,9 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             GET_ALL_CACHE_MISS.increment();
         }
         Applications apps = new Applications();
-        apps.setVersion(1L);
+        // The registry version is read before the registry itself, so replaying the changes made after
+        // this version on top of this snapshot (see getApplicationDeltasSince) never misses a change.
+        apps.setVersion(recentlyChangedLog.getVersion());
         for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
             Application app = null;
 
@@ -818,7 +877,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public Applications getApplications(boolean includeRemoteRegion) {
         GET_ALL_CACHE_MISS.increment();
         Applications apps = new Applications();
-        apps.setVersion(1L);
+        apps.setVersion(recentlyChangedLog.getVersion());
         for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
             Application app = null;
 
@@ -870,56 +929,36 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     @Deprecated
     public Applications getApplicationDeltas() {
         GET_ALL_CACHE_MISS_DELTA.increment();
-        Applications apps = new Applications();
-        apps.setVersion(responseCache.getVersionDelta().get());
-        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is :"
-                    + this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                Object[] args = {instanceInfo.getId(),
-                        instanceInfo.getStatus().name(),
-                        instanceInfo.getActionType().name()};
-                logger.debug(
-                        "The instance id %s is found with status %s and actiontype %s",
-                        args);
-                Application app = applicationInstancesMap.get(instanceInfo
-                        .getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
-                }
-                app.addInstance(decorateInstanceInfo(lease));
-            }
-
-            boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
-
-            if (!disableTransparentFallback) {
-                Applications allAppsInLocalRegion = getApplications(false);
-
-                for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
-                    Applications applications = remoteRegistry.getApplicationDeltas();
-                    for (Application application : applications.getRegisteredApplications()) {
-                        Application appInLocalRegistry =
-                                allAppsInLocalRegion.getRegisteredApplications(application.getName());
-                        if (appInLocalRegistry == null) {
-                            apps.addApplication(application);
+        final long version = responseCache.getVersionDelta().get();
+        return readConsistentDelta(new Supplier<Applications>() {
+            @Override
+            public Applications get() {
+                Applications apps = new Applications();
+                apps.setVersion(version);
+                addLocalChanges(apps, recentlyChangedLog.getChanges());
+
+                boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
+
+                if (!disableTransparentFallback) {
+                    Applications allAppsInLocalRegion = getApplications(false);
+
+                    for (RemoteRegionRegistry remoteRegistry : regionNameVSRemoteRegistry.values()) {
+                        Applications applications = remoteRegistry.getApplicationDeltas();
+                        for (Application application : applications.getRegisteredApplications()) {
+                            Application appInLocalRegistry =
+                                    allAppsInLocalRegion.getRegisteredApplications(application.getName());
+                            if (appInLocalRegistry == null) {
+                                apps.addApplication(application);
+                            }
                         }
                     }
                 }
-            }
 
-            Applications allApps = getApplications(!disableTransparentFallback);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
-        } finally {
-            write.unlock();
-        }
+                Applications allApps = getApplications(!disableTransparentFallback);
+                apps.setAppsHashCode(allApps.getReconcileHashCode());
+                return apps;
+            }
+        });
     }
 
     /**
@@ -945,7 +984,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             remoteRegions = allKnownRemoteRegions; // null means all remote regions.
         }
 
-        boolean includeRemoteRegion = remoteRegions.length != 0;
+        final boolean includeRemoteRegion = remoteRegions.length != 0;
 
         if (includeRemoteRegion) {
             GET_ALL_WITH_REMOTE_REGIONS_CACHE_MISS_DELTA.increment();
@@ -953,58 +992,222 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             GET_ALL_CACHE_MISS_DELTA.increment();
         }
 
-        Applications apps = new Applications();
-        apps.setVersion(responseCache.getVersionDeltaWithRegions().get());
-        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is :" + this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                Object[] args = {instanceInfo.getId(),
-                        instanceInfo.getStatus().name(),
-                        instanceInfo.getActionType().name()};
-                logger.debug("The instance id %s is found with status %s and actiontype %s", args);
-                Application app = applicationInstancesMap.get(instanceInfo.getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
+        final String[] regions = remoteRegions;
+        final long version = responseCache.getVersionDeltaWithRegions().get();
+        return readConsistentDelta(new Supplier<Applications>() {
+            @Override
+            public Applications get() {
+                Applications apps = new Applications();
+                apps.setVersion(version);
+                addLocalChanges(apps, recentlyChangedLog.getChanges());
+
+                if (includeRemoteRegion) {
+                    addRemoteRegionDeltas(apps, regions);
                 }
-                app.addInstance(decorateInstanceInfo(lease));
+
+                Applications allApps = getApplicationsFromMultipleRegions(regions);
+                apps.setAppsHashCode(allApps.getReconcileHashCode());
+                return apps;
+            }
+        });
+    }
+
+    /**
+     * Gets the local region changes within the delta retention window, restricted to the instances of the given
+     * interest set. The apps hash code is computed from {@link #getApplicationsOfInterest(InterestSet)}, so a client
+     * holding only its interest set can reconcile with it. A change that moves an instance out of the interest set
+     * is not part of the delta; the client detects it from the hash code mismatch.
+     */
+    public Applications getApplicationDeltasOfInterest(final InterestSet interestSet) {
+        GET_ALL_CACHE_MISS_DELTA.increment();
+        final long version = responseCache.getVersionDelta().get();
+        return readConsistentDelta(new Supplier<Applications>() {
+            @Override
+            public Applications get() {
+                Applications apps = new Applications();
+                apps.setVersion(version);
+                addLocalChanges(apps, recentlyChangedLog.getChanges(), interestSet);
+                apps.setAppsHashCode(getApplicationsOfInterest(interestSet).getReconcileHashCode());
+                return apps;
+            }
+        });
+    }
+
+    /**
+     * Gets the local region changes made after the given registry version. Unlike
+     * {@link #getApplicationDeltasFromMultipleRegions(String[])}, which returns every change within the retention
+     * window, this returns exactly what a client that has applied all changes up to the given version is missing.
+     * The returned delta version is the registry version the delta brings the client to.
+     *
+     * The change log only records local region changes, so when the full registry also holds the remote regions
+     * (transparent fallback enabled with remote regions configured), no delta is returned, as it would not bring
+     * the client to the same view.
+     *
+     * @param version the registry version last applied by the client, as returned in a previous delta or full
+     *                registry payload
+     * @return the delta, or <code>null</code> if the changes following the given version are no longer retained
+     * (or the version was not issued by this registry), or the registry includes remote regions, in which case the
+     * client must fall back to the regular delta
+     */
+    public Applications getApplicationDeltasSince(long version) {
+        return getApplicationDeltasSince(version, null);
+    }
+
+    /**
+     * Same as {@link #getApplicationDeltasSince(long)}, with the changes restricted to the instances of the given
+     * interest set, and the apps hash code computed from {@link #getApplicationsOfInterest(InterestSet)}.
+     *
+     * @param interestSet the interest set of the client, or <code>null</code> for all local region changes
+     */
+    public Applications getApplicationDeltasSince(final long version, @Nullable final InterestSet interestSet) {
+        if (interestSet == null
+                && !serverConfig.disableTransparentFallbackToOtherRegion() && allKnownRemoteRegions.length > 0) {
+            return null;
+        }
+        GET_ALL_CACHE_MISS_DELTA.increment();
+        final AtomicReference<ReconcileHashCodeHolder> computedHashCode = new AtomicReference<>();
+        Applications delta = readConsistentDelta(new Supplier<Applications>() {
+            @Override
+            public Applications get() {
+                computedHashCode.set(null);
+                long registryVersion = recentlyChangedLog.getVersion();
+                List<RegistryChangeLog.Change> changes = recentlyChangedLog.getChangesSince(version);
+                if (changes == null) {
+                    return null;
+                }
+                Applications apps = new Applications();
+                addLocalChanges(apps, changes, interestSet);
+                apps.setVersion(changes.isEmpty() ? version : changes.get(changes.size() - 1).getVersion());
+
+                if (interestSet != null) {
+                    apps.setAppsHashCode(getApplicationsOfInterest(interestSet).getReconcileHashCode());
+                    return apps;
+                }
+                ReconcileHashCodeHolder hashCode = localReconcileHashCode;
+                if (hashCode == null || !hashCode.isValidFor(registryVersion)) {
+                    hashCode = new ReconcileHashCodeHolder(
+                            registryVersion, getApplicationsFromLocalRegionOnly().getReconcileHashCode());
+                    computedHashCode.set(hashCode);
+                }
+                apps.setAppsHashCode(hashCode.getHashCode());
+                return apps;
+            }
+        });
+        // Only the hash code of a delta that passed the consistency check can be reused by other clients
+        if (computedHashCode.get() != null) {
+            localReconcileHashCode = computedHashCode.get();
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the current registry version, which is the version of the most recent change recorded in the
+     * change log.
+     */
+    public long getRegistryVersion() {
+        return recentlyChangedLog.getVersion();
+    }
+
+    /**
+     * A delta must be consistent with the apps hash code computed from the full registry, otherwise clients
+     * fall back to a full registry fetch. Instead of blocking all registry mutations for the duration of the
+     * delta build, the delta is built optimistically, and accepted only if no mutation was in progress
+     * when it started or ended, and the registry version has not changed meanwhile. Only if this repeatedly fails
+     * (high registry churn), the delta is built with all registry lock stripes held exclusively.
+     */
+    private Applications readConsistentDelta(Supplier<Applications> deltaBuilder) {
+        for (int i = 0; i < MAX_OPTIMISTIC_DELTA_READS; i++) {
+            long version = recentlyChangedLog.getVersion();
+            if (!registryLock.isMutationInProgress()) {
+                Applications apps = deltaBuilder.get();
+                if (!registryLock.isMutationInProgress() && version == recentlyChangedLog.getVersion()) {
+                    return apps;
+                }
+            }
+        }
+        try {
+            registryLock.lockAll();
+            return deltaBuilder.get();
+        } finally {
+            registryLock.unlockAll();
+        }
+    }
+
+    /**
+     * Full registry hash code computed for a given registry version. The hash code is recomputed at least once
+     * per response cache update interval, as some status changes (overrides applied on renewal) are not
+     * recorded in the change log.
+     */
+    private final class ReconcileHashCodeHolder {
+        private final long registryVersion;
+        private final String hashCode;
+        private final long timestamp;
+
+        ReconcileHashCodeHolder(long registryVersion, String hashCode) {
+            this.registryVersion = registryVersion;
+            this.hashCode = hashCode;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        boolean isValidFor(long version) {
+            return registryVersion == version
+                    && System.currentTimeMillis() - timestamp < serverConfig.getResponseCacheUpdateIntervalMs();
+        }
+
+        String getHashCode() {
+            return hashCode;
+        }
+    }
+
+    private void addLocalChanges(Applications apps, List<RegistryChangeLog.Change> changes) {
+        addLocalChanges(apps, changes, null);
+    }
+
+    private void addLocalChanges(Applications apps, List<RegistryChangeLog.Change> changes,
+                                 @Nullable InterestSet interestSet) {
+        logger.debug("The number of elements in the delta queue is : {}", changes.size());
+        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
+        for (RegistryChangeLog.Change change : changes) {
+            Lease<InstanceInfo> lease = change.getLease();
+            InstanceInfo instanceInfo = lease.getHolder();
+            if (interestSet != null && !interestSet.matches(instanceInfo)) {
+                continue;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("The instance id {} is found with status {} and actiontype {}",
+                        instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
+            }
+            Application app = applicationInstancesMap.get(instanceInfo.getAppName());
+            if (app == null) {
+                app = new Application(instanceInfo.getAppName());
+                applicationInstancesMap.put(instanceInfo.getAppName(), app);
+                apps.addApplication(app);
             }
+            app.addInstance(decorateInstanceInfo(lease));
+        }
+    }
 
-            if (includeRemoteRegion) {
-                for (String remoteRegion : remoteRegions) {
-                    RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
-                    if (null != remoteRegistry) {
-                        Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
-                        if (null != remoteAppsDelta) {
-                            for (Application application : remoteAppsDelta.getRegisteredApplications()) {
-                                if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
-                                    Application appInstanceTillNow =
-                                            apps.getRegisteredApplications(application.getName());
-                                    if (appInstanceTillNow == null) {
-                                        appInstanceTillNow = new Application(application.getName());
-                                        apps.addApplication(appInstanceTillNow);
-                                    }
-                                    for (InstanceInfo instanceInfo : application.getInstances()) {
-                                        appInstanceTillNow.addInstance(instanceInfo);
-                                    }
-                                }
+    private void addRemoteRegionDeltas(Applications apps, String[] remoteRegions) {
+        for (String remoteRegion : remoteRegions) {
+            RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+            if (null != remoteRegistry) {
+                Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
+                if (null != remoteAppsDelta) {
+                    for (Application application : remoteAppsDelta.getRegisteredApplications()) {
+                        if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                            Application appInstanceTillNow =
+                                    apps.getRegisteredApplications(application.getName());
+                            if (appInstanceTillNow == null) {
+                                appInstanceTillNow = new Application(application.getName());
+                                apps.addApplication(appInstanceTillNow);
+                            }
+                            for (InstanceInfo instanceInfo : application.getInstances()) {
+                                appInstanceTillNow.addInstance(instanceInfo);
                             }
                         }
                     }
                 }
             }
-
-            Applications allApps = getApplicationsFromMultipleRegions(remoteRegions);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
-        } finally {
-            write.unlock();
         }
     }
 
@@ -1110,6 +1313,154 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         return list;
     }
 
+    /**
+     * Gets the local region instances registered with the given VIP (or secure VIP) address, from the VIP indexes.
+     * The cost is proportional to the number of instances in that VIP, instead of the size of the whole registry.
+     *
+     * @return the applications, or <code>null</code> if VIP queries must also include remote region instances
+     * (transparent fallback to other regions is enabled, and remote regions are configured), which are not indexed
+     */
+    @Nullable
+    public Applications getApplicationsForVip(String vipAddress, boolean secure) {
+        if (!serverConfig.disableTransparentFallbackToOtherRegion() && allKnownRemoteRegions.length > 0) {
+            return null;
+        }
+        Applications apps = new Applications();
+        addIndexedLeases(apps, (secure ? secureVipIndex : vipIndex).get(vipAddress));
+        apps.setAppsHashCode(apps.getReconcileHashCode());
+        return apps;
+    }
+
+    /**
+     * Gets the local region instances of the given interest set: all instances of its applications, and the
+     * instances registered with its VIP and secure VIP addresses, taken from the VIP indexes. The cost is
+     * proportional to the number of instances of interest, instead of the size of the whole registry. Remote
+     * region instances are never included.
+     */
+    public Applications getApplicationsOfInterest(InterestSet interestSet) {
+        GET_ALL_CACHE_MISS.increment();
+        Applications apps = new Applications();
+        apps.setVersion(recentlyChangedLog.getVersion());
+        for (String appName : interestSet.getApplicationNames()) {
+            Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+            if (leaseMap != null) {
+                for (Lease<InstanceInfo> lease : leaseMap.values()) {
+                    addLease(apps, lease);
+                }
+            }
+        }
+        for (String vipAddress : interestSet.getVipAddresses()) {
+            addIndexedLeases(apps, vipIndex.get(vipAddress));
+        }
+        for (String secureVipAddress : interestSet.getSecureVipAddresses()) {
+            addIndexedLeases(apps, secureVipIndex.get(secureVipAddress));
+        }
+        apps.setAppsHashCode(apps.getReconcileHashCode());
+        return apps;
+    }
+
+    private void addIndexedLeases(Applications apps, @Nullable Set<Lease<InstanceInfo>> leases) {
+        if (leases == null) {
+            return;
+        }
+        for (Lease<InstanceInfo> lease : leases) {
+            InstanceInfo info = lease.getHolder();
+            // An index update may race with a concurrent registration of the same instance,
+            // so only the leases still present in the registry are taken
+            Map<String, Lease<InstanceInfo>> leaseMap = registry.get(info.getAppName());
+            if (leaseMap == null || leaseMap.get(info.getId()) != lease) {
+                leases.remove(lease);
+                continue;
+            }
+            addLease(apps, lease);
+        }
+    }
+
+    /**
+     * Adds the lease instance, unless already added as selected by another VIP address or the application name.
+     */
+    private void addLease(Applications apps, Lease<InstanceInfo> lease) {
+        InstanceInfo info = lease.getHolder();
+        Application app = apps.getRegisteredApplications(info.getAppName());
+        if (app == null) {
+            app = new Application(info.getAppName());
+            apps.addApplication(app);
+        } else if (app.getByInstanceId(info.getId()) != null) {
+            return;
+        }
+        app.addInstance(decorateInstanceInfo(lease));
+    }
+
+    private void addToVipIndexes(Lease<InstanceInfo> lease) {
+        InstanceInfo info = lease.getHolder();
+        if (info != null) {
+            updateVipIndex(vipIndex, info.getVIPAddress(), lease, true);
+            updateVipIndex(secureVipIndex, info.getSecureVipAddress(), lease, true);
+        }
+    }
+
+    private void removeFromVipIndexes(Lease<InstanceInfo> lease) {
+        InstanceInfo info = lease.getHolder();
+        if (info != null) {
+            updateVipIndex(vipIndex, info.getVIPAddress(), lease, false);
+            updateVipIndex(secureVipIndex, info.getSecureVipAddress(), lease, false);
+        }
+    }
+
+    private static void updateVipIndex(ConcurrentMap<String, Set<Lease<InstanceInfo>>> index,
+                                       String vipAddresses, Lease<InstanceInfo> lease, boolean add) {
+        if (vipAddresses == null) {
+            return;
+        }
+        for (String vipAddress : vipAddresses.split(",")) {
+            if (add) {
+                addToVipIndex(index, vipAddress, lease);
+            } else {
+                removeFromVipIndex(index, vipAddress, lease);
+            }
+        }
+    }
+
+    private static void addToVipIndex(ConcurrentMap<String, Set<Lease<InstanceInfo>>> index,
+                                      String vipAddress, Lease<InstanceInfo> lease) {
+        // The lease set of a VIP address is dropped once empty, so retry if it was dropped before the lease was seen
+        while (true) {
+            Set<Lease<InstanceInfo>> leases = index.get(vipAddress);
+            if (leases == null) {
+                Set<Lease<InstanceInfo>> newLeases =
+                        Collections.newSetFromMap(new ConcurrentHashMap<Lease<InstanceInfo>, Boolean>());
+                leases = index.putIfAbsent(vipAddress, newLeases);
+                if (leases == null) {
+                    leases = newLeases;
+                }
+            }
+            leases.add(lease);
+            if (index.get(vipAddress) == leases) {
+                return;
+            }
+        }
+    }
+
+    private static void removeFromVipIndex(ConcurrentMap<String, Set<Lease<InstanceInfo>>> index,
+                                           String vipAddress, Lease<InstanceInfo> lease) {
+        Set<Lease<InstanceInfo>> leases = index.get(vipAddress);
+        if (leases == null) {
+            return;
+        }
+        leases.remove(lease);
+        if (leases.isEmpty() && index.remove(vipAddress, leases)) {
+            // A lease added after the emptiness check may have missed the removal, so it is moved to a new set
+            for (Lease<InstanceInfo> addedLease : leases) {
+                addToVipIndex(index, vipAddress, addedLease);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int getVipIndexSize() {
+        return vipIndex.size() + secureVipIndex.size();
+    }
+
     private InstanceInfo decorateInstanceInfo(Lease<InstanceInfo> lease) {
         InstanceInfo info = lease.getHolder();
 
@@ -1173,10 +1524,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public List<Pair<Long, String>> getLastNRegisteredInstances() {
         List<Pair<Long, String>> list = new ArrayList<Pair<Long, String>>();
 
-        synchronized (recentRegisteredQueue) {
-            for (Pair<Long, String> aRecentRegisteredQueue : recentRegisteredQueue) {
-                list.add(aRecentRegisteredQueue);
-            }
+        for (Pair<Long, String> aRecentRegisteredQueue : recentRegisteredQueue) {
+            list.add(aRecentRegisteredQueue);
         }
         Collections.reverse(list);
         return list;
@@ -1190,10 +1539,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     @Override
     public List<Pair<Long, String>> getLastNCanceledInstances() {
         List<Pair<Long, String>> list = new ArrayList<Pair<Long, String>>();
-        synchronized (recentCanceledQueue) {
-            for (Pair<Long, String> aRecentCanceledQueue : recentCanceledQueue) {
-                list.add(aRecentCanceledQueue);
-            }
+        for (Pair<Long, String> aRecentCanceledQueue : recentCanceledQueue) {
+            list.add(aRecentCanceledQueue);
         }
         Collections.reverse(list);
         return list;
@@ -1204,24 +1551,6 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         responseCache.invalidate(appName, vipAddress, secureVipAddress);
     }
 
-    private static final class RecentlyChangedItem {
-        private long lastUpdateTime;
-        private Lease<InstanceInfo> leaseInfo;
-
-        public RecentlyChangedItem(Lease<InstanceInfo> lease) {
-            this.leaseInfo = lease;
-            lastUpdateTime = System.currentTimeMillis();
-        }
-
-        public long getLastUpdateTime() {
-            return this.lastUpdateTime;
-        }
-
-        public Lease<InstanceInfo> getLeaseInfo() {
-            return this.leaseInfo;
-        }
-    }
-
     protected void postInit() {
         renewsLastMin = new MeasuredRate(1000 * 60 * 1);
         if (evictionTaskRef.get() != null) {
@@ -1291,29 +1620,34 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
     }
 
+    /**
+     * Bounded queue, which drops the oldest element when full. The number of elements is tracked separately,
+     * as {@link ConcurrentLinkedQueue#size()} walks the whole queue, so adding does not need external locking.
+     */
     private class CircularQueue<E> extends ConcurrentLinkedQueue<E> {
-        private int size = 0;
+        private final int size;
+        private final AtomicInteger count = new AtomicInteger();
 
         public CircularQueue(int size) {
             this.size = size;
         }
 
         @Override
-        public boolean add(E e) {
-            this.makeSpaceIfNotAvailable();
-            return super.add(e);
-
-        }
-
-        private void makeSpaceIfNotAvailable() {
-            if (this.size() == size) {
-                this.remove();
+        public boolean offer(E e) {
+            super.offer(e);
+            if (count.incrementAndGet() > size) {
+                this.poll();
             }
+            return true;
         }
 
-        public boolean offer(E e) {
-            this.makeSpaceIfNotAvailable();
-            return super.offer(e);
+        @Override
+        public E poll() {
+            E e = super.poll();
+            if (e != null) {
+                count.decrementAndGet();
+            }
+            return e;
         }
     }
 
@@ -1327,17 +1661,16 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
             @Override
             public void run() {
-                Iterator<RecentlyChangedItem> it = recentlyChangedQueue.iterator();
-                while (it.hasNext()) {
-                    if (it.next().getLastUpdateTime() <
-                            System.currentTimeMillis() - serverConfig.getRetentionTimeInMSInDeltaQueue()) {
-                        it.remove();
-                    } else {
-                        break;
-                    }
-                }
+                truncateChangeLog();
             }
 
         };
     }
+
+    /**
+     * Drops the changes older than {@link EurekaServerConfig#getRetentionTimeInMSInDeltaQueue()} from the change log.
+     */
+    void truncateChangeLog() {
+        recentlyChangedLog.truncate(System.currentTimeMillis() - serverConfig.getRetentionTimeInMSInDeltaQueue());
+    }
 }
@@ -0,0 +1,274 @@
+package com.netflix.eureka.registry;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.monitor.Stopwatch;
+import com.netflix.servo.monitor.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of encoded application fragments, used to assemble the full registry payload from per application
+ * pieces, so only the applications that changed since the last build are encoded again.
+ *
+ * <p>
+ * The cache does not depend on a particular codec. The layout of an encoded {@link Applications} object is
+ * learned by encoding it with two probe applications, which are located in the output by their unique names.
+ * The fragment of an application runs from the start of its name to the start of the next application name,
+ * and is obtained by encoding the application between the two probes. The layout is verified against the codec
+ * output when it is first learned, and each fragment is checked when it is extracted. If either check fails,
+ * or the registry holds less than two applications (some codecs unwrap single element arrays), the caller
+ * falls back to encoding the whole registry.
+ * </p>
+ *
+ * <p>
+ * Fragments are tagged with the invalidation generation observed before the registry snapshot they were encoded
+ * from, and are ignored once their application has been invalidated after that point. Like the full registry
+ * payloads, fragments also expire after {@link com.netflix.eureka.EurekaServerConfig#getResponseCacheAutoExpirationInSeconds()},
+ * as some instance data (for example lease renewal timestamps) changes without an invalidation.
+ * </p>
+ */
+class ApplicationFragmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationFragmentCache.class);
+
+    private static final String FIRST_PROBE_NAME = "EUREKA-FRAGMENT-PROBE-FIRST";
+    private static final String LAST_PROBE_NAME = "EUREKA-FRAGMENT-PROBE-LAST";
+    private static final String PROBE_APPS_HASH_CODE = "PROBE_0_";
+
+    private static final Layout UNSUPPORTED = new Layout(null, null, null, null);
+
+    private final Timer serializeFragmentTimer = Monitors.newTimer("serialize-app-fragment");
+
+    private final AtomicLong generationCounter = new AtomicLong();
+    private final ConcurrentMap<String, Long> appGenerations = new ConcurrentHashMap<String, Long>();
+    private final ConcurrentMap<Key, Layout> layouts = new ConcurrentHashMap<Key, Layout>();
+    private final Cache<Key, Fragment> fragments;
+
+    ApplicationFragmentCache(long expirationInSeconds) {
+        this.fragments = CacheBuilder.newBuilder()
+                .initialCapacity(1000)
+                .expireAfterWrite(expirationInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        try {
+            Monitors.registerObject(this);
+        } catch (Throwable e) {
+            logger.warn("Cannot register the JMX monitor for the application fragment cache", e);
+        }
+    }
+
+    /**
+     * Returns the current invalidation generation. It must be read before taking the registry snapshot passed
+     * to {@link #encode(Key, EncoderWrapper, Applications, long)}.
+     */
+    long getGeneration() {
+        return generationCounter.get();
+    }
+
+    void invalidate(String appName) {
+        appGenerations.put(appName, generationCounter.incrementAndGet());
+    }
+
+    int getTrackedApplicationCount() {
+        return appGenerations.size();
+    }
+
+    /**
+     * Encodes the given applications, reusing the cached fragments of applications that were not invalidated
+     * since they were encoded.
+     *
+     * @param key the full registry cache key, which determines the codec and its settings
+     * @param generation the generation returned by {@link #getGeneration()} before the snapshot was taken
+     * @return the encoded payload, or <code>null</code> if it cannot be assembled from fragments
+     */
+    String encode(Key key, EncoderWrapper encoder, Applications apps, long generation) throws IOException {
+        List<Application> registeredApps = apps.getRegisteredApplications();
+        pruneGenerations(registeredApps, generation);
+        if (registeredApps.size() < 2) {
+            return null;
+        }
+        Layout layout = getLayout(key, encoder);
+        if (layout == UNSUPPORTED) {
+            return null;
+        }
+
+        // The header carries the registry version and hash code, so it is taken from the probes encoded with them
+        String probes = encoder.encode(probeApplications(apps.getVersion(), apps.getAppsHashCode()));
+        StringBuilder sb = new StringBuilder();
+        sb.append(probes, 0, probes.indexOf(FIRST_PROBE_NAME));
+        for (int i = 0; i < registeredApps.size(); i++) {
+            String fragment = getFragment(key, encoder, layout, registeredApps.get(i), generation);
+            if (fragment == null) {
+                return null;
+            }
+            if (i < registeredApps.size() - 1) {
+                sb.append(fragment);
+            } else {
+                sb.append(fragment, 0, fragment.length() - layout.separator.length()).append(layout.trailer);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Drops the invalidation generations of the applications that are no longer registered, so applications
+     * that come and go do not accumulate. Only the generations recorded before the snapshot are dropped, as a later
+     * one may belong to an application registered again after the snapshot. An application registered again is
+     * invalidated, so its stale fragments are not reused.
+     */
+    private void pruneGenerations(List<Application> registeredApps, long generation) {
+        if (appGenerations.isEmpty()) {
+            return;
+        }
+        Set<String> registeredNames = new HashSet<String>(registeredApps.size() * 2);
+        for (Application app : registeredApps) {
+            registeredNames.add(app.getName());
+        }
+        for (Map.Entry<String, Long> entry : appGenerations.entrySet()) {
+            if (entry.getValue() <= generation && !registeredNames.contains(entry.getKey())) {
+                appGenerations.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private String getFragment(Key key, EncoderWrapper encoder, Layout layout, Application app, long generation)
+            throws IOException {
+        Key fragmentKey = new Key(Key.EntityType.Application, app.getName(), key.getType(), key.getVersion(), key.getEurekaAccept());
+        Fragment fragment = fragments.getIfPresent(fragmentKey);
+        Long appGeneration = appGenerations.get(app.getName());
+        if (fragment != null && (appGeneration == null || appGeneration <= fragment.generation)) {
+            return fragment.payload;
+        }
+
+        String payload;
+        Stopwatch tracer = serializeFragmentTimer.start();
+        try {
+            payload = layout.extract(encoder.encode(probeApplications(1L, PROBE_APPS_HASH_CODE, app)));
+        } finally {
+            tracer.stop();
+        }
+        if (payload == null) {
+            logger.warn("Cannot extract the encoded fragment of application {}", app.getName());
+            return null;
+        }
+        fragments.put(fragmentKey, new Fragment(payload, generation));
+        return payload;
+    }
+
+    private Layout getLayout(Key key, EncoderWrapper encoder) throws IOException {
+        Layout layout = layouts.get(key);
+        if (layout == null) {
+            layout = learnLayout(encoder);
+            if (layout == UNSUPPORTED) {
+                logger.warn("Encoder {} output cannot be assembled from application fragments", encoder.codecName());
+            }
+            layouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    private static Layout learnLayout(EncoderWrapper encoder) throws IOException {
+        String twoProbes = encoder.encode(probeApplications(1L, PROBE_APPS_HASH_CODE));
+        int firstIdx = twoProbes.indexOf(FIRST_PROBE_NAME);
+        int lastIdx = twoProbes.indexOf(LAST_PROBE_NAME);
+        if (firstIdx < 0 || lastIdx <= firstIdx
+                || twoProbes.lastIndexOf(FIRST_PROBE_NAME) != firstIdx || twoProbes.lastIndexOf(LAST_PROBE_NAME) != lastIdx) {
+            return UNSUPPORTED;
+        }
+        String lead = twoProbes.substring(0, lastIdx);
+        String tail = twoProbes.substring(lastIdx);
+
+        // The fragment of the last probe ends with the separator between applications, while the tail ends
+        // with the end of the payload. Whatever follows their common prefix is the separator and the trailer.
+        Layout partial = new Layout(lead, tail, "", "");
+        String lastProbeFragment = partial.extract(encoder.encode(probeApplications(1L, PROBE_APPS_HASH_CODE, new Application(LAST_PROBE_NAME))));
+        if (lastProbeFragment == null) {
+            return UNSUPPORTED;
+        }
+        int common = 0;
+        while (common < lastProbeFragment.length() && common < tail.length()
+                && lastProbeFragment.charAt(common) == tail.charAt(common)) {
+            common++;
+        }
+        Layout layout = new Layout(lead, tail, lastProbeFragment.substring(common), tail.substring(common));
+
+        // Verify the layout by assembling a payload with the probes in a different order
+        String firstProbeFragment = twoProbes.substring(firstIdx, lastIdx);
+        Applications verification = new Applications();
+        verification.setVersion(1L);
+        verification.setAppsHashCode(PROBE_APPS_HASH_CODE);
+        verification.addApplication(new Application(LAST_PROBE_NAME));
+        verification.addApplication(new Application(FIRST_PROBE_NAME));
+        String expected = encoder.encode(verification);
+        String assembled = twoProbes.substring(0, firstIdx) + lastProbeFragment
+                + firstProbeFragment.substring(0, firstProbeFragment.length() - layout.separator.length()) + layout.trailer;
+        if (!firstProbeFragment.endsWith(layout.separator) || !assembled.equals(expected)) {
+            return UNSUPPORTED;
+        }
+        return layout;
+    }
+
+    private static Applications probeApplications(Long version, String appsHashCode, Application... apps) {
+        Applications probes = new Applications();
+        probes.setVersion(version);
+        probes.setAppsHashCode(appsHashCode);
+        probes.addApplication(new Application(FIRST_PROBE_NAME));
+        for (Application app : apps) {
+            probes.addApplication(app);
+        }
+        probes.addApplication(new Application(LAST_PROBE_NAME));
+        return probes;
+    }
+
+    /**
+     * Encoded payload layout. The payload of the first probe, an application, and the last probe consists of
+     * the lead (which ends with the first probe fragment), the application fragment (which ends with the separator),
+     * and the tail (the last probe, without the separator, and the trailer).
+     */
+    private static class Layout {
+        private final String lead;
+        private final String tail;
+        private final String separator;
+        private final String trailer;
+
+        Layout(String lead, String tail, String separator, String trailer) {
+            this.lead = lead;
+            this.tail = tail;
+            this.separator = separator;
+            this.trailer = trailer;
+        }
+
+        String extract(String probed) {
+            if (probed.length() < lead.length() + tail.length() || !probed.startsWith(lead) || !probed.endsWith(tail)) {
+                return null;
+            }
+            String fragment = probed.substring(lead.length(), probed.length() - tail.length());
+            return fragment.endsWith(separator) ? fragment : null;
+        }
+    }
+
+    private static class Fragment {
+        private final String payload;
+        private final long generation;
+
+        Fragment(String payload, long generation) {
+            this.payload = payload;
+            this.generation = generation;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.netflix.eureka.registry;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.eureka.Version;
 
 import javax.annotation.Nullable;
@@ -9,7 +10,7 @@ import java.util.Arrays;
 public class Key {
 
     public enum KeyType {
-        JSON, XML
+        JSON, XML, BINARY
     }
 
     /**
@@ -26,20 +27,31 @@ public class Key {
     private final String hashKey;
     private final EntityType entityType;
     private final EurekaAccept eurekaAccept;
+    private final InterestSet interestSet;
 
     public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept) {
         this(entityType, entityName, type, v, eurekaAccept, null);
     }
 
     public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept, @Nullable String[] regions) {
+        this(entityType, entityName, type, v, eurekaAccept, regions, null);
+    }
+
+    /**
+     * @param interestSet if not null and not empty, the payload is restricted to the instances of this interest set
+     */
+    public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept,
+               @Nullable String[] regions, @Nullable InterestSet interestSet) {
         this.regions = regions;
+        this.interestSet = null != interestSet && !interestSet.isEmpty() ? interestSet : null;
         this.entityType = entityType;
         this.entityName = entityName;
         this.requestType = type;
         this.requestVersion = v;
         this.eurekaAccept = eurekaAccept;
         hashKey = this.entityType + this.entityName + (null != this.regions ? Arrays.toString(this.regions) : "")
-                + requestType.name() + requestVersion.name() + this.eurekaAccept.name();
+                + requestType.name() + requestVersion.name() + this.eurekaAccept.name()
+                + (null != this.interestSet ? "[" + this.interestSet + "]" : "");
     }
 
     public String getName() {
@@ -74,7 +86,23 @@ public class Key {
         return regions;
     }
 
+    public boolean hasInterestSet() {
+        return null != interestSet;
+    }
+
+    @Nullable
+    public InterestSet getInterestSet() {
+        return interestSet;
+    }
+
     public Key cloneWithoutRegions() {
+        return new Key(entityType, entityName, requestType, requestVersion, eurekaAccept, null, interestSet);
+    }
+
+    /**
+     * @return the key of the same entity, without the remote regions and the interest set
+     */
+    public Key cloneWithoutRegionsAndInterestSet() {
         return new Key(entityType, entityName, requestType, requestVersion, eurekaAccept);
     }
 
@@ -99,6 +127,9 @@ public class Key {
         if(regions != null) {
             sb.append(", regions=").append(Arrays.toString(regions));
         }
+        if (interestSet != null) {
+            sb.append(", interest=").append(interestSet);
+        }
         sb.append('}');
         return sb.toString();
     }
@@ -22,6 +22,7 @@ import com.netflix.eureka.cluster.PeerEurekaNodes;
 import com.netflix.eureka.resources.ASGResource;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Tomasz Bak
@@ -51,5 +52,20 @@ public interface PeerAwareInstanceRegistry extends InstanceRegistry {
 
      void register(InstanceInfo info, boolean isReplication);
 
+    /**
+     * Renews the lease of the given instance, as {@link #renew(String, String, boolean)} does, and returns the
+     * instance held by the renewed lease, so the caller does not need another registry lookup.
+     *
+     * @return the registered instance, or null if there is no lease to renew
+     */
+    InstanceInfo renewAndGetInstance(String appName, String id, boolean isReplication);
+
+    /**
+     * @return the pool applying the applications of a replication batch in parallel, or null if the
+     * {@code peerReplication.bulkApply.parallelism} experimental property is 1 or less. It is shut down
+     * with the registry.
+     */
+    ExecutorService getBulkApplyExecutor();
+
      void statusUpdate(final String asgName, final ASGResource.ASGStatus newStatus, final boolean isReplication);
 }
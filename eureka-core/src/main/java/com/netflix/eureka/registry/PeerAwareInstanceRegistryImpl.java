@@ -23,7 +23,12 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.AmazonInfo;
 import com.netflix.appinfo.AmazonInfo.MetaDataKey;
 import com.netflix.appinfo.ApplicationInfoManager;
@@ -44,11 +49,11 @@ import com.netflix.eureka.cluster.PeerEurekaNodes;
 import com.netflix.eureka.lease.Lease;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
 import com.netflix.eureka.resources.ServerCodecs;
+import com.netflix.eureka.util.ExperimentalProperties;
 import com.netflix.eureka.util.MeasuredRate;
 import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.monitor.Monitors;
-import com.netflix.servo.monitor.Stopwatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -119,6 +124,8 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
     private Timer timer = new Timer(
             "ReplicaAwareInstanceRegistry - RenewalThresholdUpdater", true);
 
+    private final ExecutorService bulkApplyExecutor;
+
     @Inject
     public PeerAwareInstanceRegistryImpl(
             EurekaServerConfig serverConfig,
@@ -130,6 +137,25 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
         this.clientConfig = clientConfig;
         this.serverCodecs = serverCodecs;
         this.eurekaClient = eurekaClient;
+        this.bulkApplyExecutor = newBulkApplyExecutor(
+                ExperimentalProperties.getInt(serverConfig, "peerReplication.bulkApply.parallelism", 1));
+    }
+
+    private static ExecutorService newBulkApplyExecutor(int parallelism) {
+        if (parallelism <= 1) {
+            return null;
+        }
+        // No queue; an application that finds no idle worker is applied by the request thread
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("Eureka-PeerReplicationBulkApply-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
@@ -161,6 +187,9 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
         } catch (Throwable t) {
             logger.error("Cannot shutdown ReplicaAwareInstanceRegistry", t);
         }
+        if (bulkApplyExecutor != null) {
+            bulkApplyExecutor.shutdown();
+        }
         super.shutdown();
     }
 
@@ -402,11 +431,24 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
      * java.lang.String, long, boolean)
      */
     public boolean renew(final String appName, final String id, final boolean isReplication) {
-        if (super.renew(appName, id, isReplication)) {
-            replicateToPeers(Action.Heartbeat, appName, id, null, null, isReplication);
-            return true;
+        return renewAndGetInstance(appName, id, isReplication) != null;
+    }
+
+    @Override
+    public InstanceInfo renewAndGetInstance(String appName, String id, boolean isReplication) {
+        Lease<InstanceInfo> lease = renewLease(appName, id, isReplication);
+        if (lease == null) {
+            return null;
         }
-        return false;
+        InstanceInfo info = lease.getHolder();
+        // The renewed lease is not expired, so its holder is what a registry lookup would return
+        replicateToPeers(Action.Heartbeat, appName, id, info, null, isReplication);
+        return info;
+    }
+
+    @Override
+    public ExecutorService getBulkApplyExecutor() {
+        return bulkApplyExecutor;
     }
 
     /*
@@ -602,7 +644,8 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
     private void replicateToPeers(Action action, String appName, String id,
                                   InstanceInfo info /* optional */,
                                   InstanceStatus newStatus /* optional */, boolean isReplication) {
-        Stopwatch tracer = action.getTimer().start();
+        // Timed without a Stopwatch, as this runs for every heartbeat
+        long startTime = System.nanoTime();
         try {
             if (isReplication) {
                 numberOfReplicationsLastMin.increment();
@@ -612,15 +655,21 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                 return;
             }
 
-            for (final PeerEurekaNode node : peerEurekaNodes.getPeerEurekaNodes()) {
+            List<PeerEurekaNode> nodes = peerEurekaNodes.getPeerEurekaNodes();
+            if (nodes.isEmpty()) {
+                return;
+            }
+            InstanceStatus overriddenStatus = action == Action.Heartbeat ? overriddenInstanceStatusMap.get(id) : null;
+            for (int i = 0; i < nodes.size(); i++) {
+                PeerEurekaNode node = nodes.get(i);
                 // If the url represents this host, do not replicate to yourself.
-                if (peerEurekaNodes.isThisMe(node.getServiceUrl())) {
+                if (PeerEurekaNodes.isThisMe(node)) {
                     continue;
                 }
-                replicateInstanceActionsToPeers(action, appName, id, info, newStatus, node);
+                replicateInstanceActionsToPeers(action, appName, id, info, newStatus, overriddenStatus, node);
             }
         } finally {
-            tracer.stop();
+            action.getTimer().record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -631,7 +680,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
      */
     private void replicateInstanceActionsToPeers(Action action, String appName,
                                                  String id, InstanceInfo info, InstanceStatus newStatus,
-                                                 PeerEurekaNode node) {
+                                                 InstanceStatus overriddenStatus, PeerEurekaNode node) {
         try {
             InstanceInfo infoFromRegistry = null;
             CurrentRequestVersion.set(Version.V2);
@@ -640,9 +689,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                     node.cancel(appName, id);
                     break;
                 case Heartbeat:
-                    InstanceStatus overriddenStatus = overriddenInstanceStatusMap.get(id);
-                    infoFromRegistry = getInstanceByAppAndId(appName, id, false);
-                    node.heartbeat(appName, id, infoFromRegistry, overriddenStatus, false);
+                    node.heartbeat(appName, id, info, overriddenStatus, false);
                     break;
                 case Register:
                     node.register(info);
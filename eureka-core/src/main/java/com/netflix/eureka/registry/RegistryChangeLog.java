@@ -0,0 +1,279 @@
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * Append-only log of registry changes (registrations, cancellations and status updates), used to build
+ * delta payloads.
+ *
+ * <p>
+ * Each change is assigned a monotonically increasing version number, which doubles as the registry version.
+ * The changes are kept in a ring buffer indexed by version, so a reader can collect all changes after a given
+ * version without taking any lock, and without walking anything but the requested range.
+ * </p>
+ *
+ * <p>
+ * Appends do not lock either. A writer reserves the next version number, stores its change in the slot of that
+ * version, and then advances the published version (returned by {@link #getVersion()}) over all consecutive
+ * slots that are already filled. So the published version only moves over complete ranges of changes, and a
+ * writer never waits for a slower writer of a lower version, which publishes both changes once it is done.
+ * Head truncation and growing of the buffer (when the retention window holds more changes than its current
+ * capacity) are rare, and are serialized on the log monitor. A writer that stored its change in a buffer which
+ * was replaced meanwhile stores it again in the new one, before publishing it.
+ * </p>
+ *
+ * <p>
+ * Readers take a snapshot of the published version first and the buffer second. As entries are immutable,
+ * a reader either sees the entry for a given version, or an entry with a different version (or no entry)
+ * if the slot was truncated/reused in the meantime.
+ * </p>
+ */
+public class RegistryChangeLog {
+
+    static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private volatile AtomicReferenceArray<Change> changes;
+
+    /**
+     * Version of the oldest retained change. If the log is empty, it is equal to {@code tailVersion + 1}.
+     */
+    private volatile long headVersion;
+
+    /**
+     * Version of the most recent published change, or the initial version if nothing was ever appended.
+     * All changes up to this version are stored in the buffer.
+     */
+    private final AtomicLong tailVersion;
+
+    /**
+     * Most recently reserved version. Changes between the tail and this version are still being appended.
+     */
+    private final AtomicLong reservedVersion;
+
+    public RegistryChangeLog() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public RegistryChangeLog(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * @param initialVersion version the log starts from; the first appended change gets {@code initialVersion + 1}
+     */
+    public RegistryChangeLog(int initialCapacity, long initialVersion) {
+        int capacity = Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1;
+        this.changes = new AtomicReferenceArray<Change>(capacity);
+        this.headVersion = initialVersion + 1;
+        this.tailVersion = new AtomicLong(initialVersion);
+        this.reservedVersion = new AtomicLong(initialVersion);
+    }
+
+    /**
+     * Appends a change for the given lease. When this method returns, the change is visible to readers,
+     * unless an append of a lower version is still in progress (which then publishes both).
+     *
+     * @return version number assigned to this change
+     */
+    public long append(Lease<InstanceInfo> lease) {
+        long version = reservedVersion.incrementAndGet();
+        Change change = new Change(version, System.currentTimeMillis(), lease);
+        AtomicReferenceArray<Change> current = changes;
+        if (version - headVersion >= current.length()) {
+            current = grow(version);
+        }
+        while (true) {
+            current.set(indexOf(version, current.length()), change);
+            AtomicReferenceArray<Change> latest = changes;
+            if (latest == current) {
+                break;
+            }
+            current = latest;
+        }
+        publish();
+        return version;
+    }
+
+    /**
+     * Advances the published version over all consecutive changes that are stored in the buffer.
+     */
+    private void publish() {
+        while (true) {
+            long tail = tailVersion.get();
+            AtomicReferenceArray<Change> current = changes;
+            Change next = current.get(indexOf(tail + 1, current.length()));
+            if (next == null || next.getVersion() != tail + 1) {
+                return;
+            }
+            tailVersion.compareAndSet(tail, tail + 1);
+        }
+    }
+
+    /**
+     * Removes all changes that are older than the given timestamp. As changes are appended in time order,
+     * this stops at the first retained change.
+     *
+     * @return number of changes removed
+     */
+    public synchronized int truncate(long olderThanTimestamp) {
+        AtomicReferenceArray<Change> current = changes;
+        int removed = 0;
+        long version = headVersion;
+        long tail = tailVersion.get();
+        while (version <= tail) {
+            int idx = indexOf(version, current.length());
+            Change change = current.get(idx);
+            if (change != null && change.getTimestamp() >= olderThanTimestamp) {
+                break;
+            }
+            current.set(idx, null);
+            version++;
+            removed++;
+        }
+        headVersion = version;
+        return removed;
+    }
+
+    /**
+     * Removes all changes. The version counter is not reset, so versions keep increasing monotonically.
+     */
+    public synchronized void clear() {
+        truncate(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return version of the most recent change (the current registry version)
+     */
+    public long getVersion() {
+        return tailVersion.get();
+    }
+
+    /**
+     * @return version of the oldest change still retained in the log
+     */
+    public long getOldestVersion() {
+        return headVersion;
+    }
+
+    public int size() {
+        long tail = tailVersion.get();
+        long head = headVersion;
+        return (int) Math.max(0, tail - head + 1);
+    }
+
+    /**
+     * @return all retained changes, ordered by version
+     */
+    public List<Change> getChanges() {
+        long tail = tailVersion.get();
+        return collect(headVersion - 1, tail, changes);
+    }
+
+    /**
+     * Returns all changes made after the given version, up to the current registry version.
+     *
+     * @return changes ordered by version, or null if some of the requested changes are no longer retained, or
+     * the version is ahead of the current registry version (so it was not issued by this log)
+     */
+    public List<Change> getChangesSince(long version) {
+        long tail = tailVersion.get();
+        AtomicReferenceArray<Change> current = changes;
+        if (version > tail) {
+            return null;
+        }
+        if (version == tail) {
+            return Collections.emptyList();
+        }
+        if (version + 1 < headVersion) {
+            return null;
+        }
+        List<Change> result = collect(version, tail, current);
+        // Part of the range might have been truncated while we were reading it.
+        if (version + 1 < headVersion) {
+            return null;
+        }
+        return result;
+    }
+
+    private static List<Change> collect(long fromVersionExclusive, long toVersionInclusive, AtomicReferenceArray<Change> current) {
+        if (fromVersionExclusive >= toVersionInclusive) {
+            return Collections.emptyList();
+        }
+        List<Change> result = new ArrayList<>((int) Math.min(current.length(), toVersionInclusive - fromVersionExclusive));
+        for (long version = fromVersionExclusive + 1; version <= toVersionInclusive; version++) {
+            Change change = current.get(indexOf(version, current.length()));
+            if (change != null && change.getVersion() == version) {
+                result.add(change);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grows the buffer until it can hold the given version. A writer that stores its change in the old buffer
+     * either observes the new buffer afterwards (and stores it again), or has stored it before the new buffer
+     * was installed, so the change is found by the second copy pass.
+     */
+    private synchronized AtomicReferenceArray<Change> grow(long version) {
+        AtomicReferenceArray<Change> current = changes;
+        while (version - headVersion >= current.length()) {
+            AtomicReferenceArray<Change> newChanges = new AtomicReferenceArray<Change>(current.length() << 1);
+            copy(current, newChanges);
+            changes = newChanges;
+            copy(current, newChanges);
+            current = newChanges;
+        }
+        // Changes found only by the second pass might have been missed by their writers when publishing
+        publish();
+        return current;
+    }
+
+    private void copy(AtomicReferenceArray<Change> from, AtomicReferenceArray<Change> to) {
+        long reserved = reservedVersion.get();
+        for (long v = headVersion; v <= reserved; v++) {
+            Change change = from.get(indexOf(v, from.length()));
+            if (change != null && change.getVersion() == v) {
+                to.set(indexOf(v, to.length()), change);
+            }
+        }
+    }
+
+    private static int indexOf(long version, int capacity) {
+        return (int) (version & (capacity - 1));
+    }
+
+    /**
+     * A single registry change. The lease is captured by reference, so delta payloads reflect the current
+     * state of the instance, as they always did.
+     */
+    public static final class Change {
+        private final long version;
+        private final long timestamp;
+        private final Lease<InstanceInfo> lease;
+
+        Change(long version, long timestamp, Lease<InstanceInfo> lease) {
+            this.version = version;
+            this.timestamp = timestamp;
+            this.lease = lease;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Lease<InstanceInfo> getLease() {
+            return lease;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.discovery.EurekaBinaryAcceptFilter;
 import com.netflix.discovery.EurekaIdentityHeaderFilter;
 import com.netflix.discovery.TimedSupervisorTask;
 import com.netflix.discovery.shared.Application;
@@ -131,6 +132,11 @@ public class RemoteRegionRegistry implements LookupService<String> {
         EurekaServerIdentity identity = new EurekaServerIdentity(ip);
         discoveryApacheClient.addFilter(new EurekaIdentityHeaderFilter(identity));
 
+        // ask for binary registry payloads, if the remote region serves them
+        if ("true".equalsIgnoreCase(serverConfig.getExperimental("remoteRegion.codec.binary.enabled"))) {
+            discoveryApacheClient.addFilter(new EurekaBinaryAcceptFilter());
+        }
+
         // Configure new transport layer (candidate for injecting in the future)
         EurekaHttpClient newEurekaHttpClient = null;
         try {
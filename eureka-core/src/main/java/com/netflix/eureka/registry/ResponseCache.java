@@ -1,6 +1,7 @@
 package com.netflix.eureka.registry;
 
 import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -35,4 +36,32 @@ public interface ResponseCache {
      * @return compressed payload which contains information about the applications.
      */
     byte[] getGZIP(Key key);
+
+    /**
+     * Get the cached information about applications as UTF-8 encoded bytes.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @return payload which contains information about the applications. The returned buffer shares its content
+     * with the cache, so it must not be modified.
+     */
+    ByteBuffer getBytes(Key key);
+
+    /**
+     * Get the changes made to the local region registry after the given registry version. As the payload depends
+     * on the version held by the client, it is cached by client version, until the registry changes.
+     *
+     * @param key the key of the delta payload, which determines its format, and the interest set the changes
+     *            are restricted to, if any.
+     * @param registryVersion the registry version last applied by the client.
+     * @return payload which contains the changes, or null if the changes following the given version are
+     * not available, and the client must fall back to the regular delta instead.
+     */
+    String getDeltaSince(Key key, long registryVersion);
+
+    /**
+     * Get the compressed changes made to the local region registry after the given registry version.
+     *
+     * @see #getDeltaSince(Key, long)
+     */
+    byte[] getDeltaSinceGZIP(Key key, long registryVersion);
 }
@@ -19,29 +19,46 @@ package com.netflix.eureka.registry;
 import javax.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.EurekaAccept;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
 import com.netflix.discovery.converters.wrappers.EncoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
@@ -49,6 +66,7 @@ import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.resources.CurrentRequestVersion;
 import com.netflix.eureka.resources.ServerCodecs;
+import com.netflix.eureka.util.ExperimentalProperties;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
@@ -91,11 +109,16 @@ public class ResponseCacheImpl implements ResponseCache {
 
     private final Timer serializeAllAppsTimer = Monitors.newTimer("serialize-all");
     private final Timer serializeDeltaAppsTimer = Monitors.newTimer("serialize-all-delta");
+    private final Timer serializeDeltaSinceTimer = Monitors.newTimer("serialize-delta-since");
+    private final Timer serializeAllAppsOfInterestTimer = Monitors.newTimer("serialize-all_interest");
+    private final Timer serializeDeltaAppsOfInterestTimer = Monitors.newTimer("serialize-all-delta_interest");
     private final Timer serializeAllAppsWithRemoteRegionTimer = Monitors.newTimer("serialize-all_remote_region");
     private final Timer serializeDeltaAppsWithRemoteRegionTimer = Monitors.newTimer("serialize-all-delta_remote_region");
     private final Timer serializeOneApptimer = Monitors.newTimer("serialize-one");
     private final Timer serializeViptimer = Monitors.newTimer("serialize-one-vip");
     private final Timer compressPayloadTimer = Monitors.newTimer("compress-payload");
+    private final Timer rebuildTimer = Monitors.newTimer("response-cache-rebuild");
+    private final Timer stalenessTimer = Monitors.newTimer("response-cache-staleness");
 
     /**
      * This map holds mapping of keys without regions to a list of keys with region (provided by clients)
@@ -103,6 +126,8 @@ public class ResponseCacheImpl implements ResponseCache {
      * requested by clients, we use this mapping to get all the keys with regions to be invalidated.
      * If we do not do this, any cached user requests containing region keys will not be invalidated and will stick
      * around till expiry. Github issue: https://github.com/Netflix/eureka/issues/118
+     * Keys restricted to an interest set are mapped the same way, to the key without interest set, as the
+     * interest sets requested by clients are not known either.
      */
     private final Multimap<Key, Key> regionSpecificKeys =
             Multimaps.newListMultimap(new ConcurrentHashMap<Key, Collection<Key>>(), new Supplier<List<Key>>() {
@@ -115,7 +140,21 @@ public class ResponseCacheImpl implements ResponseCache {
     private final ConcurrentMap<Key, Value> readOnlyCacheMap = new ConcurrentHashMap<Key, Value>();
 
     private final LoadingCache<Key, Value> readWriteCacheMap;
+    /**
+     * The interest sets are chosen by the clients, so the keys restricted to an interest set are held apart, in a
+     * size bounded cache, and never in the read only cache, so a client cannot grow the response cache without limit.
+     */
+    private final LoadingCache<Key, Value> interestCacheMap;
+    /**
+     * The changes since a client version are cached by the registry version they were generated at, so clients
+     * polling at the same version share the encoded and compressed payload until the registry changes.
+     */
+    private final Cache<DeltaSinceKey, Value> deltaSinceCacheMap;
+    private final ApplicationFragmentCache fragmentCache;
+    private final BackgroundRefresher backgroundRefresher;
     private final boolean shouldUseReadOnlyResponseCache;
+    private final boolean shouldStoreBytes;
+    private final boolean shouldStoreDirectBytes;
     private final AbstractInstanceRegistry registry;
     private final EurekaServerConfig serverConfig;
     private final ServerCodecs serverCodecs;
@@ -124,33 +163,69 @@ public class ResponseCacheImpl implements ResponseCache {
         this.serverConfig = serverConfig;
         this.serverCodecs = serverCodecs;
         this.shouldUseReadOnlyResponseCache = serverConfig.shouldUseReadOnlyResponseCache();
+        this.shouldStoreBytes = "true".equalsIgnoreCase(serverConfig.getExperimental("responseCache.bytes.enabled"));
+        this.shouldStoreDirectBytes = shouldStoreBytes
+                && "true".equalsIgnoreCase(serverConfig.getExperimental("responseCache.bytes.direct"));
         this.registry = registry;
 
         long responseCacheUpdateIntervalMs = serverConfig.getResponseCacheUpdateIntervalMs();
+        boolean useFragments = "true".equalsIgnoreCase(serverConfig.getExperimental("responseCache.fragments.enabled"));
+        this.fragmentCache = useFragments
+                ? new ApplicationFragmentCache(serverConfig.getResponseCacheAutoExpirationInSeconds())
+                : null;
+        RemovalListener<Key, Value> removalListener = new RemovalListener<Key, Value>() {
+            @Override
+            public void onRemoval(RemovalNotification<Key, Value> notification) {
+                Key removedKey = notification.getKey();
+                // A background refresh replaces the value, the key itself is still cached
+                if (notification.getCause() == RemovalCause.REPLACED) {
+                    return;
+                }
+                if (removedKey.hasRegions() || removedKey.hasInterestSet()) {
+                    Key cloneWithNoRegions = removedKey.cloneWithoutRegionsAndInterestSet();
+                    regionSpecificKeys.remove(cloneWithNoRegions, removedKey);
+                }
+                if (backgroundRefresher != null) {
+                    backgroundRefresher.forget(removedKey);
+                }
+            }
+        };
+        CacheLoader<Key, Value> cacheLoader = new CacheLoader<Key, Value>() {
+            @Override
+            public Value load(Key key) throws Exception {
+                if (key.hasRegions() || key.hasInterestSet()) {
+                    Key cloneWithNoRegions = key.cloneWithoutRegionsAndInterestSet();
+                    regionSpecificKeys.put(cloneWithNoRegions, key);
+                }
+                Value value = generatePayload(key);
+                return value;
+            }
+        };
         this.readWriteCacheMap =
                 CacheBuilder.newBuilder().initialCapacity(1000)
                         .expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS)
-                        .removalListener(new RemovalListener<Key, Value>() {
-                            @Override
-                            public void onRemoval(RemovalNotification<Key, Value> notification) {
-                                Key removedKey = notification.getKey();
-                                if (removedKey.hasRegions()) {
-                                    Key cloneWithNoRegions = removedKey.cloneWithoutRegions();
-                                    regionSpecificKeys.remove(cloneWithNoRegions, removedKey);
-                                }
-                            }
-                        })
-                        .build(new CacheLoader<Key, Value>() {
-                            @Override
-                            public Value load(Key key) throws Exception {
-                                if (key.hasRegions()) {
-                                    Key cloneWithNoRegions = key.cloneWithoutRegions();
-                                    regionSpecificKeys.put(cloneWithNoRegions, key);
-                                }
-                                Value value = generatePayload(key);
-                                return value;
-                            }
-                        });
+                        .removalListener(removalListener)
+                        .build(cacheLoader);
+        this.interestCacheMap =
+                CacheBuilder.newBuilder()
+                        .maximumSize(ExperimentalProperties.getInt(serverConfig, "responseCache.interest.maxKeys", 1000))
+                        .expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS)
+                        .removalListener(removalListener)
+                        .build(cacheLoader);
+        this.deltaSinceCacheMap =
+                CacheBuilder.newBuilder()
+                        .maximumSize(ExperimentalProperties.getInt(serverConfig, "responseCache.deltaSince.maxKeys", 1000))
+                        .expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS)
+                        .build();
+
+        boolean useBackgroundRefresh = "true".equalsIgnoreCase(serverConfig.getExperimental("responseCache.backgroundRefresh.enabled"));
+        this.backgroundRefresher = useBackgroundRefresh
+                ? new BackgroundRefresher(
+                        ExperimentalProperties.getInt(serverConfig, "responseCache.backgroundRefresh.coalesceWindowMs", 100),
+                        ExperimentalProperties.getInt(serverConfig, "responseCache.backgroundRefresh.threads", 2),
+                        ExperimentalProperties.getInt(serverConfig, "responseCache.backgroundRefresh.readWindowMs",
+                                (int) (2 * responseCacheUpdateIntervalMs)))
+                : null;
 
         if (shouldUseReadOnlyResponseCache) {
             timer.schedule(getCacheUpdateTask(),
@@ -170,6 +245,9 @@ public class ResponseCacheImpl implements ResponseCache {
         return new TimerTask() {
             @Override
             public void run() {
+                if (backgroundRefresher != null) {
+                    backgroundRefresher.refreshPendingKeysAndWait();
+                }
                 logger.debug("Updating the client cache from response cache");
                 for (Key key : readOnlyCacheMap.keySet()) {
                     if (logger.isDebugEnabled()) {
@@ -210,7 +288,7 @@ public class ResponseCacheImpl implements ResponseCache {
     @VisibleForTesting
     String get(final Key key, boolean useReadOnlyCache) {
         Value payload = getValue(key, useReadOnlyCache);
-        if (payload == null || payload.getPayload().equals(EMPTY_PAYLOAD)) {
+        if (payload == null || payload.isEmpty()) {
             return null;
         } else {
             return payload.getPayload();
@@ -234,6 +312,77 @@ public class ResponseCacheImpl implements ResponseCache {
         return payload.getGzipped();
     }
 
+    /**
+     * Get the cached information about applications as UTF-8 encoded bytes. If the cache stores the payloads
+     * as bytes (see {@link Value}), the cached bytes are returned as is, so the payload can
+     * be written out without encoding it again.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @return payload which contains information about the applications.
+     */
+    @Override
+    public ByteBuffer getBytes(Key key) {
+        Value payload = getValue(key, shouldUseReadOnlyResponseCache);
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        return payload.getBytes();
+    }
+
+    /**
+     * Get the changes made to the local region registry after the given registry version. The payload is
+     * cached until the registry changes, as it depends on the version held by the client.
+     *
+     * @param key the key of the delta payload, which determines its format, and the interest set the changes
+     *            are restricted to, if any.
+     * @param registryVersion the registry version last applied by the client.
+     * @return payload which contains the changes, or null if the client must fall back to the regular delta.
+     */
+    @Override
+    public String getDeltaSince(Key key, long registryVersion) {
+        Value payload = getDeltaSinceValue(key, registryVersion);
+        if (payload == null) {
+            return null;
+        }
+        return payload.getPayload();
+    }
+
+    /**
+     * Get the compressed changes made to the local region registry after the given registry version.
+     *
+     * @see #getDeltaSince(Key, long)
+     */
+    @Override
+    public byte[] getDeltaSinceGZIP(Key key, long registryVersion) {
+        Value payload = getDeltaSinceValue(key, registryVersion);
+        if (payload == null) {
+            return null;
+        }
+        return payload.getGzipped();
+    }
+
+    private Value getDeltaSinceValue(Key key, long sinceVersion) {
+        DeltaSinceKey cacheKey = new DeltaSinceKey(key, sinceVersion, registry.getRegistryVersion());
+        Value payload = deltaSinceCacheMap.getIfPresent(cacheKey);
+        if (payload != null) {
+            return payload;
+        }
+        Stopwatch tracer = serializeDeltaSinceTimer.start();
+        try {
+            Applications delta = registry.getApplicationDeltasSince(sinceVersion, key.getInterestSet());
+            if (delta == null) {
+                return null;
+            }
+            payload = new Value(getPayLoad(key, delta), key.getType() == Key.KeyType.BINARY
+                    ? CodecWrappers.EurekaBinary.PAYLOAD_CHARSET
+                    : StandardCharsets.UTF_8);
+            deltaSinceCacheMap.put(cacheKey, payload);
+            return payload;
+        } finally {
+            tracer.stop();
+        }
+    }
+
     /**
      * Invalidate the cache of a particular application.
      *
@@ -241,6 +390,9 @@ public class ResponseCacheImpl implements ResponseCache {
      */
     @Override
     public void invalidate(String appName, @Nullable String vipAddress, @Nullable String secureVipAddress) {
+        if (fragmentCache != null) {
+            fragmentCache.invalidate(appName);
+        }
         for (Key.KeyType type : Key.KeyType.values()) {
             for (Version v : Version.values()) {
                 invalidate(
@@ -271,18 +423,30 @@ public class ResponseCacheImpl implements ResponseCache {
             logger.debug("Invalidating the response cache key : {} {} {} {}, {}",
                     key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
 
-            readWriteCacheMap.invalidate(key);
+            invalidateOrRefresh(key);
             Collection<Key> keysWithRegions = regionSpecificKeys.get(key);
             if (null != keysWithRegions && !keysWithRegions.isEmpty()) {
                 for (Key keysWithRegion : keysWithRegions) {
                     logger.debug("Invalidating the response cache key : {} {} {} {} {}",
                             key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
-                    readWriteCacheMap.invalidate(keysWithRegion);
+                    invalidateOrRefresh(keysWithRegion);
                 }
             }
         }
     }
 
+    /**
+     * If background refresh is enabled, a cached key keeps its current value until it is regenerated in the
+     * background. Otherwise the key is dropped, and regenerated on the next read.
+     */
+    private void invalidateOrRefresh(Key key) {
+        if (key.hasInterestSet()) {
+            interestCacheMap.invalidate(key);
+        } else if (backgroundRefresher == null || !backgroundRefresher.markDirty(key)) {
+            readWriteCacheMap.invalidate(key);
+        }
+    }
+
     /**
      * Gets the version number of the cached data.
      *
@@ -337,6 +501,21 @@ public class ResponseCacheImpl implements ResponseCache {
         return readWriteCacheMap.asMap().size();
     }
 
+    @Monitor(name = "responseCacheInterestSize", type = DataSourceType.GAUGE)
+    public long getInterestSize() {
+        return interestCacheMap.size();
+    }
+
+    @Monitor(name = "responseCacheDeltaSinceSize", type = DataSourceType.GAUGE)
+    public long getDeltaSinceSize() {
+        return deltaSinceCacheMap.size();
+    }
+
+    @Monitor(name = "responseCacheRefreshPendingSize", type = DataSourceType.GAUGE)
+    public int getRefreshPendingSize() {
+        return backgroundRefresher == null ? 0 : backgroundRefresher.getPendingSize();
+    }
+
     /**
      * Get the payload in both compressed and uncompressed form.
      */
@@ -344,6 +523,9 @@ public class ResponseCacheImpl implements ResponseCache {
     Value getValue(final Key key, boolean useReadOnlyCache) {
         Value payload = null;
         try {
+            if (key.hasInterestSet()) {
+                return interestCacheMap.get(key);
+            }
             if (useReadOnlyCache) {
                 final Value currentPayload = readOnlyCacheMap.get(key);
                 if (currentPayload != null) {
@@ -355,6 +537,9 @@ public class ResponseCacheImpl implements ResponseCache {
             } else {
                 payload = readWriteCacheMap.get(key);
             }
+            if (backgroundRefresher != null) {
+                backgroundRefresher.recordRead(key);
+            }
         } catch (Throwable t) {
             logger.error("Cannot get value for key :" + key, t);
         }
@@ -379,6 +564,27 @@ public class ResponseCacheImpl implements ResponseCache {
         return result;
     }
 
+    /**
+     * Generate pay load for all applications, assembled from the cached application fragments if enabled.
+     */
+    private String getAllAppsPayLoad(Key key) {
+        // Binary payloads are encoded with a dictionary shared by all applications, so they have no fragments
+        if (fragmentCache == null || key.getType() == Key.KeyType.BINARY) {
+            return getPayLoad(key, registry.getApplications());
+        }
+        long generation = fragmentCache.getGeneration();
+        Applications apps = registry.getApplications();
+        try {
+            String payload = fragmentCache.encode(key, serverCodecs.getEncoder(key.getType(), key.getEurekaAccept()), apps, generation);
+            if (payload != null) {
+                return payload;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to assemble the payload for all apps from application fragments", e);
+        }
+        return getPayLoad(key, apps);
+    }
+
     /**
      * Generate pay load with both JSON and XML formats for a given application.
      */
@@ -408,15 +614,22 @@ public class ResponseCacheImpl implements ResponseCache {
                     boolean isRemoteRegionRequested = key.hasRegions();
 
                     if (ALL_APPS.equals(key.getName())) {
-                        if (isRemoteRegionRequested) {
+                        if (key.hasInterestSet()) {
+                            tracer = serializeAllAppsOfInterestTimer.start();
+                            payload = getPayLoad(key, registry.getApplicationsOfInterest(key.getInterestSet()));
+                        } else if (isRemoteRegionRequested) {
                             tracer = serializeAllAppsWithRemoteRegionTimer.start();
                             payload = getPayLoad(key, registry.getApplicationsFromMultipleRegions(key.getRegions()));
                         } else {
                             tracer = serializeAllAppsTimer.start();
-                            payload = getPayLoad(key, registry.getApplications());
+                            payload = getAllAppsPayLoad(key);
                         }
                     } else if (ALL_APPS_DELTA.equals(key.getName())) {
-                        if (isRemoteRegionRequested) {
+                        if (key.hasInterestSet()) {
+                            // The delta version is advanced by the full local region delta only
+                            tracer = serializeDeltaAppsOfInterestTimer.start();
+                            payload = getPayLoad(key, registry.getApplicationDeltasOfInterest(key.getInterestSet()));
+                        } else if (isRemoteRegionRequested) {
                             tracer = serializeDeltaAppsWithRemoteRegionTimer.start();
                             versionDeltaWithRegions.incrementAndGet();
                             versionDeltaWithRegionsLegacy.incrementAndGet();
@@ -443,7 +656,9 @@ public class ResponseCacheImpl implements ResponseCache {
                     payload = "";
                     break;
             }
-            return new Value(payload);
+            return new Value(payload, key.getType() == Key.KeyType.BINARY
+                    ? CodecWrappers.EurekaBinary.PAYLOAD_CHARSET
+                    : StandardCharsets.UTF_8);
         } finally {
             if (tracer != null) {
                 tracer.stop();
@@ -451,11 +666,25 @@ public class ResponseCacheImpl implements ResponseCache {
         }
     }
 
+    private ByteBuffer toByteBuffer(byte[] rawBytes) {
+        if (!shouldStoreDirectBytes) {
+            return ByteBuffer.wrap(rawBytes);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(rawBytes.length);
+        buffer.put(rawBytes);
+        buffer.flip();
+        return buffer;
+    }
+
     private static Applications getApplicationsForVip(Key key, AbstractInstanceRegistry registry) {
         Object[] args = {key.getEntityType(), key.getName(), key.getVersion(), key.getType()};
         logger.debug(
                 "Retrieving applications from registry for key : {} {} {} {}",
                 args);
+        Applications indexed = registry.getApplicationsForVip(key.getName(), Key.EntityType.SVIP.equals(key.getEntityType()));
+        if (indexed != null) {
+            return indexed;
+        }
         Applications toReturn = new Applications();
         Applications applications = registry.getApplications();
         for (Application application : applications.getRegisteredApplications()) {
@@ -494,21 +723,38 @@ public class ResponseCacheImpl implements ResponseCache {
     }
 
     /**
-     * The class that stores payload in both compressed and uncompressed form.
+     * The class that stores payload in both compressed and uncompressed form. The uncompressed payload is kept
+     * either as a {@link String}, or, if the cache stores bytes, only as encoded bytes (optionally outside
+     * of the heap, in a direct buffer). In the latter case, the string form is decoded on each
+     * {@link #getPayload()} call. Text payloads are UTF-8 encoded, and binary payloads, carried in strings with one
+     * char per byte, are ISO-8859-1 encoded back to their original bytes.
      *
      */
     public class Value {
         private final String payload;
+        private final ByteBuffer bytes;
+        private final Charset charset;
         private byte[] gzipped;
 
         public Value(String payload) {
-            this.payload = payload;
-            if (!EMPTY_PAYLOAD.equals(payload)) {
+            this(payload, StandardCharsets.UTF_8);
+        }
+
+        public Value(String payload, Charset charset) {
+            this.charset = charset;
+            byte[] rawBytes = EMPTY_PAYLOAD.equals(payload) ? null : payload.getBytes(charset);
+            if (shouldStoreBytes) {
+                this.payload = rawBytes == null ? EMPTY_PAYLOAD : null;
+                this.bytes = rawBytes == null ? null : toByteBuffer(rawBytes);
+            } else {
+                this.payload = payload;
+                this.bytes = null;
+            }
+            if (rawBytes != null) {
                 Stopwatch tracer = compressPayloadTimer.start();
                 try {
                     ByteArrayOutputStream bos = new ByteArrayOutputStream();
                     GZIPOutputStream out = new GZIPOutputStream(bos);
-                    byte[] rawBytes = payload.getBytes();
                     out.write(rawBytes);
                     // Finish creation of gzip file
                     out.finish();
@@ -528,7 +774,29 @@ public class ResponseCacheImpl implements ResponseCache {
         }
 
         public String getPayload() {
-            return payload;
+            if (payload != null) {
+                return payload;
+            }
+            ByteBuffer buffer = bytes.duplicate();
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+            }
+            return charset.decode(buffer).toString();
+        }
+
+        /**
+         * @return encoded payload. The returned buffer shares its content with the cached value, so it
+         * must not be modified.
+         */
+        public ByteBuffer getBytes() {
+            if (bytes != null) {
+                return bytes.duplicate();
+            }
+            return ByteBuffer.wrap(payload.getBytes(charset));
+        }
+
+        public boolean isEmpty() {
+            return bytes == null && EMPTY_PAYLOAD.equals(payload);
         }
 
         public byte[] getGzipped() {
@@ -537,4 +805,176 @@ public class ResponseCacheImpl implements ResponseCache {
 
     }
 
+    /**
+     * Key of a delta since a client version, as generated at a given registry version.
+     */
+    private static final class DeltaSinceKey {
+        private final Key key;
+        private final long sinceVersion;
+        private final long registryVersion;
+
+        DeltaSinceKey(Key key, long sinceVersion, long registryVersion) {
+            this.key = key;
+            this.sinceVersion = sinceVersion;
+            this.registryVersion = registryVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DeltaSinceKey)) {
+                return false;
+            }
+            DeltaSinceKey that = (DeltaSinceKey) o;
+            return sinceVersion == that.sinceVersion && registryVersion == that.registryVersion && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = key.hashCode();
+            result = 31 * result + (int) (sinceVersion ^ (sinceVersion >>> 32));
+            result = 31 * result + (int) (registryVersion ^ (registryVersion >>> 32));
+            return result;
+        }
+    }
+
+    /**
+     * Regenerates the invalidated keys in the background. Only the keys read within the last read window are
+     * regenerated eagerly; the other invalidated keys are dropped, and regenerated on their next read, so rarely
+     * read keys (remote regions, older versions, interest sets) do not add to the rebuild work of a burst of
+     * registry changes. Each pending key is regenerated at most once per refresh round, no matter how many times
+     * it was invalidated. With the read only cache enabled, the refresh rounds run on its update timer, just before
+     * the new values are copied into it, as the clients would not see them earlier anyway. Otherwise the rounds run
+     * every coalescing window. A key that is still being regenerated stays pending until the next round, so an
+     * invalidation that arrives during regeneration is never lost. Until the new value is ready, readers are served
+     * the previous one.
+     */
+    private class BackgroundRefresher {
+        private static final long READ_TIME_GRANULARITY_MS = 1000;
+
+        private final ConcurrentMap<Key, Long> pendingKeys = new ConcurrentHashMap<Key, Long>();
+        private final ConcurrentMap<Key, Long> lastReadTimes = new ConcurrentHashMap<Key, Long>();
+        private final Set<Key> refreshingKeys = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+        private final ScheduledExecutorService scheduler;
+        private final ExecutorService workers;
+        private final long readWindowMs;
+
+        BackgroundRefresher(long coalesceWindowMs, int workerCount, long readWindowMs) {
+            this.readWindowMs = readWindowMs;
+            this.workers = Executors.newFixedThreadPool(workerCount,
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("Eureka-CacheRefreshWorker-%d")
+                            .setDaemon(true)
+                            .build());
+            if (shouldUseReadOnlyResponseCache) {
+                this.scheduler = null;
+                return;
+            }
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("Eureka-CacheRefreshScheduler-%d")
+                            .setDaemon(true)
+                            .build());
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refreshPendingKeys();
+                    } catch (Throwable e) {
+                        logger.error("Cannot schedule the response cache refresh", e);
+                    }
+                }
+            }, coalesceWindowMs, coalesceWindowMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @return false if the key is not cached, or was not read recently, so it is not refreshed eagerly
+         */
+        boolean markDirty(Key key) {
+            if (!readWriteCacheMap.asMap().containsKey(key)) {
+                return false;
+            }
+            Long lastReadTime = lastReadTimes.get(key);
+            if (lastReadTime == null || System.currentTimeMillis() - lastReadTime > readWindowMs) {
+                return false;
+            }
+            pendingKeys.putIfAbsent(key, System.currentTimeMillis());
+            return true;
+        }
+
+        void recordRead(Key key) {
+            long now = System.currentTimeMillis();
+            Long lastReadTime = lastReadTimes.get(key);
+            // Most reads are of the same few keys, so the read time is only updated once in a while
+            if (lastReadTime == null || now - lastReadTime >= READ_TIME_GRANULARITY_MS) {
+                lastReadTimes.put(key, now);
+            }
+        }
+
+        void forget(Key key) {
+            lastReadTimes.remove(key);
+        }
+
+        int getPendingSize() {
+            return pendingKeys.size();
+        }
+
+        void refreshPendingKeysAndWait() {
+            for (Future<?> refresh : refreshPendingKeys()) {
+                try {
+                    refresh.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    logger.error("Cannot refresh the response cache", e);
+                }
+            }
+        }
+
+        private List<Future<?>> refreshPendingKeys() {
+            List<Future<?>> refreshes = new ArrayList<Future<?>>();
+            for (Map.Entry<Key, Long> entry : pendingKeys.entrySet()) {
+                final Key key = entry.getKey();
+                if (!refreshingKeys.add(key)) {
+                    continue;
+                }
+                final Long dirtySince = pendingKeys.remove(key);
+                if (dirtySince == null) {
+                    refreshingKeys.remove(key);
+                    continue;
+                }
+                try {
+                    refreshes.add(workers.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            refresh(key, dirtySince);
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    refreshingKeys.remove(key);
+                    pendingKeys.putIfAbsent(key, dirtySince);
+                }
+            }
+            return refreshes;
+        }
+
+        private void refresh(Key key, long dirtySince) {
+            long startTime = System.currentTimeMillis();
+            try {
+                CurrentRequestVersion.set(key.getVersion());
+                readWriteCacheMap.put(key, generatePayload(key));
+                long endTime = System.currentTimeMillis();
+                rebuildTimer.record(endTime - startTime, TimeUnit.MILLISECONDS);
+                stalenessTimer.record(endTime - dirtySince, TimeUnit.MILLISECONDS);
+            } catch (Throwable e) {
+                logger.error("Cannot refresh the response cache key {}; dropping it", key.toStringCompact(), e);
+                readWriteCacheMap.invalidate(key);
+            } finally {
+                refreshingKeys.remove(key);
+            }
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registry lock striped by application name.
+ *
+ * <p>
+ * Registry mutations take the shared side of the stripe their application maps to, so mutations of different
+ * applications do not touch the same lock state (and mutations of the same application still run concurrently).
+ * Readers that need a snapshot consistent across all applications check {@link #isMutationInProgress()} before
+ * and after reading, and only as a last resort take the exclusive side of all stripes with {@link #lockAll()}.
+ * </p>
+ */
+class StripedRegistryLock {
+
+    static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    StripedRegistryLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes number of stripes, rounded up to the next power of two
+     */
+    StripedRegistryLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(2, stripes) - 1) << 1;
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.mask = size - 1;
+    }
+
+    int getStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the shared lock guarding mutations of the given application
+     */
+    Lock forApplication(String appName) {
+        return stripes[indexOf(appName)].readLock();
+    }
+
+    /**
+     * @return true if a mutation holds one of the stripes
+     */
+    boolean isMutationInProgress() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            if (stripe.getReadLockCount() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blocks all mutations, taking the exclusive side of the stripes in a fixed order.
+     */
+    void lockAll() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+
+    private int indexOf(String appName) {
+        int h = appName == null ? 0 : appName.hashCode();
+        // Spread the higher bits, as application names often share long prefixes
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
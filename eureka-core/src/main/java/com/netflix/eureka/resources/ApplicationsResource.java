@@ -28,10 +28,18 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.registry.AbstractInstanceRegistry;
@@ -52,7 +60,7 @@ import com.netflix.eureka.util.EurekaMonitors;
  *
  */
 @Path("/{version}/apps")
-@Produces({"application/xml", "application/json"})
+@Produces({"application/xml", "application/json", EurekaBinaryCodec.MEDIA_TYPE})
 public class ApplicationsResource {
     private static final String HEADER_ACCEPT = "Accept";
     private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
@@ -64,12 +72,16 @@ public class ApplicationsResource {
     private final EurekaServerConfig serverConfig;
     private final PeerAwareInstanceRegistry registry;
     private final ResponseCache responseCache;
+    private final boolean shouldStreamCachedBytes;
+    private final boolean isBinaryCodecEnabled;
 
     @Inject
     ApplicationsResource(EurekaServerContext eurekaServer) {
         this.serverConfig = eurekaServer.getServerConfig();
         this.registry = eurekaServer.getRegistry();
         this.responseCache = registry.getResponseCache();
+        this.shouldStreamCachedBytes = "true".equalsIgnoreCase(serverConfig.getExperimental("responseCache.bytes.enabled"));
+        this.isBinaryCodecEnabled = "true".equalsIgnoreCase(serverConfig.getExperimental("codec.binary.enabled"));
     }
 
     public ApplicationsResource() {
@@ -98,13 +110,15 @@ public class ApplicationsResource {
      * Get information about all {@link com.netflix.discovery.shared.Applications}.
      *
      * @param version the version of the request.
-     * @param acceptHeader the accept header to indicate whether to serve JSON or XML data.
+     * @param acceptHeader the accept header to indicate whether to serve JSON, XML or, if enabled, binary data.
      * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
      * @param uriInfo the {@link java.net.URI} information of the request made.
      * @param regionsStr A comma separated list of remote regions from which the instances will also be returned.
      *                   The applications returned from the remote region can be limited to the applications
      *                   returned by {@link EurekaServerConfig#getRemoteRegionAppWhitelist(String)}
+     * @param interestStr the {@link InterestSet} the local region instances are restricted to, in its string form.
+     *                    Ignored if remote regions are requested.
      *
      * @return a response containing information about all {@link com.netflix.discovery.shared.Applications}
      *         from the {@link AbstractInstanceRegistry}.
@@ -115,11 +129,23 @@ public class ApplicationsResource {
                                   @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
                                   @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
                                   @Context UriInfo uriInfo,
-                                  @Nullable @QueryParam("regions") String regionsStr) {
+                                  @Nullable @QueryParam("regions") String regionsStr,
+                                  @Nullable @QueryParam("interest") String interestStr) {
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
+        InterestSet interestSet = null;
+        if (!isRemoteRegionRequested && null != interestStr && !interestStr.isEmpty()) {
+            try {
+                interestSet = InterestSet.parse(interestStr);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Status.BAD_REQUEST).build();
+            }
+        }
+
         String[] regions = null;
-        if (!isRemoteRegionRequested) {
+        if (interestSet != null) {
+            EurekaMonitors.GET_ALL_OF_INTEREST.increment();
+        } else if (!isRemoteRegionRequested) {
             EurekaMonitors.GET_ALL.increment();
         } else {
             regions = regionsStr.toLowerCase().split(",");
@@ -136,14 +162,17 @@ public class ApplicationsResource {
         CurrentRequestVersion.set(Version.toEnum(version));
         KeyType keyType = Key.KeyType.JSON;
         String returnMediaType = MediaType.APPLICATION_JSON;
-        if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
+        if (shouldServeBinary(acceptHeader)) {
+            keyType = Key.KeyType.BINARY;
+            returnMediaType = EurekaBinaryCodec.MEDIA_TYPE;
+        } else if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
             keyType = Key.KeyType.XML;
             returnMediaType = MediaType.APPLICATION_XML;
         }
 
         Key cacheKey = new Key(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS,
-                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
+                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions, interestSet
         );
 
         Response response;
@@ -152,8 +181,13 @@ public class ApplicationsResource {
                     .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
                     .header(HEADER_CONTENT_TYPE, returnMediaType)
                     .build();
+        } else if (shouldStreamCachedBytes || keyType == KeyType.BINARY) {
+            response = Response.ok(toStreamingOutput(responseCache.getBytes(cacheKey)))
+                    .header(HEADER_CONTENT_TYPE, returnMediaType)
+                    .build();
         } else {
             response = Response.ok(responseCache.get(cacheKey))
+                    .header(HEADER_CONTENT_TYPE, returnMediaType)
                     .build();
         }
         return response;
@@ -179,11 +213,31 @@ public class ApplicationsResource {
      * are expected to handle this duplicate information.
      * <p>
      *
+     * <p>
+     * A client that provides the registry version it last applied (the version of the last full registry or
+     * delta payload it received) with the <code>since</code> query parameter, gets exactly the local region changes
+     * made after that version instead. If these changes are no longer retained, the version was not issued by
+     * this server, or the full registry also holds the remote regions (which the changes do not cover),
+     * {@link Status#GONE} is returned, and the client is expected to fall back to the regular delta.
+     * As this payload depends on the client version, it is cached by client version until the registry changes.
+     * A malformed version is answered with {@link Status#BAD_REQUEST}.
+     * The <code>since</code> query parameter is ignored if remote regions are requested.
+     * </p>
+     *
+     * <p>
+     * A client holding only the local region instances of an {@link InterestSet} provides it with the
+     * <code>interest</code> query parameter, and gets the changes of these instances only, with the apps hash code
+     * of its interest set. The <code>interest</code> query parameter is ignored if remote regions are requested.
+     * </p>
+     *
      * @param version the version of the request.
-     * @param acceptHeader the accept header to indicate whether to serve  JSON or XML data.
+     * @param acceptHeader the accept header to indicate whether to serve JSON, XML or, if enabled, binary data.
      * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
      * @param uriInfo  the {@link java.net.URI} information of the request made.
+     * @param regionsStr a comma separated list of remote regions to include in the delta.
+     * @param sinceStr the registry version last applied by the client.
+     * @param interestStr the interest set of the client, in its string form.
      * @return response containing the delta information of the
      *         {@link AbstractInstanceRegistry}.
      */
@@ -194,9 +248,13 @@ public class ApplicationsResource {
             @HeaderParam(HEADER_ACCEPT) String acceptHeader,
             @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
             @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
-            @Context UriInfo uriInfo, @Nullable @QueryParam("regions") String regionsStr) {
+            @Context UriInfo uriInfo, @Nullable @QueryParam("regions") String regionsStr,
+            @Nullable @QueryParam("since") String sinceStr,
+            @Nullable @QueryParam("interest") String interestStr) {
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
+        boolean isSinceVersionRequested = !isRemoteRegionRequested && null != sinceStr && !sinceStr.isEmpty();
+        boolean isInterestSetRequested = !isRemoteRegionRequested && null != interestStr && !interestStr.isEmpty();
 
         // If the delta flag is disabled in discovery or if the lease expiration
         // has been disabled, redirect clients to get all instances
@@ -204,8 +262,29 @@ public class ApplicationsResource {
             return Response.status(Status.FORBIDDEN).build();
         }
 
+        long sinceVersion = 0;
+        if (isSinceVersionRequested) {
+            try {
+                sinceVersion = Long.parseLong(sinceStr);
+            } catch (NumberFormatException e) {
+                return Response.status(Status.BAD_REQUEST).build();
+            }
+        }
+        InterestSet interestSet = null;
+        if (isInterestSetRequested) {
+            try {
+                interestSet = InterestSet.parse(interestStr);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Status.BAD_REQUEST).build();
+            }
+        }
+
         String[] regions = null;
-        if (!isRemoteRegionRequested) {
+        if (isSinceVersionRequested) {
+            EurekaMonitors.GET_DELTA_SINCE_VERSION.increment();
+        } else if (isInterestSetRequested) {
+            EurekaMonitors.GET_ALL_DELTA_OF_INTEREST.increment();
+        } else if (!isRemoteRegionRequested) {
             EurekaMonitors.GET_ALL_DELTA.increment();
         } else {
             regions = regionsStr.toLowerCase().split(",");
@@ -216,25 +295,83 @@ public class ApplicationsResource {
         CurrentRequestVersion.set(Version.toEnum(version));
         KeyType keyType = Key.KeyType.JSON;
         String returnMediaType = MediaType.APPLICATION_JSON;
-        if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
+        if (shouldServeBinary(acceptHeader)) {
+            keyType = Key.KeyType.BINARY;
+            returnMediaType = EurekaBinaryCodec.MEDIA_TYPE;
+        } else if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
             keyType = Key.KeyType.XML;
             returnMediaType = MediaType.APPLICATION_XML;
         }
 
         Key cacheKey = new Key(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS_DELTA,
-                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
+                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions, interestSet
         );
 
+        if (isSinceVersionRequested) {
+            boolean isGzipAccepted = acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE);
+            Object entity;
+            if (isGzipAccepted) {
+                entity = responseCache.getDeltaSinceGZIP(cacheKey, sinceVersion);
+            } else {
+                String payload = responseCache.getDeltaSince(cacheKey, sinceVersion);
+                entity = payload != null && keyType == KeyType.BINARY
+                        ? payload.getBytes(CodecWrappers.EurekaBinary.PAYLOAD_CHARSET)
+                        : payload;
+            }
+            if (entity == null) {
+                EurekaMonitors.GET_DELTA_SINCE_VERSION_GONE.increment();
+                return Response.status(Status.GONE).build();
+            }
+            Response.ResponseBuilder builder = Response.ok(entity);
+            if (isGzipAccepted) {
+                builder.header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE);
+            }
+            return builder.header(HEADER_CONTENT_TYPE, returnMediaType).build();
+        }
+
         if (acceptEncoding != null
                 && acceptEncoding.contains(HEADER_GZIP_VALUE)) {
             return Response.ok(responseCache.getGZIP(cacheKey))
                     .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
                     .header(HEADER_CONTENT_TYPE, returnMediaType)
                     .build();
+        } else if (shouldStreamCachedBytes || keyType == KeyType.BINARY) {
+            return Response.ok(toStreamingOutput(responseCache.getBytes(cacheKey)))
+                    .header(HEADER_CONTENT_TYPE, returnMediaType)
+                    .build();
         } else {
             return Response.ok(responseCache.get(cacheKey))
+                    .header(HEADER_CONTENT_TYPE, returnMediaType)
                     .build();
         }
     }
+
+    /**
+     * Binary payloads are served, if enabled, to the clients listing them in their accept header. These clients
+     * accept JSON too, which is served if binary payloads are disabled.
+     */
+    private boolean shouldServeBinary(String acceptHeader) {
+        return isBinaryCodecEnabled && acceptHeader != null && acceptHeader.contains(EurekaBinaryCodec.MEDIA_TYPE);
+    }
+
+    /**
+     * Writes the cached, already encoded payload directly to the response stream.
+     */
+    private static StreamingOutput toStreamingOutput(final ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                ByteBuffer buffer = payload.duplicate();
+                if (buffer.hasArray()) {
+                    output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                } else {
+                    Channels.newChannel(output).write(buffer);
+                }
+            }
+        };
+    }
 }
@@ -22,6 +22,8 @@ public class DefaultServerCodecs implements ServerCodecs {
     protected final CodecWrapper fullXmlCodec;
     protected final CodecWrapper compactXmlCodec;
 
+    protected final CodecWrapper binaryCodec = CodecWrappers.getCodec(CodecWrappers.EurekaBinary.class);
+
     private static CodecWrapper getFullJson(EurekaServerConfig serverConfig) {
         CodecWrapper codec = CodecWrappers.getCodec(serverConfig.getJsonCodecName());
         return codec == null ? CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class) : codec;
@@ -75,6 +77,9 @@ public class DefaultServerCodecs implements ServerCodecs {
     @Override
     public EncoderWrapper getEncoder(Key.KeyType keyType, boolean compact) {
         switch (keyType) {
+            case BINARY:
+                // The binary payloads are compact already
+                return binaryCodec;
             case JSON:
                 return compact ? compactJsonCodec : fullJsonCodec;
             case XML:
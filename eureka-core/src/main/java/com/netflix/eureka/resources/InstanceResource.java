@@ -109,32 +109,44 @@ public class InstanceResource {
             @QueryParam("status") String status,
             @QueryParam("lastDirtyTimestamp") String lastDirtyTimestamp) {
         boolean isFromReplicaNode = "true".equals(isReplication);
-        boolean isSuccess = registry.renew(app.getName(), id, isFromReplicaNode);
+        InstanceInfo renewedInfo = registry.renewAndGetInstance(app.getName(), id, isFromReplicaNode);
 
         // Not found in the registry, immediately ask for a register
-        if (!isSuccess) {
+        if (renewedInfo == null) {
             logger.warn("Not Found (Renew): {} - {}", app.getName(), id);
             return Response.status(Status.NOT_FOUND).build();
         }
         // Check if we need to sync based on dirty time stamp, the client
-        // instance might have changed some value
+        // instance might have changed some value. In the common case the
+        // timestamp matches the renewed instance, and no further lookup is needed.
         Response response = null;
         if (lastDirtyTimestamp != null && serverConfig.shouldSyncWhenTimestampDiffers()) {
-            response = this.validateDirtyTimestamp(Long.valueOf(lastDirtyTimestamp), isFromReplicaNode);
-            // Store the overridden status since the validation found out the node that replicates wins
-            if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()
-                    && (overriddenStatus != null)
-                    && !(InstanceStatus.UNKNOWN.name().equals(overriddenStatus))
-                    && isFromReplicaNode) {
-                registry.storeOverriddenStatusIfRequired(app.getAppName(), id, InstanceStatus.valueOf(overriddenStatus));
+            long dirtyTimestamp = Long.parseLong(lastDirtyTimestamp);
+            if (!isSameDirtyTimestamp(dirtyTimestamp, renewedInfo)) {
+                response = this.validateDirtyTimestamp(dirtyTimestamp, isFromReplicaNode);
+                // Store the overridden status since the validation found out the node that replicates wins
+                if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()
+                        && (overriddenStatus != null)
+                        && !(InstanceStatus.UNKNOWN.name().equals(overriddenStatus))
+                        && isFromReplicaNode) {
+                    registry.storeOverriddenStatusIfRequired(app.getAppName(), id, InstanceStatus.valueOf(overriddenStatus));
+                }
             }
-        } else {
+        }
+        if (response == null) {
             response = Response.ok().build();
         }
-        logger.debug("Found (Renew): {} - {}; reply status={}" + app.getName(), id, response.getStatus());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Found (Renew): {} - {}; reply status={}", app.getName(), id, response.getStatus());
+        }
         return response;
     }
 
+    private static boolean isSameDirtyTimestamp(long dirtyTimestamp, InstanceInfo info) {
+        Long registryDirtyTimestamp = info.getLastDirtyTimestamp();
+        return registryDirtyTimestamp != null && registryDirtyTimestamp == dirtyTimestamp;
+    }
+
     /**
      * Handles {@link InstanceStatus} updates.
      *
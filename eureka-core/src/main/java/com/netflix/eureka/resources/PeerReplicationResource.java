@@ -22,17 +22,28 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.EurekaServerContextHolder;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse.Builder;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +61,9 @@ public class PeerReplicationResource {
 
     private static final String REPLICATION = "true";
 
+    private static final ReplicationInstanceResponse OK_RESPONSE =
+            new ReplicationInstanceResponse(Status.OK.getStatusCode(), null);
+
     private final EurekaServerConfig serverConfig;
     private final PeerAwareInstanceRegistry registry;
 
@@ -71,6 +85,15 @@ public class PeerReplicationResource {
      *  {@link ReplicationListResponse} containing the individual responses to the batched events
      * </p>
      *
+     * <p>
+     *  With the {@code peerReplication.bulkApply.enabled} experimental property set, the events are grouped by
+     *  application instead, and heartbeats are renewed directly in the registry, without a resource and a JAX-RS
+     *  response per event.
+     *  The events of each application are applied in their original order, and applications are independent,
+     *  so with {@code peerReplication.bulkApply.parallelism} above 1 they are spread over the bounded pool of
+     *  the registry. The request thread applies events too, whenever the pool is busy.
+     * </p>
+     *
      * @param replicationList
      *            The List of replication events from peer eureka nodes
      * @return A batched response containing the information about the responses of individual events
@@ -79,23 +102,213 @@ public class PeerReplicationResource {
     @POST
     public Response batchReplication(ReplicationList replicationList) {
         try {
-            ReplicationListResponse batchResponse = new ReplicationListResponse();
-            for (ReplicationInstance instanceInfo : replicationList.getReplicationList()) {
+            ReplicationListResponse batchResponse;
+            if ("true".equalsIgnoreCase(serverConfig.getExperimental("peerReplication.bulkApply.enabled"))) {
+                batchResponse = bulkApply(replicationList.getReplicationList());
+            } else {
+                batchResponse = new ReplicationListResponse();
+                for (ReplicationInstance instanceInfo : replicationList.getReplicationList()) {
+                    batchResponse.addResponse(dispatchItem(instanceInfo));
+                }
+            }
+            return Response.ok(batchResponse).build();
+        } catch (Throwable e) {
+            logger.error("Cannot execute batch Request", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Process a batch of heartbeats in the compact format. The heartbeats renew the leases directly in
+     * the registry, with the same dirty timestamp checks as {@link InstanceResource#renewLease(String, String, String, String)}.
+     *
+     * @param heartbeatList
+     *            The heartbeats replicated from a peer eureka node
+     * @return A response listing the heartbeats that did not succeed
+     */
+    @Path("heartbeats")
+    @POST
+    public Response batchHeartbeats(HeartbeatList heartbeatList) {
+        try {
+            HeartbeatListResponse batchResponse = new HeartbeatListResponse();
+            for (int i = 0; i < heartbeatList.size(); i++) {
                 try {
-                    batchResponse.addResponse(dispatch(instanceInfo));
+                    ReplicationInstanceResponse failure = renew(heartbeatList.getAppName(i).toUpperCase(Locale.ROOT),
+                            heartbeatList.getId(i), heartbeatList.getLastDirtyTimestamp(i));
+                    if (failure != null) {
+                        batchResponse.addFailure(i, failure);
+                    }
                 } catch (Exception e) {
-                    batchResponse.addResponse(new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null));
-                    logger.error(instanceInfo.getAction() + " request processing failed for batch item "
-                            + instanceInfo.getAppName() + '/' + instanceInfo.getId(), e);
+                    batchResponse.addFailure(i, new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null));
+                    logger.error("Heartbeat processing failed for batch item "
+                            + heartbeatList.getAppName(i) + '/' + heartbeatList.getId(i), e);
                 }
             }
             return Response.ok(batchResponse).build();
         } catch (Throwable e) {
-            logger.error("Cannot execute batch Request", e);
+            logger.error("Cannot execute heartbeat batch Request", e);
             return Response.status(Status.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * @return the failure response, or null if the lease was renewed and the peer has the current instance
+     */
+    private ReplicationInstanceResponse renew(String appName, String id, long lastDirtyTimestamp) {
+        InstanceInfo renewedInfo = registry.renewAndGetInstance(appName, id, true);
+        if (renewedInfo == null) {
+            logger.warn("Not Found (Renew): {} - {}", appName, id);
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
+        }
+        Long registryDirtyTimestamp = renewedInfo.getLastDirtyTimestamp();
+        if (!serverConfig.shouldSyncWhenTimestampDiffers()
+                || registryDirtyTimestamp == null || registryDirtyTimestamp == lastDirtyTimestamp) {
+            return null;
+        }
+        logger.debug("Time to sync, since the last dirty timestamp differs - ReplicationInstance id : {},Registry : {} Incoming: {}",
+                id, registryDirtyTimestamp, lastDirtyTimestamp);
+        if (lastDirtyTimestamp > registryDirtyTimestamp) {
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
+        }
+        // As on the regular batch path, the instance is attached to OK replies only, so a conflict carries no entity
+        return new ReplicationInstanceResponse(Status.CONFLICT.getStatusCode(), null);
+    }
+
+    private ReplicationListResponse bulkApply(final List<ReplicationInstance> items) throws Exception {
+        final ReplicationInstanceResponse[] responses = new ReplicationInstanceResponse[items.size()];
+
+        Map<String, List<Integer>> itemIndexesByApp = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            String appName = items.get(i).getAppName().toUpperCase(Locale.ROOT);
+            List<Integer> appItemIndexes = itemIndexesByApp.get(appName);
+            if (appItemIndexes == null) {
+                appItemIndexes = new ArrayList<>();
+                itemIndexesByApp.put(appName, appItemIndexes);
+            }
+            appItemIndexes.add(i);
+        }
+
+        ExecutorService executor = itemIndexesByApp.size() > 1 ? registry.getBulkApplyExecutor() : null;
+        List<Future<?>> pendingApps = new ArrayList<>();
+        for (final Map.Entry<String, List<Integer>> app : itemIndexesByApp.entrySet()) {
+            if (executor == null) {
+                applyApplicationItems(app.getKey(), app.getValue(), items, responses);
+            } else {
+                pendingApps.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyApplicationItems(app.getKey(), app.getValue(), items, responses);
+                    }
+                }));
+            }
+        }
+        for (Future<?> pendingApp : pendingApps) {
+            pendingApp.get();
+        }
+
+        ReplicationListResponse batchResponse = new ReplicationListResponse();
+        for (ReplicationInstanceResponse response : responses) {
+            batchResponse.addResponse(response);
+        }
+        return batchResponse;
+    }
+
+    /**
+     * Applies the batch items of a single application, in order. Heartbeats are renewed directly in the registry,
+     * one run of consecutive heartbeats at a time.
+     */
+    private void applyApplicationItems(String appName, List<Integer> appItemIndexes,
+                                       List<ReplicationInstance> items, ReplicationInstanceResponse[] responses) {
+        int start = 0;
+        while (start < appItemIndexes.size()) {
+            ReplicationInstance item = items.get(appItemIndexes.get(start));
+            if (item.getAction() != Action.Heartbeat) {
+                responses[appItemIndexes.get(start)] = dispatchItem(item);
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < appItemIndexes.size() && items.get(appItemIndexes.get(end)).getAction() == Action.Heartbeat) {
+                end++;
+            }
+            applyHeartbeats(appName, appItemIndexes.subList(start, end), items, responses);
+            start = end;
+        }
+    }
+
+    private void applyHeartbeats(String appName, List<Integer> heartbeatIndexes,
+                                 List<ReplicationInstance> items, ReplicationInstanceResponse[] responses) {
+        List<String> ids = new ArrayList<>(heartbeatIndexes.size());
+        for (int index : heartbeatIndexes) {
+            ids.add(items.get(index).getId());
+        }
+        InstanceInfo[] renewedInfos = new InstanceInfo[ids.size()];
+        try {
+            for (int i = 0; i < renewedInfos.length; i++) {
+                renewedInfos[i] = registry.renewAndGetInstance(appName, ids.get(i), true);
+            }
+        } catch (Exception e) {
+            logger.error("Heartbeat request processing failed for " + ids.size() + " batch items of " + appName, e);
+            for (int index : heartbeatIndexes) {
+                responses[index] = new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+            }
+            return;
+        }
+        for (int i = 0; i < renewedInfos.length; i++) {
+            ReplicationInstance heartbeat = items.get(heartbeatIndexes.get(i));
+            try {
+                responses[heartbeatIndexes.get(i)] = heartbeatResponse(appName, heartbeat, renewedInfos[i]);
+            } catch (Exception e) {
+                responses[heartbeatIndexes.get(i)] = new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+                logger.error("Heartbeat request processing failed for batch item " + appName + '/' + heartbeat.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Same reply as {@link InstanceResource#renewLease(String, String, String, String)} gives to a replicated
+     * heartbeat, as delivered through {@link #handleHeartbeat(InstanceResource, String, String, String)}.
+     */
+    private ReplicationInstanceResponse heartbeatResponse(String appName, ReplicationInstance heartbeat, InstanceInfo renewedInfo) {
+        String id = heartbeat.getId();
+        if (renewedInfo == null) {
+            logger.warn("Not Found (Renew): {} - {}", appName, id);
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
+        }
+        Long lastDirtyTimestamp = heartbeat.getLastDirtyTimestamp();
+        if (lastDirtyTimestamp == null || !serverConfig.shouldSyncWhenTimestampDiffers()
+                || lastDirtyTimestamp.equals(renewedInfo.getLastDirtyTimestamp())) {
+            return OK_RESPONSE;
+        }
+        InstanceInfo appInfo = registry.getInstanceByAppAndId(appName, id, false);
+        Long registryDirtyTimestamp = appInfo == null ? null : appInfo.getLastDirtyTimestamp();
+        if (registryDirtyTimestamp == null || lastDirtyTimestamp.equals(registryDirtyTimestamp)) {
+            return OK_RESPONSE;
+        }
+        logger.debug("Time to sync, since the last dirty timestamp differs - ReplicationInstance id : {},Registry : {} Incoming: {}",
+                id, registryDirtyTimestamp, lastDirtyTimestamp);
+        if (lastDirtyTimestamp > registryDirtyTimestamp) {
+            // Store the overridden status since the node that replicates wins
+            String overriddenStatus = heartbeat.getOverriddenStatus();
+            if (overriddenStatus != null && !InstanceStatus.UNKNOWN.name().equals(overriddenStatus)) {
+                registry.storeOverriddenStatusIfRequired(appName, id, InstanceStatus.valueOf(overriddenStatus));
+            }
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
+        }
+        // The instance is attached to OK replies only, so the peer gets no entity with a conflict
+        return new ReplicationInstanceResponse(Status.CONFLICT.getStatusCode(), null);
+    }
+
+    private ReplicationInstanceResponse dispatchItem(ReplicationInstance instanceInfo) {
+        try {
+            return dispatch(instanceInfo);
+        } catch (Exception e) {
+            logger.error(instanceInfo.getAction() + " request processing failed for batch item "
+                    + instanceInfo.getAppName() + '/' + instanceInfo.getId(), e);
+            return new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+        }
+    }
+
     private ReplicationInstanceResponse dispatch(ReplicationInstance instanceInfo) {
         ApplicationResource applicationResource = createApplicationResource(instanceInfo);
         InstanceResource resource = createInstanceResource(instanceInfo, applicationResource);
@@ -20,6 +20,7 @@ import javax.inject.Inject;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import com.netflix.discovery.EurekaBinaryAcceptFilter;
 import com.netflix.discovery.EurekaIdentityHeaderFilter;
 import com.netflix.discovery.shared.resolver.EurekaEndpoint;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
@@ -117,6 +118,11 @@ public class JerseyRemoteRegionClientFactory implements TransportClientFactory {
                 }
                 EurekaServerIdentity identity = new EurekaServerIdentity(ip);
                 discoveryApacheClient.addFilter(new EurekaIdentityHeaderFilter(identity));
+
+                // ask for binary registry payloads, if the remote region serves them
+                if ("true".equalsIgnoreCase(serverConfig.getExperimental("remoteRegion.codec.binary.enabled"))) {
+                    discoveryApacheClient.addFilter(new EurekaBinaryAcceptFilter());
+                }
             }
         }
 
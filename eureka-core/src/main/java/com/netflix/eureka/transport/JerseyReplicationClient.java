@@ -6,9 +6,12 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.EurekaBinaryAcceptFilter;
 import com.netflix.discovery.EurekaIdentityHeaderFilter;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.jersey.AbstractJerseyEurekaHttpClient;
@@ -19,6 +22,8 @@ import com.netflix.eureka.EurekaServerIdentity;
 import com.netflix.eureka.cluster.DynamicGZIPContentEncodingFilter;
 import com.netflix.eureka.cluster.HttpReplicationClient;
 import com.netflix.eureka.cluster.PeerEurekaNode;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -26,6 +31,7 @@ import com.netflix.eureka.resources.ServerCodecs;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.WebResource.Builder;
+import com.sun.jersey.api.client.async.TypeListener;
 import com.sun.jersey.client.apache4.ApacheHttpClient4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,11 +120,24 @@ public class JerseyReplicationClient extends AbstractJerseyEurekaHttpClient impl
                     .accept(MediaType.APPLICATION_JSON_TYPE)
                     .type(MediaType.APPLICATION_JSON_TYPE)
                     .post(ClientResponse.class, replicationList);
-            if (!isSuccess(response.getStatus())) {
-                return anEurekaHttpResponse(response.getStatus(), ReplicationListResponse.class).build();
+            return toEurekaHttpResponse(response, ReplicationListResponse.class);
+        } finally {
+            if (response != null) {
+                response.close();
             }
-            ReplicationListResponse batchResponse = response.getEntity(ReplicationListResponse.class);
-            return anEurekaHttpResponse(response.getStatus(), batchResponse).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
+    }
+
+    @Override
+    public EurekaHttpResponse<HeartbeatListResponse> submitHeartbeats(HeartbeatList heartbeatList) {
+        ClientResponse response = null;
+        try {
+            response = jerseyApacheClient.resource(serviceUrl)
+                    .path(PeerEurekaNode.HEARTBEATS_URL_PATH)
+                    .accept(MediaType.APPLICATION_JSON_TYPE)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .post(ClientResponse.class, heartbeatList);
+            return toEurekaHttpResponse(response, HeartbeatListResponse.class);
         } finally {
             if (response != null) {
                 response.close();
@@ -126,6 +145,28 @@ public class JerseyReplicationClient extends AbstractJerseyEurekaHttpClient impl
         }
     }
 
+    /**
+     * The request is executed by the Jersey client executor service, so the calling thread does not wait for the
+     * peer reply.
+     */
+    @Override
+    public void submitBatchUpdatesAsync(ReplicationList replicationList, ReplicationCallback<ReplicationListResponse> callback) {
+        jerseyApacheClient.asyncResource(serviceUrl)
+                .path(PeerEurekaNode.BATCH_URL_PATH)
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .post(new CallbackListener<>(ReplicationListResponse.class, callback), replicationList);
+    }
+
+    @Override
+    public void submitHeartbeatsAsync(HeartbeatList heartbeatList, ReplicationCallback<HeartbeatListResponse> callback) {
+        jerseyApacheClient.asyncResource(serviceUrl)
+                .path(PeerEurekaNode.HEARTBEATS_URL_PATH)
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .post(new CallbackListener<>(HeartbeatListResponse.class, callback), heartbeatList);
+    }
+
     @Override
     public void shutdown() {
         super.shutdown();
@@ -178,10 +219,55 @@ public class JerseyReplicationClient extends AbstractJerseyEurekaHttpClient impl
         EurekaServerIdentity identity = new EurekaServerIdentity(ip);
         jerseyApacheClient.addFilter(new EurekaIdentityHeaderFilter(identity));
 
+        // Only the registry reads from the peer are binary; the replicated changes stay JSON
+        if ("true".equalsIgnoreCase(config.getExperimental("peerReplication.codec.binary.enabled"))) {
+            jerseyApacheClient.addFilter(new EurekaBinaryAcceptFilter());
+        }
+
         return new JerseyReplicationClient(jerseyClient, serviceUrl);
     }
 
+    private static <T> EurekaHttpResponse<T> toEurekaHttpResponse(ClientResponse response, Class<T> entityType) {
+        if (!isSuccess(response.getStatus())) {
+            return anEurekaHttpResponse(response.getStatus(), entityType).build();
+        }
+        T entity = response.getEntity(entityType);
+        return anEurekaHttpResponse(response.getStatus(), entity).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
     private static boolean isSuccess(int statusCode) {
         return statusCode >= 200 && statusCode < 300;
     }
+
+    private static class CallbackListener<T> extends TypeListener<ClientResponse> {
+
+        private final Class<T> entityType;
+        private final ReplicationCallback<T> callback;
+
+        CallbackListener(Class<T> entityType, ReplicationCallback<T> callback) {
+            super(ClientResponse.class);
+            this.entityType = entityType;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onComplete(Future<ClientResponse> future) {
+            EurekaHttpResponse<T> httpResponse;
+            try {
+                ClientResponse response = future.get();
+                try {
+                    httpResponse = toEurekaHttpResponse(response, entityType);
+                } finally {
+                    response.close();
+                }
+            } catch (ExecutionException e) {
+                callback.onError(e.getCause() == null ? e : e.getCause());
+                return;
+            } catch (Throwable e) {
+                callback.onError(e);
+                return;
+            }
+            callback.onResponse(httpResponse);
+        }
+    }
 }
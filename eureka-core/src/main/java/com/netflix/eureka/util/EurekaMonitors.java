@@ -50,8 +50,15 @@ public enum EurekaMonitors {
     GET_ALL_WITH_REMOTE_REGIONS_CACHE_MISS_DELTA("getAllWithRemoteRegionCacheMissDeltaCounter",
             "Number of total registry queries for delta with remote region seen since startup"),
     GET_ALL_DELTA("getAllDeltaCounter", "Number of total deltas since startup"),
+    GET_DELTA_SINCE_VERSION("getDeltaSinceVersionCounter", "Number of total deltas since a registry version since startup"),
+    GET_DELTA_SINCE_VERSION_GONE("getDeltaSinceVersionGoneCounter",
+            "Number of total deltas since a registry version no longer available, since startup"),
+    GET_ALL_DELTA_OF_INTEREST("getAllDeltaOfInterestCounter",
+            "Number of total deltas restricted to an interest set, seen since startup"),
     GET_ALL_DELTA_WITH_REMOTE_REGIONS("getAllDeltaWithRemoteRegionCounter",
             "Number of total deltas with remote regions since startup"),
+    GET_ALL_OF_INTEREST("getAllOfInterestCounter",
+            "Number of total registry queries restricted to an interest set, seen since startup"),
     GET_ALL("getAllCounter", "Number of total registry queries seen since startup"),
     GET_ALL_WITH_REMOTE_REGIONS("getAllWithRemoteRegionCounter",
             "Number of total registry queries with remote regions, seen since startup"),
@@ -0,0 +1,29 @@
+package com.netflix.eureka.util;
+
+import com.netflix.eureka.EurekaServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Typed access to the experimental properties ({@link EurekaServerConfig#getExperimental(String)}).
+ */
+public final class ExperimentalProperties {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExperimentalProperties.class);
+
+    private ExperimentalProperties() {
+    }
+
+    public static int getInt(EurekaServerConfig serverConfig, String name, int defaultValue) {
+        String value = serverConfig.getExperimental(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value {} of experimental property {}; using default {}", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+}
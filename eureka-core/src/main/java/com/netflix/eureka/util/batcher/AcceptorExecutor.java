@@ -67,6 +67,7 @@ class AcceptorExecutor<ID, T> {
     private final BlockingQueue<List<TaskHolder<ID, T>>> batchWorkQueue = new LinkedBlockingQueue<>();
 
     private final TrafficShaper trafficShaper;
+    private final AdaptiveBatchingController batchingController;
 
     /*
      * Metrics
@@ -94,10 +95,25 @@ class AcceptorExecutor<ID, T> {
                      long maxBatchingDelay,
                      long congestionRetryDelayMs,
                      long networkFailureRetryMs) {
+        this(id, maxBufferSize, maxBatchingSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs, null);
+    }
+
+    /**
+     * @param batchingController if not null, controls the batch size (up to {@code maxBatchingSize}) and the
+     *                           rate at which batches are handed over to the workers
+     */
+    AcceptorExecutor(String id,
+                     int maxBufferSize,
+                     int maxBatchingSize,
+                     long maxBatchingDelay,
+                     long congestionRetryDelayMs,
+                     long networkFailureRetryMs,
+                     AdaptiveBatchingController batchingController) {
         this.maxBufferSize = maxBufferSize;
         this.maxBatchingSize = maxBatchingSize;
         this.maxBatchingDelay = maxBatchingDelay;
         this.trafficShaper = new TrafficShaper(congestionRetryDelayMs, networkFailureRetryMs);
+        this.batchingController = batchingController;
 
         ThreadGroup threadGroup = new ThreadGroup("eurekaTaskExecutors");
         this.acceptorThread = new Thread(threadGroup, new AcceptorRunner(), "TaskAcceptor-" + id);
@@ -136,6 +152,15 @@ class AcceptorExecutor<ID, T> {
         trafficShaper.registerFailure(processingResult);
     }
 
+    /**
+     * Feedback from the workers about a processed batch, used by the {@link AdaptiveBatchingController}.
+     */
+    void registerBatchResult(ProcessingResult processingResult, long sendTime, long completionTime) {
+        if (batchingController != null) {
+            batchingController.onBatchCompleted(processingResult, sendTime, completionTime);
+        }
+    }
+
     BlockingQueue<TaskHolder<ID, T>> requestWorkItem() {
         singleItemWorkRequests.release();
         return singleItemWorkQueue;
@@ -149,6 +174,9 @@ class AcceptorExecutor<ID, T> {
     void shutdown() {
         if (isShutdown.compareAndSet(false, true)) {
             acceptorThread.interrupt();
+            if (batchingController != null) {
+                batchingController.shutdown();
+            }
         }
     }
 
@@ -189,7 +217,7 @@ class AcceptorExecutor<ID, T> {
 
                     long now = System.currentTimeMillis();
                     if (scheduleTime < now) {
-                        scheduleTime = now + trafficShaper.transmissionDelay();
+                        scheduleTime = now + transmissionDelay();
                     }
                     if (scheduleTime <= now) {
                         assignBatchWork();
@@ -210,6 +238,14 @@ class AcceptorExecutor<ID, T> {
             }
         }
 
+        private long transmissionDelay() {
+            long delay = trafficShaper.transmissionDelay();
+            if (batchingController != null) {
+                delay = Math.max(delay, batchingController.sendDelay());
+            }
+            return delay;
+        }
+
         private boolean isFull() {
             return pendingTasks.size() >= maxBufferSize;
         }
@@ -292,7 +328,8 @@ class AcceptorExecutor<ID, T> {
             if (hasEnoughTasksForNextBatch()) {
                 if (batchWorkRequests.tryAcquire(1)) {
                     long now = System.currentTimeMillis();
-                    int len = Math.min(maxBatchingSize, processingOrder.size());
+                    int batchSize = batchingController == null ? maxBatchingSize : batchingController.getBatchSize();
+                    int len = Math.min(batchSize, processingOrder.size());
                     List<TaskHolder<ID, T>> holders = new ArrayList<>(len);
                     while (holders.size() < len && !processingOrder.isEmpty()) {
                         ID id = processingOrder.poll();
@@ -308,6 +345,9 @@ class AcceptorExecutor<ID, T> {
                     } else {
                         batchSizeMetric.record(holders.size(), TimeUnit.MILLISECONDS);
                         batchWorkQueue.add(holders);
+                        if (batchingController != null) {
+                            batchingController.onBatchSent();
+                        }
                     }
                 }
             }
@@ -0,0 +1,200 @@
+package com.netflix.eureka.util.batcher;
+
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.netflix.eureka.Names.METRIC_REPLICATION_PREFIX;
+
+/**
+ * AIMD (additive increase, multiplicative decrease) controller of the batch size and of the batch send rate
+ * of a batching {@link TaskDispatcher}, driven by the outcome and latency of processed batches.
+ *
+ * <ul>
+ *     <li>a batch processed within the target latency increases the batch size by a constant step, and,
+ *     if the send rate is limited, increases the limit by one batch per second</li>
+ *     <li>a batch processed above the target latency halves the batch size</li>
+ *     <li>congestion (for example 503 reply) halves the batch size. If the batch size is already at its minimum,
+ *     the send rate is halved instead. The send rate is not limited initially, so the first such congestion
+ *     limits it to half of the recently observed rate</li>
+ * </ul>
+ *
+ * The send rate limit is removed once it is well above the rate at which batches are actually sent. Network
+ * errors are handled by the {@link TrafficShaper} only, as they say nothing about the peer load.
+ *
+ * <p>
+ * Batches are processed concurrently, so a congested or slow peer fails all batches in flight at about the same
+ * time. Only the first of these completions decreases the batch size or the send rate: the completions of batches
+ * sent before the last decrease are ignored, as these batches were sized and sent before the peer state was
+ * known. This way, there is at most one multiplicative decrease per round trip.
+ * </p>
+ */
+public class AdaptiveBatchingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchingController.class);
+
+    private static final double DECREASE_FACTOR = 0.5;
+
+    /**
+     * Send rate limit increase, in batches per second, for each batch processed within the target latency.
+     */
+    private static final double SEND_RATE_INCREMENT = 1.0;
+
+    private static final double MIN_SEND_RATE = 1.0;
+
+    /**
+     * The send rate limit is dropped if it is that many times higher than the observed send rate.
+     */
+    private static final double SEND_RATE_LIMIT_DROP_RATIO = 4.0;
+
+    /**
+     * Weight of the latest sample in the moving average of intervals between batches.
+     */
+    private static final double SEND_INTERVAL_SMOOTHING = 0.2;
+
+    private final String id;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int batchSizeIncrement;
+    private final long targetLatencyMs;
+
+    private volatile int batchSize;
+    private volatile double sendRateLimit;
+    private volatile long nextSendTime;
+
+    private double avgSendIntervalMs;
+    private long lastSendTime;
+    private long lastDecreaseTime;
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "congestionSignals", description = "Number of batches rejected due to peer congestion", type = DataSourceType.COUNTER)
+    volatile long congestionSignals;
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "latencySignals", description = "Number of batches processed above the target latency", type = DataSourceType.COUNTER)
+    volatile long latencySignals;
+
+    public AdaptiveBatchingController(String id, int minBatchSize, int maxBatchSize, long targetLatencyMs) {
+        this.id = id;
+        this.minBatchSize = Math.max(1, Math.min(minBatchSize, maxBatchSize));
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizeIncrement = Math.max(1, maxBatchSize / 25);
+        this.targetLatencyMs = targetLatencyMs;
+        this.batchSize = maxBatchSize;
+
+        try {
+            Monitors.registerObject(id, this);
+        } catch (Throwable e) {
+            logger.warn("Cannot register servo monitor for this object", e);
+        }
+    }
+
+    /**
+     * Unregisters the monitors of this controller. Called by the dispatcher it is attached to, on shutdown.
+     */
+    public void shutdown() {
+        try {
+            Monitors.unregisterObject(id, this);
+        } catch (Throwable e) {
+            logger.warn("Cannot unregister servo monitor for this object", e);
+        }
+    }
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "adaptiveBatchSize", description = "Current batch size limit", type = DataSourceType.GAUGE)
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "sendRateLimit", description = "Current limit of batches sent per second, 0 if not limited", type = DataSourceType.GAUGE)
+    public double getSendRateLimit() {
+        return sendRateLimit;
+    }
+
+    /**
+     * @return time in milliseconds until the next batch can be sent
+     */
+    long sendDelay() {
+        if (sendRateLimit == 0) {
+            return 0;
+        }
+        return Math.max(0, nextSendTime - System.currentTimeMillis());
+    }
+
+    synchronized void onBatchSent() {
+        long now = System.currentTimeMillis();
+        if (lastSendTime > 0) {
+            long interval = now - lastSendTime;
+            avgSendIntervalMs = avgSendIntervalMs == 0
+                    ? interval
+                    : (1 - SEND_INTERVAL_SMOOTHING) * avgSendIntervalMs + SEND_INTERVAL_SMOOTHING * interval;
+        }
+        lastSendTime = now;
+        double rateLimit = sendRateLimit;
+        if (rateLimit > 0) {
+            nextSendTime = now + (long) (1000 / rateLimit);
+        }
+    }
+
+    /**
+     * @param sendTime time the batch was sent at
+     * @param completionTime time the batch processing completed at
+     */
+    synchronized void onBatchCompleted(ProcessingResult result, long sendTime, long completionTime) {
+        if (sendTime <= lastDecreaseTime) {
+            return;
+        }
+        switch (result) {
+            case Success:
+                if (completionTime - sendTime > targetLatencyMs) {
+                    latencySignals++;
+                    decreaseBatchSize(completionTime);
+                } else {
+                    batchSize = Math.min(maxBatchSize, batchSize + batchSizeIncrement);
+                    increaseSendRate();
+                }
+                break;
+            case Congestion:
+                congestionSignals++;
+                if (batchSize > minBatchSize) {
+                    decreaseBatchSize(completionTime);
+                } else {
+                    decreaseSendRate(completionTime);
+                }
+                break;
+            default:
+                // Network and permanent errors do not tell anything about the peer load
+        }
+    }
+
+    private void decreaseBatchSize(long now) {
+        batchSize = Math.max(minBatchSize, (int) (batchSize * DECREASE_FACTOR));
+        lastDecreaseTime = now;
+    }
+
+    private void increaseSendRate() {
+        if (sendRateLimit == 0) {
+            return;
+        }
+        double rateLimit = sendRateLimit + SEND_RATE_INCREMENT;
+        double observedRate = observedSendRate();
+        if (observedRate > 0 && rateLimit > SEND_RATE_LIMIT_DROP_RATIO * observedRate) {
+            rateLimit = 0;
+        }
+        sendRateLimit = rateLimit;
+    }
+
+    private void decreaseSendRate(long now) {
+        double currentRate = observedSendRate();
+        if (sendRateLimit > 0 && (currentRate == 0 || sendRateLimit < currentRate)) {
+            currentRate = sendRateLimit;
+        }
+        sendRateLimit = Math.max(MIN_SEND_RATE, currentRate * DECREASE_FACTOR);
+        nextSendTime = lastSendTime + (long) (1000 / sendRateLimit);
+        lastDecreaseTime = now;
+    }
+
+    private double observedSendRate() {
+        return avgSendIntervalMs > 0 ? 1000 / avgSendIntervalMs : 0;
+    }
+}
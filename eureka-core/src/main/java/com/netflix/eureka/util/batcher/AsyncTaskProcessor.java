@@ -0,0 +1,24 @@
+package com.netflix.eureka.util.batcher;
+
+import java.util.List;
+
+/**
+ * A {@link TaskProcessor} which can process a batch of tasks without blocking the calling thread. The processing
+ * result is reported through a callback once available, so a single dispatcher thread can keep multiple batches
+ * in flight.
+ */
+public interface AsyncTaskProcessor<T> extends TaskProcessor<T> {
+
+    interface Callback {
+        /**
+         * Called exactly once, from an arbitrary thread, with the aggregated result of the batch processing.
+         */
+        void onCompleted(ProcessingResult result);
+    }
+
+    /**
+     * Asynchronous variant of {@link #process(List)}. The callback is invoked once processing of all tasks
+     * is finished.
+     */
+    void processAsync(List<T> tasks, Callback callback);
+}
@@ -0,0 +1,355 @@
+package com.netflix.eureka.util.batcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.netflix.eureka.util.batcher.TaskExecutors.TaskExecutorMetrics;
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.netflix.eureka.Names.METRIC_REPLICATION_PREFIX;
+
+/**
+ * {@link TaskDispatcher} implementation without an acceptor thread. Clients put tasks directly into a lock-free
+ * queue of task ids, with the latest task copy kept in a concurrent map, so a task that is already queued is
+ * replaced in place. Workers take tasks straight from the queue, and sleep on a condition when there is nothing
+ * to do. Clients signal the condition only when a waiting worker can make progress: the queue became non-empty,
+ * or a full batch is available. Waiting for the batching delay or for the {@link TrafficShaper} is a timed wait.
+ *
+ * <p>
+ * Compared to {@link AcceptorExecutor}, which polls its input queues every 10ms, tasks are handed over to an idle
+ * worker immediately, and an idle dispatcher uses no CPU.
+ * </p>
+ */
+class EventDrivenTaskDispatcher<ID, T> implements TaskDispatcher<ID, T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDrivenTaskDispatcher.class);
+
+    /**
+     * Upper bound on a single worker wait, so the shutdown flag is re-checked periodically.
+     */
+    private static final long MAX_IDLE_WAIT_MS = 1000;
+
+    private final String id;
+    private final int maxBufferSize;
+    private final int maxBatchingSize;
+    private final long maxBatchingDelay;
+    private final TrafficShaper trafficShaper;
+    private final AdaptiveBatchingController batchingController;
+    private final TaskProcessor<T> processor;
+    private final TaskExecutorMetrics metrics;
+
+    private final ConcurrentHashMap<ID, TaskHolder<ID, T>> pendingTasks = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<ID> processingOrder = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final AtomicInteger waitingWorkers = new AtomicInteger();
+
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    /*
+     * Metrics
+     */
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "acceptedTasks", description = "Number of accepted tasks", type = DataSourceType.COUNTER)
+    final AtomicLong acceptedTasks = new AtomicLong();
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "replayedTasks", description = "Number of replayedTasks tasks", type = DataSourceType.COUNTER)
+    final AtomicLong replayedTasks = new AtomicLong();
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "expiredTasks", description = "Number of expired tasks", type = DataSourceType.COUNTER)
+    final AtomicLong expiredTasks = new AtomicLong();
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "overriddenTasks", description = "Number of overridden tasks", type = DataSourceType.COUNTER)
+    final AtomicLong overriddenTasks = new AtomicLong();
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "queueOverflows", description = "Number of queue overflows", type = DataSourceType.COUNTER)
+    final AtomicLong queueOverflows = new AtomicLong();
+
+    EventDrivenTaskDispatcher(String id,
+                              int maxBufferSize,
+                              int maxBatchingSize,
+                              int workerCount,
+                              long maxBatchingDelay,
+                              long congestionRetryDelayMs,
+                              long networkFailureRetryMs,
+                              TaskProcessor<T> processor,
+                              AdaptiveBatchingController batchingController) {
+        this.id = id;
+        this.maxBufferSize = maxBufferSize;
+        this.maxBatchingSize = maxBatchingSize;
+        this.maxBatchingDelay = maxBatchingDelay;
+        this.trafficShaper = new TrafficShaper(congestionRetryDelayMs, networkFailureRetryMs);
+        this.batchingController = batchingController;
+        this.processor = processor;
+        this.metrics = new TaskExecutorMetrics(id);
+
+        ThreadGroup threadGroup = new ThreadGroup("eurekaTaskExecutors");
+        String workerPrefix = (maxBatchingSize == 1 ? "TaskNonBatchingWorker-" : "TaskBatchingWorker-") + id + '-';
+        for (int i = 0; i < workerCount; i++) {
+            Thread workerThread = new Thread(threadGroup, new WorkerRunnable(workerPrefix + i), workerPrefix + i);
+            workerThread.setDaemon(true);
+            workerThreads.add(workerThread);
+        }
+        try {
+            Monitors.registerObject(id, this);
+        } catch (Throwable e) {
+            logger.warn("Cannot register servo monitor for this object", e);
+        }
+        for (Thread workerThread : workerThreads) {
+            workerThread.start();
+        }
+    }
+
+    @Override
+    public void process(ID id, T task, long expiryTime) {
+        acceptedTasks.incrementAndGet();
+        TaskHolder<ID, T> previousTask = pendingTasks.put(id, new TaskHolder<ID, T>(id, task, expiryTime));
+        if (previousTask != null) {
+            overriddenTasks.incrementAndGet();
+            return;
+        }
+        if (queueSize.get() >= maxBufferSize) {
+            dropOldest();
+        }
+        processingOrder.offerLast(id);
+        onEnqueued(queueSize.incrementAndGet());
+    }
+
+    void reprocess(List<TaskHolder<ID, T>> holders, ProcessingResult processingResult) {
+        // Put back in reverse order, so the batch keeps its original order at the head of the queue
+        for (int i = holders.size() - 1; i >= 0; i--) {
+            reprocess(holders.get(i));
+        }
+        trafficShaper.registerFailure(processingResult);
+    }
+
+    private void reprocess(TaskHolder<ID, T> holder) {
+        replayedTasks.incrementAndGet();
+        if (holder.getExpiryTime() <= System.currentTimeMillis()) {
+            expiredTasks.incrementAndGet();
+        } else if (queueSize.get() >= maxBufferSize) {
+            queueOverflows.incrementAndGet();
+        } else if (pendingTasks.putIfAbsent(holder.getId(), holder) != null) {
+            overriddenTasks.incrementAndGet();
+        } else {
+            processingOrder.offerFirst(holder.getId());
+            onEnqueued(queueSize.incrementAndGet());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (isShutdown.compareAndSet(false, true)) {
+            for (Thread workerThread : workerThreads) {
+                workerThread.interrupt();
+            }
+            try {
+                Monitors.unregisterObject(id, this);
+                Monitors.unregisterObject(id, metrics);
+            } catch (Throwable e) {
+                logger.warn("Cannot unregister servo monitor for this object", e);
+            }
+            if (batchingController != null) {
+                batchingController.shutdown();
+            }
+        }
+    }
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "queueSize", description = "Task queue size", type = DataSourceType.GAUGE)
+    public long getQueueSize() {
+        return queueSize.get();
+    }
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "pendingJobRequests", description = "Number of worker threads awaiting job assignment", type = DataSourceType.GAUGE)
+    public long getPendingJobRequests() {
+        return waitingWorkers.get();
+    }
+
+    /**
+     * Only the task seen for the polled id is removed. A task overriding it concurrently does not queue its id
+     * again, so if it wins the race, its id is put back at the head of the queue instead of orphaning it in
+     * the pending map, and the queue exceeds its bound until the next overflow.
+     */
+    private void dropOldest() {
+        ID id = processingOrder.pollFirst();
+        if (id == null) {
+            return;
+        }
+        TaskHolder<ID, T> holder = pendingTasks.get(id);
+        if (holder == null) {
+            queueSize.decrementAndGet();
+        } else if (pendingTasks.remove(id, holder)) {
+            queueSize.decrementAndGet();
+            queueOverflows.incrementAndGet();
+        } else {
+            processingOrder.offerFirst(id);
+        }
+    }
+
+    /**
+     * A worker can only be waiting indefinitely if the queue was empty, or for the batching delay if the
+     * batch was not full, so no other transition needs a signal.
+     */
+    private void onEnqueued(int newQueueSize) {
+        if ((newQueueSize == 1 || newQueueSize >= batchSize()) && waitingWorkers.get() > 0) {
+            lock.lock();
+            try {
+                workAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return time in milliseconds until the next batch can be dispatched, or 0 if it can be dispatched now
+     */
+    private long dispatchDelay() {
+        long delay = trafficShaper.transmissionDelay();
+        if (batchingController != null) {
+            delay = Math.max(delay, batchingController.sendDelay());
+        }
+        if (delay > 0) {
+            return delay;
+        }
+        int size = queueSize.get();
+        if (size == 0) {
+            return MAX_IDLE_WAIT_MS;
+        }
+        if (size >= batchSize() || size >= maxBufferSize) {
+            return 0;
+        }
+        ID nextId = processingOrder.peekFirst();
+        TaskHolder<ID, T> nextHolder = nextId == null ? null : pendingTasks.get(nextId);
+        if (nextHolder == null) {
+            return 0;
+        }
+        long age = System.currentTimeMillis() - nextHolder.getSubmitTimestamp();
+        return Math.max(0, maxBatchingDelay - age);
+    }
+
+    private List<TaskHolder<ID, T>> takeWork() throws InterruptedException {
+        while (!isShutdown.get()) {
+            if (dispatchDelay() == 0) {
+                List<TaskHolder<ID, T>> holders = drain();
+                if (!holders.isEmpty()) {
+                    return holders;
+                }
+            }
+            lock.lock();
+            waitingWorkers.incrementAndGet();
+            try {
+                // Re-check after announcing this worker as waiting, so a concurrent enqueue is not missed.
+                long delay = dispatchDelay();
+                if (delay > 0) {
+                    workAvailable.await(Math.min(delay, MAX_IDLE_WAIT_MS), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                waitingWorkers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    private int batchSize() {
+        return batchingController == null ? maxBatchingSize : batchingController.getBatchSize();
+    }
+
+    private List<TaskHolder<ID, T>> drain() {
+        long now = System.currentTimeMillis();
+        int batchSize = batchSize();
+        List<TaskHolder<ID, T>> holders = new ArrayList<>(Math.min(batchSize, Math.max(1, queueSize.get())));
+        while (holders.size() < batchSize) {
+            ID id = processingOrder.pollFirst();
+            if (id == null) {
+                break;
+            }
+            queueSize.decrementAndGet();
+            TaskHolder<ID, T> holder = pendingTasks.remove(id);
+            if (holder == null) {
+                continue;
+            }
+            if (holder.getExpiryTime() > now) {
+                holders.add(holder);
+            } else {
+                expiredTasks.incrementAndGet();
+            }
+        }
+        if (batchingController != null && !holders.isEmpty()) {
+            batchingController.onBatchSent();
+        }
+        return holders;
+    }
+
+    class WorkerRunnable implements Runnable {
+
+        private final String workerName;
+
+        WorkerRunnable(String workerName) {
+            this.workerName = workerName;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isShutdown.get()) {
+                    List<TaskHolder<ID, T>> holders = takeWork();
+                    if (holders == null) {
+                        return;
+                    }
+                    metrics.registerExpiryTimes(holders);
+                    ProcessingResult result;
+                    if (maxBatchingSize == 1) {
+                        result = processor.process(holders.get(0).getTask());
+                    } else {
+                        long startTime = System.currentTimeMillis();
+                        result = processor.process(getTasksOf(holders));
+                        if (batchingController != null) {
+                            batchingController.onBatchCompleted(result, startTime, System.currentTimeMillis());
+                        }
+                    }
+                    switch (result) {
+                        case Success:
+                            break;
+                        case Congestion:
+                        case TransientError:
+                            reprocess(holders, result);
+                            break;
+                        case PermanentError:
+                            logger.warn("Discarding {} tasks of {} due to permanent error", holders.size(), workerName);
+                    }
+                    metrics.registerTaskResult(result, holders.size());
+                }
+            } catch (InterruptedException e) {
+                // Ignore
+            } catch (Throwable e) {
+                // Safe-guard, so we never exit this loop in an uncontrolled way.
+                logger.warn("Discovery WorkerThread error", e);
+            }
+        }
+
+        private List<T> getTasksOf(List<TaskHolder<ID, T>> holders) {
+            List<T> tasks = new ArrayList<>(holders.size());
+            for (TaskHolder<ID, T> holder : holders) {
+                tasks.add(holder.getTask());
+            }
+            return tasks;
+        }
+    }
+}
@@ -12,6 +12,10 @@ package com.netflix.eureka.util.batcher;
  * <h3>Execution modes</h3>
  * To create non batched executor call {@link TaskDispatchers#createNonBatchingTaskDispatcher(String, int, int, long, long, TaskProcessor)}
  * method. Batched executor is created by {@link TaskDispatchers#createBatchingTaskDispatcher(String, int, int, int, long, long, TaskProcessor)}.
+ * <h3>Implementations</h3>
+ * By default tasks are handed over to workers by the acceptor thread of {@link AcceptorExecutor}. The
+ * {@code createEventDriven*} factory methods in {@link TaskDispatchers} create an {@link EventDrivenTaskDispatcher}
+ * instead, which has no acceptor thread.
  *
  * @author Tomasz Bak
  */
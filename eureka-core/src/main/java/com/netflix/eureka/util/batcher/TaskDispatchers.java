@@ -40,8 +40,25 @@ public class TaskDispatchers {
                                                                              long congestionRetryDelayMs,
                                                                              long networkFailureRetryMs,
                                                                              TaskProcessor<T> taskProcessor) {
+        return createBatchingTaskDispatcher(id, maxBufferSize, workloadSize, workerCount, maxBatchingDelay,
+                congestionRetryDelayMs, networkFailureRetryMs, taskProcessor, null);
+    }
+
+    /**
+     * @param batchingController if not null, adjusts the batch size (up to {@code workloadSize}) and the batch
+     *                           send rate according to the processing results
+     */
+    public static <ID, T> TaskDispatcher<ID, T> createBatchingTaskDispatcher(String id,
+                                                                             int maxBufferSize,
+                                                                             int workloadSize,
+                                                                             int workerCount,
+                                                                             long maxBatchingDelay,
+                                                                             long congestionRetryDelayMs,
+                                                                             long networkFailureRetryMs,
+                                                                             TaskProcessor<T> taskProcessor,
+                                                                             AdaptiveBatchingController batchingController) {
         final AcceptorExecutor<ID, T> acceptorExecutor = new AcceptorExecutor<>(
-                id, maxBufferSize, workloadSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs
+                id, maxBufferSize, workloadSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs, batchingController
         );
         final TaskExecutors<ID, T> taskExecutor = TaskExecutors.batchExecutors(id, workerCount, taskProcessor, acceptorExecutor);
         return new TaskDispatcher<ID, T>() {
@@ -57,4 +74,96 @@ public class TaskDispatchers {
             }
         };
     }
+
+    /**
+     * Batching dispatcher with a single worker, which keeps up to {@code maxInFlightBatches} batches processed
+     * by the {@link AsyncTaskProcessor} at the same time. Failed batches are put back into the acceptor queue
+     * from the completion callback.
+     */
+    public static <ID, T> TaskDispatcher<ID, T> createAsyncBatchingTaskDispatcher(String id,
+                                                                                  int maxBufferSize,
+                                                                                  int workloadSize,
+                                                                                  int maxInFlightBatches,
+                                                                                  long maxBatchingDelay,
+                                                                                  long congestionRetryDelayMs,
+                                                                                  long networkFailureRetryMs,
+                                                                                  AsyncTaskProcessor<T> taskProcessor) {
+        return createAsyncBatchingTaskDispatcher(id, maxBufferSize, workloadSize, maxInFlightBatches, maxBatchingDelay,
+                congestionRetryDelayMs, networkFailureRetryMs, taskProcessor, null);
+    }
+
+    public static <ID, T> TaskDispatcher<ID, T> createAsyncBatchingTaskDispatcher(String id,
+                                                                                  int maxBufferSize,
+                                                                                  int workloadSize,
+                                                                                  int maxInFlightBatches,
+                                                                                  long maxBatchingDelay,
+                                                                                  long congestionRetryDelayMs,
+                                                                                  long networkFailureRetryMs,
+                                                                                  AsyncTaskProcessor<T> taskProcessor,
+                                                                                  AdaptiveBatchingController batchingController) {
+        final AcceptorExecutor<ID, T> acceptorExecutor = new AcceptorExecutor<>(
+                id, maxBufferSize, workloadSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs, batchingController
+        );
+        final TaskExecutors<ID, T> taskExecutor = TaskExecutors.asyncBatchExecutors(id, maxInFlightBatches, taskProcessor, acceptorExecutor);
+        return new TaskDispatcher<ID, T>() {
+            @Override
+            public void process(ID id, T task, long expiryTime) {
+                acceptorExecutor.process(id, task, expiryTime);
+            }
+
+            @Override
+            public void shutdown() {
+                acceptorExecutor.shutdown();
+                taskExecutor.shutdown();
+            }
+        };
+    }
+
+    /**
+     * Non batching variant of the {@link EventDrivenTaskDispatcher}, with the same parameters as
+     * {@link #createNonBatchingTaskDispatcher(String, int, int, long, long, long, TaskProcessor)}.
+     */
+    public static <ID, T> TaskDispatcher<ID, T> createEventDrivenNonBatchingTaskDispatcher(String id,
+                                                                                           int maxBufferSize,
+                                                                                           int workerCount,
+                                                                                           long maxBatchingDelay,
+                                                                                           long congestionRetryDelayMs,
+                                                                                           long networkFailureRetryMs,
+                                                                                           TaskProcessor<T> taskProcessor) {
+        // Single items are dispatched as soon as available, same as by the AcceptorExecutor
+        return new EventDrivenTaskDispatcher<>(
+                id, maxBufferSize, 1, workerCount, 0, congestionRetryDelayMs, networkFailureRetryMs, taskProcessor, null
+        );
+    }
+
+    /**
+     * Batching variant of the {@link EventDrivenTaskDispatcher}, with the same parameters as
+     * {@link #createBatchingTaskDispatcher(String, int, int, int, long, long, long, TaskProcessor)}.
+     */
+    public static <ID, T> TaskDispatcher<ID, T> createEventDrivenBatchingTaskDispatcher(String id,
+                                                                                        int maxBufferSize,
+                                                                                        int workloadSize,
+                                                                                        int workerCount,
+                                                                                        long maxBatchingDelay,
+                                                                                        long congestionRetryDelayMs,
+                                                                                        long networkFailureRetryMs,
+                                                                                        TaskProcessor<T> taskProcessor) {
+        return createEventDrivenBatchingTaskDispatcher(id, maxBufferSize, workloadSize, workerCount, maxBatchingDelay,
+                congestionRetryDelayMs, networkFailureRetryMs, taskProcessor, null);
+    }
+
+    public static <ID, T> TaskDispatcher<ID, T> createEventDrivenBatchingTaskDispatcher(String id,
+                                                                                        int maxBufferSize,
+                                                                                        int workloadSize,
+                                                                                        int workerCount,
+                                                                                        long maxBatchingDelay,
+                                                                                        long congestionRetryDelayMs,
+                                                                                        long networkFailureRetryMs,
+                                                                                        TaskProcessor<T> taskProcessor,
+                                                                                        AdaptiveBatchingController batchingController) {
+        return new EventDrivenTaskDispatcher<>(
+                id, maxBufferSize, workloadSize, workerCount, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs,
+                taskProcessor, batchingController
+        );
+    }
 }
@@ -3,6 +3,7 @@ package com.netflix.eureka.util.batcher;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -82,6 +83,24 @@ class TaskExecutors<ID, T> {
         }, workerCount, isShutdown);
     }
 
+    /**
+     * A single worker dispatching batches to an {@link AsyncTaskProcessor}, with at most
+     * {@code maxInFlightBatches} batches being processed at the same time.
+     */
+    static <ID, T> TaskExecutors<ID, T> asyncBatchExecutors(final String name,
+                                                            final int maxInFlightBatches,
+                                                            final AsyncTaskProcessor<T> processor,
+                                                            final AcceptorExecutor<ID, T> acceptorExecutor) {
+        final AtomicBoolean isShutdown = new AtomicBoolean();
+        final TaskExecutorMetrics metrics = new TaskExecutorMetrics(name);
+        return new TaskExecutors<>(new WorkerRunnableFactory<ID, T>() {
+            @Override
+            public WorkerRunnable<ID, T> create(int idx) {
+                return new AsyncBatchWorkerRunnable<>("TaskAsyncBatchingWorker-" + name, isShutdown, metrics, processor, acceptorExecutor, maxInFlightBatches);
+            }
+        }, 1, isShutdown);
+    }
+
     static class TaskExecutorMetrics {
 
         @Monitor(name = METRIC_REPLICATION_PREFIX + "numberOfSuccessfulExecutions", description = "Number of successful task executions", type = DataSourceType.COUNTER)
@@ -184,17 +203,10 @@ class TaskExecutors<ID, T> {
                     metrics.registerExpiryTimes(holders);
 
                     List<T> tasks = getTasksOf(holders);
+                    long startTime = System.currentTimeMillis();
                     ProcessingResult result = processor.process(tasks);
-                    switch (result) {
-                        case Success:
-                            break;
-                        case Congestion:
-                        case TransientError:
-                            taskDispatcher.reprocess(holders, result);
-                            break;
-                        case PermanentError:
-                            logger.warn("Discarding {} tasks of {} due to permanent error", holders.size(), workerName);
-                    }
+                    taskDispatcher.registerBatchResult(result, startTime, System.currentTimeMillis());
+                    handleResult(holders, result);
                     metrics.registerTaskResult(result, tasks.size());
                 }
             } catch (InterruptedException e) {
@@ -205,7 +217,20 @@ class TaskExecutors<ID, T> {
             }
         }
 
-        private List<TaskHolder<ID, T>> getWork() throws InterruptedException {
+        void handleResult(List<TaskHolder<ID, T>> holders, ProcessingResult result) {
+            switch (result) {
+                case Success:
+                    break;
+                case Congestion:
+                case TransientError:
+                    taskDispatcher.reprocess(holders, result);
+                    break;
+                case PermanentError:
+                    logger.warn("Discarding {} tasks of {} due to permanent error", holders.size(), workerName);
+            }
+        }
+
+        List<TaskHolder<ID, T>> getWork() throws InterruptedException {
             BlockingQueue<List<TaskHolder<ID, T>>> workQueue = taskDispatcher.requestWorkItems();
             List<TaskHolder<ID, T>> result;
             do {
@@ -214,7 +239,7 @@ class TaskExecutors<ID, T> {
             return result;
         }
 
-        private List<T> getTasksOf(List<TaskHolder<ID, T>> holders) {
+        List<T> getTasksOf(List<TaskHolder<ID, T>> holders) {
             List<T> tasks = new ArrayList<>(holders.size());
             for (TaskHolder<ID, T> holder : holders) {
                 tasks.add(holder.getTask());
@@ -223,6 +248,72 @@ class TaskExecutors<ID, T> {
         }
     }
 
+    static class AsyncBatchWorkerRunnable<ID, T> extends BatchWorkerRunnable<ID, T> {
+
+        private final AsyncTaskProcessor<T> asyncProcessor;
+        private final Semaphore inFlightBatches;
+
+        AsyncBatchWorkerRunnable(String workerName,
+                                 AtomicBoolean isShutdown,
+                                 TaskExecutorMetrics metrics,
+                                 AsyncTaskProcessor<T> processor,
+                                 AcceptorExecutor<ID, T> acceptorExecutor,
+                                 int maxInFlightBatches) {
+            super(workerName, isShutdown, metrics, processor, acceptorExecutor);
+            this.asyncProcessor = processor;
+            this.inFlightBatches = new Semaphore(maxInFlightBatches);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isShutdown.get()) {
+                    // Do not request more work than can be put in flight, so the tasks stay in the acceptor
+                    // queue, where they are merged with newer copies.
+                    inFlightBatches.acquire();
+                    List<TaskHolder<ID, T>> holders = getWork();
+                    if (holders == null) {
+                        inFlightBatches.release();
+                        continue;
+                    }
+                    metrics.registerExpiryTimes(holders);
+                    dispatch(holders);
+                }
+            } catch (InterruptedException e) {
+                // Ignore
+            } catch (Throwable e) {
+                // Safe-guard, so we never exit this loop in an uncontrolled way.
+                logger.warn("Discovery WorkerThread error", e);
+            }
+        }
+
+        private void dispatch(final List<TaskHolder<ID, T>> holders) {
+            final List<T> tasks = getTasksOf(holders);
+            final AtomicBoolean completed = new AtomicBoolean();
+            final long startTime = System.currentTimeMillis();
+            AsyncTaskProcessor.Callback callback = new AsyncTaskProcessor.Callback() {
+                @Override
+                public void onCompleted(ProcessingResult result) {
+                    if (completed.compareAndSet(false, true)) {
+                        try {
+                            taskDispatcher.registerBatchResult(result, startTime, System.currentTimeMillis());
+                            handleResult(holders, result);
+                            metrics.registerTaskResult(result, tasks.size());
+                        } finally {
+                            inFlightBatches.release();
+                        }
+                    }
+                }
+            };
+            try {
+                asyncProcessor.processAsync(tasks, callback);
+            } catch (Throwable e) {
+                logger.warn("Asynchronous processing of a batch by " + workerName + " could not be started", e);
+                callback.onCompleted(ProcessingResult.TransientError);
+            }
+        }
+    }
+
     static class SingleTaskWorkerRunnable<ID, T> extends WorkerRunnable<ID, T> {
 
         SingleTaskWorkerRunnable(String workerName,
@@ -1,17 +1,27 @@
 package com.netflix.eureka.cluster;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.cluster.TestableHttpReplicationClient.HandledRequest;
+import com.netflix.eureka.cluster.TestableHttpReplicationClient.RequestType;
 import com.netflix.eureka.cluster.TestableInstanceReplicationTask.ProcessingState;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
+import com.netflix.eureka.util.batcher.AsyncTaskProcessor.Callback;
 import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
 import org.junit.Before;
 import org.junit.Test;
 
 import static com.netflix.eureka.cluster.TestableInstanceReplicationTask.aReplicationTask;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -106,4 +116,113 @@ public class ReplicationTaskProcessorTest {
         assertThat(status, is(ProcessingResult.Success));
         assertThat(task.getProcessingState(), is(ProcessingState.Failed));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompactHeartbeatBatchExecution() throws Exception {
+        ReplicationTaskProcessor compactProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, true);
+        TestableInstanceReplicationTask registerTask = aReplicationTask().withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withInstanceInfo(InstanceInfoGenerator.takeOne()).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200, 200);
+        ProcessingResult status = compactProcessor.process(Arrays.<ReplicationTask>asList(heartbeatTask, registerTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(registerTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Finished));
+
+        // Heartbeats go first in the compact batch, other tasks in the regular one
+        HandledRequest heartbeatRequest = replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS);
+        assertThat(heartbeatRequest.getRequestType(), is(RequestType.HeartbeatBatch));
+        HeartbeatList heartbeatList = (HeartbeatList) heartbeatRequest.getData();
+        assertThat(heartbeatList.size(), is(1));
+        assertThat(heartbeatList.getId(0), is(equalTo(heartbeatTask.getId())));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.Batch));
+    }
+
+    @Test
+    public void testCompactHeartbeatCongestionDoesNotSendOtherTasks() throws Exception {
+        ReplicationTaskProcessor compactProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, true);
+        TestableInstanceReplicationTask registerTask = aReplicationTask().withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withInstanceInfo(InstanceInfoGenerator.takeOne()).build();
+
+        // The whole batch is retried, so the register task must not have reached the peer yet
+        replicationClient.withNetworkStatusCode(503);
+        ProcessingResult status = compactProcessor.process(Arrays.<ReplicationTask>asList(heartbeatTask, registerTask));
+
+        assertThat(status, is(ProcessingResult.Congestion));
+        assertThat(registerTask.getProcessingState(), is(ProcessingState.Pending));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Pending));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.HeartbeatBatch));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void testCompactHeartbeatFallbackToRegularBatch() throws Exception {
+        ReplicationTaskProcessor compactProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, true);
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withInstanceInfo(InstanceInfoGenerator.takeOne()).build();
+
+        // The peer does not know the compact heartbeat batch, so the heartbeat is resent in a regular batch
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(404, 200);
+        ProcessingResult status = compactProcessor.process(Collections.<ReplicationTask>singletonList(heartbeatTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.HeartbeatBatch));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.Batch));
+    }
+
+    @Test
+    public void testCompactHeartbeatPermanentFailureHandling() throws Exception {
+        ReplicationTaskProcessor compactProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, true);
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withInstanceInfo(InstanceInfoGenerator.takeOne()).build();
+
+        replicationClient.withNetworkStatusCode(200);
+        replicationClient.withBatchReply(404);
+        ProcessingResult status = compactProcessor.process(Collections.<ReplicationTask>singletonList(heartbeatTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Failed));
+    }
+
+    @Test
+    public void testAsyncBatchableTaskListExecution() throws Exception {
+        ReplicationTaskProcessor compactProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, true);
+        TestableInstanceReplicationTask registerTask = aReplicationTask().withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withInstanceInfo(InstanceInfoGenerator.takeOne()).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200, 200);
+        RecordingCallback callback = new RecordingCallback();
+        compactProcessor.processAsync(Arrays.<ReplicationTask>asList(heartbeatTask, registerTask), callback);
+
+        assertThat(callback.results.poll(5, TimeUnit.SECONDS), is(ProcessingResult.Success));
+        assertThat(registerTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.HeartbeatBatch));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.MILLISECONDS).getRequestType(), is(RequestType.Batch));
+    }
+
+    @Test
+    public void testAsyncBatchableTaskNetworkFailureHandling() throws Exception {
+        TestableInstanceReplicationTask task = aReplicationTask().build();
+
+        replicationClient.withNetworkError(1);
+        RecordingCallback callback = new RecordingCallback();
+        replicationTaskProcessor.processAsync(Collections.<ReplicationTask>singletonList(task), callback);
+
+        assertThat(callback.results.poll(5, TimeUnit.SECONDS), is(ProcessingResult.TransientError));
+        assertThat(task.getProcessingState(), is(ProcessingState.Pending));
+    }
+
+    static class RecordingCallback implements Callback {
+
+        final BlockingQueue<ProcessingResult> results = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onCompleted(ProcessingResult result) {
+            results.add(result);
+        }
+    }
+}
@@ -13,7 +13,10 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
@@ -113,6 +116,26 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         throw new IllegalStateException("method not supported");
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplications(InterestSet interestSet) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDelta(InterestSet interestSet) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(long registryVersion, InterestSet interestSet) {
+        throw new IllegalStateException("method not supported");
+    }
+
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress) {
         throw new IllegalStateException("method not supported");
@@ -163,11 +186,59 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         return anEurekaHttpResponse(statusCode, replicationListResponse).type(MediaType.APPLICATION_JSON_TYPE).build();
     }
 
+    @Override
+    public EurekaHttpResponse<HeartbeatListResponse> submitHeartbeats(HeartbeatList heartbeatList) {
+        if (networkFailureCounter.get() < networkFailuresRepeatCount) {
+            networkFailureCounter.incrementAndGet();
+            throw new RuntimeException(new IOException("simulated network failure"));
+        }
+
+        // Heartbeats fail with the batch reply status code, if it is not a success
+        HeartbeatListResponse heartbeatListResponse = new HeartbeatListResponse();
+        if (batchStatusCode < 200 || batchStatusCode >= 300) {
+            for (int i = 0; i < heartbeatList.size(); i++) {
+                heartbeatListResponse.addFailure(i, new ReplicationInstanceResponse(batchStatusCode, instanceInfoFromPeer));
+            }
+        }
+
+        handledRequests.add(new HandledRequest(RequestType.HeartbeatBatch, heartbeatList));
+
+        int statusCode = networkStatusCodes[callCounter.getAndIncrement()];
+        return anEurekaHttpResponse(statusCode, heartbeatListResponse).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Replies are delivered from the calling thread.
+     */
+    @Override
+    public void submitBatchUpdatesAsync(ReplicationList replicationList, ReplicationCallback<ReplicationListResponse> callback) {
+        EurekaHttpResponse<ReplicationListResponse> response;
+        try {
+            response = submitBatchUpdates(replicationList);
+        } catch (Throwable e) {
+            callback.onError(e);
+            return;
+        }
+        callback.onResponse(response);
+    }
+
+    @Override
+    public void submitHeartbeatsAsync(HeartbeatList heartbeatList, ReplicationCallback<HeartbeatListResponse> callback) {
+        EurekaHttpResponse<HeartbeatListResponse> response;
+        try {
+            response = submitHeartbeats(heartbeatList);
+        } catch (Throwable e) {
+            callback.onError(e);
+            return;
+        }
+        callback.onResponse(response);
+    }
+
     @Override
     public void shutdown() {
     }
 
-    public enum RequestType {Heartbeat, Register, Cancel, StatusUpdate, DeleteStatusOverride, AsgStatusUpdate, Batch}
+    public enum RequestType {Heartbeat, Register, Cancel, StatusUpdate, DeleteStatusOverride, AsgStatusUpdate, Batch, HeartbeatBatch}
 
     public static class HandledRequest {
         private final RequestType requestType;
@@ -3,6 +3,7 @@ package com.netflix.eureka.cluster;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 
@@ -33,6 +34,16 @@ class TestableInstanceReplicationTask extends InstanceReplicationTask {
         this.networkFailuresRepeatCount = networkFailuresRepeatCount;
     }
 
+    TestableInstanceReplicationTask(String peerNodeName,
+                                    InstanceInfo instanceInfo,
+                                    Action action,
+                                    int replyStatusCode,
+                                    int networkFailuresRepeatCount) {
+        super(peerNodeName, action, instanceInfo, null, false);
+        this.replyStatusCode = replyStatusCode;
+        this.networkFailuresRepeatCount = networkFailuresRepeatCount;
+    }
+
     @Override
     public EurekaHttpResponse<Void> execute() throws Throwable {
         if (triggeredNetworkFailures < networkFailuresRepeatCount) {
@@ -67,6 +78,7 @@ class TestableInstanceReplicationTask extends InstanceReplicationTask {
         private int replyStatusCode = 200;
         private Action action = Action.Heartbeat;
         private int networkFailuresRepeatCount;
+        private InstanceInfo instanceInfo;
 
         public TestableReplicationTaskBuilder withReplyStatusCode(int replyStatusCode) {
             this.replyStatusCode = replyStatusCode;
@@ -83,7 +95,21 @@ class TestableInstanceReplicationTask extends InstanceReplicationTask {
             return this;
         }
 
+        public TestableReplicationTaskBuilder withInstanceInfo(InstanceInfo instanceInfo) {
+            this.instanceInfo = instanceInfo;
+            return this;
+        }
+
         public TestableInstanceReplicationTask build() {
+            if (instanceInfo != null) {
+                return new TestableInstanceReplicationTask(
+                        "peerNodeName#test",
+                        instanceInfo,
+                        action,
+                        replyStatusCode,
+                        networkFailuresRepeatCount
+                );
+            }
             return new TestableInstanceReplicationTask(
                     "peerNodeName#test",
                     APP_NAME,
@@ -60,4 +60,32 @@ public class JacksonEncodingTest {
 
         assertThat(decodedValue, is(equalTo(replicationListResponse)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHeartbeatListEncoding() throws Exception {
+        HeartbeatList heartbeatList = HeartbeatList.newBuilder(2)
+                .withHeartbeat("app1", "id1", 1L)
+                .withHeartbeat("app1", "id2", 2L)
+                .withHeartbeat("app2", "id3", 3L)
+                .build();
+
+        // Encode / decode
+        String jsonText = jacksonCodec.writeToString(heartbeatList);
+        HeartbeatList decodedValue = jacksonCodec.readValue(HeartbeatList.class, jsonText);
+
+        assertThat(decodedValue, is(equalTo(heartbeatList)));
+        assertThat(decodedValue.getAppName(2), is(equalTo("app2")));
+    }
+
+    @Test
+    public void testHeartbeatListResponseEncoding() throws Exception {
+        HeartbeatListResponse heartbeatListResponse = new HeartbeatListResponse();
+        heartbeatListResponse.addFailure(1, ClusterSampleData.newReplicationInstanceResponse(true));
+
+        // Encode / decode
+        String jsonText = jacksonCodec.writeToString(heartbeatListResponse);
+        HeartbeatListResponse decodedValue = jacksonCodec.readValue(HeartbeatListResponse.class, jsonText);
+
+        assertThat(decodedValue, is(equalTo(heartbeatListResponse)));
+    }
+}
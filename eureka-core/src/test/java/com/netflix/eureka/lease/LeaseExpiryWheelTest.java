@@ -0,0 +1,79 @@
+package com.netflix.eureka.lease;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class LeaseExpiryWheelTest {
+
+    private static final long TICK_MS = 1000;
+
+    private final long startTime = System.currentTimeMillis();
+    private final LeaseExpiryWheel<String> wheel = new LeaseExpiryWheel<>(TICK_MS, 16, startTime);
+
+    @Test
+    public void testLeaseIsCollectedOnceExpired() throws Exception {
+        Lease<String> lease = new Lease<>("instance", 10);
+        wheel.schedule(lease);
+
+        assertThat(wheel.collectExpired(lease.getExpirationTimestamp(), 0).isEmpty(), is(true));
+
+        List<Lease<String>> expired = wheel.collectExpired(lease.getExpirationTimestamp() + 1, 0);
+        assertThat(expired.size(), is(equalTo(1)));
+        assertThat(expired.get(0), is(sameInstance(lease)));
+
+        // Collected leases are removed from the wheel
+        assertThat(wheel.collectExpired(lease.getExpirationTimestamp() + 1, 0).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRenewedLeaseIsScheduledAgain() throws Exception {
+        Lease<String> lease = new Lease<>("instance", 10);
+        wheel.schedule(lease);
+        long initialExpiration = lease.getExpirationTimestamp();
+        lease.renew();
+
+        assertThat(wheel.collectExpired(initialExpiration + 1, 0).isEmpty(), is(true));
+
+        List<Lease<String>> expired = wheel.collectExpired(lease.getExpirationTimestamp() + 1, 0);
+        assertThat(expired.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testLeaseBeyondWheelSpanIsCollected() throws Exception {
+        // Lease duration is longer than the 16 second wheel span
+        Lease<String> lease = new Lease<>("instance", 60);
+        wheel.schedule(lease);
+
+        for (long time = startTime; time <= lease.getExpirationTimestamp(); time += TICK_MS) {
+            assertThat(wheel.collectExpired(time, 0).isEmpty(), is(true));
+        }
+        assertThat(wheel.collectExpired(lease.getExpirationTimestamp() + TICK_MS, 0).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testAdditionalLeaseTimeDelaysExpiry() throws Exception {
+        Lease<String> lease = new Lease<>("instance", 10);
+        wheel.schedule(lease);
+
+        long additionalLeaseMs = 5000;
+        assertThat(wheel.collectExpired(lease.getExpirationTimestamp() + 1, additionalLeaseMs).isEmpty(), is(true));
+        assertThat(wheel.collectExpired(lease.getExpirationTimestamp() + additionalLeaseMs + 1, additionalLeaseMs).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testLeaseScheduledAgainAfterExpiryIsCollectedNextTime() throws Exception {
+        Lease<String> lease = new Lease<>("instance", 10);
+        wheel.schedule(lease);
+
+        long now = lease.getExpirationTimestamp() + 1;
+        assertThat(wheel.collectExpired(now, 0).size(), is(equalTo(1)));
+        wheel.schedule(lease);
+        assertThat(wheel.collectExpired(now, 0).size(), is(equalTo(1)));
+    }
+}
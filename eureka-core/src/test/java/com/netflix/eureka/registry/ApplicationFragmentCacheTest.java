@@ -0,0 +1,85 @@
+package com.netflix.eureka.registry;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.Version;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ApplicationFragmentCacheTest {
+
+    private final ApplicationFragmentCache fragmentCache = new ApplicationFragmentCache(180);
+
+    @Test
+    public void testAssembledPayloadIsIdenticalToEncodedPayload() throws Exception {
+        Applications apps = InstanceInfoGenerator.newBuilder(20, 5).withMetaData(true).build().toApplications();
+
+        verifyAssembledPayload(CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class), Key.KeyType.JSON, EurekaAccept.full, apps);
+        verifyAssembledPayload(CodecWrappers.getCodec(CodecWrappers.JacksonJsonMini.class), Key.KeyType.JSON, EurekaAccept.compact, apps);
+        verifyAssembledPayload(CodecWrappers.getCodec(CodecWrappers.XStreamXml.class), Key.KeyType.XML, EurekaAccept.full, apps);
+        verifyAssembledPayload(CodecWrappers.getCodec(CodecWrappers.JacksonXmlMini.class), Key.KeyType.XML, EurekaAccept.compact, apps);
+    }
+
+    @Test
+    public void testInvalidatedApplicationIsEncodedAgain() throws Exception {
+        CodecWrapper codec = CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class);
+        Applications apps = InstanceInfoGenerator.newBuilder(4, 2).build().toApplications();
+        verifyAssembledPayload(codec, Key.KeyType.JSON, EurekaAccept.full, apps);
+
+        long generation = fragmentCache.getGeneration();
+        Application app = apps.getRegisteredApplications().get(0);
+        InstanceInfo removed = app.getInstances().get(0);
+        app.removeInstance(removed);
+        fragmentCache.invalidate(app.getName());
+
+        Key key = allAppsKey(Key.KeyType.JSON, EurekaAccept.full);
+        assertThat(fragmentCache.encode(key, codec, apps, generation), is(equalTo(codec.encode(apps))));
+    }
+
+    @Test
+    public void testGenerationsOfRemovedApplicationsArePruned() throws Exception {
+        CodecWrapper codec = CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class);
+        Applications apps = InstanceInfoGenerator.newBuilder(4, 2).build().toApplications();
+        Key key = allAppsKey(Key.KeyType.JSON, EurekaAccept.full);
+
+        fragmentCache.invalidate(apps.getRegisteredApplications().get(0).getName());
+        fragmentCache.invalidate("REMOVED-APP");
+        long generation = fragmentCache.getGeneration();
+        // Invalidated after the snapshot, so possibly registered again since
+        fragmentCache.invalidate("REGISTERED-AGAIN-APP");
+
+        assertThat(fragmentCache.encode(key, codec, apps, generation), is(equalTo(codec.encode(apps))));
+        assertThat(fragmentCache.getTrackedApplicationCount(), is(equalTo(2)));
+    }
+
+    @Test
+    public void testSingleApplicationIsNotAssembled() throws Exception {
+        CodecWrapper codec = CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class);
+        Applications apps = InstanceInfoGenerator.newBuilder(2, 1).build().toApplications();
+
+        Key key = allAppsKey(Key.KeyType.JSON, EurekaAccept.full);
+        assertThat(fragmentCache.encode(key, codec, apps, fragmentCache.getGeneration()), is(nullValue()));
+    }
+
+    private void verifyAssembledPayload(CodecWrapper codec, Key.KeyType keyType, EurekaAccept accept, Applications apps) throws Exception {
+        Key key = allAppsKey(keyType, accept);
+        String expected = codec.encode(apps);
+
+        // First build encodes all fragments, the second one reuses them
+        assertThat(fragmentCache.encode(key, codec, apps, fragmentCache.getGeneration()), is(equalTo(expected)));
+        assertThat(fragmentCache.encode(key, codec, apps, fragmentCache.getGeneration()), is(equalTo(expected)));
+    }
+
+    private static Key allAppsKey(Key.KeyType keyType, EurekaAccept accept) {
+        return new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS, keyType, Version.V2, accept);
+    }
+}
@@ -1,20 +1,25 @@
 package com.netflix.eureka.registry;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.DefaultEurekaClientConfig;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.AbstractTester;
+import com.netflix.eureka.resources.DefaultServerCodecs;
 import org.junit.Assert;
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
@@ -126,6 +131,55 @@ public class InstanceRegistryTest extends AbstractTester {
 
     }
 
+    @Test
+    public void testDeltaSinceHasOnlyLaterChanges() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME));
+        long sinceVersion = registry.getRegistryVersion();
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME));
+
+        Applications delta = registry.getApplicationDeltasSince(sinceVersion);
+        assertThat(delta, is(notNullValue()));
+        assertThat(delta.getVersion(), is(equalTo(registry.getRegistryVersion())));
+        assertThat(delta.getRegisteredApplications().size(), is(equalTo(1)));
+        List<InstanceInfo> instances = delta.getRegisteredApplications(LOCAL_REGION_APP_NAME).getInstances();
+        assertThat(instances.size(), is(equalTo(1)));
+        assertThat(instances.get(0).getHostName(), is(equalTo(LOCAL_REGION_INSTANCE_2_HOSTNAME)));
+        assertThat(delta.getAppsHashCode(), is(equalTo(registry.getApplicationsFromLocalRegionOnly().getReconcileHashCode())));
+
+        Applications upToDate = registry.getApplicationDeltasSince(registry.getRegistryVersion());
+        assertThat(upToDate.getRegisteredApplications().size(), is(equalTo(0)));
+        assertThat(upToDate.getVersion(), is(equalTo(registry.getRegistryVersion())));
+    }
+
+    @Test
+    public void testDeltaSinceVersionOlderThanRetentionIsGone() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        long sinceVersion = registry.getRegistryVersion();
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME));
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME));
+        assertThat(registry.getApplicationDeltasSince(sinceVersion), is(notNullValue()));
+
+        doReturn(0L).when(serverConfig).getRetentionTimeInMSInDeltaQueue();
+        Thread.sleep(5);
+        registry.truncateChangeLog();
+
+        assertThat(registry.getApplicationDeltasSince(sinceVersion), is(nullValue()));
+        assertThat(registry.getApplicationDeltasSince(registry.getRegistryVersion() + 1), is(nullValue()));
+    }
+
+    @Test
+    public void testDeltaSinceIsGoneWhenRemoteRegionsAreServed() throws Exception {
+        long sinceVersion = registry.getRegistryVersion();
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME));
+
+        // With fallback enabled the full registry includes the remote region, which the change log does not cover
+        assertThat(registry.getApplicationDeltasSince(sinceVersion), is(nullValue()));
+
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        assertThat(registry.getApplicationDeltasSince(sinceVersion), is(notNullValue()));
+    }
+
     @Test
     public void testStatusOverrideSetAndRemoval() throws Exception {
         // Regular registration first
@@ -152,6 +206,98 @@ public class InstanceRegistryTest extends AbstractTester {
         verifyLocalInstanceStatus(myInstance.getId(), InstanceStatus.UP);
     }
 
+    @Test
+    public void testVipIndexFollowsRegistrations() throws Exception {
+        // With transparent fallback VIP queries include remote region instances, which are not indexed
+        assertThat(registry.getApplicationsForVip("myvip", false), is(nullValue()));
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+
+        InstanceInfo first = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME))
+                .setVIPAddress("myvip,othervip").setSecureVIPAddress("mysvip").build();
+        InstanceInfo second = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME))
+                .setVIPAddress("myvip").build();
+        registerInstanceLocally(first);
+        registerInstanceLocally(second);
+
+        assertThat(countVipInstances("myvip", false), is(equalTo(2)));
+        assertThat(countVipInstances("othervip", false), is(equalTo(1)));
+        assertThat(countVipInstances("mysvip", true), is(equalTo(1)));
+        assertThat(countVipInstances("mysvip", false), is(equalTo(0)));
+
+        // Re-registration with a different VIP address moves the instance to the new VIP
+        registerInstanceLocally(new InstanceInfo.Builder(first).setVIPAddress("newvip").build());
+        assertThat(countVipInstances("myvip", false), is(equalTo(1)));
+        assertThat(countVipInstances("othervip", false), is(equalTo(0)));
+        assertThat(countVipInstances("newvip", false), is(equalTo(1)));
+
+        // Status updates are visible through the index
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, second.getId(), InstanceStatus.OUT_OF_SERVICE, "0", false);
+        InstanceInfo updated = registry.getApplicationsForVip("myvip", false)
+                .getRegisteredApplications(LOCAL_REGION_APP_NAME).getByInstanceId(second.getId());
+        assertThat(updated.getStatus(), is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+
+        registry.cancel(LOCAL_REGION_APP_NAME, second.getId(), false);
+        assertThat(countVipInstances("myvip", false), is(equalTo(0)));
+    }
+
+    @Test
+    public void testVipIndexDropsAddressesWithoutInstances() throws Exception {
+        int indexSize = registry.getVipIndexSize();
+        List<InstanceInfo> instances = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            InstanceInfo instance = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME + i))
+                    .setVIPAddress("vip" + i).setSecureVIPAddress("svip" + i).build();
+            registerInstanceLocally(instance);
+            instances.add(instance);
+        }
+        assertThat(registry.getVipIndexSize(), is(equalTo(indexSize + 20)));
+
+        for (InstanceInfo instance : instances) {
+            registry.cancel(LOCAL_REGION_APP_NAME, instance.getId(), false);
+        }
+        assertThat(registry.getVipIndexSize(), is(equalTo(indexSize)));
+    }
+
+    @Test
+    public void testEvictionOfExpiredLeasesRespectsEvictionLimit() throws Exception {
+        doReturn(false).when(serverConfig).shouldEnableSelfPreservation();
+        doReturn(0.5).when(serverConfig).getRenewalPercentThreshold();
+        PeerAwareInstanceRegistryImpl evictingRegistry = new PeerAwareInstanceRegistryImpl(
+                serverConfig, new DefaultEurekaClientConfig(), new DefaultServerCodecs(serverConfig), client);
+        evictingRegistry.init(serverContext.getPeerEurekaNodes());
+        try {
+            // Zero lease duration, so the leases expire right after registration
+            evictingRegistry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), 0, true);
+            evictingRegistry.register(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME), 0, true);
+            Thread.sleep(10);
+
+            // The limit allows evicting one of the two leases per run, the other one is retried on the next run
+            evictingRegistry.evict();
+            assertThat(evictingRegistry.getLocalRegistrySize(), is(equalTo(1L)));
+            evictingRegistry.evict();
+            assertThat(evictingRegistry.getLocalRegistrySize(), is(equalTo(0L)));
+        } finally {
+            evictingRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void testRenewalOfInstancesSharingTheSameId() throws Exception {
+        InstanceInfo localInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        InstanceInfo otherAppInstance = createRemoteInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(localInstance);
+        registry.register(otherAppInstance, 10000000, false);
+        assertThat(otherAppInstance.getId(), is(equalTo(localInstance.getId())));
+
+        // Each renewal finds the lease of its own application
+        assertThat(registry.renewAndGetInstance(LOCAL_REGION_APP_NAME, localInstance.getId(), false), is(localInstance));
+        assertThat(registry.renewAndGetInstance(REMOTE_REGION_APP_NAME, localInstance.getId(), false), is(otherAppInstance));
+
+        registry.cancel(REMOTE_REGION_APP_NAME, otherAppInstance.getId(), false);
+        assertThat(registry.renew(REMOTE_REGION_APP_NAME, otherAppInstance.getId(), false), is(false));
+        assertThat(registry.renew(LOCAL_REGION_APP_NAME, localInstance.getId(), false), is(true));
+    }
+
     @Test
     public void testEvictionTaskCompensationTime() throws Exception {
         long evictionTaskPeriodNanos = serverConfig.getEvictionIntervalTimerInMs() * 1000000;
@@ -176,6 +322,14 @@ public class InstanceRegistryTest extends AbstractTester {
         assertThat("Invalid InstanceInfo state", instanceInfo.getStatus(), is(equalTo(status)));
     }
 
+    private int countVipInstances(String vipAddress, boolean secure) {
+        int count = 0;
+        for (Application app : registry.getApplicationsForVip(vipAddress, secure).getRegisteredApplications()) {
+            count += app.getInstances().size();
+        }
+        return count;
+    }
+
     private void registerInstanceLocally(InstanceInfo remoteInstance) {
         registry.register(remoteInstance, 10000000, false);
         registeredApps.add(new Pair<String, String>(LOCAL_REGION_APP_NAME, LOCAL_REGION_APP_NAME));
@@ -0,0 +1,149 @@
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RegistryChangeLogTest {
+
+    private final RegistryChangeLog changeLog = new RegistryChangeLog(4);
+
+    @Test
+    public void testVersionsAreAssignedInOrder() throws Exception {
+        appendChanges(3);
+
+        assertThat(changeLog.getVersion(), is(equalTo(3L)));
+        List<RegistryChangeLog.Change> changes = changeLog.getChanges();
+        assertThat(changes.size(), is(equalTo(3)));
+        for (int i = 0; i < changes.size(); i++) {
+            assertThat(changes.get(i).getVersion(), is(equalTo(i + 1L)));
+        }
+    }
+
+    @Test
+    public void testLogGrowsBeyondInitialCapacity() throws Exception {
+        appendChanges(10);
+
+        assertThat(changeLog.size(), is(equalTo(10)));
+        assertThat(changeLog.getChanges().size(), is(equalTo(10)));
+        assertThat(changeLog.getChangesSince(7).size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testChangesSinceCurrentVersionIsEmpty() throws Exception {
+        appendChanges(2);
+        assertThat(changeLog.getChangesSince(2).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testTruncationKeepsVersionMonotonic() throws Exception {
+        appendChanges(5);
+        assertThat(changeLog.truncate(Long.MAX_VALUE), is(equalTo(5)));
+        assertThat(changeLog.size(), is(equalTo(0)));
+
+        appendChanges(2);
+        assertThat(changeLog.getVersion(), is(equalTo(7L)));
+        assertThat(changeLog.getOldestVersion(), is(equalTo(6L)));
+        assertThat(changeLog.getChangesSince(5).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void testChangesSinceTruncatedVersionIsNull() throws Exception {
+        appendChanges(5);
+        changeLog.truncate(Long.MAX_VALUE);
+        appendChanges(1);
+
+        assertThat(changeLog.getChangesSince(3), is(nullValue()));
+    }
+
+    @Test
+    public void testChangesSinceVersionAheadOfLogIsNull() throws Exception {
+        appendChanges(2);
+        assertThat(changeLog.getChangesSince(3), is(nullValue()));
+    }
+
+    @Test
+    public void testLogStartsFromInitialVersion() throws Exception {
+        RegistryChangeLog log = new RegistryChangeLog(4, 100);
+        assertThat(log.getVersion(), is(equalTo(100L)));
+        assertThat(log.getChangesSince(100).isEmpty(), is(true));
+
+        log.append(new Lease<InstanceInfo>(null, 90));
+        assertThat(log.getVersion(), is(equalTo(101L)));
+        assertThat(log.getChangesSince(100).size(), is(equalTo(1)));
+        assertThat(log.getChangesSince(99), is(nullValue()));
+    }
+
+    @Test
+    public void testTruncationStopsAtFirstRetainedChange() throws Exception {
+        appendChanges(3);
+        assertThat(changeLog.truncate(0), is(equalTo(0)));
+        assertThat(changeLog.size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testConcurrentAppendsPublishCompleteRange() throws Exception {
+        final int threads = 4;
+        final int appendsPerThread = 2000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < appendsPerThread; j++) {
+                        changeLog.append(new Lease<InstanceInfo>(null, 90));
+                        // Whatever is published must be a complete range of changes
+                        long version = changeLog.getVersion();
+                        List<RegistryChangeLog.Change> changes = changeLog.getChangesSince(0);
+                        if (changes.size() != version || changes.get(changes.size() - 1).getVersion() != version) {
+                            throw new IllegalStateException("Incomplete range of changes published up to " + version);
+                        }
+                    }
+                }
+            });
+            writer.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    failure.set(e);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        startLatch.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertThat(failure.get(), is(nullValue()));
+        assertThat(changeLog.getVersion(), is(equalTo((long) threads * appendsPerThread)));
+        List<RegistryChangeLog.Change> changes = changeLog.getChanges();
+        assertThat(changes.size(), is(equalTo(threads * appendsPerThread)));
+        for (int i = 0; i < changes.size(); i++) {
+            assertThat(changes.get(i).getVersion(), is(equalTo(i + 1L)));
+        }
+    }
+
+    private void appendChanges(int count) {
+        for (int i = 0; i < count; i++) {
+            changeLog.append(new Lease<InstanceInfo>(null, 90));
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.netflix.eureka.registry;
 
 import com.netflix.appinfo.EurekaAccept;
 import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
+import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.DefaultEurekaServerConfig;
 import com.netflix.eureka.EurekaServerConfig;
@@ -11,6 +15,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 
@@ -54,6 +61,18 @@ public class ResponseCacheTest extends AbstractTester {
         Assert.assertNull("Cache after invalidate did not return null for write view.", cache.get(key, true));
     }
 
+    @Test
+    public void testGetBytesMatchesPayload() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        String response = cache.get(key, false);
+        Assert.assertNotNull("Cache get returned null.", response);
+
+        ByteBuffer bytes = cache.getBytes(key);
+        Assert.assertEquals(response, StandardCharsets.UTF_8.decode(bytes).toString());
+    }
+
     @Test
     public void testInvalidateWithRemoteRegion() throws Exception {
         ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
@@ -91,4 +110,146 @@ public class ResponseCacheTest extends AbstractTester {
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key1, true));
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key2, true));
     }
+
+    @Test
+    public void testDeltaSinceIsCachedUntilTheRegistryChanges() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        ResponseCacheImpl cache = (ResponseCacheImpl) registry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        long sinceVersion = registry.getRegistryVersion();
+        int currentSize = cache.getCurrentSize();
+
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), 10000000, false);
+        registeredApps.add(new Pair<String, String>(LOCAL_REGION_APP_NAME, LOCAL_REGION_INSTANCE_1_HOSTNAME));
+
+        String payload = cache.getDeltaSince(key, sinceVersion);
+        Assert.assertNotNull("Delta since version returned null.", payload);
+        Applications delta = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class).decode(payload, Applications.class);
+        Assert.assertEquals(registry.getRegistryVersion(), delta.getVersion().longValue());
+        Assert.assertNotNull(delta.getRegisteredApplications(LOCAL_REGION_APP_NAME)
+                .getByInstanceId(LOCAL_REGION_INSTANCE_1_HOSTNAME));
+        Assert.assertEquals(currentSize, cache.getCurrentSize());
+        Assert.assertSame("Delta since version was not cached.", payload, cache.getDeltaSince(key, sinceVersion));
+        Assert.assertNotNull(cache.getDeltaSinceGZIP(key, sinceVersion));
+        Assert.assertEquals(1, cache.getDeltaSinceSize());
+
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME), 10000000, false);
+        registeredApps.add(new Pair<String, String>(LOCAL_REGION_APP_NAME, LOCAL_REGION_INSTANCE_2_HOSTNAME));
+
+        delta = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class)
+                .decode(cache.getDeltaSince(key, sinceVersion), Applications.class);
+        Assert.assertEquals(registry.getRegistryVersion(), delta.getVersion().longValue());
+        Assert.assertNotNull(delta.getRegisteredApplications(LOCAL_REGION_APP_NAME)
+                .getByInstanceId(LOCAL_REGION_INSTANCE_2_HOSTNAME));
+
+        Assert.assertNull("Delta since unknown version was not null.",
+                cache.getDeltaSince(key, registry.getRegistryVersion() + 1));
+    }
+
+    @Test
+    public void testInterestSetKeysAreBounded() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn("2").when(serverConfig).getExperimental("responseCache.interest.maxKeys");
+        PeerAwareInstanceRegistry interestRegistry = newRegistry(serverConfig);
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) interestRegistry.getResponseCache();
+        int currentSize = cache.getCurrentSize();
+        for (int i = 0; i < 5; i++) {
+            Key key = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                    Key.KeyType.JSON, Version.V1, EurekaAccept.full, null,
+                    InterestSet.newBuilder().withApplication("app" + i).build());
+            Assert.assertNotNull("Cache get returned null.", cache.get(key));
+        }
+
+        Assert.assertTrue("Interest set keys are not bounded.", cache.getInterestSize() <= 2);
+        Assert.assertEquals(currentSize, cache.getCurrentSize());
+        interestRegistry.shutdown();
+    }
+
+    @Test
+    public void testBackgroundRefreshServesPreviousValueUntilRefreshed() throws Exception {
+        EurekaServerConfig serverConfig = newBackgroundRefreshConfig();
+        doReturn(false).when(serverConfig).shouldUseReadOnlyResponseCache();
+        PeerAwareInstanceRegistry refreshingRegistry = newRegistry(serverConfig);
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) refreshingRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, false));
+
+        refreshingRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        Assert.assertNotNull("Previous value not served during refresh.", cache.get(key, false));
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (cache.get(key, false) != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        Assert.assertNull("Cache was not refreshed in the background.", cache.get(key, false));
+        refreshingRegistry.shutdown();
+    }
+
+    @Test
+    public void testBackgroundRefreshRunsWithReadOnlyCacheUpdate() throws Exception {
+        EurekaServerConfig serverConfig = newBackgroundRefreshConfig();
+        doReturn(true).when(serverConfig).shouldUseReadOnlyResponseCache();
+        doReturn(200L).when(serverConfig).getResponseCacheUpdateIntervalMs();
+        PeerAwareInstanceRegistry refreshingRegistry = newRegistry(serverConfig);
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) refreshingRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, true));
+
+        refreshingRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (cache.get(key, true) != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        Assert.assertNull("Read only cache was not updated with the refreshed value.", cache.get(key, true));
+        Assert.assertEquals(0, cache.getRefreshPendingSize());
+        refreshingRegistry.shutdown();
+    }
+
+    @Test
+    public void testBackgroundRefreshSkipsKeysNotReadRecently() throws Exception {
+        EurekaServerConfig serverConfig = newBackgroundRefreshConfig();
+        doReturn(false).when(serverConfig).shouldUseReadOnlyResponseCache();
+        doReturn("0").when(serverConfig).getExperimental("responseCache.backgroundRefresh.readWindowMs");
+        PeerAwareInstanceRegistry refreshingRegistry = newRegistry(serverConfig);
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) refreshingRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, false));
+        Thread.sleep(10);
+
+        refreshingRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+        Assert.assertEquals(0, cache.getRefreshPendingSize());
+        Assert.assertNull("Key not read recently was not invalidated.", cache.get(key, false));
+        refreshingRegistry.shutdown();
+    }
+
+    private static EurekaServerConfig newBackgroundRefreshConfig() {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn("true").when(serverConfig).getExperimental("responseCache.backgroundRefresh.enabled");
+        doReturn("500").when(serverConfig).getExperimental("responseCache.backgroundRefresh.coalesceWindowMs");
+        return serverConfig;
+    }
+
+    private PeerAwareInstanceRegistry newRegistry(EurekaServerConfig serverConfig) throws Exception {
+        PeerAwareInstanceRegistry registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+        return registry;
+    }
 }
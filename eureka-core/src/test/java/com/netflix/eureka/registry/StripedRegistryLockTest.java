@@ -0,0 +1,55 @@
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StripedRegistryLockTest {
+
+    @Test
+    public void testStripesAreRoundedToPowerOfTwo() throws Exception {
+        assertThat(new StripedRegistryLock(1).getStripes(), is(equalTo(2)));
+        assertThat(new StripedRegistryLock(48).getStripes(), is(equalTo(64)));
+        assertThat(new StripedRegistryLock(64).getStripes(), is(equalTo(64)));
+    }
+
+    @Test
+    public void testMutationInProgressIsVisibleAcrossStripes() throws Exception {
+        StripedRegistryLock registryLock = new StripedRegistryLock(16);
+        assertThat(registryLock.isMutationInProgress(), is(false));
+
+        Lock appLock = registryLock.forApplication("MYAPP");
+        appLock.lock();
+        try {
+            assertThat(registryLock.isMutationInProgress(), is(true));
+        } finally {
+            appLock.unlock();
+        }
+        assertThat(registryLock.isMutationInProgress(), is(false));
+    }
+
+    @Test
+    public void testLockAllBlocksMutations() throws Exception {
+        final StripedRegistryLock registryLock = new StripedRegistryLock(4);
+        registryLock.lockAll();
+        Thread mutator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Lock appLock = registryLock.forApplication("MYAPP");
+                appLock.lock();
+                appLock.unlock();
+            }
+        });
+        mutator.start();
+        mutator.join(100);
+        assertThat(mutator.isAlive(), is(true));
+
+        registryLock.unlockAll();
+        mutator.join();
+        assertThat(mutator.isAlive(), is(false));
+    }
+}
@@ -7,6 +7,7 @@ import com.netflix.discovery.converters.wrappers.CodecWrappers;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.util.InstanceInfoGenerator;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.Version;
@@ -14,10 +15,17 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 import javax.ws.rs.core.Response;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
 
 /**
  * @author David Liu
@@ -50,7 +58,8 @@ public class ApplicationsResourceTest extends AbstractTester {
                 null, // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // interest set
         );
 
         String json = String.valueOf(response.getEntity());
@@ -72,7 +81,8 @@ public class ApplicationsResourceTest extends AbstractTester {
                 "gzip", // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // interest set
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
@@ -87,13 +97,125 @@ public class ApplicationsResourceTest extends AbstractTester {
                 "gzip", // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // interest set
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
         assertThat(response.getMetadata().getFirst("Content-Type").toString(), is(MediaType.APPLICATION_XML));
     }
 
+    @Test
+    public void testInterestSetAppsGet() throws Exception {
+        List<Application> apps = testApplications.getRegisteredApplications();
+        Application byName = apps.get(0);
+        Application byVip = apps.get(1);
+        String interest = "app:" + byName.getName() + ",vip:" + byVip.getInstances().get(0).getVIPAddress();
+
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null,  // uriInfo
+                null,  // remote regions
+                interest
+        );
+
+        String json = String.valueOf(response.getEntity());
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+
+        Applications decoded = decoder.decode(json, Applications.class);
+        assertThat(decoded.getRegisteredApplications().size(), is(2));
+        assertThat(EurekaEntityComparators.equal(byName, decoded.getRegisteredApplications(byName.getName())), is(true));
+        assertThat(EurekaEntityComparators.equal(byVip, decoded.getRegisteredApplications(byVip.getName())), is(true));
+        assertThat(decoded.getAppsHashCode(), is(decoded.getReconcileHashCode()));
+    }
+
+    @Test
+    public void testInvalidInterestSetGet() throws Exception {
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null,  // uriInfo
+                null,  // remote regions
+                "host:unknown"
+        );
+
+        assertThat(response.getStatus(), is(400));
+    }
+
+    @Test
+    public void testOversizedInterestSetGet() throws Exception {
+        StringBuilder interest = new StringBuilder();
+        for (int i = 0; i <= InterestSet.MAX_ENTRIES; i++) {
+            interest.append("app:app").append(i).append(',');
+        }
+
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null,  // uriInfo
+                null,  // remote regions
+                interest.toString()
+        );
+
+        assertThat(response.getStatus(), is(400));
+    }
+
+    @Test
+    public void testDeltaSinceGet() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        long registryVersion = registry.getRegistryVersion();
+        Response response = getDeltaSince(null, String.valueOf(registryVersion - 1));
+
+        assertThat(response.getStatus(), is(200));
+        Applications decoded = decodeJson(String.valueOf(response.getEntity()));
+        assertThat(decoded.getVersion(), is(registryVersion));
+        assertThat(countInstances(decoded), is(1));
+    }
+
+    @Test
+    public void testDeltaSinceGetGzip() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        long registryVersion = registry.getRegistryVersion();
+        Response response = getDeltaSince("gzip", String.valueOf(registryVersion - 1));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
+        assertThat(response.getMetadata().getFirst("Content-Type").toString(), is(MediaType.APPLICATION_JSON));
+        Applications decoded = decodeJson(gunzip((byte[]) response.getEntity()));
+        assertThat(decoded.getVersion(), is(registryVersion));
+        assertThat(countInstances(decoded), is(1));
+    }
+
+    @Test
+    public void testDeltaSinceGetOfUnknownVersionIsGone() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        Response response = getDeltaSince(null, String.valueOf(registry.getRegistryVersion() + 1));
+
+        assertThat(response.getStatus(), is(410));
+    }
+
+    @Test
+    public void testDeltaSinceGetIsGoneWhenRemoteRegionsAreServed() throws Exception {
+        Response response = getDeltaSince(null, String.valueOf(registry.getRegistryVersion() - 1));
+
+        assertThat(response.getStatus(), is(410));
+    }
+
+    @Test
+    public void testDeltaSinceGetOfMalformedVersion() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        Response response = getDeltaSince(null, "not-a-version");
+
+        assertThat(response.getStatus(), is(400));
+    }
+
     @Test
     public void testMiniAppsGet() throws Exception {
         Response response = applicationsResource.getContainers(
@@ -102,7 +224,8 @@ public class ApplicationsResourceTest extends AbstractTester {
                 null, // encoding
                 EurekaAccept.compact.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // interest set
         );
 
         String json = String.valueOf(response.getEntity());
@@ -126,4 +249,45 @@ public class ApplicationsResourceTest extends AbstractTester {
             }
         }
     }
+
+    private Response getDeltaSince(String acceptEncoding, String since) {
+        return applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                acceptEncoding,
+                EurekaAccept.full.name(),
+                null,  // uriInfo
+                null,  // remote regions
+                since,
+                null  // interest set
+        );
+    }
+
+    private static Applications decodeJson(String json) throws IOException {
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+        return decoder.decode(json, Applications.class);
+    }
+
+    private static String gunzip(byte[] gzipped) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped));
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int countInstances(Applications applications) {
+        int count = 0;
+        for (Application application : applications.getRegisteredApplications()) {
+            count += application.getInstances().size();
+        }
+        return count;
+    }
 }
@@ -1,24 +1,41 @@
 package com.netflix.eureka.resources;
 
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.cluster.ClusterSampleData;
+import com.netflix.eureka.cluster.protocol.HeartbeatList;
+import com.netflix.eureka.cluster.protocol.HeartbeatListResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static com.netflix.eureka.cluster.ClusterSampleData.newReplicationInstanceOf;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,20 +48,32 @@ public class PeerReplicationResourceTest {
     private final ApplicationResource applicationResource = mock(ApplicationResource.class);
     private final InstanceResource instanceResource = mock(InstanceResource.class);
 
-    private final PeerReplicationResource peerReplicationResource = new PeerReplicationResource(mock(EurekaServerContext.class)) {
-        @Override
-        ApplicationResource createApplicationResource(ReplicationInstance instanceInfo) {
-            return applicationResource;
-        }
+    private final EurekaServerContext serverContext = mock(EurekaServerContext.class);
+    private final EurekaServerConfig serverConfig = ClusterSampleData.newEurekaServerConfig();
+    private final PeerAwareInstanceRegistry registry = mock(PeerAwareInstanceRegistry.class);
 
-        @Override
-        InstanceResource createInstanceResource(ReplicationInstance instanceInfo, ApplicationResource applicationResource) {
-            return instanceResource;
-        }
-    };
+    private PeerReplicationResource peerReplicationResource;
 
     private final InstanceInfo instanceInfo = ClusterSampleData.newInstanceInfo(0);
 
+    @Before
+    public void setUp() throws Exception {
+        when(serverContext.getServerConfig()).thenReturn(serverConfig);
+        when(serverContext.getRegistry()).thenReturn(registry);
+
+        peerReplicationResource = new PeerReplicationResource(serverContext) {
+            @Override
+            ApplicationResource createApplicationResource(ReplicationInstance instanceInfo) {
+                return applicationResource;
+            }
+
+            @Override
+            InstanceResource createInstanceResource(ReplicationInstance instanceInfo, ApplicationResource applicationResource) {
+                return instanceResource;
+            }
+        };
+    }
+
     @Test
     public void testRegisterBatching() throws Exception {
         ReplicationList replicationList = new ReplicationList(newReplicationInstanceOf(Action.Register, instanceInfo));
@@ -111,6 +140,119 @@ public class PeerReplicationResourceTest {
         );
     }
 
+    @Test
+    public void testCompactHeartbeats() throws Exception {
+        InstanceInfo missingInstance = ClusterSampleData.newInstanceInfo(1);
+        InstanceInfo newerInstance = ClusterSampleData.newInstanceInfo(2);
+        when(registry.renewAndGetInstance(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(instanceInfo);
+        when(registry.renewAndGetInstance(newerInstance.getAppName(), newerInstance.getId(), true)).thenReturn(newerInstance);
+
+        HeartbeatList heartbeatList = HeartbeatList.newBuilder(3)
+                .withHeartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo.getLastDirtyTimestamp())
+                .withHeartbeat(missingInstance.getAppName(), missingInstance.getId(), missingInstance.getLastDirtyTimestamp())
+                .withHeartbeat(newerInstance.getAppName(), newerInstance.getId(), newerInstance.getLastDirtyTimestamp() - 1)
+                .build();
+        Response response = new PeerReplicationResource(serverContext).batchHeartbeats(heartbeatList);
+
+        // Only the missing instance, and the one the peer has an older copy of, are reported back
+        HeartbeatListResponse entity = (HeartbeatListResponse) response.getEntity();
+        assertThat(entity.getFailedIndexes(), is(equalTo(Arrays.asList(1, 2))));
+        assertThat(entity.getFailedResponses().get(0).getStatusCode(), is(equalTo(404)));
+        assertThat(entity.getFailedResponses().get(1).getStatusCode(), is(equalTo(409)));
+        assertThat(entity.getFailedResponses().get(1).getResponseEntity(), is(nullValue()));
+    }
+
+    @Test
+    public void testDirtyTimestampConflictsAreRepliedAlikeOnCompactAndBulkPaths() throws Exception {
+        when(serverConfig.getExperimental("peerReplication.bulkApply.enabled")).thenReturn("true");
+        when(registry.renewAndGetInstance(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(instanceInfo);
+        when(registry.getInstanceByAppAndId(instanceInfo.getAppName(), instanceInfo.getId(), false)).thenReturn(instanceInfo);
+        long[] peerDirtyTimestamps = {instanceInfo.getLastDirtyTimestamp() - 1, instanceInfo.getLastDirtyTimestamp() + 1};
+
+        HeartbeatList.Builder heartbeats = HeartbeatList.newBuilder(peerDirtyTimestamps.length);
+        List<ReplicationInstance> replicationInstances = new ArrayList<>();
+        for (long peerDirtyTimestamp : peerDirtyTimestamps) {
+            heartbeats.withHeartbeat(instanceInfo.getAppName(), instanceInfo.getId(), peerDirtyTimestamp);
+            replicationInstances.add(ReplicationInstance.replicationInstance()
+                    .withAppName(instanceInfo.getAppName())
+                    .withId(instanceInfo.getId())
+                    .withLastDirtyTimestamp(peerDirtyTimestamp)
+                    .withAction(Action.Heartbeat)
+                    .build());
+        }
+        HeartbeatListResponse compactReplies = (HeartbeatListResponse) peerReplicationResource
+                .batchHeartbeats(heartbeats.build()).getEntity();
+        List<ReplicationInstanceResponse> bulkReplies = ((ReplicationListResponse) peerReplicationResource
+                .batchReplication(new ReplicationList(replicationInstances)).getEntity()).getResponseList();
+
+        // An older peer copy is a conflict, and a newer one is missing here; neither reply carries an instance
+        int[] expectedStatusCodes = {409, 404};
+        assertThat(compactReplies.getFailedIndexes(), is(equalTo(Arrays.asList(0, 1))));
+        for (int i = 0; i < expectedStatusCodes.length; i++) {
+            assertThat(compactReplies.getFailedResponses().get(i).getStatusCode(), is(equalTo(expectedStatusCodes[i])));
+            assertThat(compactReplies.getFailedResponses().get(i).getResponseEntity(), is(nullValue()));
+            assertThat(bulkReplies.get(i).getStatusCode(), is(equalTo(expectedStatusCodes[i])));
+            assertThat(bulkReplies.get(i).getResponseEntity(), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testBulkApply() throws Exception {
+        when(serverConfig.getExperimental("peerReplication.bulkApply.enabled")).thenReturn("true");
+        ExecutorService bulkApplyExecutor = Executors.newFixedThreadPool(4);
+        when(registry.getBulkApplyExecutor()).thenReturn(bulkApplyExecutor);
+        when(instanceResource.cancelLease(anyString())).thenReturn(Response.ok().build());
+
+        // The generator assigns instances to applications in turn, so all but the last are of different applications
+        InstanceInfo missingInstance = ClusterSampleData.newInstanceInfo(1);
+        InstanceInfo newerInstance = ClusterSampleData.newInstanceInfo(2);
+        InstanceInfo sameAppInstance = ClusterSampleData.newInstanceInfo(10);
+        final Map<String, InstanceInfo> registered = new HashMap<>();
+        registered.put(instanceInfo.getId(), instanceInfo);
+        registered.put(newerInstance.getId(), newerInstance);
+        registered.put(sameAppInstance.getId(), sameAppInstance);
+        when(registry.renewAndGetInstance(anyString(), anyString(), eq(true))).thenAnswer(new Answer<InstanceInfo>() {
+            @Override
+            public InstanceInfo answer(InvocationOnMock invocation) throws Throwable {
+                return registered.get(invocation.getArguments()[1]);
+            }
+        });
+        when(registry.getInstanceByAppAndId(eq(newerInstance.getAppName()), eq(newerInstance.getId()), eq(false))).thenReturn(newerInstance);
+
+        ReplicationInstance outdatedHeartbeat = ReplicationInstance.replicationInstance()
+                .withAppName(newerInstance.getAppName())
+                .withId(newerInstance.getId())
+                .withLastDirtyTimestamp(newerInstance.getLastDirtyTimestamp() - 1)
+                .withAction(Action.Heartbeat)
+                .build();
+        ReplicationList replicationList = new ReplicationList(Arrays.asList(
+                newReplicationInstanceOf(Action.Heartbeat, instanceInfo),
+                newReplicationInstanceOf(Action.Heartbeat, missingInstance),
+                newReplicationInstanceOf(Action.Cancel, instanceInfo),
+                outdatedHeartbeat,
+                newReplicationInstanceOf(Action.Heartbeat, sameAppInstance)
+        ));
+        Response response;
+        try {
+            response = peerReplicationResource.batchReplication(replicationList);
+        } finally {
+            bulkApplyExecutor.shutdown();
+        }
+
+        // Replies are in the batch order, and a conflict reply carries no instance, as on the regular path
+        List<ReplicationInstanceResponse> replies = ((ReplicationListResponse) response.getEntity()).getResponseList();
+        assertThat(replies.size(), is(equalTo(5)));
+        int[] expectedStatusCodes = {200, 404, 200, 409, 200};
+        for (int i = 0; i < expectedStatusCodes.length; i++) {
+            assertThat(replies.get(i).getStatusCode(), is(equalTo(expectedStatusCodes[i])));
+            assertThat(replies.get(i).getResponseEntity(), is(nullValue()));
+        }
+
+        verify(registry, times(4)).renewAndGetInstance(anyString(), anyString(), eq(true));
+        verify(instanceResource, times(1)).cancelLease("true");
+        verify(instanceResource, never()).renewLease(anyString(), anyString(), anyString(), anyString());
+    }
+
     private static void assertStatusOkReply(Response httpResponse) {
         ReplicationListResponse entity = (ReplicationListResponse) httpResponse.getEntity();
         assertThat(entity, is(notNullValue()));
@@ -0,0 +1,169 @@
+package com.netflix.eureka.util.batcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchingControllerTest {
+
+    private static final int MIN_BATCH_SIZE = 10;
+    private static final int MAX_BATCH_SIZE = 250;
+    private static final long TARGET_LATENCY_MS = 100;
+
+    private final AdaptiveBatchingController controller =
+            new AdaptiveBatchingController("TEST", MIN_BATCH_SIZE, MAX_BATCH_SIZE, TARGET_LATENCY_MS);
+
+    private long clock = 1000;
+
+    @Test
+    public void testInitialStateIsNotLimited() throws Exception {
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE)));
+        assertThat(controller.getSendRateLimit(), is(equalTo(0.0)));
+        controller.onBatchSent();
+        assertThat(controller.sendDelay(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testCongestionHalvesBatchSize() throws Exception {
+        complete(ProcessingResult.Congestion, 10);
+
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE / 2)));
+        assertThat(controller.getSendRateLimit(), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void testCongestionAtMinimumBatchSizeLimitsSendRate() throws Exception {
+        reduceToMinimumBatchSize();
+        controller.onBatchSent();
+        complete(ProcessingResult.Congestion, 10);
+
+        assertThat(controller.getBatchSize(), is(equalTo(MIN_BATCH_SIZE)));
+        assertTrue(controller.getSendRateLimit() > 0);
+
+        controller.onBatchSent();
+        assertTrue(controller.sendDelay() > 0);
+    }
+
+    @Test
+    public void testBatchSizeIsAdditivelyRestoredAfterCongestion() throws Exception {
+        complete(ProcessingResult.Congestion, 10);
+        int reducedSize = controller.getBatchSize();
+
+        complete(ProcessingResult.Success, 10);
+        assertThat(controller.getBatchSize(), is(equalTo(reducedSize + MAX_BATCH_SIZE / 25)));
+
+        for (int i = 0; i < 100; i++) {
+            complete(ProcessingResult.Success, 10);
+        }
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE)));
+    }
+
+    @Test
+    public void testHighLatencyReducesBatchSizeDownToMinimum() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            complete(ProcessingResult.Success, TARGET_LATENCY_MS + 1);
+        }
+        assertThat(controller.getBatchSize(), is(equalTo(MIN_BATCH_SIZE)));
+        // Latency alone does not limit the send rate
+        assertThat(controller.getSendRateLimit(), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void testNetworkErrorsDoNotChangeState() throws Exception {
+        complete(ProcessingResult.TransientError, 10);
+        complete(ProcessingResult.PermanentError, 10);
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE)));
+        assertThat(controller.getSendRateLimit(), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void testSendRateLimitIsDroppedWhenNoLongerReached() throws Exception {
+        reduceToMinimumBatchSize();
+        complete(ProcessingResult.Congestion, 10);
+        double rateLimit = controller.getSendRateLimit();
+
+        complete(ProcessingResult.Success, 10);
+        assertThat(controller.getSendRateLimit(), is(equalTo(rateLimit + 1)));
+
+        // Batches sent every 100ms, which is far below a limit of more than 40 batches/sec
+        for (int i = 0; i < 3; i++) {
+            controller.onBatchSent();
+            Thread.sleep(100);
+        }
+        for (int i = 0; i < 50 && controller.getSendRateLimit() > 0; i++) {
+            complete(ProcessingResult.Success, 10);
+        }
+        assertThat(controller.getSendRateLimit(), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void testConcurrentSlowCompletionsDecreaseBatchSizeOnce() throws Exception {
+        final long sendTime = clock;
+        final long completionTime = sendTime + TARGET_LATENCY_MS + 1;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final ProcessingResult result = i % 2 == 0 ? ProcessingResult.Congestion : ProcessingResult.Success;
+            final long latency = i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // All batches were sent before any of them completed
+                    controller.onBatchCompleted(result, sendTime + latency % 2, completionTime + latency);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE / 2)));
+
+        // A batch sent after the decrease is a new signal
+        clock = completionTime + 100;
+        complete(ProcessingResult.Congestion, 10);
+        assertThat(controller.getBatchSize(), is(equalTo(MAX_BATCH_SIZE / 4)));
+    }
+
+    @Test
+    public void testCompletionsOfBatchesSentBeforeDecreaseAreIgnored() throws Exception {
+        long firstSendTime = clock;
+        complete(ProcessingResult.Congestion, 10);
+        int reducedSize = controller.getBatchSize();
+
+        // Sent before the decrease, so neither decreases nor increases the batch size
+        controller.onBatchCompleted(ProcessingResult.Congestion, firstSendTime + 1, clock + 50);
+        controller.onBatchCompleted(ProcessingResult.Success, firstSendTime + 2, clock + 60);
+        assertThat(controller.getBatchSize(), is(equalTo(reducedSize)));
+    }
+
+    /**
+     * Completes a batch sent after the completion of the previous one.
+     */
+    private void complete(ProcessingResult result, long latencyMs) {
+        long sendTime = ++clock;
+        clock += latencyMs;
+        controller.onBatchCompleted(result, sendTime, clock);
+    }
+
+    private void reduceToMinimumBatchSize() {
+        while (controller.getBatchSize() > MIN_BATCH_SIZE) {
+            complete(ProcessingResult.Success, TARGET_LATENCY_MS + 1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.netflix.eureka.util.batcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EventDrivenTaskDispatcherTest {
+
+    private static final long SERVER_UNAVAILABLE_SLEEP_TIME_MS = 1000;
+    private static final long RETRY_SLEEP_TIME_MS = 100;
+    private static final long MAX_BATCHING_DELAY_MS = 10;
+
+    private static final int MAX_BUFFER_SIZE = 2;
+
+    /**
+     * Task 0 blocks the single worker, so the following tasks pile up in the queue.
+     */
+    private static final int BLOCKING_TASK = 0;
+
+    private final BlockingProcessor processor = new BlockingProcessor();
+
+    private final EventDrivenTaskDispatcher<Integer, Integer> dispatcher = new EventDrivenTaskDispatcher<>(
+            "TEST", MAX_BUFFER_SIZE, 1, 1, MAX_BATCHING_DELAY_MS,
+            SERVER_UNAVAILABLE_SLEEP_TIME_MS, RETRY_SLEEP_TIME_MS, processor, null
+    );
+
+    @After
+    public void tearDown() throws Exception {
+        processor.release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testQueueOverflowDropsOldestTask() throws Exception {
+        blockWorker();
+
+        dispatcher.process(1, 1, expiryTime());
+        dispatcher.process(2, 2, expiryTime());
+        dispatcher.process(3, 3, expiryTime());
+
+        assertThat(dispatcher.queueOverflows.get(), is(equalTo(1L)));
+        assertThat(dispatcher.getQueueSize(), is(equalTo((long) MAX_BUFFER_SIZE)));
+
+        processor.release.countDown();
+        processor.expect(BLOCKING_TASK, 2, 3);
+    }
+
+    @Test
+    public void testConcurrentOverridesDuringOverflowDoNotOrphanTasks() throws Exception {
+        blockWorker();
+
+        final int idCount = 4;
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread submitter = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        dispatcher.process(1 + i % idCount, 1 + i % idCount, expiryTime());
+                    }
+                }
+            };
+            submitter.start();
+            submitters.add(submitter);
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        assertTrue("Queue grew past its bound", dispatcher.getQueueSize() <= MAX_BUFFER_SIZE + submitters.size());
+
+        processor.release.countDown();
+        long timeout = System.currentTimeMillis() + 5000;
+        while (dispatcher.getQueueSize() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.getQueueSize(), is(equalTo(0L)));
+        processor.processed.clear();
+
+        // A task left in the pending map without its id queued would swallow these overrides
+        for (int id = 1; id <= idCount; id++) {
+            dispatcher.process(id, -id, expiryTime());
+            assertThat(processor.processed.poll(5, TimeUnit.SECONDS), is(equalTo(-id)));
+        }
+    }
+
+    private void blockWorker() throws InterruptedException {
+        dispatcher.process(BLOCKING_TASK, BLOCKING_TASK, expiryTime());
+        assertTrue("Worker did not pick up the blocking task", processor.started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static long expiryTime() {
+        return System.currentTimeMillis() + 60 * 1000;
+    }
+
+    static class BlockingProcessor implements TaskProcessor<Integer> {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingQueue<Integer> processed = new LinkedBlockingQueue<>();
+
+        @Override
+        public ProcessingResult process(Integer task) {
+            if (task == BLOCKING_TASK) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            processed.add(task);
+            return ProcessingResult.Success;
+        }
+
+        @Override
+        public ProcessingResult process(List<Integer> tasks) {
+            throw new IllegalStateException("unexpected");
+        }
+
+        void expect(int... tasks) throws InterruptedException {
+            for (int task : tasks) {
+                Integer next = processed.poll(5, TimeUnit.SECONDS);
+                assertThat(next, is(notNullValue()));
+                assertThat(next, is(equalTo(task)));
+            }
+        }
+    }
+}
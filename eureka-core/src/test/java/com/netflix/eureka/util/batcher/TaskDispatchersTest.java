@@ -91,6 +91,81 @@ public class TaskDispatchersTest {
         processor.expectSuccesses(2);
     }
 
+    @Test
+    public void testEventDrivenSingleTaskDispatcher() throws Exception {
+        dispatcher = TaskDispatchers.createEventDrivenNonBatchingTaskDispatcher(
+                "TEST",
+                MAX_BUFFER_SIZE,
+                1,
+                MAX_BATCHING_DELAY_MS,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS,
+                RETRY_SLEEP_TIME_MS,
+                processor
+        );
+
+        dispatcher.process(1, ProcessingResult.Success, System.currentTimeMillis() + 60 * 1000);
+        ProcessingResult result = processor.completedTasks.poll(5, TimeUnit.SECONDS);
+        assertThat(result, is(equalTo(ProcessingResult.Success)));
+    }
+
+    @Test
+    public void testEventDrivenBatchingDispatcher() throws Exception {
+        dispatcher = TaskDispatchers.createEventDrivenBatchingTaskDispatcher(
+                "TEST",
+                MAX_BUFFER_SIZE,
+                WORK_LOAD_SIZE,
+                1,
+                MAX_BATCHING_DELAY_MS,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS,
+                RETRY_SLEEP_TIME_MS,
+                processor
+        );
+
+        dispatcher.process(1, ProcessingResult.Success, System.currentTimeMillis() + 60 * 1000);
+        dispatcher.process(2, ProcessingResult.Success, System.currentTimeMillis() + 60 * 1000);
+
+        processor.expectSuccesses(2);
+    }
+
+    @Test
+    public void testEventDrivenDispatcherReplacesQueuedTaskWithSameId() throws Exception {
+        dispatcher = TaskDispatchers.createEventDrivenBatchingTaskDispatcher(
+                "TEST",
+                MAX_BUFFER_SIZE,
+                10,
+                1,
+                200,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS,
+                RETRY_SLEEP_TIME_MS,
+                processor
+        );
+
+        // The batch is not complete, so the tasks wait for the batching delay, and only the last copy is processed
+        dispatcher.process(1, ProcessingResult.PermanentError, System.currentTimeMillis() + 60 * 1000);
+        dispatcher.process(1, ProcessingResult.Success, System.currentTimeMillis() + 60 * 1000);
+
+        processor.expectSuccesses(1);
+        assertThat(processor.permanentErrorTasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testEventDrivenDispatcherRetriesTransientErrors() throws Exception {
+        dispatcher = TaskDispatchers.createEventDrivenBatchingTaskDispatcher(
+                "TEST",
+                MAX_BUFFER_SIZE,
+                WORK_LOAD_SIZE,
+                1,
+                MAX_BATCHING_DELAY_MS,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS,
+                RETRY_SLEEP_TIME_MS,
+                processor
+        );
+
+        dispatcher.process(1, ProcessingResult.TransientError, System.currentTimeMillis() + 60 * 1000);
+
+        processor.expectTransientErrors(2);
+    }
+
     @Test
     public void testTasksAreDistributedAcrossAllWorkerThreads() throws Exception {
         int threadCount = 5;
@@ -19,7 +19,9 @@ package com.netflix.eureka.util.batcher;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
+import com.netflix.eureka.util.batcher.AsyncTaskProcessor.Callback;
 import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
 import org.junit.After;
 import org.junit.Before;
@@ -29,6 +31,10 @@ import static com.netflix.eureka.util.batcher.RecordingProcessor.permanentErrorT
 import static com.netflix.eureka.util.batcher.RecordingProcessor.successfulTaskHolder;
 import static com.netflix.eureka.util.batcher.RecordingProcessor.transientErrorTaskHolder;
 import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
@@ -121,4 +127,39 @@ public class TaskExecutorsTest {
         processor.expectPermanentErrors(2);
         verify(acceptorExecutor, never()).reprocess(taskHolderBatch, ProcessingResult.TransientError);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAsyncBatchProcessingIsBoundedByInFlightBatches() throws Exception {
+        PendingAsyncProcessor asyncProcessor = new PendingAsyncProcessor();
+        taskExecutors = TaskExecutors.asyncBatchExecutors("TEST", 1, asyncProcessor, acceptorExecutor);
+
+        List<TaskHolder<Integer, ProcessingResult>> firstBatch = asList(transientErrorTaskHolder(1));
+        List<TaskHolder<Integer, ProcessingResult>> secondBatch = asList(successfulTaskHolder(2));
+        taskBatchQueue.add(firstBatch);
+        taskBatchQueue.add(secondBatch);
+
+        // Second batch is not taken until the first one completes
+        Callback firstCallback = asyncProcessor.pendingCallbacks.poll(5, TimeUnit.SECONDS);
+        assertThat(firstCallback, is(notNullValue()));
+        assertThat(asyncProcessor.pendingCallbacks.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+
+        // Transient error puts the tasks back into the acceptor queue
+        firstCallback.onCompleted(ProcessingResult.TransientError);
+        verify(acceptorExecutor, timeout(500).times(1)).reprocess(firstBatch, ProcessingResult.TransientError);
+
+        Callback secondCallback = asyncProcessor.pendingCallbacks.poll(5, TimeUnit.SECONDS);
+        assertThat(secondCallback, is(notNullValue()));
+        secondCallback.onCompleted(ProcessingResult.Success);
+        verify(acceptorExecutor, never()).reprocess(secondBatch, ProcessingResult.TransientError);
+    }
+
+    static class PendingAsyncProcessor extends RecordingProcessor implements AsyncTaskProcessor<ProcessingResult> {
+
+        final BlockingQueue<Callback> pendingCallbacks = new LinkedBlockingDeque<>();
+
+        @Override
+        public void processAsync(List<ProcessingResult> tasks, Callback callback) {
+            pendingCallbacks.add(callback);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import javax.ws.rs.core.HttpHeaders;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.InterestSet;
 import com.netflix.discovery.util.EurekaEntityComparators;
 import com.netflix.discovery.util.InstanceInfoGenerator;
 import org.junit.Test;
@@ -105,6 +106,26 @@ public abstract class EurekaHttpClientCompatibilityTestSuite {
         verifyResponseOkWithEntity(apps, httpResponse);
     }
 
+    @Test
+    public void testGetApplicationsOfInterestRequest() throws Exception {
+        Applications apps = InstanceInfoGenerator.newBuilder(2, 1).build().toApplications();
+        InterestSet interestSet = InterestSet.newBuilder().withApplication("app1").withVipAddress("app2.vip").build();
+        when(requestHandler.getApplications(interestSet)).thenReturn(createResponse(apps));
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().getApplications(interestSet);
+        verifyResponseOkWithEntity(apps, httpResponse);
+    }
+
+    @Test
+    public void testGetDeltaSinceOfInterestRequest() throws Exception {
+        Applications delta = InstanceInfoGenerator.newBuilder(2, 1).build().takeDelta(2);
+        InterestSet interestSet = InterestSet.newBuilder().withSecureVipAddress("app1.svip").build();
+        when(requestHandler.getDeltaSince(5L, interestSet)).thenReturn(createResponse(delta));
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().getDeltaSince(5L, interestSet);
+        verifyResponseOkWithEntity(delta, httpResponse);
+    }
+
     @Test
     public void testGetDeltaRequest() throws Exception {
         Applications delta = InstanceInfoGenerator.newBuilder(2, 1).build().takeDelta(2);
@@ -114,6 +135,15 @@ public abstract class EurekaHttpClientCompatibilityTestSuite {
         verifyResponseOkWithEntity(delta, httpResponse);
     }
 
+    @Test
+    public void testGetDeltaSinceRequest() throws Exception {
+        Applications delta = InstanceInfoGenerator.newBuilder(2, 1).build().takeDelta(2);
+        when(requestHandler.getDeltaSince(5L)).thenReturn(createResponse(delta));
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().getDeltaSince(5L);
+        verifyResponseOkWithEntity(delta, httpResponse);
+    }
+
     @Test
     public void testGetInstanceRequest() throws Exception {
         InstanceInfo instance = InstanceInfoGenerator.takeOne();
@@ -33,6 +33,7 @@ import com.netflix.discovery.converters.wrappers.CodecWrappers;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonJson;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.InterestSet;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -122,9 +123,25 @@ public class SimpleEurekaHttpServer {
 
         Matcher matcher;
         if (path.matches("/v2/apps[/]?")) {
-            httpResponse = requestHandler.getApplications();
+            String interest = getQueryParam(httpExchange, "interest");
+            if (interest == null) {
+                httpResponse = requestHandler.getApplications();
+            } else {
+                httpResponse = requestHandler.getApplications(InterestSet.parse(interest));
+            }
         } else if (path.matches("/v2/apps/delta[/]?")) {
-            httpResponse = requestHandler.getDelta();
+            String since = getQueryParam(httpExchange, "since");
+            String interest = getQueryParam(httpExchange, "interest");
+            if (interest != null) {
+                InterestSet interestSet = InterestSet.parse(interest);
+                httpResponse = since == null
+                        ? requestHandler.getDelta(interestSet)
+                        : requestHandler.getDeltaSince(Long.parseLong(since), interestSet);
+            } else if (since == null) {
+                httpResponse = requestHandler.getDelta();
+            } else {
+                httpResponse = requestHandler.getDeltaSince(Long.parseLong(since));
+            }
         } else if ((matcher = Pattern.compile("/v2/apps/([^/]+)/([^/]+)").matcher(path)).matches()) {
             httpResponse = requestHandler.getInstance(matcher.group(1), matcher.group(2));
         } else {
@@ -252,7 +269,11 @@ public class SimpleEurekaHttpServer {
     }
 
     private static String getQueryParam(HttpExchange httpExchange, String queryParam) {
-        for (String part : httpExchange.getRequestURI().getQuery().split("&")) {
+        String query = httpExchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String part : query.split("&")) {
             String[] keyValue = part.split("=");
             if (keyValue.length > 1 && keyValue[0].equals(queryParam)) {
                 return keyValue[1];
@@ -0,0 +1,46 @@
+package com.netflix.discovery.shared.transport;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.wrappers.CodecWrappers.StreamingJson;
+import com.netflix.discovery.shared.resolver.DefaultEndpoint;
+import com.netflix.discovery.shared.transport.jersey.JerseyEurekaHttpClientFactory;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * Runs the compatibility suite with a client encoding and decoding with the streaming JSON codec, against
+ * the Jackson JSON codec of {@link SimpleEurekaHttpServer}.
+ */
+public class StreamingJsonEurekaHttpServerTest extends EurekaHttpClientCompatibilityTestSuite {
+
+    private TransportClientFactory httpClientFactory;
+    private EurekaHttpClient eurekaHttpClient;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        httpClientFactory = JerseyEurekaHttpClientFactory.newBuilder()
+                .withClientName("test")
+                .withMaxConnectionsPerHost(10)
+                .withMaxTotalConnections(10)
+                .withDecoder(StreamingJson.class.getSimpleName(), EurekaAccept.full.name())
+                .withEncoder(StreamingJson.class.getSimpleName())
+                .build();
+        int port = getHttpServer().getServerPort();
+        this.eurekaHttpClient = httpClientFactory.newClient(new DefaultEndpoint("http://localhost:" + port + "/v2"));
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        httpClientFactory.shutdown();
+        super.tearDown();
+    }
+
+    @Override
+    public EurekaHttpClient getEurekaHttpClient() {
+        return eurekaHttpClient;
+    }
+}